@@ -2,12 +2,25 @@ package com.kafka.groupe6.order_system;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Clock;
 
 @SpringBootApplication
+@EnableScheduling
 public class OrderSystemApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(OrderSystemApplication.class, args);
 	}
 
+	/**
+	 * Horloge murale des composants à expiration (remplacée dans les tests).
+	 */
+	@Bean
+	public Clock clock() {
+		return Clock.systemUTC();
+	}
+
 }
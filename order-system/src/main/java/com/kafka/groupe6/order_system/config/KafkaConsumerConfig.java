@@ -1,26 +1,71 @@
 package com.kafka.groupe6.order_system.config;
 
+import com.kafka.groupe6.order_system.consumer.AsyncOrderConsumerService;
+import com.kafka.groupe6.order_system.consumer.OrderConsumerService;
+import com.kafka.groupe6.order_system.consumer.OrderRecordFilter;
+import com.kafka.groupe6.order_system.consumer.OrderRetryConsumerService;
+import com.kafka.groupe6.order_system.consumer.OrderStageExecutors;
+import com.kafka.groupe6.order_system.consumer.ParallelOrderConsumerService;
+import com.kafka.groupe6.order_system.consumer.StagedOrderConsumerService;
 import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.exception.StageSaturatedException;
 import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+import com.kafka.groupe6.order_system.serialization.OrderDeserializer;
+import com.kafka.groupe6.order_system.serialization.OrderPreValidator;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.LongDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.BackOffHandler;
 import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.kafka.listener.ContainerPausingBackOffHandler;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultAfterRollbackProcessor;
+import org.springframework.kafka.listener.DefaultBackOffHandler;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.ListenerContainerPauseService;
+import org.springframework.kafka.listener.MessageListenerContainer;
 import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.FixedBackOff;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 
 /**
  * Configuration Kafka Consumer avec gestion avancée des erreurs.
@@ -28,10 +73,24 @@ import java.util.Map;
  * Responsable: EMANE (Tâche 4 - Parties B et C)
  * 
  * Fonctionnalités:
- * - DefaultErrorHandler avec retry (3 tentatives)
- * - Exponential backoff (1s, 2s, 4s)
+ * - Retry non bloquant par topics (app.retry.mode=topics, par défaut):
+ *   orders-retry-1s → orders-retry-10s → orders-dlq
+ * - Ou DefaultErrorHandler avec retry bloquant (app.retry.mode=blocking):
+ *   3 tentatives, exponential backoff (1s, 2s, 4s)
  * - DeadLetterPublishingRecoverer vers 'orders-dlq'
+ * - Messages illisibles (poison pills) envoyés tels quels en DLQ, sans retry
+ * - Modes record et staged: commandes terminées, rejouées ou de test écartées sur leurs headers (OrderRecordFilter)
  * - Headers d'erreur (exception, timestamp, retry-count)
+ * - Factory batch (un commit par lot, échecs partiels record par record)
+ * - Factory parallèle (ordre par clé, commit du dernier offset contigu)
+ * - Factory asynchrone (étapes non bloquantes, pause des partitions saturées)
+ * - Factory transactionnelle (exactly-once, une transaction par lot)
+ * - Factories du mode staged (une par étape: concurrence, retry et DLQ propres)
+ * - Factory du générateur de charge (latence de bout en bout, lecture seule)
+ * - Étapes sur pools bornés (app.consumer.bulkhead.enabled): pool plein → consumer en pause, commande relue
+ * - Threads des consumers en virtual threads si spring.threads.virtual.enabled=true (Java 21+)
+ * - Métriques: désérialisation et retries (OrderPipelineMetrics), client Kafka (lag par partition)
+ * - Traces: contexte lu dans les headers des records (app.tracing.enabled, voir TracingConfig)
  */
 @Configuration
 public class KafkaConsumerConfig {
@@ -44,36 +103,182 @@ public class KafkaConsumerConfig {
     private static final double MULTIPLIER = 2.0;           // Backoff multiplier
     private static final long MAX_INTERVAL_MS = 10000L;     // 10 secondes max
 
+    // Stratégie de retry: "topics" (non bloquant) ou "blocking" (backoff sur la partition)
+    private static final String RETRY_MODE_TOPICS = "topics";
+
+    @Value("${app.retry.mode:topics}")
+    private String retryMode = RETRY_MODE_TOPICS;
+
+    // Intervalle de commit en l'absence de nouveaux records (modes parallèle et async)
+    private static final long PARALLEL_IDLE_COMMIT_INTERVAL_MS = 1000L;
+
+    // Attente maximale d'un poll en mode async: reprise rapide des partitions en pause
+    private static final long ASYNC_POLL_TIMEOUT_MS = 100L;
+
+    // Nombre maximum de records par poll en mode batch / parallèle
+    @Value("${app.consumer.batch.max-poll-records:500}")
+    private int batchMaxPollRecords = 500;
+
+    // Mode transactionnel: records par poll, donc par transaction (traités un à un dans la transaction)
+    @Value("${app.consumer.transactional.max-poll-records:50}")
+    private int transactionalMaxPollRecords = 50;
+
+    // Même valeur que le producer transactionnel (KafkaProducerConfig)
+    @Value("${app.kafka.transactions.timeout-ms:60000}")
+    private long transactionTimeoutMs = 60000L;
+
+    // Commandes invalides rejetées sur les octets, avant désérialisation complète
+    @Value("${app.consumer.pre-validation.enabled:true}")
+    private boolean preValidation = true;
+
+    // Modes record et staged: records écartés sur leurs headers de routage, valeur non décodée
+    @Value("${app.consumer.filter.enabled:true}")
+    private boolean recordFilterEnabled = true;
+
+    // Mode staged: consumers par étape et par instance (au plus une partition chacun)
+    @Value("${app.consumer.staged.validate-concurrency:1}")
+    private int validateStageConcurrency = 1;
+
+    @Value("${app.consumer.staged.reserve-concurrency:1}")
+    private int reserveStageConcurrency = 1;
+
+    @Value("${app.consumer.staged.process-concurrency:3}")
+    private int processStageConcurrency = 3;
+
+    // Pool d'une étape plein (OrderStageExecutors): durée de pause du consumer avant de relire la commande
+    @Value("${app.consumer.bulkhead.pause-ms:1000}")
+    private long bulkheadPauseMs = 1000L;
+
+    // Observation des listeners: span consumer enfant du span producer (header traceparent)
+    @Value("${app.tracing.enabled:true}")
+    private boolean tracingEnabled = true;
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaTemplate<String, Object> transactionalKafkaTemplate;
+    private final boolean virtualThreads;
+    private final MeterRegistry meterRegistry;
+    private final OrderPipelineMetrics pipelineMetrics;
+    private final OrderRecordFilter recordFilter;
+    private final OrderStageExecutors stageExecutors;
+    private final TaskScheduler taskScheduler;
 
-    public KafkaConsumerConfig(KafkaTemplate<String, Object> kafkaTemplate) {
+    public KafkaConsumerConfig(
+            KafkaTemplate<String, Object> kafkaTemplate,
+            @Qualifier("transactionalKafkaTemplate") KafkaTemplate<String, Object> transactionalKafkaTemplate,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            OrderPipelineMetrics pipelineMetrics,
+            OrderRecordFilter recordFilter,
+            OrderStageExecutors stageExecutors,
+            @Lazy TaskScheduler taskScheduler) {
         this.kafkaTemplate = kafkaTemplate;
+        this.transactionalKafkaTemplate = transactionalKafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.pipelineMetrics = pipelineMetrics;
+        this.recordFilter = recordFilter;
+        this.stageExecutors = stageExecutors;
+        this.taskScheduler = taskScheduler;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+
+        if (!virtualThreads && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            logger.warn("⚠ spring.threads.virtual.enabled ignoré: Java 21+ requis (JRE {})", Runtime.version());
+        }
     }
 
+    /**
+     * Consumers des commandes.
+     *
+     * Un message illisible ne fait pas échouer le poll(): ErrorHandlingDeserializer
+     * renvoie une valeur null et joint au record la DeserializationException (avec
+     * les octets d'origine). Le container la transmet à l'error handler sans appeler
+     * le listener: non retriable, le message part directement en DLQ, octets intacts,
+     * et la partition continue.
+     *
+     * Pré-validation (app.consumer.pre-validation.enabled): une commande invalide n'est pas
+     * construite; valeur null et headers de rejet (OrderPreValidator), puis OrderValidationException
+     * dans le listener et envoi des octets d'origine en DLQ (RawPayloadRecoverer). Pas
+     * d'exception sérialisée dans les headers comme pour un message illisible.
+     */
     @Bean
     public ConsumerFactory<String, Order> consumerFactory() {
+        return orderConsumerFactory(null);
+    }
+
+    /**
+     * @param skip records dont la valeur n'est pas décodée (null), null pour tout décoder
+     */
+    private ConsumerFactory<String, Order> orderConsumerFactory(Predicate<Headers> skip) {
+        Map<String, Object> config = consumerConfig();
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, OrderDeserializer.class);
+        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        
+        // Binaire ou JSON selon le header content-type (trafic mixte pendant la migration)
+        DefaultKafkaConsumerFactory<String, Order> factory = new DefaultKafkaConsumerFactory<>(config, 
+            new StringDeserializer(), 
+            new ErrorHandlingDeserializer<>(new OrderDeserializer(pipelineMetrics.getDeserializeTimer(), preValidation, skip)));
+        // Métriques du client (dont kafka.consumer.fetch.manager.records.lag par partition)
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * Consumer de la DLQ: valeurs lues en octets bruts, jamais en échec, y compris
+     * pour les messages qui y sont arrivés parce qu'illisibles.
+     */
+    @Bean
+    public ConsumerFactory<String, byte[]> dlqConsumerFactory() {
+        DefaultKafkaConsumerFactory<String, byte[]> factory = new DefaultKafkaConsumerFactory<>(consumerConfig(),
+            new StringDeserializer(),
+            new ByteArrayDeserializer());
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * Consumer du store de stock (InventoryStateStore): pas de groupe, toutes les partitions
+     * de 'inventory' assignées, position tenue par la photo locale.
+     */
+    @Bean
+    public ConsumerFactory<String, Long> inventoryConsumerFactory(KafkaAdmin kafkaAdmin) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG,
+            kafkaAdmin.getConfigurationProperties().get(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG));
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), new LongDeserializer());
+    }
+
+    private static Map<String, Object> consumerConfig() {
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
         config.put(ConsumerConfig.GROUP_ID_CONFIG, "order-consumer-group");
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
         config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         
         // Configuration supplémentaire pour la robustesse
         config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10);
-        
-        return new DefaultKafkaConsumerFactory<>(config, 
-            new StringDeserializer(), 
-            new JsonDeserializer<>(Order.class));
+        // Ne jamais lire les messages d'une transaction annulée (mode transactionnel)
+        config.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        return config;
     }
 
+    /**
+     * Factory du mode record (app.consumer.mode=record, par défaut).
+     * Records écartés sur leurs headers avant décodage (configureRecordFilter); les modes
+     * à listener batch gardent consumerFactory(): leurs listeners reçoivent tout le lot.
+     */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Order> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, Order> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        configureRecordFilter(factory);
+        configureListenerThreads(factory);
+        configureObservation(factory);
         factory.setCommonErrorHandler(errorHandler());
         
         // Configuration supplémentaire
@@ -85,29 +290,365 @@ public class KafkaConsumerConfig {
         return factory;
     }
 
+    /**
+     * Factory du mode batch (app.consumer.mode=batch).
+     * Le listener reçoit tout le résultat d'un poll() et l'offset est commité
+     * une seule fois par lot (AckMode.BATCH) au lieu d'une fois par record.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        configureListenerThreads(factory);
+        configureObservation(factory);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(batchErrorHandler());
+        
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(
+            org.springframework.kafka.listener.ContainerProperties.AckMode.BATCH
+        );
+        
+        // Lots plus gros qu'en mode record (10 records par poll)
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        
+        logger.info("✓ Batch KafkaListenerContainerFactory configuré ({} records max par poll)", batchMaxPollRecords);
+        
+        return factory;
+    }
+
+    /**
+     * Factory du mode parallèle (app.consumer.mode=parallel).
+     * Les records d'un poll sont répartis sur un pool de threads ordonné par clé;
+     * le service commite lui-même le dernier offset contigu terminé,
+     * le container ne commite donc jamais (AckMode.MANUAL sans acknowledge).
+     * Le service met le container en pause quand trop de records sont en cours:
+     * les évènements idle continuent de commiter et de le reprendre.
+     * Le service est injecté en @Lazy: il référence lui-même cette factory
+     * dans son @KafkaListener.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> parallelKafkaListenerContainerFactory(
+            @Lazy ParallelOrderConsumerService parallelOrderConsumerService) {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        configureListenerThreads(factory);
+        configureObservation(factory);
+        factory.setBatchListener(true);
+        
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(
+            org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL
+        );
+        // Commit des offsets terminés même quand plus aucun record n'arrive
+        factory.getContainerProperties().setIdleEventInterval(PARALLEL_IDLE_COMMIT_INTERVAL_MS);
+        factory.getContainerProperties().setConsumerRebalanceListener(parallelOrderConsumerService);
+        
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        
+        logger.info("✓ Parallel KafkaListenerContainerFactory configuré");
+        
+        return factory;
+    }
+
+    /**
+     * Factory du mode asynchrone (app.consumer.mode=async).
+     * Même principe de commit que le mode parallèle (AckMode.MANUAL, le service
+     * commite le dernier offset contigu terminé). Poll court: une partition mise
+     * en pause par le service est reprise dès le poll suivant sa libération.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> asyncKafkaListenerContainerFactory(
+            @Lazy AsyncOrderConsumerService asyncOrderConsumerService) {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        configureListenerThreads(factory);
+        configureObservation(factory);
+        factory.setBatchListener(true);
+        
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(
+            org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL
+        );
+        factory.getContainerProperties().setPollTimeout(ASYNC_POLL_TIMEOUT_MS);
+        factory.getContainerProperties().setIdleEventInterval(PARALLEL_IDLE_COMMIT_INTERVAL_MS);
+        factory.getContainerProperties().setConsumerRebalanceListener(asyncOrderConsumerService);
+        
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        
+        logger.info("✓ Async KafkaListenerContainerFactory configuré");
+        
+        return factory;
+    }
+
+    /**
+     * Factory du mode transactionnel (app.consumer.mode=transactional).
+     * Le container ouvre une transaction avant chaque lot, le listener y publie
+     * ses résultats et le container y ajoute les offsets consommés avant le commit:
+     * sorties et offsets sont validés ensemble, ou pas du tout.
+     * Une transaction par poll (et non par record) limite les allers-retours broker.
+     *
+     * Lots courts (app.consumer.transactional.max-poll-records): les commandes sont traitées
+     * une à une dans la transaction, qui doit se terminer avant transaction.timeout.ms
+     * (sinon le broker l'annule et le lot entier est rejoué). Vérifié au démarrage.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> transactionalKafkaListenerContainerFactory(
+            KafkaTransactionManager<String, Object> kafkaTransactionManager) {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        configureListenerThreads(factory);
+        configureObservation(factory);
+        factory.setBatchListener(true);
+        
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(
+            org.springframework.kafka.listener.ContainerProperties.AckMode.BATCH
+        );
+        factory.getContainerProperties().setKafkaAwareTransactionManager(kafkaTransactionManager);
+        
+        // Les échecs métier sont routés dans la transaction par le listener: un rollback
+        // ne vient que d'un problème d'infrastructure (broker, commit, délai dépassé).
+        // Le lot est relivré MAX_RETRIES fois (1 s d'écart), puis ses records partent en DLQ
+        // et leurs offsets sont commités dans une nouvelle transaction: pas de boucle sans fin.
+        factory.setAfterRollbackProcessor(new DefaultAfterRollbackProcessor<>(
+            createDeadLetterRecoverer(transactionalKafkaTemplate),
+            new FixedBackOff(INITIAL_INTERVAL_MS, MAX_RETRIES),
+            transactionalKafkaTemplate,
+            true));
+        
+        long worstCaseBatchMs = (long) transactionalMaxPollRecords * OrderConsumerService.PROCESSING_DELAY_MAX_MS;
+        if (worstCaseBatchMs >= transactionTimeoutMs) {
+            throw new IllegalStateException("app.consumer.transactional.max-poll-records=" + transactionalMaxPollRecords
+                + " : jusqu'à " + worstCaseBatchMs + " ms par transaction, au-delà de app.kafka.transactions.timeout-ms="
+                + transactionTimeoutMs);
+        }
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+            String.valueOf(transactionalMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        
+        logger.info("✓ Transactional KafkaListenerContainerFactory configuré ({} records max par transaction, "
+            + "{} ms au pire pour {} ms de délai)", transactionalMaxPollRecords, worstCaseBatchMs, transactionTimeoutMs);
+        
+        return factory;
+    }
+
+    /**
+     * Mode staged (app.consumer.mode=staged), étape 1: validation sur 'orders-input'.
+     * Même filtrage sur les headers que le mode record.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> validateStageKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+            stageContainerFactory("validate-stage", validateStageConcurrency, deadLetterPublishingRecoverer());
+        configureRecordFilter(factory);
+        return factory;
+    }
+
+    /**
+     * Mode staged, étape 2: réservation du stock sur 'orders-validated'.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> reserveStageKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+            stageContainerFactory("reserve-stage", reserveStageConcurrency, deadLetterPublishingRecoverer());
+        factory.setConsumerFactory(consumerFactory());
+        return factory;
+    }
+
+    /**
+     * Mode staged, étape 3: traitement et publication sur 'orders-reserved'.
+     * Une commande envoyée en DLQ rend d'abord son stock, réservé à l'étape 2.
+     * Le service est injecté en @Lazy: il référence lui-même cette factory.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> processStageKafkaListenerContainerFactory(
+            @Lazy StagedOrderConsumerService stagedOrderConsumerService) {
+        DeadLetterPublishingRecoverer deadLetterRecoverer = deadLetterPublishingRecoverer();
+        ConsumerRecordRecoverer recoverer = (record, exception) -> {
+            stagedOrderConsumerService.releaseReserved(record);
+            deadLetterRecoverer.accept(record, exception);
+        };
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+            stageContainerFactory("process-stage", processStageConcurrency, recoverer);
+        factory.setConsumerFactory(consumerFactory());
+        return factory;
+    }
+
+    /**
+     * Container d'une étape du mode staged: un record à la fois, offset commité après
+     * l'envoi vers l'étape suivante. Retry bloquant de la seule étape (1s, 2s, 4s, quel
+     * que soit app.retry.mode: les topics de retry rejoueraient tout le traitement), puis
+     * DLQ avec le topic de l'étape comme topic d'origine.
+     *
+     * @param stage tag source des retries comptés (orders.retry.attempts)
+     */
+    private ConcurrentKafkaListenerContainerFactory<String, Order> stageContainerFactory(
+            String stage, int concurrency, ConsumerRecordRecoverer recoverer) {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        configureListenerThreads(factory);
+        configureObservation(factory);
+        factory.setCommonErrorHandler(configureErrorHandler(
+            new DefaultErrorHandler(recoverer, orderRetryBackOff()), stage));
+
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(
+            org.springframework.kafka.listener.ContainerProperties.AckMode.RECORD
+        );
+
+        logger.info("✓ Staged KafkaListenerContainerFactory '{}' configuré (concurrence {})", stage, concurrency);
+
+        return factory;
+    }
+
+    /**
+     * Consumer factory des listeners record de 'orders-input' (modes record et staged).
+     *
+     * Filtrage (app.consumer.filter.enabled): les records écartés par OrderRecordFilter
+     * sur leurs headers ne sont pas décodés (consumer factory dédiée, valeur null), puis
+     * ne passent pas par le listener; leur offset est commité comme celui d'un record traité.
+     */
+    private void configureRecordFilter(ConcurrentKafkaListenerContainerFactory<String, Order> factory) {
+        if (recordFilterEnabled) {
+            factory.setConsumerFactory(orderConsumerFactory(recordFilter::matches));
+            factory.setRecordFilterStrategy(recordFilter);
+            factory.setAckDiscarded(true);
+        } else {
+            factory.setConsumerFactory(consumerFactory());
+        }
+    }
+
     /**
      * PARTIE B: Configuration du DefaultErrorHandler avec retry et exponential backoff.
      * PARTIE C: Configuration du DeadLetterPublishingRecoverer.
      */
     @Bean
     public CommonErrorHandler errorHandler() {
-        // Configuration de l'exponential backoff
+        DefaultErrorHandler errorHandler = createDefaultErrorHandler();
+        
+        if (isRetryTopicsMode()) {
+            logger.info("✓ DefaultErrorHandler configuré avec retry non bloquant par topics");
+        } else {
+            logger.info("✓ DefaultErrorHandler configuré avec {} retries et exponential backoff", MAX_RETRIES);
+        }
+        
+        return errorHandler;
+    }
+
+    /**
+     * Error handler du mode batch.
+     * Le listener signale le record fautif via BatchListenerFailedException:
+     * les offsets précédents sont commités, seul ce record passe par
+     * retry puis DLQ, et le reste du lot est relivré.
+     */
+    @Bean
+    public CommonErrorHandler batchErrorHandler() {
+        DefaultErrorHandler errorHandler = createDefaultErrorHandler();
+        
+        logger.info("✓ DefaultErrorHandler (batch) configuré, retry {} du record en échec",
+            isRetryTopicsMode() ? "non bloquant" : "bloquant");
+        
+        return errorHandler;
+    }
+
+    /**
+     * Exponential backoff commun (1s, 2s, 4s): utilisé par les error handlers
+     * et par les retries locaux du mode parallèle.
+     */
+    @Bean
+    public BackOff orderRetryBackOff() {
         ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(MAX_RETRIES);
         backOff.setInitialInterval(INITIAL_INTERVAL_MS);
         backOff.setMultiplier(MULTIPLIER);
         backOff.setMaxInterval(MAX_INTERVAL_MS);
+        return backOff;
+    }
+
+    private DefaultErrorHandler createDefaultErrorHandler() {
+        DefaultErrorHandler errorHandler;
+        if (isRetryTopicsMode()) {
+            // Retry non bloquant: pas d'attente sur la partition, le message part
+            // immédiatement vers le palier de retry suivant (ou la DLQ)
+            errorHandler = new DefaultErrorHandler(retryTopicRecoverer(), new FixedBackOff(0L, 0L),
+                stageBackOffHandler());
+        } else {
+            // Retry bloquant: DLQ recoverer et exponential backoff
+            errorHandler = new DefaultErrorHandler(
+                deadLetterPublishingRecoverer(),
+                orderRetryBackOff(),
+                stageBackOffHandler()
+            );
+        }
+        configureStageBackPressure(errorHandler);
         
-        // Création du DefaultErrorHandler avec DLQ recoverer
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(
-            deadLetterPublishingRecoverer(),
-            backOff
-        );
-        
-        // Configuration des exceptions non-retriables (pas de retry)
+        // En mode topics, chaque palier est compté à sa consommation par OrderRetryConsumerService
+        return configureErrorHandler(errorHandler, isRetryTopicsMode() ? null : "blocking");
+    }
+
+    /**
+     * Pool d'une étape plein (StageSaturatedException, OrderStageExecutors): la commande
+     * n'est ni retentée ni envoyée en DLQ. Le consumer est mis en pause pendant
+     * app.consumer.bulkhead.pause-ms (il continue de poller, sans rebalance), puis relit
+     * la commande; autant de fois que nécessaire. Les autres échecs gardent leur backoff.
+     */
+    private void configureStageBackPressure(DefaultErrorHandler errorHandler) {
+        if (stageExecutors.isEnabled()) {
+            errorHandler.setBackOffFunction((record, ex) -> hasCause(ex, StageSaturatedException.class)
+                ? new FixedBackOff(bulkheadPauseMs, FixedBackOff.UNLIMITED_ATTEMPTS)
+                : null);
+        }
+    }
+
+    /**
+     * Attente entre deux tentatives: pause du container pour un pool saturé,
+     * sleep du thread du consumer sinon (comportement par défaut).
+     *
+     * @return null sans pools d'étapes (handler par défaut de DefaultErrorHandler)
+     */
+    private BackOffHandler stageBackOffHandler() {
+        if (!stageExecutors.isEnabled()) {
+            return null;
+        }
+        BackOffHandler pausing = new ContainerPausingBackOffHandler(
+            new ListenerContainerPauseService(null, taskScheduler));
+        BackOffHandler sleeping = new DefaultBackOffHandler();
+        return new BackOffHandler() {
+            @Override
+            public void onNextBackOff(MessageListenerContainer container, Exception exception, long nextBackOff) {
+                (hasCause(exception, StageSaturatedException.class) ? pausing : sleeping)
+                    .onNextBackOff(container, exception, nextBackOff);
+            }
+        };
+    }
+
+    /**
+     * Exceptions non retriables, logging des échecs et comptage des retries bloquants.
+     *
+     * @param retrySource tag source de orders.retry.attempts, null pour ne pas compter
+     */
+    private DefaultErrorHandler configureErrorHandler(DefaultErrorHandler errorHandler, String retrySource) {
+        // Configuration des exceptions non-retriables (pas de retry); DeserializationException
+        // (message illisible) l'est déjà par défaut
         errorHandler.addNotRetryableExceptions(OrderValidationException.class);
         
-        // Logging des retries
+        // Logging des échecs; comptage des retries bloquants
         errorHandler.setRetryListeners((record, ex, deliveryAttempt) -> {
+            if (retrySource != null && deliveryAttempt <= MAX_RETRIES && !isNonRetriable(ex)
+                    && !hasCause(ex, StageSaturatedException.class)) {
+                pipelineMetrics.countRetry(retrySource);
+            }
             logger.warn("⚠ Retry {} pour le message [topic={}, partition={}, offset={}]: {}",
                 deliveryAttempt,
                 record.topic(),
@@ -117,19 +658,29 @@ public class KafkaConsumerConfig {
             );
         });
         
-        logger.info("✓ DefaultErrorHandler configuré avec {} retries et exponential backoff", MAX_RETRIES);
-        
         return errorHandler;
     }
 
+    /**
+     * Erreur de validation ou message illisible (non retriables), éventuellement
+     * enveloppés par le container.
+     */
+    private static boolean isNonRetriable(Throwable ex) {
+        return hasCause(ex, OrderValidationException.class) || hasCause(ex, DeserializationException.class);
+    }
+
     /**
      * PARTIE C: Configuration du DeadLetterPublishingRecoverer.
      * Route les messages en échec vers 'orders-dlq' avec headers d'erreur.
      */
     @Bean
     public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer() {
-        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
-            kafkaTemplate,
+        return createDeadLetterRecoverer(kafkaTemplate);
+    }
+
+    private DeadLetterPublishingRecoverer createDeadLetterRecoverer(KafkaOperations<String, Object> template) {
+        DeadLetterPublishingRecoverer recoverer = new RawPayloadRecoverer(
+            template,
             (record, exception) -> {
                 // Route vers le topic DLQ
                 logger.error("✗ Message envoyé vers DLQ: topic={}, partition={}, offset={}, exception={}",
@@ -155,14 +706,200 @@ public class KafkaConsumerConfig {
     }
 
     /**
-     * Factory spécifique pour le consumer DLQ.
-     * IMPORTANT: Pas d'error handler pour éviter une boucle infinie.
+     * Recoverer du mode app.retry.mode=topics.
+     * Route un message en échec vers le palier suivant:
+     * orders-input → orders-retry-1s → orders-retry-10s → orders-dlq.
+     * Les erreurs de validation et les messages illisibles vont directement en DLQ.
      */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Order> dlqKafkaListenerContainerFactory() {
+    public DeadLetterPublishingRecoverer retryTopicRecoverer() {
+        return createRetryTopicRecoverer(kafkaTemplate);
+    }
+
+    private DeadLetterPublishingRecoverer createRetryTopicRecoverer(KafkaOperations<String, Object> template) {
+        DeadLetterPublishingRecoverer recoverer = new RawPayloadRecoverer(
+            template,
+            (record, exception) -> {
+                String destination = nextRetryDestination(record.topic(), exception);
+                logger.warn("↻ Message routé vers '{}': topic={}, partition={}, offset={}, exception={}",
+                    destination,
+                    record.topic(),
+                    record.partition(),
+                    record.offset(),
+                    exception.getMessage()
+                );
+                if (KafkaTopicConfig.ORDERS_DLQ_TOPIC.equals(destination)) {
+                    return new TopicPartition(destination, record.partition());
+                }
+                // Partition choisie par le producer (même clé → même partition de retry)
+                return new TopicPartition(destination, -1);
+            }
+        );
+        
+        // Échéance du prochain essai et numéro de tentative
+        recoverer.setHeadersFunction((record, exception) -> {
+            String destination = nextRetryDestination(record.topic(), exception);
+            long delayMs = retryDelay(destination);
+            Header previousAttempt = record.headers().lastHeader(OrderRetryConsumerService.RETRY_ATTEMPT_HEADER);
+            long attempt = previousAttempt != null && previousAttempt.value().length == Long.BYTES
+                ? ByteBuffer.wrap(previousAttempt.value()).getLong() + 1
+                : 1L;
+            
+            RecordHeaders headers = new RecordHeaders();
+            headers.add(OrderRetryConsumerService.RETRY_DUE_AT_HEADER,
+                ByteBuffer.allocate(Long.BYTES).putLong(System.currentTimeMillis() + delayMs).array());
+            headers.add(OrderRetryConsumerService.RETRY_ATTEMPT_HEADER,
+                ByteBuffer.allocate(Long.BYTES).putLong(attempt).array());
+            return headers;
+        });
+        
+        logger.info("✓ Retry topics configurés: {} → {} → {}",
+            KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC,
+            KafkaTopicConfig.ORDERS_RETRY_10S_TOPIC,
+            KafkaTopicConfig.ORDERS_DLQ_TOPIC);
+        
+        return recoverer;
+    }
+
+    /**
+     * Recoverer du mode transactionnel: même routage que le mode de retry
+     * (palier de retry ou DLQ), mais publié dans la transaction du lot.
+     * Pas d'attente de l'ack: un envoi en échec fait échouer le commit
+     * de la transaction, et le lot est relivré.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer transactionalRecoverer() {
+        DeadLetterPublishingRecoverer recoverer = isRetryTopicsMode()
+            ? createRetryTopicRecoverer(transactionalKafkaTemplate)
+            : createDeadLetterRecoverer(transactionalKafkaTemplate);
+        recoverer.setFailIfSendResultIsError(false);
+        return recoverer;
+    }
+
+    /**
+     * Factory des consumers de retry (app.retry.mode=topics).
+     * AckMode manuel: nack(délai) met la partition en pause jusqu'à l'échéance
+     * du message au lieu d'endormir le thread.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> retryKafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, Order> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        configureListenerThreads(factory);
+        configureObservation(factory);
+        factory.setCommonErrorHandler(errorHandler());
+        
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(
+            org.springframework.kafka.listener.ContainerProperties.AckMode.MANUAL_IMMEDIATE
+        );
+        
+        logger.info("✓ Retry KafkaListenerContainerFactory configuré");
+        
+        return factory;
+    }
+
+    /**
+     * Thread du consumer sur un virtual thread quand le mode est actif:
+     * les attentes bloquantes du listener (sleep, join) libèrent le thread porteur.
+     * Sinon, thread plateforme par défaut du container.
+     */
+    private void configureListenerThreads(ConcurrentKafkaListenerContainerFactory<?, ?> factory) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
+
+    /**
+     * Span consumer par record, rattaché à la trace du producer (header traceparent),
+     * actif pendant le listener: les envois du listener, retries et DLQ compris,
+     * propagent la même trace. Les listeners batch ne sont pas observés par spring-kafka.
+     */
+    private void configureObservation(ConcurrentKafkaListenerContainerFactory<?, ?> factory) {
+        factory.getContainerProperties().setObservationEnabled(tracingEnabled);
+    }
+
+    private boolean isRetryTopicsMode() {
+        return RETRY_MODE_TOPICS.equals(retryMode);
+    }
+
+    private static String nextRetryDestination(String sourceTopic, Exception exception) {
+        if (isNonRetriable(exception)) {
+            return KafkaTopicConfig.ORDERS_DLQ_TOPIC;
+        }
+        switch (sourceTopic) {
+            case KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC:
+                return KafkaTopicConfig.ORDERS_RETRY_10S_TOPIC;
+            case KafkaTopicConfig.ORDERS_RETRY_10S_TOPIC:
+                return KafkaTopicConfig.ORDERS_DLQ_TOPIC;
+            default:
+                return KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC;
+        }
+    }
+
+    private static long retryDelay(String destination) {
+        switch (destination) {
+            case KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC:
+                return OrderRetryConsumerService.RETRY_1S_DELAY_MS;
+            case KafkaTopicConfig.ORDERS_RETRY_10S_TOPIC:
+                return OrderRetryConsumerService.RETRY_10S_DELAY_MS;
+            default:
+                return 0L;
+        }
+    }
+
+    private static boolean hasCause(Throwable exception, Class<? extends Throwable> type) {
+        for (Throwable current = exception; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Factory du listener de latence du générateur de charge sur 'orders-processed'.
+     * Lecture seule: pas d'error handler (rien à rejouer), lots par poll,
+     * et seulement les nouveaux messages (offset 'latest').
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Order> loadGenKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Order> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        configureListenerThreads(factory);
+        configureObservation(factory);
+        factory.setBatchListener(true);
+
+        factory.setConcurrency(1);
+        factory.getContainerProperties().setAckMode(
+            org.springframework.kafka.listener.ContainerProperties.AckMode.BATCH
+        );
+
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+
+        logger.info("✓ LoadGen KafkaListenerContainerFactory configuré");
+
+        return factory;
+    }
+
+    /**
+     * Factory spécifique pour le consumer DLQ.
+     * IMPORTANT: Pas d'error handler pour éviter une boucle infinie.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> dlqKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(dlqConsumerFactory());
+        configureListenerThreads(factory);
+        configureObservation(factory);
         // Pas d'error handler - les messages DLQ sont loggés mais pas re-routés
         factory.setConcurrency(1);
         factory.getContainerProperties().setAckMode(
@@ -173,4 +910,28 @@ public class KafkaConsumerConfig {
         
         return factory;
     }
+
+    /**
+     * Recoverer qui publie les octets d'origine d'un record rejeté par la pré-validation
+     * (valeur null, header x-order-rejected), comme pour un message illisible.
+     * Le header des octets n'est pas recopié: le contenu n'est envoyé qu'une fois.
+     */
+    private static final class RawPayloadRecoverer extends DeadLetterPublishingRecoverer {
+
+        private RawPayloadRecoverer(KafkaOperations<String, Object> template,
+                                    BiFunction<ConsumerRecord<?, ?>, Exception, TopicPartition> destinationResolver) {
+            super(template, destinationResolver);
+        }
+
+        @Override
+        protected ProducerRecord<Object, Object> createProducerRecord(ConsumerRecord<?, ?> record,
+                TopicPartition topicPartition, Headers headers, byte[] key, byte[] value) {
+            byte[] rejected = record.value() == null && value == null ? OrderPreValidator.rejectedPayload(headers) : null;
+            if (rejected != null) {
+                headers.remove(OrderPreValidator.REJECTED_HEADER);
+                return super.createProducerRecord(record, topicPartition, headers, key, rejected);
+            }
+            return super.createProducerRecord(record, topicPartition, headers, key, value);
+        }
+    }
 }
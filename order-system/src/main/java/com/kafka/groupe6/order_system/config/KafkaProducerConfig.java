@@ -1,33 +1,132 @@
 package com.kafka.groupe6.order_system.config;
 
+import com.kafka.groupe6.order_system.producer.OrderPartitioner;
+import com.kafka.groupe6.order_system.serialization.OrderSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.LongSerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
 public class KafkaProducerConfig {
 
+    // Préfixe des transactional.id (un id par producer du pool transactionnel)
+    @Value("${app.kafka.transactions.id-prefix:order-tx-}")
+    private String transactionIdPrefix = "order-tx-";
+
+    // Durée maximale d'une transaction avant son annulation par le broker (transaction.timeout.ms)
+    @Value("${app.kafka.transactions.timeout-ms:60000}")
+    private int transactionTimeoutMs = 60000;
+
+    // Topics dont les commandes sont encodées en binaire (les autres restent en JSON)
+    @Value("${app.serialization.binary-topics:}")
+    private String[] binaryTopics = new String[0];
+
+    // Records sans clé envoyés sur la même partition avant de passer à la suivante
+    @Value("${app.partitioning.sticky-records:100}")
+    private int stickyRecords = 100;
+
+    // Observation des envois: span producer et header traceparent sur chaque record
+    @Value("${app.tracing.enabled:true}")
+    private boolean tracingEnabled = true;
+
     @Bean
+    @Primary
     public ProducerFactory<String, Object> producerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerConfig(), new StringSerializer(), orderSerializer());
+    }
+
+    @Bean
+    @Primary
+    public KafkaTemplate<String, Object> kafkaTemplate() {
+        return observed(new KafkaTemplate<>(producerFactory()));
+    }
+
+    /**
+     * Producer transactionnel du mode exactly-once (app.consumer.mode=transactional).
+     * Idempotent (pas de doublon en cas de retry réseau) et acks=all, requis
+     * par les transactions Kafka. transaction.timeout.ms fixé explicitement: il doit
+     * dépasser le traitement d'un lot complet (vérifié par KafkaConsumerConfig).
+     */
+    @Bean
+    public ProducerFactory<String, Object> transactionalProducerFactory() {
+        Map<String, Object> config = producerConfig();
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.TRANSACTION_TIMEOUT_CONFIG, transactionTimeoutMs);
+
+        DefaultKafkaProducerFactory<String, Object> factory =
+            new DefaultKafkaProducerFactory<>(config, new StringSerializer(), orderSerializer());
+        factory.setTransactionIdPrefix(transactionIdPrefix);
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> transactionalKafkaTemplate() {
+        return observed(new KafkaTemplate<>(transactionalProducerFactory()));
+    }
+
+    /**
+     * Transaction manager utilisé par le container transactionnel: il démarre
+     * la transaction avant le listener et y ajoute les offsets consommés
+     * (sendOffsetsToTransaction) avant le commit.
+     */
+    @Bean
+    public KafkaTransactionManager<String, Object> kafkaTransactionManager() {
+        return new KafkaTransactionManager<>(transactionalProducerFactory());
+    }
+
+    /**
+     * Publication des composantes du stock (InventoryStateStore) vers le topic 'inventory'.
+     * Idempotent et acks=all: un cumul acquitté n'est ni perdu ni dupliqué.
+     */
+    @Bean
+    public ProducerFactory<String, Long> inventoryProducerFactory(KafkaAdmin kafkaAdmin) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG,
+            kafkaAdmin.getConfigurationProperties().get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        return new DefaultKafkaProducerFactory<>(config, new StringSerializer(), new LongSerializer());
+    }
+
+    /**
+     * Contexte de trace courant (requête HTTP, listener) propagé dans les headers
+     * des records, y compris ceux republiés vers les topics de retry et la DLQ.
+     */
+    private KafkaTemplate<String, Object> observed(KafkaTemplate<String, Object> template) {
+        template.setObservationEnabled(tracingEnabled);
+        return template;
+    }
+
+    private Map<String, Object> producerConfig() {
         Map<String, Object> config = new HashMap<>();
 
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, OrderPartitioner.class);
+        config.put(OrderPartitioner.STICKY_RECORDS_CONFIG, stickyRecords);
 
-        return new DefaultKafkaProducerFactory<>(config);
+        return config;
     }
 
-    @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    /**
+     * Binaire (OrderBinaryCodec) pour les commandes des topics de
+     * app.serialization.binary-topics, JSON ailleurs.
+     */
+    private OrderSerializer orderSerializer() {
+        return new OrderSerializer(Arrays.asList(binaryTopics));
     }
 }
@@ -1,6 +1,7 @@
 package com.kafka.groupe6.order_system.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -12,27 +13,124 @@ public class KafkaTopicConfig {
     public static final String ORDERS_PROCESSED_TOPIC = "orders-processed";
     public static final String ORDERS_DLQ_TOPIC = "orders-dlq";
 
+    // Topics de retry non bloquant (délai croissant avant la DLQ)
+    public static final String ORDERS_RETRY_1S_TOPIC = "orders-retry-1s";
+    public static final String ORDERS_RETRY_10S_TOPIC = "orders-retry-10s";
+
+    // Topics intermédiaires du mode staged (app.consumer.mode=staged):
+    // orders-input → orders-validated → orders-reserved → orders-processed
+    public static final String ORDERS_VALIDATED_TOPIC = "orders-validated";
+    public static final String ORDERS_RESERVED_TOPIC = "orders-reserved";
+
+    // Composantes du stock (topic compacté: seule la dernière valeur de chaque clé est conservée)
+    public static final String INVENTORY_TOPIC = "inventory";
+
+    // Fixe, indépendant de app.topics.*: voir inventoryTopic()
+    public static final int INVENTORY_PARTITIONS = 1;
+
+    // Débit cible de l'ingestion (commandes/s)
+    @Value("${app.topics.target-throughput:3000}")
+    private long targetThroughput = 3000;
+
+    // Débit soutenu par un consumer sur une partition (commandes/s)
+    @Value("${app.topics.partition-throughput:1000}")
+    private long partitionThroughput = 1000;
+
+    @Value("${app.topics.replicas:1}")
+    private int replicas = 1;
+
+    /**
+     * Nombre de partitions pour absorber le débit cible: une partition n'est
+     * consommée que par un seul consumer du groupe, c'est l'unité de parallélisme.
+     */
+    public static int partitionsFor(long targetThroughput, long partitionThroughput) {
+        long partitions = (targetThroughput + partitionThroughput - 1) / Math.max(1, partitionThroughput);
+        return (int) Math.max(1, partitions);
+    }
+
     @Bean
     public NewTopic ordersInputTopic() {
         return TopicBuilder.name(ORDERS_INPUT_TOPIC)
-                .partitions(1)
-                .replicas(1)
+                .partitions(partitions())
+                .replicas(replicas)
                 .build();
     }
 
     @Bean
     public NewTopic ordersProcessedTopic() {
         return TopicBuilder.name(ORDERS_PROCESSED_TOPIC)
-                .partitions(1)
-                .replicas(1)
+                .partitions(partitions())
+                .replicas(replicas)
                 .build();
     }
 
+    /**
+     * La DLQ doit avoir au moins autant de partitions que les topics sources:
+     * le recoverer publie sur la partition d'origine (record.partition()).
+     * Vérifié au démarrage par KafkaTopicLayoutVerifier.
+     */
     @Bean
     public NewTopic ordersDlqTopic() {
         return TopicBuilder.name(ORDERS_DLQ_TOPIC)
-                .partitions(1)
-                .replicas(1)
+                .partitions(partitions())
+                .replicas(replicas)
+                .build();
+    }
+
+    @Bean
+    public NewTopic ordersRetry1sTopic() {
+        return TopicBuilder.name(ORDERS_RETRY_1S_TOPIC)
+                .partitions(partitions())
+                .replicas(replicas)
                 .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public NewTopic ordersRetry10sTopic() {
+        return TopicBuilder.name(ORDERS_RETRY_10S_TOPIC)
+                .partitions(partitions())
+                .replicas(replicas)
+                .build();
+    }
+
+    @Bean
+    public NewTopic ordersValidatedTopic() {
+        return TopicBuilder.name(ORDERS_VALIDATED_TOPIC)
+                .partitions(partitions())
+                .replicas(replicas)
+                .build();
+    }
+
+    @Bean
+    public NewTopic ordersReservedTopic() {
+        return TopicBuilder.name(ORDERS_RESERVED_TOPIC)
+                .partitions(partitions())
+                .replicas(replicas)
+                .build();
+    }
+
+    /**
+     * Source de vérité du stock (InventoryStateStore): clé "SKU" = niveau de base,
+     * clé "SKU@instance" = cumul des réservations de cette instance.
+     * Compacté: la taille du topic, donc la relecture sans photo, est bornée
+     * par le nombre de composantes et non par l'historique des réservations.
+     *
+     * Nombre de partitions fixe: en ajouter déplacerait des clés vers d'autres
+     * partitions, invaliderait les photos du stock (partitions différentes) et
+     * la relecture complète pourrait appliquer une valeur périmée en dernier.
+     * Le débit du topic (une publication par clé modifiée par intervalle) ne
+     * dépend pas de celui des commandes.
+     */
+    @Bean
+    public NewTopic inventoryTopic() {
+        return TopicBuilder.name(INVENTORY_TOPIC)
+                .partitions(INVENTORY_PARTITIONS)
+                .replicas(replicas)
+                .compact()
+                .build();
+    }
+
+    private int partitions() {
+        return partitionsFor(targetThroughput, partitionThroughput);
+    }
+}
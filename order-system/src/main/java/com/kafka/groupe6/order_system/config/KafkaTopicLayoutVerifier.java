@@ -0,0 +1,114 @@
+package com.kafka.groupe6.order_system.config;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vérification au démarrage du nombre de partitions de la DLQ.
+ *
+ * Les recoverers (deadLetterPublishingRecoverer, retryTopicRecoverer) publient
+ * dans 'orders-dlq' sur la partition d'origine du message (record.partition()).
+ * Si un topic source a plus de partitions que la DLQ (topic créé ou agrandi
+ * hors de l'application), l'envoi en DLQ échouerait pour ces partitions:
+ * le démarrage est refusé plutôt que de le découvrir au premier message en erreur.
+ *
+ * Vérifié avant le démarrage des listeners Kafka (phase inférieure): aucun
+ * message n'est consommé avec une DLQ trop petite.
+ */
+@Component
+public class KafkaTopicLayoutVerifier implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaTopicLayoutVerifier.class);
+
+    // Topics dont les messages en échec sont routés vers la DLQ
+    private static final List<String> DLQ_SOURCE_TOPICS = List.of(
+        KafkaTopicConfig.ORDERS_INPUT_TOPIC,
+        KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC,
+        KafkaTopicConfig.ORDERS_RETRY_10S_TOPIC,
+        KafkaTopicConfig.ORDERS_VALIDATED_TOPIC,
+        KafkaTopicConfig.ORDERS_RESERVED_TOPIC
+    );
+
+    private final KafkaAdmin kafkaAdmin;
+    private volatile boolean running;
+
+    public KafkaTopicLayoutVerifier(KafkaAdmin kafkaAdmin) {
+        this.kafkaAdmin = kafkaAdmin;
+    }
+
+    /**
+     * @throws IllegalStateException si la DLQ a moins de partitions qu'un topic source
+     */
+    @Override
+    public void start() {
+        Map<String, TopicDescription> topics;
+        try {
+            topics = kafkaAdmin.describeTopics(
+                KafkaTopicConfig.ORDERS_DLQ_TOPIC,
+                KafkaTopicConfig.ORDERS_INPUT_TOPIC,
+                KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC,
+                KafkaTopicConfig.ORDERS_RETRY_10S_TOPIC,
+                KafkaTopicConfig.ORDERS_VALIDATED_TOPIC,
+                KafkaTopicConfig.ORDERS_RESERVED_TOPIC);
+        } catch (KafkaException e) {
+            // Broker indisponible ou topics absents: vérification impossible, démarrage non bloqué
+            logger.warn("⚠ Impossible de vérifier les partitions de '{}': {}",
+                KafkaTopicConfig.ORDERS_DLQ_TOPIC, e.getMessage());
+            running = true;
+            return;
+        }
+        verify(topics);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Avant les containers Kafka: un démarrage refusé ne consomme aucun message.
+     */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+    }
+
+    /**
+     * @throws IllegalStateException si la DLQ a moins de partitions qu'un topic source
+     */
+    public void verify(Map<String, TopicDescription> topics) {
+        TopicDescription dlq = topics.get(KafkaTopicConfig.ORDERS_DLQ_TOPIC);
+        if (dlq == null) {
+            throw new IllegalStateException("Topic '" + KafkaTopicConfig.ORDERS_DLQ_TOPIC + "' introuvable");
+        }
+        int dlqPartitions = dlq.partitions().size();
+
+        for (String source : DLQ_SOURCE_TOPICS) {
+            TopicDescription description = topics.get(source);
+            if (description != null && description.partitions().size() > dlqPartitions) {
+                throw new IllegalStateException(String.format(
+                    "'%s' a %d partitions mais '%s' seulement %d: les messages des partitions >= %d "
+                        + "ne pourraient pas être envoyés en DLQ (record.partition())",
+                    source, description.partitions().size(),
+                    KafkaTopicConfig.ORDERS_DLQ_TOPIC, dlqPartitions, dlqPartitions));
+            }
+        }
+        logger.info("✓ '{}' : {} partitions, suffisant pour {}",
+            KafkaTopicConfig.ORDERS_DLQ_TOPIC, dlqPartitions, DLQ_SOURCE_TOPICS);
+    }
+}
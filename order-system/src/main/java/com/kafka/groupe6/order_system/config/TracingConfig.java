@@ -0,0 +1,58 @@
+package com.kafka.groupe6.order_system.config;
+
+import com.kafka.groupe6.order_system.tracing.JsonLinesSpanExporter;
+import com.kafka.groupe6.order_system.tracing.OrderTraceSampler;
+import com.kafka.groupe6.order_system.tracing.TailSamplingSpanProcessor;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+
+/**
+ * Traces distribuées des commandes (Micrometer Observation → OpenTelemetry).
+ *
+ * Propagation W3C (header traceparent): requête HTTP → record 'orders-input'
+ * → listener → 'orders-processed', et à travers 'orders-retry-1s',
+ * 'orders-retry-10s' et 'orders-dlq' (KafkaProducerConfig, KafkaConsumerConfig).
+ * Les logs portent traceId/spanId (pattern de corrélation de Spring Boot).
+ *
+ * Échantillonnage en deux temps:
+ * - en tête: app.tracing.head-sampling-rate des traces exportées d'office
+ *   (OrderTraceSampler); les autres sont enregistrées sans être exportées
+ * - en queue: traces lentes, en erreur ou passées par un retry / la DLQ
+ *   exportées en entier (TailSamplingSpanProcessor)
+ *
+ * Export vers un fichier JSON lines local (app.tracing.export.file), par un
+ * thread dédié alimenté par une file bornée (app.tracing.export.queue-size); un
+ * exporter OTLP déclaré en plus ne reçoit que les traces retenues en tête.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    /**
+     * Remplace l'échantillonneur de Spring Boot (management.tracing.sampling.probability).
+     */
+    @Bean
+    public Sampler orderTraceSampler(@Value("${app.tracing.head-sampling-rate:0.01}") double headSamplingRate) {
+        return new OrderTraceSampler(headSamplingRate);
+    }
+
+    @Bean
+    public SpanProcessor tailSamplingSpanProcessor(
+            @Value("${app.tracing.export.file:data/traces/spans.jsonl}") String file,
+            @Value("${app.tracing.tail.slow-threshold-ms:500}") long slowThresholdMs,
+            @Value("${app.tracing.tail.buffer-seconds:60}") long bufferSeconds,
+            @Value("${app.tracing.tail.max-buffered-spans:100000}") int maxBufferedSpans,
+            @Value("${app.tracing.export.queue-size:10000}") int exportQueueSize,
+            Clock clock) throws IOException {
+        return new TailSamplingSpanProcessor(new JsonLinesSpanExporter(Path.of(file)),
+            slowThresholdMs, bufferSeconds, maxBufferedSpans, exportQueueSize, clock);
+    }
+}
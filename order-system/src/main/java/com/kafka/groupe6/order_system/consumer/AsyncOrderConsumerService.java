@@ -0,0 +1,276 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.model.Order;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consommation avec étapes asynchrones: le thread du container ne fait que
+ * poller, lancer les traitements et commiter.
+ *
+ * Activé par app.consumer.mode=async.
+ *
+ * Fonctionnement:
+ * - Chaque record lance OrderConsumerService.completeOrderAsync() puis la
+ *   publication vers 'orders-processed'; le listener rend la main sans attendre
+ * - Les commandes déjà traitées sont ignorées (vérifié à chaque tentative)
+ * - Les records de même clé d'ordonnancement s'enchaînent (ordre conservé),
+ *   les autres avancent en parallèle
+ * - OffsetTracker ne laisse commiter que le dernier offset contigu terminé
+ *   (publication confirmée ou envoi en DLQ)
+ * - Au-delà de app.consumer.async.max-in-flight-per-partition records en cours,
+ *   la partition est mise en pause puis reprise quand des records se terminent:
+ *   le poll continue pour les autres partitions, sans jamais bloquer le thread
+ *
+ * Les retries se font aussi sans bloquer: le backoff est un délai planifié.
+ */
+@Service
+public class AsyncOrderConsumerService implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncOrderConsumerService.class);
+
+    public static final String LISTENER_ID = "order-async-consumer";
+
+    private static final String ORDERING_KEY_CUSTOMER_ID = "customer-id";
+
+    private final OrderConsumerService orderConsumerService;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final BackOff retryBackOff;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final OffsetTracker offsetTracker = new OffsetTracker();
+    private final int maxInFlightPerPartition;
+    private final String orderingKey;
+
+    // Dernier traitement lancé par clé: le suivant de même clé démarre après lui
+    private final ConcurrentMap<Object, CompletableFuture<Void>> keyTails = new ConcurrentHashMap<>();
+
+    public AsyncOrderConsumerService(
+            OrderConsumerService orderConsumerService,
+            DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+            BackOff orderRetryBackOff,
+            KafkaListenerEndpointRegistry listenerRegistry,
+            @Value("${app.consumer.async.max-in-flight-per-partition:500}") int maxInFlightPerPartition,
+            @Value("${app.consumer.async.ordering-key:customer-id}") String orderingKey) {
+        this.orderConsumerService = orderConsumerService;
+        this.deadLetterPublishingRecoverer = deadLetterPublishingRecoverer;
+        this.retryBackOff = orderRetryBackOff;
+        this.listenerRegistry = listenerRegistry;
+        this.maxInFlightPerPartition = maxInFlightPerPartition;
+        this.orderingKey = orderingKey;
+    }
+
+    @KafkaListener(
+        id = LISTENER_ID,
+        topics = KafkaTopicConfig.ORDERS_INPUT_TOPIC,
+        groupId = "order-consumer-group",
+        containerFactory = "asyncKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.consumer.mode:record}' == 'async'}"
+    )
+    public void consumeOrders(List<ConsumerRecord<String, Order>> records, Consumer<?, ?> consumer) {
+        logger.debug("Lot de {} messages lancé en asynchrone ({} en cours)", records.size(), offsetTracker.inFlight());
+
+        for (ConsumerRecord<String, Order> record : records) {
+            orderConsumerService.recordQueueWait(record);
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            offsetTracker.register(partition, record.offset());
+
+            submit(record).whenComplete((ignored, ex) -> {
+                offsetTracker.complete(partition, record.offset());
+                resumeIfBelowLimit(partition);
+            });
+
+            // Les records déjà reçus sont lancés; la partition ne sera plus pollée d'ici là
+            if (offsetTracker.inFlight(partition) >= maxInFlightPerPartition) {
+                pause(partition);
+            }
+        }
+
+        commitCompleted(consumer);
+    }
+
+    /**
+     * Commit des offsets terminés quand aucun record n'arrive
+     * (toutes les partitions en pause, ou topic vide).
+     */
+    @EventListener(condition = "event.listenerId.startsWith('order-async-consumer')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        commitCompleted(event.getConsumer());
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Dernier commit synchrone avant de perdre les partitions.
+        // Les records encore en cours seront relivrés au nouveau propriétaire (at-least-once).
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committableOffsets();
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+            offsetTracker.committed(offsets);
+        }
+        offsetTracker.remove(partitions);
+
+        MessageListenerContainer container = container();
+        if (container != null) {
+            partitions.forEach(container::resumePartition);
+        }
+    }
+
+    /**
+     * Lance le traitement après le précédent de même clé (succès ou échec).
+     */
+    private CompletableFuture<Void> submit(ConsumerRecord<String, Order> record) {
+        Object key = orderingKey(record);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        // Seul le thread du listener ajoute des entrées: put() est atomique par rapport aux remove()
+        CompletableFuture<Void> previous = keyTails.put(key, done);
+        CompletableFuture<Void> start = previous != null ? previous : CompletableFuture.completedFuture(null);
+
+        start.thenCompose(ignored -> process(record, retryBackOff.start(), 1))
+            .whenComplete((ignored, ex) -> {
+                if (ex != null) {
+                    logger.error("✗ Erreur inattendue pour le message [partition={}, offset={}]: {}",
+                        record.partition(), record.offset(), ex.getMessage(), ex);
+                }
+                keyTails.remove(key, done);
+                done.complete(null);
+            });
+        return done;
+    }
+
+    /**
+     * Une tentative: étapes asynchrones puis publication confirmée.
+     * En cas d'échec retriable, nouvelle tentative après le backoff (délai planifié),
+     * sinon envoi en DLQ. Le futur ne se termine jamais en échec.
+     */
+    private CompletableFuture<Void> process(ConsumerRecord<String, Order> record,
+                                            BackOffExecution backOff, int attempt) {
+        Order order;
+        try {
+            order = OrderConsumerService.orderOf(record);
+        } catch (OrderValidationException e) {
+            logger.error("✗ Message illisible [partition={}, offset={}]: {}",
+                record.partition(), record.offset(), e.getValidationError());
+            recover(record, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (orderConsumerService.isDuplicate(order)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return orderConsumerService.completeOrderAsync(order)
+            .thenCompose(reservation -> orderConsumerService.publishProcessedOrderAsync(record, reservation))
+            .handle((result, ex) -> ex)
+            .thenCompose(ex -> {
+                if (ex == null) {
+                    logger.debug("✓ Commande {} traitée [partition={}, offset={}]",
+                        order.getId(), record.partition(), record.offset());
+                    return CompletableFuture.completedFuture(null);
+                }
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                if (cause instanceof OrderValidationException) {
+                    // Non retriable
+                    logger.error("✗ Erreur de validation pour la commande {}: {}",
+                        order.getId(), cause.getMessage());
+                    recover(record, cause);
+                    return CompletableFuture.completedFuture(null);
+                }
+                long waitMs = backOff.nextBackOff();
+                if (waitMs == BackOffExecution.STOP) {
+                    recover(record, cause);
+                    return CompletableFuture.completedFuture(null);
+                }
+                logger.warn("⚠ Retry {} pour le message [partition={}, offset={}] dans {} ms: {}",
+                    attempt, record.partition(), record.offset(), waitMs, cause.getMessage());
+                return CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(waitMs, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> {
+                        orderConsumerService.countRetry("async");
+                        return process(record, backOff, attempt + 1);
+                    });
+            });
+    }
+
+    private void recover(ConsumerRecord<String, Order> record, Throwable cause) {
+        Exception exception = cause instanceof Exception ? (Exception) cause : new IllegalStateException(cause);
+        try {
+            deadLetterPublishingRecoverer.accept(record, exception);
+        } catch (RuntimeException e) {
+            // L'offset est tout de même libéré pour ne pas bloquer la partition
+            logger.error("✗ Impossible d'envoyer le message [partition={}, offset={}] vers la DLQ: {}",
+                record.partition(), record.offset(), e.getMessage(), e);
+        }
+    }
+
+    private Object orderingKey(ConsumerRecord<String, Order> record) {
+        Order order = record.value();
+        if (ORDERING_KEY_CUSTOMER_ID.equals(orderingKey) && order != null && order.getCustomerId() != null) {
+            return order.getCustomerId();
+        }
+        if (order != null && order.getId() != null) {
+            return order.getId();
+        }
+        return record.key() != null ? record.key() : record.partition();
+    }
+
+    private void pause(TopicPartition partition) {
+        MessageListenerContainer container = container();
+        if (container != null && !container.isPartitionPauseRequested(partition)) {
+            logger.debug("Partition {} en pause ({} records en cours)", partition, maxInFlightPerPartition);
+            container.pausePartition(partition);
+        }
+    }
+
+    private void resumeIfBelowLimit(TopicPartition partition) {
+        if (offsetTracker.inFlight(partition) >= maxInFlightPerPartition) {
+            return;
+        }
+        MessageListenerContainer container = container();
+        if (container != null && container.isPartitionPauseRequested(partition)) {
+            container.resumePartition(partition);
+        }
+    }
+
+    private MessageListenerContainer container() {
+        return listenerRegistry.getListenerContainer(LISTENER_ID);
+    }
+
+    private void commitCompleted(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committableOffsets();
+        if (offsets.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(offsets, (committed, ex) -> {
+            if (ex != null) {
+                // Offsets proposés à nouveau au prochain commit
+                logger.warn("⚠ Échec du commit des offsets {}: {}", committed, ex.getMessage());
+            } else {
+                offsetTracker.committed(committed);
+                logger.debug("Offsets commités: {}", committed);
+            }
+        });
+    }
+}
@@ -2,6 +2,8 @@ package com.kafka.groupe6.order_system.consumer;
 
 import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
 import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+import com.kafka.groupe6.order_system.serialization.OrderDeserializer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
@@ -18,8 +20,11 @@ import java.nio.charset.StandardCharsets;
  * Responsable: EMANE (Tâche 4 - Partie C)
  * 
  * Ce service:
- * - Écoute le topic 'orders-dlq'
+ * - Écoute le topic 'orders-dlq', valeurs lues en octets bruts: un message
+ *   illisible (poison pill) y arrive tel qu'il a été produit et ne bloque rien
+ * - Décode la commande quand c'est possible, sinon log un extrait du contenu
  * - Log les informations détaillées sur les erreurs
+ * - Compte les messages par classe d'exception (orders.dlq.routed)
  * - Peut être étendu pour stocker en base, alerter, etc.
  */
 @Service
@@ -35,12 +40,25 @@ public class DLQConsumerService {
     private static final String DLT_ORIGINAL_OFFSET = "kafka_dlt-original-offset";
     private static final String DLT_ORIGINAL_TIMESTAMP = "kafka_dlt-original-timestamp";
 
+    private static final String HEADER_ABSENT = "N/A";
+
+    // Caractères du contenu brut loggés pour un message illisible
+    private static final int PAYLOAD_PREVIEW_CHARS = 512;
+
+    private final OrderPipelineMetrics pipelineMetrics;
+    // Même décodage que les consumers (binaire ou JSON selon le header content-type)
+    private final OrderDeserializer orderDeserializer = new OrderDeserializer();
+
+    public DLQConsumerService(OrderPipelineMetrics pipelineMetrics) {
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
     @KafkaListener(
         topics = KafkaTopicConfig.ORDERS_DLQ_TOPIC,
         groupId = "dlq-consumer-group",
         containerFactory = "dlqKafkaListenerContainerFactory"
     )
-    public void consumeDLQMessage(ConsumerRecord<String, Order> record) {
+    public void consumeDLQMessage(ConsumerRecord<String, byte[]> record) {
         
         logger.error("╔══════════════════════════════════════════════════════════════╗");
         logger.error("║           MESSAGE REÇU DANS LA DEAD LETTER QUEUE             ║");
@@ -76,7 +94,7 @@ public class DLQConsumerService {
         logger.error("╠══════════════════════════════════════════════════════════════╣");
         
         // Données de la commande
-        Order order = record.value();
+        Order order = decode(record);
         if (order != null) {
             logger.error("║ DONNÉES DE LA COMMANDE:");
             logger.error("║   Order ID: {}", order.getId());
@@ -84,8 +102,11 @@ public class DLQConsumerService {
             logger.error("║   Items: {}", order.getItems());
             logger.error("║   Total Amount: {}€", order.getTotalAmount());
             logger.error("║   Status: {}", order.getStatus());
+        } else if (record.value() == null) {
+            logger.error("║ DONNÉES: Message vide");
         } else {
-            logger.error("║ DONNÉES: Commande null ou non désérialisable");
+            logger.error("║ DONNÉES: Message illisible ({} octets)", record.value().length);
+            logger.error("║   Contenu: {}", preview(record.value()));
         }
         
         logger.error("╚══════════════════════════════════════════════════════════════╝");
@@ -93,9 +114,9 @@ public class DLQConsumerService {
         // Ici, on pourrait ajouter:
         // - Stockage en base de données pour analyse
         // - Envoi d'alertes (email, Slack, etc.)
-        // - Métriques pour monitoring
         // - Retry manuel après correction
         
+        pipelineMetrics.countDlq(HEADER_ABSENT.equals(exceptionClass) ? null : exceptionClass);
         handleDLQMessage(order, exceptionClass, exceptionMessage);
     }
 
@@ -104,8 +125,8 @@ public class DLQConsumerService {
      * Peut être étendu selon les besoins métier.
      */
     private void handleDLQMessage(Order order, String exceptionClass, String exceptionMessage) {
-        if (order == null) {
-            logger.warn("Impossible de traiter le message DLQ: commande null");
+        if (order == null && (exceptionClass == null || !exceptionClass.contains("DeserializationException"))) {
+            logger.warn("Impossible de traiter le message DLQ: commande illisible");
             return;
         }
         
@@ -115,6 +136,9 @@ public class DLQConsumerService {
                 logger.info("→ Erreur de validation détectée. Action: révision manuelle requise.");
                 // Pourrait déclencher une alerte au support
                 
+            } else if (exceptionClass.contains("InventoryNotReadyException")) {
+                logger.info("→ Stock en cours de reconstruction. Action: rejouer la commande une fois l'instance prête.");
+
             } else if (exceptionClass.contains("StockUnavailableException")) {
                 logger.info("→ Erreur de stock détectée. Action: vérifier l'inventaire.");
                 // Pourrait programmer un retry automatique plus tard
@@ -127,12 +151,28 @@ public class DLQConsumerService {
                 logger.info("→ Erreur inconnue. Action: investigation requise.");
             }
         }
-        
-        // Log pour les métriques/monitoring
-        logger.info("DLQ_METRIC: orderId={}, exception={}", 
-            order.getId(), 
-            exceptionClass != null ? exceptionClass : "unknown"
-        );
+    }
+
+    /**
+     * Commande décodée, null si le message est vide ou illisible.
+     */
+    private Order decode(ConsumerRecord<String, byte[]> record) {
+        if (record.value() == null) {
+            return null;
+        }
+        try {
+            return orderDeserializer.deserialize(record.topic(), record.headers(), record.value());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Début du contenu brut, en texte (les octets non UTF-8 sont remplacés).
+     */
+    private static String preview(byte[] payload) {
+        String text = new String(payload, StandardCharsets.UTF_8);
+        return text.length() <= PAYLOAD_PREVIEW_CHARS ? text : text.substring(0, PAYLOAD_PREVIEW_CHARS) + "…";
     }
 
     /**
@@ -143,7 +183,7 @@ public class DLQConsumerService {
         if (header != null && header.value() != null) {
             return new String(header.value(), StandardCharsets.UTF_8);
         }
-        return "N/A";
+        return HEADER_ABSENT;
     }
 }
 
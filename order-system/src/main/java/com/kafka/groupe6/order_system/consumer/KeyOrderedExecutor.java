@@ -0,0 +1,84 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de threads qui conserve l'ordre par clé.
+ *
+ * Chaque clé est affectée à une "voie" (un thread unique) par hachage:
+ * deux tâches de même clé s'exécutent dans l'ordre de soumission, des clés
+ * différentes avancent en parallèle sur toutes les voies.
+ *
+ * Avec des virtual threads (Java 21+), une voie ne coûte presque rien tant
+ * qu'elle attend: on peut en créer une par record en cours.
+ */
+public class KeyOrderedExecutor implements AutoCloseable {
+
+    private final ExecutorService[] lanes;
+
+    public KeyOrderedExecutor(String threadNamePrefix, int laneCount) {
+        this(threadNamePrefix, laneCount, false);
+    }
+
+    /**
+     * @param virtualThreads voies sur des virtual threads (Java 21+ uniquement)
+     */
+    public KeyOrderedExecutor(String threadNamePrefix, int laneCount, boolean virtualThreads) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount doit être >= 1: " + laneCount);
+        }
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String laneName = threadNamePrefix + i + "-";
+            ThreadFactory threadFactory = virtualThreads
+                ? new VirtualThreadTaskExecutor(laneName).getVirtualThreadFactory()
+                : new CustomizableThreadFactory(laneName);
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+    }
+
+    /**
+     * Soumet une tâche sur la voie associée à la clé.
+     * Une clé null est toujours affectée à la voie 0.
+     */
+    public CompletableFuture<Void> submit(Object key, Runnable task) {
+        return CompletableFuture.runAsync(task, lanes[laneFor(key)]);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    int laneFor(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        // Mélange des bits de poids fort (mêmes raisons que HashMap)
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            try {
+                if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                lane.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
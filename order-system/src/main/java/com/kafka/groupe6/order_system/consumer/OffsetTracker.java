@@ -0,0 +1,126 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Suivi des offsets traités dans le désordre.
+ *
+ * Les records sont enregistrés dans l'ordre du poll (thread du listener)
+ * puis terminés dans n'importe quel ordre (threads de traitement).
+ * L'offset commitable d'une partition est le plus petit offset encore en
+ * cours: tous les records qui le précèdent sont terminés. Un record lent
+ * bloque donc le commit des suivants, jamais leur traitement.
+ *
+ * Un offset n'est considéré commité qu'une fois le commit confirmé
+ * (committed, depuis le callback de commitAsync ou après commitSync):
+ * tant que ce n'est pas le cas, il est proposé à nouveau à chaque appel.
+ *
+ * Le nombre de records en cours est tenu à part (inFlight, consulté à chaque
+ * record par les listeners): size() d'un ConcurrentSkipListSet parcourt tout
+ * l'ensemble.
+ */
+public class OffsetTracker {
+
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    /**
+     * Enregistre un record avant de le confier aux threads de traitement.
+     * Doit être appelé dans l'ordre des offsets (thread du listener).
+     */
+    public void register(TopicPartition partition, long offset) {
+        PartitionState state = partitions.computeIfAbsent(partition, tp -> new PartitionState());
+        if (state.pending.add(offset)) {
+            state.inFlight.incrementAndGet();
+        }
+        state.highestRegistered = Math.max(state.highestRegistered, offset);
+    }
+
+    /**
+     * Marque un record comme terminé (succès ou envoi en DLQ).
+     */
+    public void complete(TopicPartition partition, long offset) {
+        PartitionState state = partitions.get(partition);
+        // Décompte seulement si l'offset était en cours (complete en double sans effet)
+        if (state != null && state.pending.remove(offset)) {
+            state.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Offsets à commiter: pour chaque partition ayant progressé depuis le
+     * dernier commit confirmé, le prochain offset à lire (dernier offset
+     * contigu terminé + 1).
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committableOffsets() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        partitions.forEach((partition, state) -> {
+            long committable = state.committableOffset();
+            if (committable > state.lastCommitted) {
+                offsets.put(partition, new OffsetAndMetadata(committable));
+            }
+        });
+        return offsets;
+    }
+
+    /**
+     * Enregistre des offsets dont le commit a réussi; un commit en échec
+     * n'est pas signalé et ses offsets seront proposés à nouveau.
+     */
+    public void committed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> {
+            PartitionState state = partitions.get(partition);
+            if (state != null) {
+                // Callbacks de commitAsync éventuellement dans le désordre
+                state.lastCommitted = Math.max(state.lastCommitted, offset.offset());
+            }
+        });
+    }
+
+    /**
+     * Nombre de records en cours de traitement sur une partition.
+     */
+    public int inFlight(TopicPartition partition) {
+        PartitionState state = partitions.get(partition);
+        return state != null ? state.inFlight.get() : 0;
+    }
+
+    /**
+     * Nombre total de records en cours de traitement.
+     */
+    public int inFlight() {
+        int total = 0;
+        for (PartitionState state : partitions.values()) {
+            total += state.inFlight.get();
+        }
+        return total;
+    }
+
+    /**
+     * Oublie les partitions révoquées lors d'un rebalance.
+     */
+    public void remove(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    private static final class PartitionState {
+        private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long highestRegistered = -1L;
+        private volatile long lastCommitted = -1L;
+
+        private long committableOffset() {
+            // ceiling() renvoie null si plus rien n'est en cours (pas de NoSuchElementException
+            // si le dernier record se termine pendant le calcul)
+            Long lowestPending = pending.ceiling(Long.MIN_VALUE);
+            return lowestPending != null ? lowestPending : highestRegistered + 1;
+        }
+    }
+}
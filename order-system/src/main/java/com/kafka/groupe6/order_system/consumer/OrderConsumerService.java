@@ -1,21 +1,39 @@
 package com.kafka.groupe6.order_system.consumer;
 
 import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.dedup.OrderDeduplicator;
 import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.exception.StageSaturatedException;
+import com.kafka.groupe6.order_system.exception.StageTimeoutException;
 import com.kafka.groupe6.order_system.exception.StockUnavailableException;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.inventory.StockReservation;
 import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderEventLog;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+import com.kafka.groupe6.order_system.serialization.OrderPreValidator;
+import com.kafka.groupe6.order_system.tracing.OrderSpans;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
-
-import org.springframework.beans.factory.annotation.Value;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service de consommation et traitement des commandes.
@@ -24,182 +42,502 @@ import org.springframework.beans.factory.annotation.Value;
  * 
  * Fonctionnalités:
  * - Réception des messages du topic 'orders-input'
+ * - Commandes déjà traitées ignorées (OrderDeduplicator), marquées une fois publiées
  * - Validation métier des commandes
- * - Simulation de vérification du stock
+ * - Réservation du stock (InventoryService), rendu si la commande échoue ensuite
  * - Changement de statut: PENDING → PROCESSING → COMPLETED
  * - Publication vers 'orders-processed'
+ * - Durée de chaque étape et latence d'ack mesurées (OrderPipelineMetrics)
+ * - Un événement de log par commande, succès échantillonnés (OrderEventLog)
+ * - Header x-ingest-time recopié sur 'orders-processed', latences depuis l'ingestion (OrderLatencyTracker)
+ * - Mode batch optionnel (app.consumer.mode=batch): un commit par lot
+ * - Mode transactionnel (app.consumer.mode=transactional): voir TransactionalOrderConsumerService
+ * - Étapes asynchrones (app.consumer.mode=async): voir AsyncOrderConsumerService
+ * - Étapes sur des topics distincts (app.consumer.mode=staged): voir StagedOrderConsumerService
+ * - Étapes sur des pools bornés avec délai (app.consumer.bulkhead.enabled): voir OrderStageExecutors
  */
 @Service
 public class OrderConsumerService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderConsumerService.class);
-    
-    // Constantes pour la validation
-    private static final double MIN_ORDER_AMOUNT = 0.01;
-    private static final double MAX_ORDER_AMOUNT = 10000.00;
+    private static final LogAccessor DESERIALIZATION_LOGGER = new LogAccessor(OrderConsumerService.class);
     
     // Statuts des commandes
     private static final String STATUS_PENDING = "PENDING";
     private static final String STATUS_PROCESSING = "PROCESSING";
     private static final String STATUS_COMPLETED = "COMPLETED";
     private static final String STATUS_FAILED = "FAILED";
+
+    // Durée simulée du traitement (ms); le maximum borne la durée d'une transaction (KafkaConsumerConfig)
+    private static final int PROCESSING_DELAY_MIN_MS = 100;
+    public static final int PROCESSING_DELAY_MAX_MS = 300;
     
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final Random random = new Random();
-    
-    // Désactive le comportement aléatoire du stock pour les tests
-    @Value("${app.stock.simulate-failures:true}")
-    private boolean simulateStockFailures;
+    private final InventoryService inventoryService;
+    private final OrderDeduplicator orderDeduplicator;
+    private final OrderPipelineMetrics pipelineMetrics;
+    private final OrderLatencyTracker latencyTracker;
+    private final OrderEventLog eventLog;
+    private final OrderStageExecutors stageExecutors;
 
-    @org.springframework.beans.factory.annotation.Autowired
-    public OrderConsumerService(KafkaTemplate<String, Object> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
-        this.simulateStockFailures = true;
-    }
-    
-    // Constructeur pour les tests (permet de désactiver les échecs aléatoires)
-    public OrderConsumerService(KafkaTemplate<String, Object> kafkaTemplate, boolean simulateStockFailures) {
+    @Autowired
+    public OrderConsumerService(KafkaTemplate<String, Object> kafkaTemplate, InventoryService inventoryService,
+                                OrderDeduplicator orderDeduplicator, OrderPipelineMetrics pipelineMetrics,
+                                OrderLatencyTracker latencyTracker, OrderEventLog eventLog,
+                                OrderStageExecutors stageExecutors) {
         this.kafkaTemplate = kafkaTemplate;
-        this.simulateStockFailures = simulateStockFailures;
+        this.inventoryService = inventoryService;
+        this.orderDeduplicator = orderDeduplicator;
+        this.pipelineMetrics = pipelineMetrics;
+        this.latencyTracker = latencyTracker;
+        this.eventLog = eventLog;
+        this.stageExecutors = stageExecutors;
     }
 
     @KafkaListener(
+        id = "order-consumer",
         topics = KafkaTopicConfig.ORDERS_INPUT_TOPIC,
         groupId = "order-consumer-group",
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "#{'${app.consumer.mode:record}' == 'record'}"
     )
-    public void consumeOrder(
-            @Payload Order order,
-            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
-            @Header(KafkaHeaders.OFFSET) long offset,
-            @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
-        
-        logger.info("========================================");
-        logger.info("Message reçu du topic 'orders-input'");
-        logger.info("Partition: {}, Offset: {}", partition, offset);
-        logger.info("Order ID: {}, Customer: {}", order.getId(), order.getCustomerId());
-        logger.info("Items: {}, Amount: {}", order.getItems(), order.getTotalAmount());
-        logger.info("Status initial: {}", order.getStatus());
-        logger.info("========================================");
+    public void consumeOrder(ConsumerRecord<String, Order> record) {
+        long ingestTime = recordQueueWait(record);
+        consumeOrder(orderOf(record), record.partition(), record.offset(), ingestTime);
+    }
+
+    /**
+     * Traitement d'une commande sans instant d'ingestion connu (non mesurée de bout en bout).
+     */
+    public void consumeOrder(Order order, int partition, long offset) {
+        consumeOrder(order, partition, offset, OrderLatencyTracker.NO_INGEST_TIME);
+    }
+
+    /**
+     * Traitement complet d'une commande (étapes 1 à 6), étapes sur leurs pools
+     * (mode record et consumers de retry).
+     *
+     * @param partition  partition de 'orders-input' d'origine (latence par partition)
+     * @param ingestTime instant d'acceptation (header x-ingest-time), recopié sur 'orders-processed'
+     */
+    public void consumeOrder(Order order, int partition, long offset, long ingestTime) {
+        consumeOrder(order, partition, offset, ingestTime, stageExecutors);
+    }
+
+    /**
+     * Traitement complet d'une commande avec les pools d'étapes donnés
+     * (OrderStageExecutors.inline() pour les modes qui ont leurs propres threads).
+     */
+    void consumeOrder(Order order, int partition, long offset, long ingestTime, OrderStageExecutors executors) {
+        long start = System.nanoTime();
+        logger.debug("Commande {} reçue [partition={}, offset={}, statut={}]",
+            order.getId(), partition, offset, order.getStatus());
+
+        OrderSpans.tagOrder(order.getId());
+        if (isDuplicate(order)) {
+            return;
+        }
 
         try {
-            // PARTIE A: Logique de traitement
-            
-            // 1. Validation de la commande
-            validateOrder(order);
-            logger.info("✓ Validation réussie pour la commande {}", order.getId());
-            
-            // 2. Changement de statut: PENDING → PROCESSING
-            order.setStatus(STATUS_PROCESSING);
-            logger.info("→ Statut changé en PROCESSING pour la commande {}", order.getId());
-            
-            // 3. Simulation de vérification du stock
-            checkStock(order);
-            logger.info("✓ Stock vérifié pour la commande {}", order.getId());
-            
-            // 4. Simulation du traitement (processing)
-            processOrder(order);
-            
-            // 5. Changement de statut: PROCESSING → COMPLETED
-            order.setStatus(STATUS_COMPLETED);
-            order.setTimestamp(System.currentTimeMillis());
-            logger.info("✓ Statut changé en COMPLETED pour la commande {}", order.getId());
+            // PARTIE A: Logique de traitement (étapes 1 à 5)
+            StockReservation reservation = completeOrder(order, executors);
             
             // 6. Publication vers 'orders-processed'
-            publishProcessedOrder(order);
-            
-            logger.info("========================================");
-            logger.info("✓✓ Commande {} traitée avec succès!", order.getId());
-            logger.info("========================================");
+            publishProcessedOrder(order, reservation, partition, ingestTime);
+
+            eventLog.processed(order, partition, offset, start);
             
         } catch (OrderValidationException e) {
             // Erreur de validation - non retriable
-            logger.error("✗ Erreur de validation pour la commande {}: {}", 
-                order.getId(), e.getValidationError());
+            eventLog.failed(order, partition, offset, start, OrderEventLog.Failure.VALIDATION, e);
             order.setStatus(STATUS_FAILED);
             throw e; // Sera capturé par le DefaultErrorHandler
             
         } catch (StockUnavailableException e) {
             // Stock indisponible - retriable
-            logger.warn("⚠ Stock indisponible pour la commande {}: {}", 
-                order.getId(), e.getMessage());
+            eventLog.failed(order, partition, offset, start, OrderEventLog.Failure.STOCK_UNAVAILABLE, e);
             throw e; // Sera reessayé par le DefaultErrorHandler
             
+        } catch (StageTimeoutException e) {
+            // Étape trop lente - retriable
+            eventLog.failed(order, partition, offset, start, OrderEventLog.Failure.STAGE_TIMEOUT, e);
+            throw e;
+            
+        } catch (StageSaturatedException e) {
+            // Pool de l'étape plein: la commande sera relue après la pause du consumer
+            eventLog.failed(order, partition, offset, start, OrderEventLog.Failure.STAGE_SATURATED, e);
+            throw e;
+            
         } catch (Exception e) {
             // Autres erreurs
-            logger.error("✗ Erreur inattendue lors du traitement de la commande {}: {}", 
-                order.getId(), e.getMessage(), e);
+            eventLog.failed(order, partition, offset, start, OrderEventLog.Failure.UNEXPECTED, e);
             order.setStatus(STATUS_FAILED);
             throw e;
         }
     }
 
     /**
-     * Valide les données de la commande.
-     * Vérifie: montant, ID, customer ID, items
+     * Mode batch: traite un lot complet de records issu d'un seul poll().
+     *
+     * 1. Validation de tout le lot avant le moindre traitement
+     * 2. Stock + traitement des records jusqu'au premier échec (doublons ignorés)
+     * 3. Publication groupée vers 'orders-processed' (attente de tous les acks)
+     * 4. En cas d'échec, BatchListenerFailedException avec l'index du record fautif:
+     *    le DefaultErrorHandler commit les offsets précédents, applique retry/DLQ
+     *    au seul record fautif, puis relivre la suite du lot.
+     *    Le stock des commandes non publiées est rendu avant; les commandes publiées
+     *    sont enregistrées et ignorées (doublons) à la relivraison.
+     *
+     * Le commit d'offset se fait une seule fois par lot (AckMode.BATCH).
      */
-    private void validateOrder(Order order) {
-        logger.debug("Validation de la commande {}", order.getId());
-        
-        // Vérification de l'ID
-        if (order.getId() == null || order.getId().trim().isEmpty()) {
-            throw new OrderValidationException(
-                order.getId(), 
-                "L'ID de la commande est obligatoire"
-            );
+    @KafkaListener(
+        id = "order-batch-consumer",
+        topics = KafkaTopicConfig.ORDERS_INPUT_TOPIC,
+        groupId = "order-consumer-group",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.consumer.mode:record}' == 'batch'}"
+    )
+    public void consumeOrderBatch(List<ConsumerRecord<String, Order>> records) {
+        logger.info("Lot de {} messages reçu du topic 'orders-input'", records.size());
+        records.forEach(this::recordQueueWait);
+
+        // 1. Validation du lot: on ne traite que ce qui précède le premier record invalide
+        int failedIndex = -1;
+        RuntimeException failure = null;
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                validateOrder(orderOf(records.get(i)));
+            } catch (OrderValidationException e) {
+                logger.error("✗ Erreur de validation pour la commande {} (index {} du lot): {}",
+                    e.getOrderId(), i, e.getValidationError());
+                failedIndex = i;
+                failure = e;
+                break;
+            }
         }
-        
-        // Vérification du customer ID
-        if (order.getCustomerId() == null || order.getCustomerId().trim().isEmpty()) {
-            throw new OrderValidationException(
-                order.getId(), 
-                "L'ID du client est obligatoire"
-            );
+        int processableCount = failedIndex >= 0 ? failedIndex : records.size();
+
+        // 2. Stock + traitement, arrêt au premier échec retriable
+        List<ConsumerRecord<String, Order>> completed = new ArrayList<>(processableCount);
+        List<StockReservation> reservations = new ArrayList<>(processableCount);
+        List<Integer> completedIndexes = new ArrayList<>(processableCount);
+        for (int i = 0; i < processableCount; i++) {
+            Order order = records.get(i).value();
+            if (isDuplicate(order)) {
+                continue;
+            }
+            try {
+                order.setStatus(STATUS_PROCESSING);
+                StockReservation reservation = reserveStock(order);
+                processReserved(order, reservation);
+                order.setStatus(STATUS_COMPLETED);
+                order.setTimestamp(System.currentTimeMillis());
+                completed.add(records.get(i));
+                reservations.add(reservation);
+                completedIndexes.add(i);
+            } catch (RuntimeException e) {
+                logger.warn("⚠ Échec du traitement de la commande {} (index {} du lot): {}",
+                    order.getId(), i, e.getMessage());
+                failedIndex = i;
+                failure = e;
+                break;
+            }
         }
-        
-        // Vérification des items
-        if (order.getItems() == null || order.getItems().isEmpty()) {
-            throw new OrderValidationException(
-                order.getId(), 
-                "La commande doit contenir au moins un article"
-            );
+
+        // 3. Publication groupée des commandes terminées
+        boolean[] published = publishProcessedOrders(completed);
+        int publishFailedIndex = -1;
+        for (int i = 0; i < published.length; i++) {
+            if (published[i]) {
+                // Acquittée: reconnue comme doublon à la relivraison, stock conservé
+                markProcessed(completed.get(i).value());
+            } else {
+                // Non publiée: relivrée, elle réservera à nouveau
+                inventoryService.release(reservations.get(i));
+                if (publishFailedIndex < 0) {
+                    publishFailedIndex = i;
+                }
+            }
         }
-        
-        // Vérification du montant
-        if (order.getTotalAmount() < MIN_ORDER_AMOUNT) {
-            throw new OrderValidationException(
-                order.getId(), 
-                String.format("Le montant minimum est de %.2f€", MIN_ORDER_AMOUNT)
-            );
+        if (publishFailedIndex >= 0) {
+            throw new BatchListenerFailedException(
+                "Échec de publication vers '" + KafkaTopicConfig.ORDERS_PROCESSED_TOPIC + "'",
+                completedIndexes.get(publishFailedIndex));
         }
-        
-        if (order.getTotalAmount() > MAX_ORDER_AMOUNT) {
-            throw new OrderValidationException(
-                order.getId(), 
-                String.format("Le montant maximum est de %.2f€", MAX_ORDER_AMOUNT)
-            );
+
+        // 4. Échec partiel: seul le record fautif part en retry / DLQ
+        if (failure != null) {
+            throw new BatchListenerFailedException(failure.getMessage(), failure, failedIndex);
         }
+
+        logger.info("✓✓ Lot de {} commandes traité avec succès!", records.size());
+    }
+
+    /**
+     * Étapes 1 à 5 du traitement d'une commande (sans publication):
+     * validation, PENDING → PROCESSING, stock, traitement, PROCESSING → COMPLETED.
+     * Partagé avec le mode transactionnel, qui publie lui-même dans sa transaction.
+     *
+     * @return le stock réservé, à rendre (releaseStock) si la publication échoue
+     */
+    StockReservation completeOrder(Order order) {
+        return completeOrder(order, OrderStageExecutors.inline());
     }
 
     /**
-     * Simule la vérification du stock.
-     * Génère aléatoirement une erreur de stock (10% de chance) pour tester le retry.
-     * Ce comportement peut être désactivé via la propriété app.stock.simulate-failures=false
+     * Étapes 1 à 5, chacune sur le pool de son étape (délai, saturation).
+     * Un stock réservé après le délai de l'étape stock est rendu dès la fin de la réservation.
      */
-    private void checkStock(Order order) {
-        logger.debug("Vérification du stock pour la commande {}", order.getId());
+    private StockReservation completeOrder(Order order, OrderStageExecutors executors) {
+        // 1. Validation de la commande, puis 2. PENDING → PROCESSING
+        executors.validate().run(order.getId(), () -> validateOrder(order));
+        order.setStatus(STATUS_PROCESSING);
         
-        // Simulation: 10% de chance d'échec de stock (pour tester le retry)
-        // Désactivé si simulateStockFailures = false (pour les tests)
-        if (simulateStockFailures && random.nextInt(100) < 10) {
-            String item = order.getItems().get(0);
-            throw new StockUnavailableException(order.getId(), item);
-        }
+        // 3. Réservation du stock
+        StockReservation reservation = executors.stock().call(order.getId(),
+            () -> reserveStock(order), inventoryService::release);
         
-        // Simulation du temps de vérification
-        simulateProcessingDelay(50, 150);
+        // 4. Simulation du traitement (processing)
+        processReserved(order, reservation, executors.process());
         
-        logger.debug("Stock disponible pour tous les articles de la commande {}", order.getId());
+        // 5. Changement de statut: PROCESSING → COMPLETED
+        order.setStatus(STATUS_COMPLETED);
+        order.setTimestamp(System.currentTimeMillis());
+        logger.debug("✓ Statut changé en COMPLETED pour la commande {}", order.getId());
+        return reservation;
+    }
+
+    /**
+     * Étapes 1 et 2: validation, PENDING → PROCESSING.
+     * Seule étape du consumer de validation en mode staged.
+     */
+    void validate(Order order) {
+        validateOrder(order);
+        order.setStatus(STATUS_PROCESSING);
+    }
+
+    /**
+     * Étape 3: réservation du stock (mode staged, étape de réservation).
+     */
+    StockReservation reserve(Order order) {
+        return reserveStock(order);
+    }
+
+    /**
+     * Étapes 4 et 5 d'une commande dont le stock a été réservé par l'étape précédente
+     * (mode staged). Le stock n'est pas rendu en cas d'échec: l'étape est retentée
+     * avec la même réservation.
+     */
+    void process(Order order) {
+        processOrder(order);
+        order.setStatus(STATUS_COMPLETED);
+        order.setTimestamp(System.currentTimeMillis());
+        logger.debug("✓ Statut changé en COMPLETED pour la commande {}", order.getId());
+    }
+
+    /**
+     * Rend le stock d'une commande terminée dont la publication a échoué.
+     */
+    void releaseStock(StockReservation reservation) {
+        inventoryService.release(reservation);
+    }
+
+    /**
+     * Étapes 1 à 5 sans bloquer le thread appelant (mode async).
+     * Validation et réservation du stock sont immédiates; le traitement est un
+     * délai planifié (CompletableFuture.delayedExecutor) au lieu de Thread.sleep:
+     * aucun thread n'est occupé pendant l'attente.
+     *
+     * @return un futur terminé avec le stock réservé (commande COMPLETED), ou en échec
+     *         (OrderValidationException, StockUnavailableException)
+     */
+    CompletableFuture<StockReservation> completeOrderAsync(Order order) {
+        StockReservation reservation;
+        try {
+            validateOrder(order);
+            order.setStatus(STATUS_PROCESSING);
+            reservation = reserveStock(order);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long start = System.nanoTime();
+        return delay(order, PROCESSING_DELAY_MIN_MS, PROCESSING_DELAY_MAX_MS)
+            .thenApply(o -> {
+                pipelineMetrics.recordProcess(start);
+                o.setStatus(STATUS_COMPLETED);
+                o.setTimestamp(System.currentTimeMillis());
+                logger.debug("✓ Statut changé en COMPLETED pour la commande {}", o.getId());
+                return reservation;
+            });
+    }
+
+    /**
+     * Publie la commande traitée sans attendre: le futur se termine à l'ack du broker.
+     * Si l'envoi échoue, le stock réservé est rendu (la commande sera retentée),
+     * sinon la commande est marquée comme traitée.
+     */
+    CompletableFuture<SendResult<String, Object>> publishProcessedOrderAsync(ConsumerRecord<String, Order> record,
+                                                                            StockReservation reservation) {
+        Order order = record.value();
+        long ingestTime = OrderLatencyTracker.ingestTime(record.headers());
+        long start = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> sent;
+        try {
+            sent = kafkaTemplate.send(processedRecord(order, ingestTime));
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent.whenComplete((result, ex) -> {
+            pipelineMetrics.recordPublishAck(start, ex == null);
+            if (ex != null) {
+                inventoryService.release(reservation);
+            } else {
+                markProcessed(order);
+                latencyTracker.recordEndToEnd(record.partition(), ingestTime);
+            }
+        });
+    }
+
+    /**
+     * Record de la commande traitée pour 'orders-processed', avec l'instant d'ingestion d'origine.
+     */
+    ProducerRecord<String, Object> processedRecord(Order order, long ingestTime) {
+        ProducerRecord<String, Object> record =
+            new ProducerRecord<>(KafkaTopicConfig.ORDERS_PROCESSED_TOPIC, order.getId(), order);
+        if (ingestTime != OrderLatencyTracker.NO_INGEST_TIME) {
+            OrderLatencyTracker.addIngestTime(record.headers(), ingestTime);
+        }
+        return record;
+    }
+
+    /**
+     * Mesure l'attente en file d'un record lu sur 'orders-input'.
+     *
+     * @return son instant d'ingestion, NO_INGEST_TIME si absent
+     */
+    long recordQueueWait(ConsumerRecord<String, Order> record) {
+        long ingestTime = OrderLatencyTracker.ingestTime(record.headers());
+        latencyTracker.recordQueueWait(record.partition(), ingestTime);
+        return ingestTime;
+    }
+
+    /**
+     * Commande confirmée sur 'orders-processed': latence depuis l'ingestion.
+     */
+    void recordEndToEnd(ConsumerRecord<String, Order> record) {
+        latencyTracker.recordEndToEnd(record.partition(), OrderLatencyTracker.ingestTime(record.headers()));
+    }
+
+    /**
+     * Commande portée par un record, jamais null.
+     * - Tous les modes: record rejeté par la pré-validation (valeur null, OrderPreValidator)
+     * - Listeners batch (batch, parallèle, async, transactionnel): message illisible,
+     *   que le container ne filtre pas
+     * - Valeur null sans autre explication (tombstone, message vide)
+     *
+     * @throws OrderValidationException (non retriable) si le message a été rejeté par la
+     *         pré-validation, n'a pas pu être décodé (cause DeserializationException) ou
+     *         n'a pas de valeur: il part en DLQ avec ses octets d'origine
+     */
+    static Order orderOf(ConsumerRecord<String, Order> record) {
+        Order order = record.value();
+        if (order == null) {
+            OrderValidationException rejection = OrderPreValidator.rejectionOf(record.headers());
+            if (rejection != null) {
+                // Rejetée par la pré-validation, avant toute construction de la commande
+                throw rejection;
+            }
+            DeserializationException failure = SerializationUtils.getExceptionFromHeader(
+                record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, DESERIALIZATION_LOGGER);
+            if (failure != null) {
+                throw new OrderValidationException(null, "Message illisible: " + failure.getMessage(), failure);
+            }
+            throw new OrderValidationException(null, "Message sans valeur (tombstone)");
+        }
+        return order;
+    }
+
+    /**
+     * Commande de même id déjà traitée et publiée: elle est ignorée (sans erreur,
+     * son offset est commité normalement).
+     */
+    boolean isDuplicate(Order order) {
+        if (order == null || !orderDeduplicator.isDuplicate(order.getId())) {
+            return false;
+        }
+        eventLog.duplicate(order);
+        return true;
+    }
+
+    /**
+     * Enregistre une commande dont la publication est confirmée.
+     */
+    void markProcessed(Order order) {
+        orderDeduplicator.markProcessed(order.getId());
+    }
+
+    /**
+     * Compte une nouvelle tentative de traitement (modes à retry local et topics de retry).
+     */
+    void countRetry(String source) {
+        pipelineMetrics.countRetry(source);
+    }
+
+    /**
+     * Valide les données de la commande.
+     * Vérifie: montant, ID, customer ID, items
+     */
+    private void validateOrder(Order order) {
+        long start = System.nanoTime();
+        try {
+            checkOrder(order);
+        } finally {
+            pipelineMetrics.recordValidate(start);
+        }
+    }
+
+    private void checkOrder(Order order) {
+        logger.debug("Validation de la commande {}", order.getId());
+
+        // Mêmes règles que la pré-validation des octets (id, client, articles, montant)
+        String error = OrderPreValidator.violation(order);
+        if (error != null) {
+            throw new OrderValidationException(order.getId(), error);
+        }
+    }
+
+    /**
+     * Réserve tous les articles de la commande (tout ou rien).
+     * StockUnavailableException (retriable) uniquement en cas de rupture réelle.
+     */
+    private StockReservation reserveStock(Order order) {
+        logger.debug("Réservation du stock pour la commande {}", order.getId());
+        long start = System.nanoTime();
+        try {
+            return inventoryService.reserve(order.getId(), order.getItems());
+        } finally {
+            pipelineMetrics.recordStock(start);
+        }
+    }
+
+    /**
+     * Traitement d'une commande dont le stock est réservé: rendu du stock en cas d'échec.
+     */
+    private void processReserved(Order order, StockReservation reservation) {
+        processReserved(order, reservation, OrderStageExecutors.inline().process());
+    }
+
+    /**
+     * Idem sur le pool de l'étape process: délai dépassé ou pool plein rendent aussi le stock.
+     */
+    private void processReserved(Order order, StockReservation reservation, OrderStageExecutors.Stage stage) {
+        try {
+            stage.run(order.getId(), () -> processOrder(order));
+        } catch (RuntimeException e) {
+            inventoryService.release(reservation);
+            throw e;
+        }
     }
 
     /**
@@ -209,7 +547,9 @@ public class OrderConsumerService {
         logger.debug("Traitement de la commande {}", order.getId());
         
         // Simulation du temps de traitement
-        simulateProcessingDelay(100, 300);
+        long start = System.nanoTime();
+        simulateProcessingDelay(PROCESSING_DELAY_MIN_MS, PROCESSING_DELAY_MAX_MS);
+        pipelineMetrics.recordProcess(start);
         
         logger.debug("Traitement terminé pour la commande {}", order.getId());
     }
@@ -217,34 +557,85 @@ public class OrderConsumerService {
     /**
      * Publie la commande traitée vers le topic 'orders-processed'.
      */
-    private void publishProcessedOrder(Order order) {
-        logger.info("Publication vers '{}' pour la commande {}", 
-            KafkaTopicConfig.ORDERS_PROCESSED_TOPIC, order.getId());
-        
-        kafkaTemplate.send(
-            KafkaTopicConfig.ORDERS_PROCESSED_TOPIC, 
-            order.getId(), 
-            order
-        ).whenComplete((result, ex) -> {
+    private void publishProcessedOrder(Order order, StockReservation reservation, int partition, long ingestTime) {
+        long start = System.nanoTime();
+        kafkaTemplate.send(processedRecord(order, ingestTime)).whenComplete((result, ex) -> {
+            pipelineMetrics.recordPublishAck(start, ex == null);
             if (ex == null) {
-                logger.info("✓ Commande {} publiée vers 'orders-processed'", order.getId());
-                logger.debug("Topic: {}, Partition: {}, Offset: {}", 
-                    result.getRecordMetadata().topic(),
-                    result.getRecordMetadata().partition(),
-                    result.getRecordMetadata().offset());
+                markProcessed(order);
+                latencyTracker.recordEndToEnd(partition, ingestTime);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("✓ Commande {} publiée vers '{}' [partition={}, offset={}]", order.getId(),
+                        result.getRecordMetadata().topic(),
+                        result.getRecordMetadata().partition(),
+                        result.getRecordMetadata().offset());
+                }
             } else {
-                logger.error("✗ Échec de publication pour la commande {}: {}", 
-                    order.getId(), ex.getMessage());
+                eventLog.publishFailed(order, partition, ex);
+                inventoryService.release(reservation);
             }
         });
     }
 
+    /**
+     * Publie un lot de commandes traitées: tous les envois sont lancés
+     * puis on attend l'ensemble des acks avant le commit du lot.
+     *
+     * @return pour chaque commande, true si son envoi est acquitté
+     */
+    private boolean[] publishProcessedOrders(List<ConsumerRecord<String, Order>> records) {
+        boolean[] published = new boolean[records.size()];
+        if (records.isEmpty()) {
+            return published;
+        }
+
+        long start = System.nanoTime();
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, Order> record : records) {
+            long ingestTime = OrderLatencyTracker.ingestTime(record.headers());
+            futures.add(kafkaTemplate.send(processedRecord(record.value(), ingestTime))
+                .whenComplete((result, ex) -> {
+                    pipelineMetrics.recordPublishAck(start, ex == null);
+                    if (ex == null) {
+                        latencyTracker.recordEndToEnd(record.partition(), ingestTime);
+                    }
+                }));
+        }
+
+        int failures = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).join();
+                published[i] = true;
+            } catch (CompletionException e) {
+                logger.error("✗ Échec de publication pour la commande {}: {}",
+                    records.get(i).value().getId(), e.getMessage());
+                failures++;
+            }
+        }
+
+        if (failures == 0) {
+            logger.info("✓ {} commandes publiées vers '{}'", records.size(), KafkaTopicConfig.ORDERS_PROCESSED_TOPIC);
+        }
+        return published;
+    }
+
+    /**
+     * Termine le futur avec la commande après un délai aléatoire, sans bloquer de thread.
+     */
+    private CompletableFuture<Order> delay(Order order, int minMs, int maxMs) {
+        long delayMs = ThreadLocalRandom.current().nextInt(minMs, maxMs);
+        return CompletableFuture.supplyAsync(() -> order,
+            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS));
+    }
+
     /**
      * Simule un délai de traitement aléatoire.
      */
     private void simulateProcessingDelay(int minMs, int maxMs) {
         try {
-            Thread.sleep(random.nextInt(maxMs - minMs) + minMs);
+            // Sur un virtual thread, sleep libère le thread porteur
+            Thread.sleep(ThreadLocalRandom.current().nextInt(minMs, maxMs));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -0,0 +1,121 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+import com.kafka.groupe6.order_system.producer.OrderProducerService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.adapter.RecordFilterStrategy;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Filtrage des records de 'orders-input' sur leurs seuls headers de routage
+ * (posés par OrderProducerService), en modes record et staged (étape de validation).
+ *
+ * Règles, dans l'ordre:
+ * - terminal-status: x-order-status parmi app.consumer.filter.terminal-statuses
+ * - replay / test (nom de la règle = le type): x-order-type parmi app.consumer.filter.dropped-types
+ * - tenant: x-order-tenant parmi app.consumer.filter.blocked-tenants
+ *
+ * Le RecordFilterStrategy de Spring n'est appelé qu'après le poll(), valeur déjà
+ * désérialisée: OrderDeserializer consulte donc aussi matches() et ne décode pas
+ * la valeur d'un record écarté (null). filter() écarte ensuite le record avant le
+ * listener (offset commité) et le compte par règle (orders.filtered{rule}).
+ *
+ * Comparaisons sur les octets des headers, sans décodage ni allocation. Un record
+ * sans headers de routage (anciens messages, producers externes) est toujours traité.
+ */
+@Component
+public class OrderRecordFilter implements RecordFilterStrategy<String, Order> {
+
+    public static final String RULE_TERMINAL_STATUS = "terminal-status";
+    public static final String RULE_TENANT = "tenant";
+
+    private final byte[][] terminalStatuses;
+    private final byte[][] droppedTypes;
+    private final String[] droppedTypeRules;
+    private final byte[][] blockedTenants;
+    private final OrderPipelineMetrics pipelineMetrics;
+
+    @Autowired
+    public OrderRecordFilter(
+            @Value("${app.consumer.filter.terminal-statuses:COMPLETED,FAILED,CANCELLED}") String[] terminalStatuses,
+            @Value("${app.consumer.filter.dropped-types:replay,test}") String[] droppedTypes,
+            @Value("${app.consumer.filter.blocked-tenants:}") String[] blockedTenants,
+            OrderPipelineMetrics pipelineMetrics) {
+        // Mêmes normalisations que OrderProducerService: statut en majuscules, type en minuscules
+        this.terminalStatuses = toBytes(terminalStatuses, true);
+        this.droppedTypeRules = normalize(droppedTypes, false);
+        this.droppedTypes = toBytes(droppedTypeRules, false);
+        this.blockedTenants = toBytes(blockedTenants, null);
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    /**
+     * Record écarté par une règle (appel du deserializer: pas de comptage).
+     */
+    public boolean matches(Headers headers) {
+        return rule(headers) != null;
+    }
+
+    /**
+     * Règle qui écarte le record, null s'il doit être traité.
+     */
+    public String rule(Headers headers) {
+        if (contains(terminalStatuses, headers.lastHeader(OrderProducerService.STATUS_HEADER)) >= 0) {
+            return RULE_TERMINAL_STATUS;
+        }
+        int type = contains(droppedTypes, headers.lastHeader(OrderProducerService.TYPE_HEADER));
+        if (type >= 0) {
+            return droppedTypeRules[type];
+        }
+        if (contains(blockedTenants, headers.lastHeader(OrderProducerService.TENANT_HEADER)) >= 0) {
+            return RULE_TENANT;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean filter(ConsumerRecord<String, Order> record) {
+        String rule = rule(record.headers());
+        if (rule == null) {
+            return false;
+        }
+        pipelineMetrics.countFiltered(rule);
+        return true;
+    }
+
+    private static int contains(byte[][] values, Header header) {
+        if (values.length == 0 || header == null || header.value() == null) {
+            return -1;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (Arrays.equals(values[i], header.value())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String[] normalize(String[] values, Boolean upperCase) {
+        return Arrays.stream(values)
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .map(value -> upperCase == null ? value
+                : upperCase ? value.toUpperCase(Locale.ROOT) : value.toLowerCase(Locale.ROOT))
+            .toArray(String[]::new);
+    }
+
+    private static byte[][] toBytes(String[] values, Boolean upperCase) {
+        return Arrays.stream(normalize(values, upperCase))
+            .map(value -> value.getBytes(StandardCharsets.UTF_8))
+            .toArray(byte[][]::new);
+    }
+}
@@ -0,0 +1,118 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Iterator;
+
+/**
+ * Consommation des topics de retry non bloquants.
+ *
+ * Activé par app.retry.mode=topics (mode par défaut).
+ *
+ * Chemin d'une commande en échec retriable:
+ * orders-input → orders-retry-1s → orders-retry-10s → orders-dlq
+ *
+ * Chaque message porte l'heure à partir de laquelle il peut être rejoué
+ * (header x-retry-due-at). Un message arrivé trop tôt n'est pas traité:
+ * nack(délai restant) met la partition en pause sans bloquer le thread,
+ * le consumer continue de poller et aucun autre topic n'est ralenti.
+ */
+@Service
+public class OrderRetryConsumerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderRetryConsumerService.class);
+
+    // Headers ajoutés lors du routage vers un topic de retry
+    public static final String RETRY_DUE_AT_HEADER = "x-retry-due-at";
+    public static final String RETRY_ATTEMPT_HEADER = "x-retry-attempt";
+
+    // Délai de chaque palier
+    public static final long RETRY_1S_DELAY_MS = 1000L;
+    public static final long RETRY_10S_DELAY_MS = 10000L;
+
+    private final OrderConsumerService orderConsumerService;
+
+    public OrderRetryConsumerService(OrderConsumerService orderConsumerService) {
+        this.orderConsumerService = orderConsumerService;
+    }
+
+    @KafkaListener(
+        id = "order-retry-1s-consumer",
+        topics = KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC,
+        groupId = "order-retry-group",
+        containerFactory = "retryKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.retry.mode:topics}' == 'topics'}"
+    )
+    public void consumeRetry1s(ConsumerRecord<String, Order> record, Acknowledgment acknowledgment) {
+        retry(record, acknowledgment, RETRY_1S_DELAY_MS);
+    }
+
+    @KafkaListener(
+        id = "order-retry-10s-consumer",
+        topics = KafkaTopicConfig.ORDERS_RETRY_10S_TOPIC,
+        groupId = "order-retry-group",
+        containerFactory = "retryKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.retry.mode:topics}' == 'topics'}"
+    )
+    public void consumeRetry10s(ConsumerRecord<String, Order> record, Acknowledgment acknowledgment) {
+        retry(record, acknowledgment, RETRY_10S_DELAY_MS);
+    }
+
+    private void retry(ConsumerRecord<String, Order> record, Acknowledgment acknowledgment, long delayMs) {
+        long dueAt = readLongHeader(record, RETRY_DUE_AT_HEADER, record.timestamp() + delayMs);
+        long remainingMs = dueAt - System.currentTimeMillis();
+
+        if (remainingMs > 0) {
+            // Trop tôt: pause de la partition, le record sera relivré à l'échéance
+            logger.debug("Retry de la commande {} prévu dans {} ms (topic={})",
+                record.key(), remainingMs, record.topic());
+            acknowledgment.nack(Duration.ofMillis(remainingMs));
+            return;
+        }
+
+        logger.info("↻ Retry {} de la commande {} depuis '{}'",
+            readLongHeader(record, RETRY_ATTEMPT_HEADER, 1L), record.key(), record.topic());
+
+        orderConsumerService.countRetry(record.topic());
+
+        // Un échec est routé vers le palier suivant par l'error handler du container
+        orderConsumerService.consumeOrder(OrderConsumerService.orderOf(record), originalPartition(record), record.offset(),
+            OrderLatencyTracker.ingestTime(record.headers()));
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Partition de 'orders-input' d'origine: premier header kafka_dlt-original-partition
+     * (chaque palier de retry en ajoute un), à défaut celle du record.
+     */
+    private int originalPartition(ConsumerRecord<?, ?> record) {
+        Iterator<Header> headers = record.headers().headers(KafkaHeaders.DLT_ORIGINAL_PARTITION).iterator();
+        if (headers.hasNext()) {
+            byte[] value = headers.next().value();
+            if (value != null && value.length == Integer.BYTES) {
+                return ByteBuffer.wrap(value).getInt();
+            }
+        }
+        return record.partition();
+    }
+
+    private long readLongHeader(ConsumerRecord<?, ?> record, String name, long defaultValue) {
+        Header header = record.headers().lastHeader(name);
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return defaultValue;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+}
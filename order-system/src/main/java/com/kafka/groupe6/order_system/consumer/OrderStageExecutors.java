@@ -0,0 +1,291 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import com.kafka.groupe6.order_system.exception.StageSaturatedException;
+import com.kafka.groupe6.order_system.exception.StageTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.context.Context;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Pools bornés par étape du traitement d'une commande (cloisonnement), mode record
+ * et consumers de retry.
+ *
+ * Activé par app.consumer.bulkhead.enabled=true. Chaque étape (validate, stock, process)
+ * a ses threads (app.consumer.bulkhead.&lt;étape&gt;.threads, 0 = sur le thread du listener),
+ * sa file bornée (queue-capacity) et son délai (timeout-ms):
+ * - Délai dépassé: la tâche est interrompue, StageTimeoutException (retriable, retry
+ *   puis DLQ comme une rupture de stock). Un stock réservé après coup est rendu.
+ * - Pool plein (threads occupés, file pleine): StageSaturatedException, sans attente;
+ *   l'error handler met le consumer en pause puis relit la commande (KafkaConsumerConfig).
+ *
+ * Les tâches s'exécutent dans le Context OpenTelemetry de l'appelant: les spans du
+ * traitement (envoi vers 'orders-processed'...) restent rattachés à la trace du record.
+ *
+ * Un checkStock lent (futur appel distant à l'inventaire) n'occupe donc le listener
+ * que jusqu'au délai de l'étape stock; s'il ne rend plus la main, ses threads restent
+ * occupés, la file se remplit et la lecture ralentit au lieu d'accumuler des tâches.
+ *
+ * Métriques (actuator /metrics), par étape sur pool:
+ * - orders.stage.queue.depth{stage}: tâches en file
+ * - orders.stage.active{stage}: threads occupés
+ * - orders.stage.rejected{stage, reason=saturated|timeout}: commandes refusées ou abandonnées
+ */
+@Component
+public class OrderStageExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStageExecutors.class);
+
+    public static final String VALIDATE = "validate";
+    public static final String STOCK = "stock";
+    public static final String PROCESS = "process";
+
+    public static final String QUEUE_DEPTH = "orders.stage.queue.depth";
+    public static final String ACTIVE = "orders.stage.active";
+    public static final String REJECTED = "orders.stage.rejected";
+
+    private static final OrderStageExecutors INLINE =
+        new OrderStageExecutors(Stage.inline(VALIDATE), Stage.inline(STOCK), Stage.inline(PROCESS));
+
+    private final Stage validate;
+    private final Stage stock;
+    private final Stage process;
+
+    @Autowired
+    public OrderStageExecutors(Environment environment, MeterRegistry meterRegistry) {
+        this(stage(VALIDATE, environment, meterRegistry, 0, 500L),
+            stage(STOCK, environment, meterRegistry, 4, 2000L),
+            stage(PROCESS, environment, meterRegistry, 8, 1000L));
+    }
+
+    private OrderStageExecutors(Stage validate, Stage stock, Stage process) {
+        this.validate = validate;
+        this.stock = stock;
+        this.process = process;
+    }
+
+    /**
+     * Toutes les étapes sur le thread appelant: modes qui ont leurs propres threads
+     * (parallèle, transactionnel) et tests.
+     */
+    public static OrderStageExecutors inline() {
+        return INLINE;
+    }
+
+    public Stage validate() {
+        return validate;
+    }
+
+    public Stage stock() {
+        return stock;
+    }
+
+    public Stage process() {
+        return process;
+    }
+
+    /**
+     * Au moins une étape sur un pool: l'error handler doit gérer StageSaturatedException.
+     */
+    public boolean isEnabled() {
+        return !validate.isInline() || !stock.isInline() || !process.isInline();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validate.shutdown();
+        stock.shutdown();
+        process.shutdown();
+    }
+
+    private static Stage stage(String name, Environment environment, MeterRegistry meterRegistry,
+                               int defaultThreads, long defaultTimeoutMs) {
+        if (!environment.getProperty("app.consumer.bulkhead.enabled", Boolean.class, false)) {
+            return Stage.inline(name);
+        }
+        String prefix = "app.consumer.bulkhead." + name + ".";
+        return new Stage(name,
+            environment.getProperty(prefix + "threads", Integer.class, defaultThreads),
+            environment.getProperty(prefix + "queue-capacity", Integer.class, 100),
+            environment.getProperty(prefix + "timeout-ms", Long.class, defaultTimeoutMs),
+            meterRegistry);
+    }
+
+    /**
+     * Une étape: pool borné, ou exécution sur le thread appelant (threads = 0).
+     */
+    public static final class Stage {
+
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final long timeoutMs;
+        private final Counter saturated;
+        private final Counter timedOut;
+
+        /**
+         * @param queueCapacity tâches en attente au-delà des threads occupés (0 = aucune)
+         */
+        private Stage(String name, int threads, int queueCapacity, long timeoutMs, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.timeoutMs = timeoutMs;
+            if (threads <= 0) {
+                this.executor = null;
+                this.saturated = null;
+                this.timedOut = null;
+                return;
+            }
+            BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+            // AbortPolicy: une file pleine refuse la tâche au lieu de la faire exécuter par l'appelant
+            this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue,
+                new CustomizableThreadFactory("order-" + name + "-"), new ThreadPoolExecutor.AbortPolicy());
+
+            Gauge.builder(QUEUE_DEPTH, queue, BlockingQueue::size)
+                .description("Tâches en attente sur le pool de l'étape")
+                .tag("stage", name)
+                .register(meterRegistry);
+            Gauge.builder(ACTIVE, executor, ThreadPoolExecutor::getActiveCount)
+                .description("Threads occupés sur le pool de l'étape")
+                .tag("stage", name)
+                .register(meterRegistry);
+            this.saturated = rejectedCounter(name, "saturated", meterRegistry);
+            this.timedOut = rejectedCounter(name, "timeout", meterRegistry);
+            logger.info("✓ Étape '{}' sur {} threads (file {}, délai {} ms)", name, threads, queueCapacity, timeoutMs);
+        }
+
+        static Stage inline(String name) {
+            return new Stage(name, 0, 0, 0L, null);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isInline() {
+            return executor == null;
+        }
+
+        public void run(String orderId, Runnable task) {
+            call(orderId, () -> {
+                task.run();
+                return null;
+            }, null);
+        }
+
+        public <T> T call(String orderId, Supplier<T> task) {
+            return call(orderId, task, null);
+        }
+
+        /**
+         * Exécute la tâche sur le pool de l'étape et attend son résultat, au plus timeoutMs.
+         * Les exceptions de la tâche sont relancées telles quelles.
+         *
+         * @param onAbandoned appelé avec le résultat d'une tâche terminée après son délai
+         *                    (rendu du stock réservé), null si rien à défaire
+         * @throws StageSaturatedException si le pool et sa file sont pleins
+         * @throws StageTimeoutException   si le délai est dépassé
+         */
+        public <T> T call(String orderId, Supplier<T> task, Consumer<T> onAbandoned) {
+            if (executor == null) {
+                return task.get();
+            }
+
+            // Le premier qui le prend décide: la tâche (résultat rendu) ou l'appelant (abandon)
+            AtomicBoolean settled = new AtomicBoolean();
+            Future<T> future;
+            try {
+                future = executor.submit(Context.current().wrap(() -> {
+                    T result = task.get();
+                    if (!settled.compareAndSet(false, true) && onAbandoned != null) {
+                        onAbandoned.accept(result);
+                    }
+                    return result;
+                }));
+            } catch (RejectedExecutionException e) {
+                saturated.increment();
+                throw new StageSaturatedException(name, orderId, e);
+            }
+
+            try {
+                return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (!settled.compareAndSet(false, true)) {
+                    // Terminée juste à temps: le résultat est disponible
+                    return join(future);
+                }
+                future.cancel(true);
+                executor.remove((Runnable) future);
+                timedOut.increment();
+                throw new StageTimeoutException(name, orderId, timeoutMs);
+            } catch (InterruptedException e) {
+                if (settled.compareAndSet(false, true)) {
+                    future.cancel(true);
+                } else if (onAbandoned != null) {
+                    // Terminée, mais l'appelant abandonne: même traitement qu'après le délai
+                    onAbandoned.accept(join(future));
+                }
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Attente de l'étape " + name + " interrompue", e);
+            } catch (ExecutionException e) {
+                throw rethrow(e);
+            }
+        }
+
+        void shutdown() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        private <T> T join(Future<T> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Attente de l'étape " + name + " interrompue", e);
+            } catch (ExecutionException e) {
+                throw rethrow(e);
+            }
+        }
+
+        private static RuntimeException rethrow(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                return (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return new IllegalStateException(cause);
+        }
+
+        private static Counter rejectedCounter(String stage, String reason, MeterRegistry meterRegistry) {
+            return Counter.builder(REJECTED)
+                .description("Commandes refusées (pool plein) ou abandonnées (délai dépassé), par étape")
+                .tag("stage", stage)
+                .tag("reason", reason)
+                .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consommation parallèle d'une seule partition avec ordre par clé.
+ *
+ * Activé par app.consumer.mode=parallel.
+ *
+ * Fonctionnement:
+ * - Le listener (thread du container) reçoit un lot de records
+ * - Chaque record est confié à une voie de KeyOrderedExecutor selon sa clé
+ *   (ID de commande ou ID client): même clé → même voie → ordre conservé
+ * - Les records se terminent dans le désordre, OffsetTracker ne laisse
+ *   commiter que le dernier offset contigu terminé
+ * - Au-delà de app.consumer.parallel.max-in-flight records en cours, le container
+ *   est mis en pause puis repris quand des records se terminent: le thread du
+ *   consumer continue de poller (et de commiter), sans jamais attendre les voies
+ * - Un échec est confié au recoverer des topics de retry (orders-retry-1s, ou la
+ *   DLQ si non retriable): aucune attente de backoff n'occupe une voie et ne
+ *   retarde les autres clés de cette voie. Requiert app.retry.mode=topics.
+ *
+ * Le débit augmente avec le nombre de voies sans repartitionner 'orders-input'.
+ *
+ * Avec spring.threads.virtual.enabled=true (Java 21+), les voies sont des
+ * virtual threads et, par défaut, il y en a une par record en cours
+ * (max-in-flight): les attentes bloquantes du traitement ne coûtent plus
+ * un thread plateforme chacune.
+ */
+@Service
+public class ParallelOrderConsumerService implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelOrderConsumerService.class);
+
+    public static final String LISTENER_ID = "order-parallel-consumer";
+
+    private static final String ORDERING_KEY_CUSTOMER_ID = "customer-id";
+    private static final String CONSUMER_MODE_PARALLEL = "parallel";
+    private static final String RETRY_MODE_TOPICS = "topics";
+
+    private final OrderConsumerService orderConsumerService;
+    private final DeadLetterPublishingRecoverer retryTopicRecoverer;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final KeyOrderedExecutor executor;
+    private final OffsetTracker offsetTracker = new OffsetTracker();
+    private final int maxInFlight;
+    private final String orderingKey;
+
+    public ParallelOrderConsumerService(
+            OrderConsumerService orderConsumerService,
+            DeadLetterPublishingRecoverer retryTopicRecoverer,
+            KafkaListenerEndpointRegistry listenerRegistry,
+            @Value("${app.consumer.parallel.lanes:0}") int lanes,
+            @Value("${app.consumer.parallel.max-in-flight:1000}") int maxInFlight,
+            @Value("${app.consumer.parallel.ordering-key:order-id}") String orderingKey,
+            Environment environment) {
+        String consumerMode = environment.getProperty("app.consumer.mode", "record");
+        String retryMode = environment.getProperty("app.retry.mode", RETRY_MODE_TOPICS);
+        if (CONSUMER_MODE_PARALLEL.equals(consumerMode) && !RETRY_MODE_TOPICS.equals(retryMode)) {
+            // Sans les consumers de retry, les records confiés aux topics de retry ne seraient jamais rejoués
+            throw new IllegalStateException("app.consumer.mode=parallel requiert app.retry.mode=topics (actuel: "
+                + retryMode + ")");
+        }
+        this.orderConsumerService = orderConsumerService;
+        this.retryTopicRecoverer = retryTopicRecoverer;
+        this.listenerRegistry = listenerRegistry;
+        boolean virtualThreads = Threading.VIRTUAL.isActive(environment);
+        // 0 = une voie par cœur, ou une par record en cours avec des virtual threads
+        int laneCount = lanes > 0 ? lanes
+            : virtualThreads ? maxInFlight : Runtime.getRuntime().availableProcessors();
+        this.executor = new KeyOrderedExecutor("order-lane-", laneCount, virtualThreads);
+        this.maxInFlight = maxInFlight;
+        this.orderingKey = orderingKey;
+    }
+
+    @KafkaListener(
+        id = LISTENER_ID,
+        topics = KafkaTopicConfig.ORDERS_INPUT_TOPIC,
+        groupId = "order-consumer-group",
+        containerFactory = "parallelKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.consumer.mode:record}' == 'parallel'}"
+    )
+    public void consumeOrders(List<ConsumerRecord<String, Order>> records, Consumer<?, ?> consumer) {
+        logger.debug("Lot de {} messages réparti sur {} voies", records.size(), executor.laneCount());
+
+        for (ConsumerRecord<String, Order> record : records) {
+            orderConsumerService.recordQueueWait(record);
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            offsetTracker.register(partition, record.offset());
+
+            executor.submit(orderingKey(record), () -> process(record))
+                .whenComplete((ignored, ex) -> {
+                    offsetTracker.complete(partition, record.offset());
+                    resumeIfBelowLimit();
+                });
+        }
+
+        // Les records déjà reçus sont confiés aux voies; plus aucun poll n'en ramène d'ici là
+        if (offsetTracker.inFlight() >= maxInFlight) {
+            pause();
+        }
+
+        commitCompleted(consumer);
+    }
+
+    /**
+     * Commit périodique quand aucun record n'arrive, container en pause compris
+     * (évènement publié sur le thread du consumer, l'appel à commitAsync est donc autorisé).
+     */
+    @EventListener(condition = "event.listenerId.startsWith('order-parallel-consumer')")
+    public void onIdle(ListenerContainerIdleEvent event) {
+        commitCompleted(event.getConsumer());
+        // Rattrape une fin de traitement survenue juste avant la mise en pause
+        resumeIfBelowLimit();
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Dernier commit synchrone avant de perdre les partitions.
+        // Les records encore en cours seront relivrés au nouveau propriétaire (at-least-once).
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committableOffsets();
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+            offsetTracker.committed(offsets);
+        }
+        offsetTracker.remove(partitions);
+    }
+
+    /**
+     * Traitement d'un record sur sa voie, sans retry local: un échec part
+     * immédiatement vers le palier de retry (ou la DLQ) et la voie passe
+     * à la clé suivante.
+     */
+    private void process(ConsumerRecord<String, Order> record) {
+        try {
+            // Étapes sur la voie du record: les voies bornent déjà la concurrence
+            orderConsumerService.consumeOrder(OrderConsumerService.orderOf(record), record.partition(), record.offset(),
+                OrderLatencyTracker.ingestTime(record.headers()), OrderStageExecutors.inline());
+        } catch (RuntimeException e) {
+            recover(record, e);
+        }
+    }
+
+    private void recover(ConsumerRecord<String, Order> record, Exception exception) {
+        try {
+            retryTopicRecoverer.accept(record, exception);
+        } catch (RuntimeException e) {
+            // L'offset est tout de même libéré pour ne pas bloquer la partition
+            logger.error("✗ Impossible d'envoyer le message [partition={}, offset={}] vers le topic de retry: {}",
+                record.partition(), record.offset(), e.getMessage(), e);
+        }
+    }
+
+    private Object orderingKey(ConsumerRecord<String, Order> record) {
+        Order order = record.value();
+        if (ORDERING_KEY_CUSTOMER_ID.equals(orderingKey) && order != null && order.getCustomerId() != null) {
+            return order.getCustomerId();
+        }
+        if (order != null && order.getId() != null) {
+            return order.getId();
+        }
+        // Clé du record (dépend de app.partitioning.strategy), à défaut la partition
+        return record.key() != null ? record.key() : record.partition();
+    }
+
+    private void pause() {
+        MessageListenerContainer container = container();
+        if (container != null && !container.isPauseRequested()) {
+            logger.debug("Consumer en pause ({} records en cours)", offsetTracker.inFlight());
+            container.pause();
+        }
+    }
+
+    private void resumeIfBelowLimit() {
+        if (offsetTracker.inFlight() >= maxInFlight) {
+            return;
+        }
+        MessageListenerContainer container = container();
+        if (container != null && container.isPauseRequested()) {
+            container.resume();
+        }
+    }
+
+    private MessageListenerContainer container() {
+        return listenerRegistry.getListenerContainer(LISTENER_ID);
+    }
+
+    private void commitCompleted(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committableOffsets();
+        if (offsets.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(offsets, (committed, ex) -> {
+            if (ex != null) {
+                // Offsets proposés à nouveau au prochain commit
+                logger.warn("⚠ Échec du commit des offsets {}: {}", committed, ex.getMessage());
+            } else {
+                offsetTracker.committed(committed);
+                logger.debug("Offsets commités: {}", committed);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+}
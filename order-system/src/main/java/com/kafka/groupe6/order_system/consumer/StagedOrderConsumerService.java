@@ -0,0 +1,290 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.exception.StockUnavailableException;
+import com.kafka.groupe6.order_system.inventory.StockReservation;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderEventLog;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+import com.kafka.groupe6.order_system.tracing.OrderSpans;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Traitement des commandes en étapes découplées par des topics.
+ *
+ * Activé par app.consumer.mode=staged.
+ *
+ * orders-input → [validation] → orders-validated → [réservation] → orders-reserved
+ *              → [traitement + publication] → orders-processed
+ *
+ * Chaque étape a son container, sa concurrence (app.consumer.staged.*-concurrency)
+ * et son groupe de consommateurs: l'étape lente (traitement, 100 à 300 ms) se dimensionne
+ * seule, sur plus de threads ou d'instances, sans ralentir la validation ni la réservation.
+ *
+ * Une étape ne rend la main (offset commité) qu'après l'ack de la commande sur le topic
+ * suivant: au moins une fois par étape. Une étape en échec est retentée seule (backoff
+ * bloquant sur sa partition), puis la commande part en DLQ avec le topic de l'étape
+ * comme topic d'origine (error handler propre à chaque container, KafkaConsumerConfig).
+ *
+ * Chaque réservation de l'étape 2 est retenue par id de commande jusqu'à ce que
+ * l'étape 3 la consomme (publication confirmée) ou la rende: envoi vers
+ * 'orders-reserved' en échec, envoi en DLQ (releaseReserved), ou copie déjà publiée
+ * (même id réservé deux fois, par exemple renvoyé par le client avant la fin du
+ * premier traitement). Seule une réservation encore retenue est rendue: une
+ * relivraison de l'étape 3 après publication (arrêt avant commit, rebalance) ne
+ * rend pas une seconde fois un stock déjà consommé. Une commande déjà publiée
+ * n'est plus réservée par l'étape 2.
+ *
+ * Réservations retenues en mémoire, par instance et au plus
+ * app.consumer.staged.max-held-reservations: une copie en double traitée par une
+ * autre instance que celle qui l'a réservée, ou après un redémarrage, garde son
+ * stock (sous-estimé plutôt que surestimé).
+ */
+@Service
+public class StagedOrderConsumerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagedOrderConsumerService.class);
+
+    public static final String RESERVE_STAGE_GROUP = "order-reserve-stage-group";
+    public static final String PROCESS_STAGE_GROUP = "order-process-stage-group";
+
+    private final OrderConsumerService orderConsumerService;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OrderPipelineMetrics pipelineMetrics;
+    private final OrderEventLog eventLog;
+
+    // Réservations de l'étape 2 ni consommées ni rendues, par id de commande (plus anciennes en tête)
+    private final Map<String, Deque<StockReservation>> heldReservations;
+
+    public StagedOrderConsumerService(OrderConsumerService orderConsumerService,
+                                      KafkaTemplate<String, Object> kafkaTemplate,
+                                      OrderPipelineMetrics pipelineMetrics,
+                                      OrderEventLog eventLog,
+                                      @Value("${app.consumer.staged.max-held-reservations:100000}") int maxHeld) {
+        this.orderConsumerService = orderConsumerService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.pipelineMetrics = pipelineMetrics;
+        this.eventLog = eventLog;
+        this.heldReservations = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Deque<StockReservation>> eldest) {
+                if (size() <= maxHeld) {
+                    return false;
+                }
+                logger.warn("⚠ Réservation de la commande {} oubliée (plus de {} retenues): stock non rendu",
+                    eldest.getKey(), maxHeld);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Étape 1: déduplication, validation, puis envoi vers 'orders-validated'.
+     * Même groupe que les autres modes sur 'orders-input' (lag et admission de l'API).
+     */
+    @KafkaListener(
+        id = "order-validate-stage",
+        topics = KafkaTopicConfig.ORDERS_INPUT_TOPIC,
+        groupId = "order-consumer-group",
+        containerFactory = "validateStageKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.consumer.mode:record}' == 'staged'}"
+    )
+    public void validate(ConsumerRecord<String, Order> record) {
+        long start = System.nanoTime();
+        long ingestTime = orderConsumerService.recordQueueWait(record);
+        Order order = OrderConsumerService.orderOf(record);
+        OrderSpans.tagOrder(order.getId());
+        if (orderConsumerService.isDuplicate(order)) {
+            return;
+        }
+
+        try {
+            orderConsumerService.validate(order);
+        } catch (OrderValidationException e) {
+            eventLog.failed(order, record.partition(), record.offset(), start, OrderEventLog.Failure.VALIDATION, e);
+            throw e;
+        }
+        forward(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, record, order, ingestTime);
+    }
+
+    /**
+     * Étape 2: réservation du stock, puis envoi vers 'orders-reserved'.
+     * Une commande déjà publiée (même id) n'est ni réservée ni transmise.
+     */
+    @KafkaListener(
+        id = "order-reserve-stage",
+        topics = KafkaTopicConfig.ORDERS_VALIDATED_TOPIC,
+        groupId = RESERVE_STAGE_GROUP,
+        containerFactory = "reserveStageKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.consumer.mode:record}' == 'staged'}"
+    )
+    public void reserve(ConsumerRecord<String, Order> record) {
+        long start = System.nanoTime();
+        Order order = OrderConsumerService.orderOf(record);
+        OrderSpans.tagOrder(order.getId());
+        if (orderConsumerService.isDuplicate(order)) {
+            return;
+        }
+
+        StockReservation reservation;
+        try {
+            reservation = orderConsumerService.reserve(order);
+        } catch (StockUnavailableException e) {
+            eventLog.failed(order, record.partition(), record.offset(), start,
+                OrderEventLog.Failure.STOCK_UNAVAILABLE, e);
+            throw e;
+        }
+        // Retenue avant l'envoi: l'étape 3 peut la consommer dès l'ack
+        hold(order.getId(), reservation);
+        try {
+            forward(KafkaTopicConfig.ORDERS_RESERVED_TOPIC, record, order,
+                OrderLatencyTracker.ingestTime(record.headers()));
+        } catch (RuntimeException e) {
+            // L'étape sera retentée: nouvelle réservation
+            releaseHeld(order.getId());
+            throw e;
+        }
+    }
+
+    /**
+     * Étape 3: traitement, PROCESSING → COMPLETED, publication vers 'orders-processed'.
+     * Une commande déjà publiée est ignorée et le stock réservé pour cette copie rendu,
+     * s'il est encore retenu (pas pour une relivraison de la copie déjà publiée).
+     */
+    @KafkaListener(
+        id = "order-process-stage",
+        topics = KafkaTopicConfig.ORDERS_RESERVED_TOPIC,
+        groupId = PROCESS_STAGE_GROUP,
+        containerFactory = "processStageKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.consumer.mode:record}' == 'staged'}"
+    )
+    public void process(ConsumerRecord<String, Order> record) {
+        long start = System.nanoTime();
+        Order order = OrderConsumerService.orderOf(record);
+        OrderSpans.tagOrder(order.getId());
+        if (orderConsumerService.isDuplicate(order)) {
+            // L'étape 2 a peut-être réservé cette copie: le stock n'est pas consommé
+            releaseHeld(order.getId());
+            return;
+        }
+
+        orderConsumerService.process(order);
+
+        long publishStart = System.nanoTime();
+        try {
+            send(orderConsumerService.processedRecord(order, OrderLatencyTracker.ingestTime(record.headers())));
+        } catch (RuntimeException e) {
+            pipelineMetrics.recordPublishAck(publishStart, false);
+            eventLog.publishFailed(order, record.partition(), e);
+            throw e;
+        }
+        pipelineMetrics.recordPublishAck(publishStart, true);
+        consumeHeld(order.getId());
+        orderConsumerService.markProcessed(order);
+        orderConsumerService.recordEndToEnd(record);
+        eventLog.processed(order, record.partition(), record.offset(), start);
+    }
+
+    /**
+     * Rend le stock d'une commande de 'orders-reserved' envoyée en DLQ (retries épuisés),
+     * s'il est encore retenu. Appelé par le recoverer du container de traitement,
+     * avant la publication en DLQ.
+     */
+    public void releaseReserved(ConsumerRecord<?, ?> record) {
+        if (record.value() instanceof Order) {
+            Order order = (Order) record.value();
+            boolean released = releaseHeld(order.getId());
+            logger.warn("⚠ Commande {} en DLQ depuis '{}': {}", order.getId(), record.topic(),
+                released ? "stock rendu" : "aucune réservation retenue");
+        }
+    }
+
+    private void hold(String orderId, StockReservation reservation) {
+        if (reservation.size() == 0) {
+            return;
+        }
+        synchronized (heldReservations) {
+            heldReservations.computeIfAbsent(orderId, id -> new ArrayDeque<>()).addLast(reservation);
+        }
+    }
+
+    /**
+     * Retire la plus ancienne réservation retenue pour la commande, null s'il n'y en a plus.
+     */
+    private StockReservation takeHeld(String orderId) {
+        synchronized (heldReservations) {
+            Deque<StockReservation> held = heldReservations.get(orderId);
+            if (held == null) {
+                return null;
+            }
+            StockReservation reservation = held.pollFirst();
+            if (held.isEmpty()) {
+                heldReservations.remove(orderId);
+            }
+            return reservation;
+        }
+    }
+
+    /**
+     * Commande publiée: son stock est définitivement consommé.
+     */
+    private void consumeHeld(String orderId) {
+        takeHeld(orderId);
+    }
+
+    /**
+     * Rend une réservation encore retenue pour la commande.
+     *
+     * @return false si aucune n'est retenue (déjà consommée ou rendue, ou faite ailleurs)
+     */
+    private boolean releaseHeld(String orderId) {
+        StockReservation reservation = takeHeld(orderId);
+        if (reservation == null) {
+            return false;
+        }
+        orderConsumerService.releaseStock(reservation);
+        return true;
+    }
+
+    /**
+     * Envoi vers l'étape suivante, même clé (ordre par clé conservé) et même instant d'ingestion.
+     */
+    private void forward(String topic, ConsumerRecord<String, Order> record, Order order, long ingestTime) {
+        ProducerRecord<String, Object> next = new ProducerRecord<>(topic, record.key(), order);
+        if (ingestTime != OrderLatencyTracker.NO_INGEST_TIME) {
+            OrderLatencyTracker.addIngestTime(next.headers(), ingestTime);
+        }
+        send(next);
+        logger.debug("Commande {} transmise à '{}'", order.getId(), topic);
+    }
+
+    /**
+     * Envoi confirmé par le broker avant le commit de l'offset de l'étape.
+     * Un échec d'envoi fait échouer l'étape (retry puis DLQ par l'error handler).
+     */
+    private void send(ProducerRecord<String, Object> record) {
+        try {
+            kafkaTemplate.send(record).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
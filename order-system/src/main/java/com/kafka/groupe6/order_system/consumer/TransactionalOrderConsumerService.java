@@ -0,0 +1,133 @@
+package com.kafka.groupe6.order_system.consumer;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.inventory.StockReservation;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consume-transform-produce exactly-once.
+ *
+ * Activé par app.consumer.mode=transactional.
+ *
+ * Le container ouvre une transaction par lot (un poll()):
+ * - les commandes traitées sont publiées vers 'orders-processed'
+ * - les commandes en échec sont routées vers le palier de retry ou la DLQ
+ * - le container ajoute les offsets du lot (sendOffsetsToTransaction) et commite
+ *
+ * Un crash avant le commit annule tout: le lot est relu depuis le dernier offset
+ * commité et les envois de la transaction annulée ne sont jamais visibles
+ * des consumers read_committed. Pas de perte ni de doublon dans 'orders-processed'.
+ *
+ * Les envois ne sont pas attendus un par un: le commit de la transaction
+ * attend tous les acks en un seul flush.
+ *
+ * Si la transaction est annulée, le stock réservé par le lot est rendu
+ * avant que le lot ne soit relu. Les commandes du lot ne sont marquées comme
+ * traitées (OrderDeduplicator) qu'après le commit.
+ */
+@Service
+public class TransactionalOrderConsumerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionalOrderConsumerService.class);
+
+    private final OrderConsumerService orderConsumerService;
+    private final KafkaTemplate<String, Object> transactionalKafkaTemplate;
+    private final DeadLetterPublishingRecoverer transactionalRecoverer;
+
+    public TransactionalOrderConsumerService(
+            OrderConsumerService orderConsumerService,
+            @Qualifier("transactionalKafkaTemplate") KafkaTemplate<String, Object> transactionalKafkaTemplate,
+            @Qualifier("transactionalRecoverer") DeadLetterPublishingRecoverer transactionalRecoverer) {
+        this.orderConsumerService = orderConsumerService;
+        this.transactionalKafkaTemplate = transactionalKafkaTemplate;
+        this.transactionalRecoverer = transactionalRecoverer;
+    }
+
+    @KafkaListener(
+        id = "order-transactional-consumer",
+        topics = KafkaTopicConfig.ORDERS_INPUT_TOPIC,
+        groupId = "order-consumer-group",
+        containerFactory = "transactionalKafkaListenerContainerFactory",
+        autoStartup = "#{'${app.consumer.mode:record}' == 'transactional'}"
+    )
+    public void consumeOrderBatch(List<ConsumerRecord<String, Order>> records) {
+        logger.info("Lot de {} messages reçu du topic 'orders-input' (transaction)", records.size());
+
+        int processed = 0;
+        int routed = 0;
+        List<StockReservation> reservations = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, Order>> published = new ArrayList<>(records.size());
+        completeOnTransactionEnd(reservations, published);
+        for (ConsumerRecord<String, Order> record : records) {
+            orderConsumerService.recordQueueWait(record);
+            Order order = record.value();
+            if (orderConsumerService.isDuplicate(order)) {
+                continue;
+            }
+            StockReservation reservation = null;
+            try {
+                reservation = orderConsumerService.completeOrder(OrderConsumerService.orderOf(record));
+                transactionalKafkaTemplate.send(orderConsumerService.processedRecord(
+                    order, OrderLatencyTracker.ingestTime(record.headers())));
+                reservations.add(reservation);
+                published.add(record);
+                processed++;
+            } catch (OrderValidationException e) {
+                logger.error("✗ Erreur de validation pour la commande {}: {}",
+                    e.getOrderId(), e.getValidationError());
+                transactionalRecoverer.accept(record, e);
+                routed++;
+            } catch (RuntimeException e) {
+                logger.warn("⚠ Échec du traitement de la commande {}: {}", order.getId(), e.getMessage());
+                orderConsumerService.releaseStock(reservation);
+                transactionalRecoverer.accept(record, e);
+                routed++;
+            }
+        }
+
+        // Le commit (sorties + offsets) est fait par le container au retour du listener
+        logger.info("✓✓ Lot transactionnel prêt: {} commandes publiées, {} routées en retry/DLQ",
+            processed, routed);
+    }
+
+    /**
+     * Marque les commandes publiées une fois la transaction commitée (latence de bout
+     * en bout mesurée au commit, quand elles deviennent visibles); rend leur stock si
+     * elle est annulée (le lot sera relu et réservera à nouveau).
+     */
+    private void completeOnTransactionEnd(List<StockReservation> reservations,
+                                          List<ConsumerRecord<String, Order>> published) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    for (ConsumerRecord<String, Order> record : published) {
+                        orderConsumerService.markProcessed(record.value());
+                        orderConsumerService.recordEndToEnd(record);
+                    }
+                } else if (status == STATUS_ROLLED_BACK) {
+                    logger.warn("⚠ Transaction annulée: stock rendu pour {} commandes", reservations.size());
+                    reservations.forEach(orderConsumerService::releaseStock);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.kafka.groupe6.order_system.controller;
+
+import com.kafka.groupe6.order_system.exception.IdempotencyKeyConflictException;
+import com.kafka.groupe6.order_system.model.OrderSendResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Résultats des envois POST /api/orders par clé d'idempotence (header Idempotency-Key).
+ *
+ * - Première requête d'une clé: elle seule envoie la commande vers Kafka
+ * - Requêtes suivantes, y compris pendant l'envoi: même futur, donc même
+ *   résultat (partition, offset) sans second envoi
+ * - Envoi en échec (broker, 429): la clé est libérée, le client peut réessayer
+ *
+ * Borné et expirant: au plus app.orders.idempotency.max-keys clés, chacune
+ * conservée app.orders.idempotency.ttl-minutes. La durée de vie étant la même
+ * pour toutes, l'ordre d'insertion est aussi l'ordre d'expiration: une file
+ * suffit, la plus ancienne clé part en premier (expirée ou au-delà de la limite).
+ * Seules les clés mémorisées comptent pour la limite: une clé libérée (envoi en
+ * échec) ou remplacée (expirée) est oubliée tout de suite et son entrée est
+ * écartée de la file quand elle en atteint la tête.
+ *
+ * Cache local à l'instance: derrière un load balancer, les retries d'une même
+ * clé doivent revenir sur la même instance (sinon la déduplication des
+ * consumers reste le dernier rempart).
+ */
+@Component
+public class IdempotencyKeyCache {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Entrées dans l'ordre d'insertion (donc d'expiration), y compris celles déjà oubliées
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    // Entrées de la file pas encore oubliées
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxKeys;
+    private final long ttlMs;
+    private final Clock clock;
+
+    @Autowired
+    public IdempotencyKeyCache(
+            @Value("${app.orders.idempotency.max-keys:100000}") int maxKeys,
+            @Value("${app.orders.idempotency.ttl-minutes:60}") long ttlMinutes,
+            Clock clock) {
+        if (maxKeys <= 0 || ttlMinutes <= 0) {
+            throw new IllegalArgumentException("max-keys et ttl-minutes doivent être > 0");
+        }
+        this.maxKeys = maxKeys;
+        this.ttlMs = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.clock = clock;
+    }
+
+    /**
+     * Envoie la commande si la clé est nouvelle, sinon renvoie le résultat
+     * (terminé ou en cours) de la première requête.
+     *
+     * @param send lancé seulement pour une clé nouvelle; peut lever une
+     *             exception (ex: AdmissionRejectedException), qui libère la clé
+     * @throws IdempotencyKeyConflictException si la clé a déjà servi pour une autre commande
+     */
+    public Submission submit(String key, String orderId, Supplier<CompletableFuture<OrderSendResult>> send) {
+        long now = clock.millis();
+        Entry entry = new Entry(key, orderId, now + ttlMs);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                break;
+            }
+            if (existing.expiresAt > now) {
+                if (!Objects.equals(existing.orderId, orderId)) {
+                    throw new IdempotencyKeyConflictException(key, existing.orderId);
+                }
+                return new Submission(existing.result, true);
+            }
+            if (entries.replace(key, existing, entry)) {
+                forget(existing);
+                break;
+            }
+        }
+
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evict(now);
+
+        CompletableFuture<OrderSendResult> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((result, ex) -> {
+            if (ex != null || result == null || !result.isAccepted()) {
+                // Échec non mémorisé: la prochaine requête de même clé renverra la commande
+                entries.remove(key, entry);
+                forget(entry);
+            }
+            if (ex != null) {
+                entry.result.completeExceptionally(ex);
+            } else {
+                entry.result.complete(result);
+            }
+        });
+        return new Submission(entry.result, false);
+    }
+
+    /**
+     * Nombre de clés mémorisées (en cours ou terminées).
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retire les plus anciennes entrées: déjà oubliées, expirées, ou au-delà de maxKeys.
+     */
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (oldest.forgotten.get() || oldest.expiresAt <= now || queued.get() > maxKeys)) {
+            // Un seul thread retire une entrée donnée
+            if (insertionOrder.remove(oldest)) {
+                forget(oldest);
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    /**
+     * L'entrée ne compte plus pour maxKeys (une seule fois, quel que soit le chemin).
+     */
+    private void forget(Entry entry) {
+        if (entry.forgotten.compareAndSet(false, true)) {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Résultat d'un appel à submit(): futur de l'envoi et indication de rejeu.
+     */
+    public static final class Submission {
+        private final CompletableFuture<OrderSendResult> result;
+        private final boolean replayed;
+
+        Submission(CompletableFuture<OrderSendResult> result, boolean replayed) {
+            this.result = result;
+            this.replayed = replayed;
+        }
+
+        public CompletableFuture<OrderSendResult> getResult() {
+            return result;
+        }
+
+        /**
+         * true si la clé était connue: aucun envoi n'a été fait pour cette requête.
+         */
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String orderId;
+        private final long expiresAt;
+        private final CompletableFuture<OrderSendResult> result = new CompletableFuture<>();
+        private final AtomicBoolean forgotten = new AtomicBoolean();
+
+        private Entry(String key, String orderId, long expiresAt) {
+            this.key = key;
+            this.orderId = orderId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
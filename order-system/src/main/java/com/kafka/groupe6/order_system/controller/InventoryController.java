@@ -0,0 +1,54 @@
+package com.kafka.groupe6.order_system.controller;
+
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Niveaux de stock utilisés par la réservation des commandes.
+ *
+ * - PUT /api/inventory : charge les quantités disponibles ({"Laptop": 50, "Mouse": 200})
+ * - GET /api/inventory : quantités disponibles de tous les SKU connus
+ * - GET /api/inventory/{sku} : quantité disponible d'un SKU
+ *
+ * Chargement refusé (503) tant que le stock est reconstruit depuis le topic 'inventory'.
+ */
+@RestController
+@RequestMapping("/api/inventory")
+public class InventoryController {
+
+    private final InventoryService inventoryService;
+
+    public InventoryController(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @PutMapping
+    public Map<String, Long> load(@RequestBody Map<String, Long> levels) {
+        inventoryService.setStock(levels);
+        return inventoryService.levels();
+    }
+
+    @GetMapping
+    public Map<String, Long> levels() {
+        return inventoryService.levels();
+    }
+
+    @GetMapping("/{sku}")
+    public Map<String, Long> available(@PathVariable String sku) {
+        return Map.of(sku, inventoryService.available(sku));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidLevels(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleRestoring(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+}
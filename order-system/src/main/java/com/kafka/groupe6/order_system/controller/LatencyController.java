@@ -0,0 +1,29 @@
+package com.kafka.groupe6.order_system.controller;
+
+import com.kafka.groupe6.order_system.model.LatencySloReport;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Latences des commandes depuis leur acceptation HTTP.
+ *
+ * - GET /api/latency/slo : p50/p90/p99/p99.9 de bout en bout et d'attente en file,
+ *   par fenêtre glissante et par partition, avec le respect de l'objectif p99
+ */
+@RestController
+@RequestMapping("/api/latency")
+public class LatencyController {
+
+    private final OrderLatencyTracker latencyTracker;
+
+    public LatencyController(OrderLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
+    @GetMapping("/slo")
+    public LatencySloReport slo() {
+        return latencyTracker.report();
+    }
+}
@@ -0,0 +1,51 @@
+package com.kafka.groupe6.order_system.controller;
+
+import com.kafka.groupe6.order_system.loadgen.LoadGeneratorService;
+import com.kafka.groupe6.order_system.model.LoadGenReport;
+import com.kafka.groupe6.order_system.model.LoadGenRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Pilotage du générateur de charge intégré.
+ *
+ * - POST /api/loadgen/start : démarre un tir (202, 409 si un tir est en cours)
+ * - POST /api/loadgen/stop : arrête le tir en cours
+ * - GET /api/loadgen/status : compteurs et percentiles de latence en temps réel
+ */
+@RestController
+@RequestMapping("/api/loadgen")
+public class LoadGeneratorController {
+
+    private final LoadGeneratorService loadGeneratorService;
+
+    public LoadGeneratorController(LoadGeneratorService loadGeneratorService) {
+        this.loadGeneratorService = loadGeneratorService;
+    }
+
+    @PostMapping("/start")
+    public ResponseEntity<LoadGenReport> start(@RequestBody LoadGenRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(loadGeneratorService.start(request));
+    }
+
+    @PostMapping("/stop")
+    public LoadGenReport stop() {
+        return loadGeneratorService.stop();
+    }
+
+    @GetMapping("/status")
+    public LoadGenReport status() {
+        return loadGeneratorService.status();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleAlreadyRunning(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+}
@@ -1,11 +1,31 @@
 package com.kafka.groupe6.order_system.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kafka.groupe6.order_system.exception.AdmissionRejectedException;
+import com.kafka.groupe6.order_system.exception.IdempotencyKeyConflictException;
 import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.model.OrderSendResult;
+import com.kafka.groupe6.order_system.monitoring.ConsumerLagMonitor;
+import com.kafka.groupe6.order_system.producer.IngressAdmissionService;
 import com.kafka.groupe6.order_system.producer.OrderProducerService;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -13,21 +33,146 @@ public class OrderController {
 
     // Injection manuelle du service
     private final OrderProducerService producerService;
+    private final IngressAdmissionService admissionService;
+    private final ObjectMapper objectMapper;
+    private final ConsumerLagMonitor lagMonitor;
+    private final IdempotencyKeyCache idempotencyKeyCache;
+
+    // Valeur de X-Order-Priority désignant le trafic sacrifiable en premier
+    private static final String LOW_PRIORITY = "low";
+
+    // Clé fournie par le client pour rejouer une requête sans renvoyer la commande
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    // Réponse rejouée depuis IdempotencyKeyCache (true) ou envoi effectué (false)
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // Routage recopié en headers Kafka (OrderProducerService.Routing)
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    public static final String ORDER_TYPE_HEADER = "X-Order-Type";
+
+    // Nombre maximum de commandes acceptées dans un seul appel batch
+    private final int maxBatchSize;
 
     // Constructeur pour l'injection de dépendance
-    public OrderController(OrderProducerService producerService) {
+    public OrderController(OrderProducerService producerService,
+                           IngressAdmissionService admissionService,
+                           ObjectMapper objectMapper,
+                           ConsumerLagMonitor lagMonitor,
+                           IdempotencyKeyCache idempotencyKeyCache,
+                           @Value("${app.orders.batch.max-size:10000}") int maxBatchSize) {
         this.producerService = producerService;
+        this.admissionService = admissionService;
+        this.objectMapper = objectMapper;
+        this.lagMonitor = lagMonitor;
+        this.idempotencyKeyCache = idempotencyKeyCache;
+        this.maxBatchSize = maxBatchSize;
     }
 
+    /**
+     * Envoi d'une commande.
+     *
+     * Sans Idempotency-Key: envoi sans attendre le broker, réponse "Order sent!".
+     * Avec Idempotency-Key: réponse après la confirmation du broker (OrderSendResult
+     * avec partition et offset). Une requête répétée avec la même clé (retry après
+     * timeout, requêtes simultanées) reçoit le même résultat sans nouvel envoi
+     * (header Idempotent-Replayed: true). Même clé pour une autre commande: 422.
+     *
+     * X-Order-Priority, X-Tenant-Id et X-Order-Type (standard, replay, test) sont
+     * recopiés en headers du record pour le filtrage côté consumer.
+     */
     @PostMapping
-    public String sendOrder(@RequestBody Order order) {
-        order.setTimestamp(System.currentTimeMillis());
-        producerService.sendOrder(order);
-        return "Order sent!";
+    public ResponseEntity<?> sendOrder(@RequestBody Order order,
+                                       @RequestHeader(value = "X-Order-Priority", required = false) String priority,
+                                       @RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+                                       @RequestHeader(value = ORDER_TYPE_HEADER, required = false) String type,
+                                       @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        OrderProducerService.Routing routing = new OrderProducerService.Routing(priority, tenant, type);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            lagMonitor.admit(LOW_PRIORITY.equalsIgnoreCase(priority));
+            order.setTimestamp(System.currentTimeMillis());
+            sendAdmitted(order, routing);
+            return ResponseEntity.ok("Order sent!");
+        }
+
+        // Admission et envoi seulement pour la première requête de la clé
+        IdempotencyKeyCache.Submission submission = idempotencyKeyCache.submit(idempotencyKey, order.getId(), () -> {
+            lagMonitor.admit(LOW_PRIORITY.equalsIgnoreCase(priority));
+            order.setTimestamp(System.currentTimeMillis());
+            return sendAdmitted(order, routing).handle((result, ex) -> ex == null
+                    ? OrderSendResult.accepted(0, order.getId(),
+                        result.getRecordMetadata().partition(), result.getRecordMetadata().offset())
+                    : OrderSendResult.failed(0, order.getId(), (ex.getCause() != null ? ex.getCause() : ex).getMessage()));
+        });
+
+        OrderSendResult result;
+        try {
+            result = submission.getResult().join();
+        } catch (CompletionException e) {
+            // Refus d'admission (429) de la première requête, partagé par les requêtes simultanées
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return ResponseEntity.status(result.isAccepted() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(submission.isReplayed()))
+                .body(result);
+    }
+
+    /**
+     * Ingestion d'un lot de commandes en un seul appel HTTP.
+     *
+     * Accepte un tableau JSON ou un flux NDJSON (une commande par ligne).
+     * Tous les envois sont lancés sans attendre les précédents (pipelining),
+     * puis la réponse est construite une fois tous les futurs terminés:
+     * un résultat par commande (acceptée/échouée, partition, offset).
+     */
+    @PostMapping(value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public List<OrderSendResult> sendOrderBatch(
+            InputStream body,
+            @RequestHeader(value = "X-Order-Priority", required = false) String priority,
+            @RequestHeader(value = TENANT_HEADER, required = false) String tenant,
+            @RequestHeader(value = ORDER_TYPE_HEADER, required = false) String type) {
+        lagMonitor.admit(LOW_PRIORITY.equalsIgnoreCase(priority));
+        OrderProducerService.Routing routing = new OrderProducerService.Routing(priority, tenant, type);
+        List<Order> orders = readOrders(body);
+
+        // Tout le lot est admis ou refusé (429), jamais une partie
+        admissionService.acquire(orders.size());
+
+        // 1. Lancement de tous les envois (pipelinés par le producer Kafka)
+        long now = System.currentTimeMillis();
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(orders.size());
+        try {
+            for (Order order : orders) {
+                order.setTimestamp(now);
+                // Chaque place est libérée dès la confirmation de son envoi
+                futures.add(producerService.sendOrderAsync(order, routing)
+                        .whenComplete((result, ex) -> admissionService.release(1)));
+            }
+        } finally {
+            // Places non utilisées si un envoi lève une exception avant d'être lancé
+            admissionService.release(orders.size() - futures.size());
+        }
+
+        // 2. Attente de la fin de tous les envois (succès ou échec)
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .handle((ignored, ex) -> null)
+                .join();
+
+        // 3. Agrégation des résultats, dans l'ordre de la requête
+        List<OrderSendResult> results = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            results.add(toResult(i, orders.get(i), futures.get(i)));
+        }
+        return results;
     }
 
     @GetMapping("/generate")
     public String generate() {
+        // Trafic de test: toujours basse priorité
+        lagMonitor.admit(true);
         Order order = new Order(
                 UUID.randomUUID().toString(),
                 "CUST-" + (int)(Math.random()*1000),
@@ -37,7 +182,83 @@ public class OrderController {
                 System.currentTimeMillis()
         );
 
-        producerService.sendOrder(order);
+        sendAdmitted(order, new OrderProducerService.Routing(LOW_PRIORITY, null, null));
         return "Random order generated and sent!";
     }
-}
\ No newline at end of file
+
+    /**
+     * Saturation ou consumers en retard: 429 avec le délai conseillé avant de réessayer.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<String> handleAdmissionRejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("Commande refusée (" + e.getMessage() + "), réessayez dans "
+                        + e.getRetryAfterSeconds() + " s");
+    }
+
+    /**
+     * Idempotency-Key déjà utilisée pour une autre commande.
+     */
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<String> handleIdempotencyKeyConflict(IdempotencyKeyConflictException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+    }
+
+    /**
+     * Envoi unitaire sans attente, la place est libérée à la confirmation du broker.
+     */
+    private CompletableFuture<SendResult<String, Object>> sendAdmitted(Order order,
+                                                                     OrderProducerService.Routing routing) {
+        admissionService.acquire(1);
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = producerService.sendOrderAsync(order, routing);
+        } catch (RuntimeException e) {
+            admissionService.release(1);
+            throw e;
+        }
+        return future.whenComplete((result, ex) -> admissionService.release(1));
+    }
+
+    /**
+     * Lit toutes les commandes du corps de la requête avant tout envoi,
+     * pour qu'un document mal formé ne provoque pas d'envoi partiel.
+     * MappingIterator gère aussi bien un tableau JSON que des valeurs
+     * successives (NDJSON). Un élément null (null dans le tableau, ligne
+     * NDJSON "null") rend tout le lot invalide (400).
+     */
+    private List<Order> readOrders(InputStream body) {
+        List<Order> orders = new ArrayList<>();
+        // Un lot plus grand que la limite d'admission ne pourrait jamais être accepté
+        int limit = Math.min(maxBatchSize, admissionService.getMaxInFlight());
+        try (MappingIterator<Order> iterator = objectMapper.readerFor(Order.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (orders.size() >= limit) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Batch limité à " + limit + " commandes");
+                }
+                Order order = iterator.nextValue();
+                if (order == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Lot de commandes invalide: commande null à l'index " + orders.size());
+                }
+                orders.add(order);
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lot de commandes invalide: " + e.getMessage(), e);
+        }
+        return orders;
+    }
+
+    private OrderSendResult toResult(int index, Order order,
+                                     CompletableFuture<SendResult<String, Object>> future) {
+        try {
+            RecordMetadata metadata = future.join().getRecordMetadata();
+            return OrderSendResult.accepted(index, order.getId(), metadata.partition(), metadata.offset());
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return OrderSendResult.failed(index, order.getId(), cause.getMessage());
+        }
+    }
+}
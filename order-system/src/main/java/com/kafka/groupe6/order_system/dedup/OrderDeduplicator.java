@@ -0,0 +1,172 @@
+package com.kafka.groupe6.order_system.dedup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traitement idempotent: une commande déjà traitée (même id) n'est pas
+ * traitée une seconde fois quand Kafka la relivre (rebalance, crash avant
+ * commit, retry du producer) ou qu'un client la renvoie.
+ *
+ * - isDuplicate(): filtre de Bloom (OrderIdFilter) d'abord; "jamais vu" ne
+ *   touche pas au disque (cas de presque toutes les commandes). Sinon
+ *   confirmation exacte dans OrderIdStore.
+ * - markProcessed(): appelé une fois la publication vers 'orders-processed'
+ *   confirmée. Une commande en échec n'est pas marquée et reste rejouable.
+ * - Les ids expirent après app.dedup.ttl-hours: la mémoire (filtre, tas) et
+ *   le fichier (table, hors tas) ont une taille fixe, fonction de
+ *   app.dedup.expected-ids seulement. Pour 100 millions d'ids par TTL:
+ *   ~240 Mo de filtre et une table de 2,4 Go mappée (page cache).
+ * - La table survit aux redémarrages; le filtre est reconstruit depuis elle.
+ *
+ * Métriques: orders.dedup.checks{result=new|duplicate|false_positive}
+ * (false_positive = nouvelle commande confirmée dans la table; taux de
+ * doublons = duplicate / somme des trois) et orders.dedup.evictions
+ * (ids oubliés avant expiration faute de place).
+ */
+@Service
+public class OrderDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderDeduplicator.class);
+
+    private static final String TABLE_FILE = "order-ids.table";
+    // Marge de la table par rapport au nombre d'ids attendus (remplissage 2/3)
+    private static final double TABLE_HEADROOM = 1.5;
+
+    private final OrderIdFilter filter;
+    private final OrderIdStore store;
+    private final long ttlMs;
+    private final Clock clock;
+    private final Counter newOrders;
+    private final Counter duplicates;
+    private final Counter falsePositives;
+    private volatile long nextRotation;
+
+    @Autowired
+    public OrderDeduplicator(
+            @Value("${app.dedup.enabled:true}") boolean enabled,
+            @Value("${app.dedup.ttl-hours:24}") long ttlHours,
+            @Value("${app.dedup.expected-ids:1000000}") long expectedIds,
+            @Value("${app.dedup.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${app.dedup.dir:data/dedup}") String directory,
+            MeterRegistry meterRegistry,
+            Clock clock) throws IOException {
+        this(enabled ? new OrderIdFilter(expectedIds, falsePositiveRate) : null,
+            enabled ? new OrderIdStore(Path.of(directory, TABLE_FILE), (long) Math.ceil(expectedIds * TABLE_HEADROOM)) : null,
+            TimeUnit.HOURS.toMillis(ttlHours),
+            meterRegistry,
+            clock);
+    }
+
+    // Filtre et table null = déduplication désactivée
+    private OrderDeduplicator(OrderIdFilter filter, OrderIdStore store, long ttlMs, MeterRegistry meterRegistry,
+                              Clock clock) {
+        this.filter = filter;
+        this.store = store;
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.newOrders = checks(meterRegistry, "new");
+        this.duplicates = checks(meterRegistry, "duplicate");
+        this.falsePositives = checks(meterRegistry, "false_positive");
+        this.nextRotation = clock.millis() + ttlMs;
+
+        if (isEnabled()) {
+            FunctionCounter.builder("orders.dedup.evictions", store, OrderIdStore::getEvictions)
+                .description("Ids de commande oubliés avant expiration faute de place")
+                .register(meterRegistry);
+            rebuildFilter();
+        }
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * @return true si une commande de même id a déjà été traitée (et n'a pas expiré)
+     */
+    public boolean isDuplicate(String orderId) {
+        if (!isEnabled() || orderId == null) {
+            return false;
+        }
+        long fingerprint = OrderIdFingerprint.of(orderId);
+        if (!filter.mightContain(fingerprint)) {
+            newOrders.increment();
+            return false;
+        }
+        if (store.contains(fingerprint, clock.millis())) {
+            duplicates.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Enregistre une commande dont le résultat est publié.
+     */
+    public void markProcessed(String orderId) {
+        if (!isEnabled() || orderId == null) {
+            return;
+        }
+        long fingerprint = OrderIdFingerprint.of(orderId);
+        long now = clock.millis();
+        store.put(fingerprint, now + ttlMs, now);
+        filter.add(fingerprint);
+    }
+
+    /**
+     * Écriture de la table sur disque et rotation du filtre une fois par TTL.
+     */
+    @Scheduled(fixedDelayString = "${app.dedup.flush-interval-ms:10000}")
+    public void maintain() {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = clock.millis();
+        if (now >= nextRotation) {
+            filter.rotate();
+            nextRotation = now + ttlMs;
+            logger.info("Filtre des ids de commande renouvelé (TTL {} ms)", ttlMs);
+        }
+        store.force();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (isEnabled()) {
+            store.close();
+        }
+    }
+
+    private void rebuildFilter() {
+        long start = System.nanoTime();
+        long[] live = new long[1];
+        store.forEachLive(clock.millis(), fingerprint -> {
+            filter.add(fingerprint);
+            live[0]++;
+        });
+        logger.info("Déduplication: {} ids de commande rechargés depuis {} en {} ms (capacité {})",
+            live[0], store.getFile(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), store.getCapacity());
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("orders.dedup.checks")
+            .description("Commandes vérifiées avant traitement, par résultat")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
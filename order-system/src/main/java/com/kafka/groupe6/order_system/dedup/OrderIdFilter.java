@@ -0,0 +1,104 @@
+package com.kafka.groupe6.order_system.dedup;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom sur les empreintes 64 bits des ids de commande.
+ *
+ * Réponse "absent" = jamais vu (chemin rapide, sans accès à OrderIdStore);
+ * "présent" = peut-être vu, à confirmer dans OrderIdStore.
+ *
+ * Deux générations pour borner la durée de vie sans suppression (impossible
+ * dans un filtre de Bloom): les ajouts vont dans la génération courante, les
+ * recherches consultent les deux; rotate() (une fois par TTL) oublie la plus
+ * ancienne. Une empreinte reste donc présente au moins un TTL: pas de faux
+ * négatif tant qu'elle est vivante dans OrderIdStore. Mémoire constante:
+ * 2 x bits(expectedIds, falsePositiveRate).
+ */
+public class OrderIdFilter {
+
+    private final int bitCount;
+    private final int hashCount;
+    private volatile AtomicLongArray current;
+    private volatile AtomicLongArray previous;
+
+    /**
+     * @param expectedIds       ids distincts attendus par TTL
+     * @param falsePositiveRate taux de "peut-être vu" à tort visé (ex: 0.01)
+     */
+    public OrderIdFilter(long expectedIds, double falsePositiveRate) {
+        if (expectedIds <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedIds > 0 et 0 < falsePositiveRate < 1 requis");
+        }
+        // m = -n ln(p) / ln(2)^2, k = m/n ln(2)
+        double bits = -expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        if (bits > Integer.MAX_VALUE - 63L) {
+            throw new IllegalArgumentException("Filtre trop grand: " + (long) bits + " bits");
+        }
+        this.bitCount = (int) Math.max(64, Math.ceil(bits));
+        this.hashCount = (int) Math.max(1, Math.round(bitCount / (double) expectedIds * Math.log(2)));
+        this.current = new AtomicLongArray(words());
+        this.previous = new AtomicLongArray(words());
+    }
+
+    public boolean mightContain(long fingerprint) {
+        return contains(current, fingerprint) || contains(previous, fingerprint);
+    }
+
+    public void add(long fingerprint) {
+        AtomicLongArray bits = current;
+        long h2 = secondHash(fingerprint);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(fingerprint, h2, i);
+            long mask = 1L << index;
+            int word = index >>> 6;
+            long value = bits.get(word);
+            // Bit déjà à 1: pas d'écriture (cas courant une fois le filtre rempli)
+            while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask)) {
+                value = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * Oublie la génération la plus ancienne. À appeler une fois par TTL.
+     */
+    public synchronized void rotate() {
+        previous = current;
+        current = new AtomicLongArray(words());
+    }
+
+    public int getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private boolean contains(AtomicLongArray bits, long fingerprint) {
+        long h2 = secondHash(fingerprint);
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(fingerprint, h2, i);
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int words() {
+        return (bitCount + 63) >>> 6;
+    }
+
+    /**
+     * Double hachage (Kirsch-Mitzenmacher): k positions à partir de deux hachages.
+     */
+    private int index(long h1, long h2, int i) {
+        return (int) Long.remainderUnsigned(h1 + i * h2, bitCount);
+    }
+
+    private static long secondHash(long fingerprint) {
+        return OrderIdFingerprint.mix(fingerprint ^ 0x5851F42D4C957F2DL) | 1L;
+    }
+}
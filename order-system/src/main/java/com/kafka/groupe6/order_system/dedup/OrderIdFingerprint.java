@@ -0,0 +1,34 @@
+package com.kafka.groupe6.order_system.dedup;
+
+/**
+ * Empreinte 64 bits d'un id de commande (FNV-1a puis mélange final de SplitMix64).
+ *
+ * Deux ids distincts n'ont la même empreinte qu'avec une probabilité ~ n² / 2^65
+ * (moins de 3 chances sur 10 000 pour 100 millions d'ids): OrderIdStore ne
+ * stocke que l'empreinte, 16 octets par id quelle que soit sa longueur.
+ * 0 est réservé aux emplacements vides.
+ */
+public final class OrderIdFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private OrderIdFingerprint() {
+    }
+
+    public static long of(String orderId) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < orderId.length(); i++) {
+            hash ^= orderId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        long fingerprint = mix(hash);
+        return fingerprint != 0 ? fingerprint : 1L;
+    }
+
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
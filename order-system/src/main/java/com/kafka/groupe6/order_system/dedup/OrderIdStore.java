@@ -0,0 +1,300 @@
+package com.kafka.groupe6.order_system.dedup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Ensemble exact (à l'empreinte près, voir OrderIdFingerprint) des ids de
+ * commande traités, avec expiration: table de hachage de taille fixe dans un
+ * fichier mappé en mémoire, hors du tas Java.
+ *
+ * Format du fichier (big-endian):
+ * en-tête de 64 octets: magic "OIDS" | version | nombre de buckets
+ * puis buckets de 8 emplacements (128 octets, 2 lignes de cache):
+ * (empreinte, expiration en ms epoch)*. Empreinte 0 = emplacement vide.
+ *
+ * - Chaque empreinte a deux buckets candidats: insertion dans le moins rempli,
+ *   recherche dans les deux. Aucun débordement mesuré jusqu'à 2/3 de
+ *   remplissage (0,02% des ids à 80%, voir OrderIdStoreTest).
+ * - Un emplacement expiré est réutilisé tel quel: pas de purge, la taille du
+ *   fichier et la mémoire ne dépendent que de la capacité.
+ * - Si les deux buckets sont pleins d'entrées vivantes, la plus proche de
+ *   l'expiration est remplacée (comptée dans getEvictions(): capacité à augmenter).
+ * - Persistance: les écritures vont dans le page cache et survivent à un arrêt
+ *   du processus; force() les écrit sur disque (arrêt de la machine).
+ *
+ * Verrous par groupe de buckets; deux verrous pris dans l'ordre de leur index.
+ */
+public class OrderIdStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdStore.class);
+
+    public static final int SLOTS_PER_BUCKET = 8;
+
+    private static final int MAGIC = 0x4F494453; // "OIDS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int BUCKET_BYTES = SLOTS_PER_BUCKET * SLOT_BYTES;
+    // Un mapping est limité à 2 Go: segments de 1 Go
+    private static final int BUCKETS_PER_SEGMENT = 1 << 23;
+    private static final int LOCK_STRIPES = 4096;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long bucketCount;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Ouvre la table existante, ou la crée (vide) si elle est absente ou
+     * d'une autre capacité.
+     *
+     * @param capacity nombre d'ids vivants à conserver (arrondi au bucket supérieur)
+     */
+    public OrderIdStore(Path file, long capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity doit être > 0");
+        }
+        this.file = file;
+        this.bucketCount = Math.max(2, (capacity + SLOTS_PER_BUCKET - 1) / SLOTS_PER_BUCKET);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean reused = hasCompatibleHeader();
+            if (!reused) {
+                if (channel.size() > 0) {
+                    logger.warn("⚠ Table des ids {} d'un autre format ou d'une autre capacité: recréée vide", file);
+                }
+                channel.truncate(0);
+            }
+
+            // Fichier creux: les pages jamais écrites n'occupent ni disque ni mémoire
+            int segmentCount = (int) ((bucketCount + BUCKETS_PER_SEGMENT - 1) / BUCKETS_PER_SEGMENT);
+            this.segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long buckets = Math.min(BUCKETS_PER_SEGMENT, bucketCount - (long) i * BUCKETS_PER_SEGMENT);
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + (long) i * BUCKETS_PER_SEGMENT * BUCKET_BYTES, buckets * BUCKET_BYTES);
+            }
+
+            if (!reused) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                header.putLong(bucketCount);
+                header.force();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return true si l'empreinte est présente et non expirée à l'instant now
+     */
+    public boolean contains(long fingerprint, long now) {
+        long first = firstBucket(fingerprint);
+        long second = secondBucket(fingerprint, first);
+        synchronized (lowerLock(first, second)) {
+            synchronized (upperLock(first, second)) {
+                return find(first, fingerprint, now) >= 0 || find(second, fingerprint, now) >= 0;
+            }
+        }
+    }
+
+    /**
+     * Enregistre l'empreinte jusqu'à expiresAt (prolonge l'expiration si elle est déjà présente).
+     */
+    public void put(long fingerprint, long expiresAt, long now) {
+        long first = firstBucket(fingerprint);
+        long second = secondBucket(fingerprint, first);
+        synchronized (lowerLock(first, second)) {
+            synchronized (upperLock(first, second)) {
+                int slot = find(first, fingerprint, Long.MIN_VALUE);
+                long bucket = first;
+                if (slot < 0) {
+                    slot = find(second, fingerprint, Long.MIN_VALUE);
+                    bucket = second;
+                }
+                if (slot >= 0) {
+                    write(bucket, slot, fingerprint, Math.max(expiresAt, expiry(bucket, slot)));
+                    return;
+                }
+
+                int firstFree = freeSlot(first, now);
+                int secondFree = freeSlot(second, now);
+                if (firstFree >= 0 || secondFree >= 0) {
+                    boolean useFirst = secondFree < 0
+                        || (firstFree >= 0 && freeCount(first, now) >= freeCount(second, now));
+                    write(useFirst ? first : second, useFirst ? firstFree : secondFree, fingerprint, expiresAt);
+                    return;
+                }
+
+                // Les 16 emplacements sont vivants: la plus proche de l'expiration est sacrifiée
+                int firstOldest = oldestSlot(first);
+                int secondOldest = oldestSlot(second);
+                boolean useFirst = expiry(first, firstOldest) <= expiry(second, secondOldest);
+                write(useFirst ? first : second, useFirst ? firstOldest : secondOldest, fingerprint, expiresAt);
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Parcourt les empreintes non expirées (reconstruction du filtre au démarrage).
+     */
+    public void forEachLive(long now, LongConsumer action) {
+        for (long bucket = 0; bucket < bucketCount; bucket++) {
+            synchronized (locks[stripe(bucket)]) {
+                for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+                    long fingerprint = fingerprint(bucket, slot);
+                    if (fingerprint != 0 && expiry(bucket, slot) > now) {
+                        action.accept(fingerprint);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Écrit les pages modifiées sur disque.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Nombre d'ids encore vivants remplacés faute de place depuis l'ouverture.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getCapacity() {
+        return bucketCount * SLOTS_PER_BUCKET;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private boolean hasCompatibleHeader() throws IOException {
+        if (channel.size() != HEADER_BYTES + bucketCount * BUCKET_BYTES) {
+            return false;
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        return header.getInt() == MAGIC && header.getInt() == VERSION && header.getLong() == bucketCount;
+    }
+
+    private int find(long bucket, long fingerprint, long now) {
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (fingerprint(bucket, slot) == fingerprint && expiry(bucket, slot) > now) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int freeSlot(long bucket, long now) {
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (fingerprint(bucket, slot) == 0 || expiry(bucket, slot) <= now) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int freeCount(long bucket, long now) {
+        int free = 0;
+        for (int slot = 0; slot < SLOTS_PER_BUCKET; slot++) {
+            if (fingerprint(bucket, slot) == 0 || expiry(bucket, slot) <= now) {
+                free++;
+            }
+        }
+        return free;
+    }
+
+    private int oldestSlot(long bucket) {
+        int oldest = 0;
+        for (int slot = 1; slot < SLOTS_PER_BUCKET; slot++) {
+            if (expiry(bucket, slot) < expiry(bucket, oldest)) {
+                oldest = slot;
+            }
+        }
+        return oldest;
+    }
+
+    private long fingerprint(long bucket, int slot) {
+        return segment(bucket).getLong(offset(bucket, slot));
+    }
+
+    private long expiry(long bucket, int slot) {
+        return segment(bucket).getLong(offset(bucket, slot) + 8);
+    }
+
+    private void write(long bucket, int slot, long fingerprint, long expiresAt) {
+        MappedByteBuffer segment = segment(bucket);
+        int offset = offset(bucket, slot);
+        // Emplacement vidé d'abord, empreinte en dernier: une écriture interrompue laisse
+        // un emplacement vide, jamais l'ancienne empreinte avec la nouvelle expiration
+        // (id oublié prolongé) ni la nouvelle avec l'ancienne expiration
+        segment.putLong(offset, 0L);
+        segment.putLong(offset + 8, expiresAt);
+        segment.putLong(offset, fingerprint);
+    }
+
+    private MappedByteBuffer segment(long bucket) {
+        return segments[(int) (bucket / BUCKETS_PER_SEGMENT)];
+    }
+
+    private static int offset(long bucket, int slot) {
+        return (int) (bucket % BUCKETS_PER_SEGMENT) * BUCKET_BYTES + slot * SLOT_BYTES;
+    }
+
+    private long firstBucket(long fingerprint) {
+        return Long.remainderUnsigned(fingerprint * 0x9E3779B97F4A7C15L, bucketCount);
+    }
+
+    private long secondBucket(long fingerprint, long first) {
+        long second = Long.remainderUnsigned(OrderIdFingerprint.mix(fingerprint ^ 0xD6E8FEB86659FD93L), bucketCount);
+        return second != first ? second : (first + 1) % bucketCount;
+    }
+
+    private Object lowerLock(long first, long second) {
+        return locks[Math.min(stripe(first), stripe(second))];
+    }
+
+    private Object upperLock(long first, long second) {
+        return locks[Math.max(stripe(first), stripe(second))];
+    }
+
+    private static int stripe(long bucket) {
+        return (int) (bucket & (LOCK_STRIPES - 1));
+    }
+}
@@ -0,0 +1,20 @@
+package com.kafka.groupe6.order_system.exception;
+
+/**
+ * Exception levée lorsque l'API refuse une commande pour se protéger
+ * (trop d'envois Kafka en cours, consumers trop en retard).
+ * Traduite en HTTP 429 + Retry-After.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(String reason, long retryAfterSeconds) {
+        super(reason);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
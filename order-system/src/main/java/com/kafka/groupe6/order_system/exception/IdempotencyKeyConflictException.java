@@ -0,0 +1,19 @@
+package com.kafka.groupe6.order_system.exception;
+
+/**
+ * Exception levée lorsqu'une Idempotency-Key déjà utilisée est présentée
+ * avec une autre commande. Traduite en HTTP 422.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+
+    private final String idempotencyKey;
+
+    public IdempotencyKeyConflictException(String idempotencyKey, String originalOrderId) {
+        super("Idempotency-Key '" + idempotencyKey + "' déjà utilisée pour la commande " + originalOrderId);
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
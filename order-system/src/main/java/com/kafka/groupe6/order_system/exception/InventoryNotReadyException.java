@@ -0,0 +1,14 @@
+package com.kafka.groupe6.order_system.exception;
+
+/**
+ * Exception levée lorsqu'une commande est réservée avant la fin de la
+ * reconstruction du stock depuis le topic 'inventory' (InventoryStateStore):
+ * la reconstruction remplacerait le stock et effacerait la réservation.
+ * Cas particulier de stock indisponible, donc retriable comme lui.
+ */
+public class InventoryNotReadyException extends StockUnavailableException {
+
+    public InventoryNotReadyException(String orderId) {
+        super("Inventory not ready (restoring from topic) for order " + orderId, orderId, (String) null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.kafka.groupe6.order_system.exception;
+
+/**
+ * Exception levée lorsque le pool d'une étape du traitement est plein
+ * (threads occupés et file d'attente pleine, OrderStageExecutors).
+ * La commande n'a pas été traitée: le consumer est mis en pause puis la
+ * relit, sans retry compté ni DLQ (error handler, KafkaConsumerConfig).
+ */
+public class StageSaturatedException extends RuntimeException {
+
+    private final String stage;
+    private final String orderId;
+
+    public StageSaturatedException(String stage, String orderId, Throwable cause) {
+        super("Stage " + stage + " saturated, order " + orderId + " not accepted", cause);
+        this.stage = stage;
+        this.orderId = orderId;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+}
@@ -0,0 +1,26 @@
+package com.kafka.groupe6.order_system.exception;
+
+/**
+ * Exception levée lorsqu'une étape du traitement (validation, stock, traitement)
+ * dépasse son délai sur son pool dédié (OrderStageExecutors).
+ * Cette exception est retriable (retry bloquant ou topics de retry).
+ */
+public class StageTimeoutException extends RuntimeException {
+
+    private final String stage;
+    private final String orderId;
+
+    public StageTimeoutException(String stage, String orderId, long timeoutMs) {
+        super("Stage " + stage + " timed out after " + timeoutMs + " ms for order " + orderId);
+        this.stage = stage;
+        this.orderId = orderId;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+}
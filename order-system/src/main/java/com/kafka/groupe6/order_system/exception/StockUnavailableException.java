@@ -21,6 +21,12 @@ public class StockUnavailableException extends RuntimeException {
         this.item = item;
     }
 
+    protected StockUnavailableException(String message, String orderId, String item) {
+        super(message);
+        this.orderId = orderId;
+        this.item = item;
+    }
+
     public String getOrderId() {
         return orderId;
     }
@@ -0,0 +1,447 @@
+package com.kafka.groupe6.order_system.inventory;
+
+import com.kafka.groupe6.order_system.exception.InventoryNotReadyException;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.exception.StockUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock en mémoire et réservation des articles d'une commande.
+ *
+ * - Un compteur AtomicLong par SKU; les SKU sont répartis sur LOCK_STRIPES verrous.
+ * - Réservation tout-ou-rien et atomique: les verrous des SKU de la commande sont
+ *   pris dans l'ordre croissant de leur indice (pas d'interblocage), puis toutes
+ *   les quantités sont vérifiées avant d'en prendre aucune. Aucun autre thread ne
+ *   voit une commande à moitié réservée, donc pas de fausse rupture. Deux commandes
+ *   dont les SKU tombent sur des verrous différents ne se gênent pas.
+ * - Rendu (release) et lecture sans verrou: un ajout n'invalide aucune vérification.
+ *   Seule une baisse extérieure pendant la prise (setStock, cumul d'une autre
+ *   instance) peut faire échouer un SKU vérifié: les quantités déjà prises sont
+ *   alors rendues et StockUnavailableException est levée.
+ * - Un SKU jamais chargé est créé avec app.inventory.default-stock
+ *   (0 = tout SKU non chargé est en rupture).
+ *
+ * Chargement des niveaux de stock: PUT /api/inventory (InventoryController).
+ *
+ * Persistance (InventoryStateStore): le stock d'un SKU n'est pas publié en valeur
+ * absolue (deux instances écraseraient leurs décréments) mais en composantes,
+ * chacune avec un seul écrivain, dans le topic compacté 'inventory':
+ * - clé "SKU": niveau de base, fixé par PUT /api/inventory (setStock)
+ * - clé "SKU@instance": cumul des réservations (négatif) et rendus (positif)
+ *   de cette instance (app.inventory.instance-id) sur ce SKU
+ * Disponible = base + somme des cumuls de toutes les instances. Chaque
+ * composante modifiée ici est marquée; le store publie périodiquement les
+ * composantes marquées (drainChanges) et applique celles des autres
+ * instances (apply), sans les marquer. Aucun décrément n'est perdu; deux
+ * instances peuvent en revanche prendre la même dernière unité pendant un
+ * intervalle de publication (stock disponible alors négatif).
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
+
+    // Au-delà, regroupement des SKU par HashMap plutôt que par recherche linéaire
+    private static final int LINEAR_GROUPING_MAX_ITEMS = 16;
+
+    // Puissance de 2: indice du verrou = bits de poids faible du hash du SKU
+    private static final int LOCK_STRIPES = 64;
+
+    // Séparateur SKU / instance dans les clés du topic 'inventory'
+    private static final char INSTANCE_SEPARATOR = '@';
+
+    private final ConcurrentMap<String, StockCounter> stock = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final long defaultStock;
+    private final String instanceId;
+
+    // Faux pendant la reconstruction du stock depuis le topic 'inventory'
+    private volatile boolean ready = true;
+
+    @Autowired
+    public InventoryService(
+            @Value("${app.inventory.default-stock:10000}") long defaultStock,
+            @Value("${app.inventory.instance-id:}") String instanceId) {
+        if (defaultStock < 0) {
+            throw new IllegalArgumentException("app.inventory.default-stock doit être positif ou nul");
+        }
+        if (instanceId.indexOf(INSTANCE_SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("app.inventory.instance-id ne doit pas contenir '@'");
+        }
+        this.defaultStock = defaultStock;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        // Sans identifiant stable, chaque démarrage ajoute ses propres clés au topic
+        this.instanceId = instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+    }
+
+    /**
+     * Réserve tous les articles de la commande ou aucun.
+     * Un SKU présent plusieurs fois dans la liste compte pour autant d'unités.
+     *
+     * @throws StockUnavailableException si un SKU n'a pas assez de stock (rien n'est réservé)
+     * @throws OrderValidationException   si un article est null (non retriable)
+     * @throws InventoryNotReadyException pendant la reconstruction du stock (réservation
+     *                                    sinon effacée par restore), retriable
+     */
+    public StockReservation reserve(String orderId, List<String> items) {
+        if (!ready) {
+            throw new InventoryNotReadyException(orderId);
+        }
+        if (items == null || items.isEmpty()) {
+            return StockReservation.EMPTY;
+        }
+
+        StockReservation reservation = group(orderId, items);
+        int size = reservation.size();
+        StockCounter[] counters = new StockCounter[size];
+        int[] stripes = new int[size];
+        for (int i = 0; i < size; i++) {
+            String sku = reservation.skuAt(i);
+            if (sku == null) {
+                throw new OrderValidationException(orderId, "Article null dans la commande");
+            }
+            counters[i] = counter(sku);
+            stripes[i] = stripe(sku);
+        }
+        Arrays.sort(stripes);
+
+        lock(stripes);
+        try {
+            for (int i = 0; i < size; i++) {
+                if (counters[i].get() < reservation.quantityAt(i)) {
+                    throw new StockUnavailableException(orderId, reservation.skuAt(i));
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (!tryTake(counters[i], reservation.quantityAt(i))) {
+                    // Baisse extérieure depuis la vérification
+                    release(reservation, i);
+                    throw new StockUnavailableException(orderId, reservation.skuAt(i));
+                }
+                counters[i].local.addAndGet(-reservation.quantityAt(i));
+                counters[i].markChanged();
+            }
+        } finally {
+            unlock(stripes);
+        }
+        return reservation;
+    }
+
+    /**
+     * Rend le stock d'une réservation (commande en échec après réservation).
+     */
+    public void release(StockReservation reservation) {
+        if (reservation != null) {
+            release(reservation, reservation.size());
+            logger.debug("Stock rendu pour la commande {}", reservation.getOrderId());
+        }
+    }
+
+    /**
+     * Fixe la quantité disponible des SKU donnés (valeurs absolues, les autres SKU
+     * sont inchangés): le niveau de base est ajusté pour compenser les cumuls connus.
+     * Les réservations en cours rendues plus tard, et celles des autres instances pas
+     * encore reçues, s'y ajouteront.
+     *
+     * @throws IllegalStateException pendant la reconstruction du stock (valeurs écrasées sinon)
+     */
+    public void setStock(Map<String, Long> levels) {
+        if (!ready) {
+            throw new IllegalStateException("Stock en cours de reconstruction depuis le topic 'inventory'");
+        }
+        for (Map.Entry<String, Long> level : levels.entrySet()) {
+            if (level.getKey() == null || level.getKey().isBlank()) {
+                throw new IllegalArgumentException("SKU vide");
+            }
+            if (level.getKey().indexOf(INSTANCE_SEPARATOR) >= 0) {
+                throw new IllegalArgumentException("SKU invalide (contient '@'): " + level.getKey());
+            }
+            if (level.getValue() == null || level.getValue() < 0) {
+                throw new IllegalArgumentException("Quantité invalide pour " + level.getKey() + ": " + level.getValue());
+            }
+        }
+        levels.forEach((sku, quantity) -> counter(sku).setAvailable(quantity));
+        logger.info("Stock chargé pour {} SKU", levels.size());
+    }
+
+    /**
+     * Quantité disponible d'un SKU (default-stock s'il n'a jamais été chargé ni réservé).
+     */
+    public long available(String sku) {
+        AtomicLong counter = stock.get(sku);
+        return counter != null ? counter.get() : defaultStock;
+    }
+
+    /**
+     * Applique une composante lue dans le topic 'inventory', sans la marquer: elle
+     * n'est pas republiée. Clé "SKU": niveau de base (null = retour à default-stock);
+     * clé "SKU@instance": cumul de cette instance (null = 0). Le cumul de cette
+     * instance n'est relu qu'à la reconstruction (records d'un démarrage précédent).
+     */
+    public void apply(String key, Long value) {
+        int separator = key.lastIndexOf(INSTANCE_SEPARATOR);
+        if (separator < 0) {
+            counter(key).setBase(value != null ? value : defaultStock);
+            return;
+        }
+        StockCounter counter = counter(key.substring(0, separator));
+        String instance = key.substring(separator + 1);
+        long contribution = value != null ? value : 0L;
+        if (instance.equals(instanceId)) {
+            counter.setLocal(contribution);
+        } else {
+            counter.setRemote(instance, contribution);
+        }
+    }
+
+    /**
+     * Remplace tout le stock par les composantes d'une photo (démarrage), sans marquer.
+     */
+    public void restore(Map<String, Long> entries) {
+        stock.clear();
+        entries.forEach(this::apply);
+    }
+
+    /**
+     * Composantes courantes (clés du topic 'inventory') de tous les SKU connus, pour la photo.
+     */
+    public Map<String, Long> entries() {
+        Map<String, Long> entries = new HashMap<>();
+        stock.forEach((sku, counter) -> counter.collect(sku, localKey(sku), entries));
+        return entries;
+    }
+
+    /**
+     * Composantes modifiées localement depuis le dernier appel (niveau de base
+     * et cumul de cette instance), par clé du topic 'inventory'. Le marqueur est
+     * effacé avant la lecture: une modification concurrente re-marque le SKU et
+     * sera publiée au prochain appel.
+     */
+    public Map<String, Long> drainChanges() {
+        Map<String, Long> changes = new HashMap<>();
+        stock.forEach((sku, counter) -> {
+            if (counter.baseChanged) {
+                counter.baseChanged = false;
+                changes.put(sku, counter.base);
+            }
+            if (counter.changed) {
+                counter.changed = false;
+                changes.put(localKey(sku), counter.local.get());
+            }
+        });
+        return changes;
+    }
+
+    /**
+     * Re-marque une composante (clé du topic) dont la publication a échoué.
+     */
+    public void markChanged(String key) {
+        int separator = key.lastIndexOf(INSTANCE_SEPARATOR);
+        StockCounter counter = stock.get(separator < 0 ? key : key.substring(0, separator));
+        if (counter == null) {
+            return;
+        }
+        if (separator < 0) {
+            counter.baseChanged = true;
+        } else {
+            counter.markChanged();
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Quantités disponibles des SKU connus, triées par SKU.
+     */
+    public Map<String, Long> levels() {
+        Map<String, Long> levels = new TreeMap<>();
+        stock.forEach((sku, counter) -> levels.put(sku, counter.get()));
+        return levels;
+    }
+
+    private static boolean tryTake(AtomicLong counter, long quantity) {
+        long current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    /**
+     * Verrous triés par indice croissant; un indice répété (SKU sur le même verrou)
+     * n'est pris qu'une fois.
+     */
+    private void lock(int[] sortedStripes) {
+        for (int i = 0; i < sortedStripes.length; i++) {
+            if (i == 0 || sortedStripes[i] != sortedStripes[i - 1]) {
+                locks[sortedStripes[i]].lock();
+            }
+        }
+    }
+
+    private void unlock(int[] sortedStripes) {
+        for (int i = sortedStripes.length - 1; i >= 0; i--) {
+            if (i == 0 || sortedStripes[i] != sortedStripes[i - 1]) {
+                locks[sortedStripes[i]].unlock();
+            }
+        }
+    }
+
+    private static int stripe(String sku) {
+        int hash = sku.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private void release(StockReservation reservation, int count) {
+        for (int i = 0; i < count; i++) {
+            StockCounter counter = counter(reservation.skuAt(i));
+            counter.addAndGet(reservation.quantityAt(i));
+            counter.local.addAndGet(reservation.quantityAt(i));
+            counter.markChanged();
+        }
+    }
+
+    private String localKey(String sku) {
+        return sku + INSTANCE_SEPARATOR + instanceId;
+    }
+
+    private StockCounter counter(String sku) {
+        // get() d'abord: pas de verrou de bin sur le chemin courant (SKU déjà connu)
+        StockCounter counter = stock.get(sku);
+        return counter != null ? counter : stock.computeIfAbsent(sku, ignored -> new StockCounter(defaultStock));
+    }
+
+    /**
+     * Regroupe les articles par SKU. Les commandes n'ont en général que quelques
+     * articles: une recherche linéaire évite d'allouer une HashMap par réservation.
+     */
+    private static StockReservation group(String orderId, List<String> items) {
+        int size = items.size();
+        String[] skus = new String[size];
+        long[] quantities = new long[size];
+        int distinct = 0;
+
+        if (size <= LINEAR_GROUPING_MAX_ITEMS) {
+            next:
+            for (String item : items) {
+                for (int j = 0; j < distinct; j++) {
+                    if (item == null ? skus[j] == null : item.equals(skus[j])) {
+                        quantities[j]++;
+                        continue next;
+                    }
+                }
+                skus[distinct] = item;
+                quantities[distinct++] = 1;
+            }
+        } else {
+            Map<String, Integer> indexes = new HashMap<>();
+            for (String item : items) {
+                Integer index = indexes.putIfAbsent(item, distinct);
+                if (index == null) {
+                    skus[distinct] = item;
+                    quantities[distinct++] = 1;
+                } else {
+                    quantities[index]++;
+                }
+            }
+        }
+
+        if (distinct < size) {
+            skus = Arrays.copyOf(skus, distinct);
+            quantities = Arrays.copyOf(quantities, distinct);
+        }
+        return new StockReservation(orderId, skus, quantities);
+    }
+
+    /**
+     * Quantité disponible d'un SKU (valeur du compteur) et ses composantes:
+     * disponible = base + local + somme des remote. Réservations et rendus ne
+     * touchent que le compteur et local; les autres changements, rares, sont
+     * synchronisés sur le compteur et reportés sur la quantité disponible par
+     * différence.
+     */
+    private static final class StockCounter extends AtomicLong {
+
+        // Cumul des réservations et rendus de cette instance
+        private final AtomicLong local = new AtomicLong();
+        // Cumuls publiés par les autres instances, par identifiant
+        private final Map<String, Long> remote = new HashMap<>();
+        private volatile long base;
+        private volatile boolean baseChanged;
+        private volatile boolean changed;
+
+        StockCounter(long base) {
+            super(base);
+            this.base = base;
+        }
+
+        synchronized void setAvailable(long available) {
+            long sum = local.get();
+            for (long contribution : remote.values()) {
+                sum += contribution;
+            }
+            setBase(available - sum);
+            baseChanged = true;
+        }
+
+        synchronized void setBase(long value) {
+            addAndGet(value - base);
+            base = value;
+        }
+
+        synchronized void setLocal(long value) {
+            addAndGet(value - local.getAndSet(value));
+        }
+
+        synchronized void setRemote(String instance, long value) {
+            Long previous = value != 0 ? remote.put(instance, value) : remote.remove(instance);
+            addAndGet(value - (previous != null ? previous : 0L));
+        }
+
+        synchronized void collect(String sku, String localKey, Map<String, Long> entries) {
+            entries.put(sku, base);
+            long contribution = local.get();
+            if (contribution != 0) {
+                entries.put(localKey, contribution);
+            }
+            remote.forEach((instance, value) -> entries.put(sku + INSTANCE_SEPARATOR + instance, value));
+        }
+
+        void markChanged() {
+            // Lecture avant écriture: pas d'écriture volatile sur le chemin courant
+            if (!changed) {
+                changed = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.kafka.groupe6.order_system.inventory;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Photo du stock à un instant donné et position de lecture du topic 'inventory'
+ * correspondante: au redémarrage, seuls les records postérieurs sont rejoués.
+ *
+ * Format du fichier (big-endian), écrit et lu par mémoire mappée:
+ * magic "INVS" | version | date de création | nombre de partitions
+ * | (partition, prochain offset)* | nombre de clés | (longueur, clé UTF-8, valeur)*
+ * | CRC32 de tout ce qui précède
+ *
+ * Les clés et valeurs sont celles du topic (InventoryService.entries): niveau
+ * de base par SKU et cumul des réservations par SKU et par instance.
+ *
+ * Écriture dans un fichier temporaire puis renommage atomique: un arrêt
+ * brutal laisse l'ancienne photo intacte.
+ */
+public final class InventorySnapshot {
+
+    private static final int MAGIC = 0x494E5653; // "INVS"
+    private static final int VERSION = 1;
+
+    private final long createdAt;
+    private final Map<Integer, Long> offsets;
+    private final Map<String, Long> levels;
+
+    public InventorySnapshot(long createdAt, Map<Integer, Long> offsets, Map<String, Long> levels) {
+        this.createdAt = createdAt;
+        this.offsets = Collections.unmodifiableMap(offsets);
+        this.levels = Collections.unmodifiableMap(levels);
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Prochain offset à lire par partition du topic 'inventory'.
+     */
+    public Map<Integer, Long> getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Composantes du stock par clé du topic 'inventory'.
+     */
+    public Map<String, Long> getLevels() {
+        return levels;
+    }
+
+    public void writeTo(Path file) throws IOException {
+        Map<String, byte[]> encodedSkus = new HashMap<>(levels.size() * 2);
+        long size = 4 + 4 + 8 + 4 + offsets.size() * (4 + 8L) + 4 + 8;
+        for (String sku : levels.keySet()) {
+            byte[] encoded = sku.getBytes(StandardCharsets.UTF_8);
+            encodedSkus.put(sku, encoded);
+            size += 4 + encoded.length + 8;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Photo du stock trop volumineuse: " + size + " octets");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(createdAt);
+            buffer.putInt(offsets.size());
+            offsets.forEach((partition, offset) -> {
+                buffer.putInt(partition);
+                buffer.putLong(offset);
+            });
+            buffer.putInt(levels.size());
+            levels.forEach((sku, level) -> {
+                byte[] encoded = encodedSkus.get(sku);
+                buffer.putInt(encoded.length);
+                buffer.put(encoded);
+                buffer.putLong(level);
+            });
+            buffer.putLong(crc(buffer, buffer.position()));
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return la photo, ou null si le fichier n'existe pas
+     * @throws IOException si le fichier est illisible ou corrompu
+     */
+    public static InventorySnapshot readFrom(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 4 + 4 + 8 + 4 + 4 + 8 || size > Integer.MAX_VALUE) {
+                throw new IOException("Taille de photo invalide: " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long expectedCrc = buffer.getLong((int) size - 8);
+            if (crc(buffer, (int) size - 8) != expectedCrc) {
+                throw new IOException("Photo corrompue (CRC invalide): " + file);
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Format de photo inconnu: " + file);
+            }
+
+            long createdAt = buffer.getLong();
+            int partitionCount = buffer.getInt();
+            Map<Integer, Long> offsets = new HashMap<>(partitionCount * 2);
+            for (int i = 0; i < partitionCount; i++) {
+                offsets.put(buffer.getInt(), buffer.getLong());
+            }
+            int skuCount = buffer.getInt();
+            Map<String, Long> levels = new HashMap<>(skuCount * 2);
+            for (int i = 0; i < skuCount; i++) {
+                byte[] encoded = new byte[buffer.getInt()];
+                buffer.get(encoded);
+                levels.put(new String(encoded, StandardCharsets.UTF_8), buffer.getLong());
+            }
+            return new InventorySnapshot(createdAt, offsets, levels);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Photo tronquée: " + file, e);
+        }
+    }
+
+    private static long crc(MappedByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, length));
+        return crc.getValue();
+    }
+}
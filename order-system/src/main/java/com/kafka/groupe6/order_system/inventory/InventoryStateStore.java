@@ -0,0 +1,484 @@
+package com.kafka.groupe6.order_system.inventory;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Stock persistant: le topic compacté 'inventory' est la source de vérité,
+ * InventoryService en est la copie locale. Clé "SKU" = niveau de base, clé
+ * "SKU@instance" = cumul des réservations de cette instance (une clé n'a qu'un
+ * écrivain: la compaction garde la dernière valeur de chaque composante).
+ *
+ * Un seul thread ('inventory-store'):
+ * 1. Reconstruction au démarrage: chargement de la dernière photo locale
+ *    (InventorySnapshot), puis relecture des seuls records postérieurs à
+ *    l'offset qu'elle enregistre (tout le topic sans photo), jusqu'aux derniers
+ *    offsets du topic. L'instance est alors prête (durée exposée dans
+ *    /actuator/health et la métrique inventory.restore.duration).
+ * 2. Ensuite, en continu:
+ *    - applique les valeurs publiées par les autres instances
+ *    - publie toutes les app.inventory.changelog.flush-interval-ms les composantes
+ *      modifiées localement (cumul des réservations, base fixée par PUT /api/inventory)
+ *    - écrit une photo toutes les app.inventory.snapshot.interval-ms et à l'arrêt.
+ *      Avant chaque photo, les modifications sont publiées (acquittées) et relues:
+ *      la position enregistrée suit la dernière publication couverte, et la
+ *      relecture de la fin du topic ne ramène aucun cumul local en arrière.
+ *
+ * Démarré avant les listeners Kafka (phase inférieure), sans bloquer le démarrage:
+ * jusqu'à la fin de la reconstruction, InventoryService.reserve lève
+ * InventoryNotReadyException (retriable) au lieu de réserver sur un stock que la
+ * reconstruction remplacera.
+ *
+ * Une erreur après la reconstruction (broker, écriture de la photo) ne termine
+ * pas le thread: la boucle reprend après un délai croissant, et /actuator/health
+ * passe DOWN tant que l'échec dure (isFailing).
+ *
+ * Limites:
+ * - Publication différée: un arrêt brutal perd au plus un intervalle de
+ *   modifications non publiées (et non photographiées)
+ * - Entre instances, les réservations sont vues avec au plus un intervalle de
+ *   publication de retard: deux instances peuvent prendre la même dernière unité
+ *   (stock disponible négatif ensuite), sans qu'aucun décrément ne soit perdu.
+ */
+@Component
+public class InventoryStateStore implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStateStore.class);
+
+    // Instance à l'origine d'un record: ses propres publications ne sont pas réappliquées
+    public static final String ORIGIN_HEADER = "inventory-origin";
+
+    private static final String SNAPSHOT_FILE = "inventory.snapshot";
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    // Délai maximal entre deux tentatives après une erreur
+    private static final long MAX_BACKOFF_MS = TimeUnit.SECONDS.toMillis(30);
+    // Relecture des publications avant une photo; au-delà, la photo est reportée
+    private static final long SNAPSHOT_CATCH_UP_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final InventoryService inventoryService;
+    private final ConsumerFactory<String, Long> consumerFactory;
+    private final ProducerFactory<String, Long> producerFactory;
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private final Path snapshotFile;
+    private final long snapshotIntervalMs;
+    private final byte[] origin = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    private volatile boolean running;
+    private volatile Consumer<String, Long> consumer;
+    private Thread thread;
+
+    private volatile long restoreMillis = -1;
+    private volatile long readyAfterJvmStartMillis = -1;
+    private volatile long replayedRecords;
+    private volatile boolean snapshotLoaded;
+    private volatile long lastSnapshotTimestamp;
+    private volatile String lastError;
+    private volatile int consecutiveFailures;
+
+    public InventoryStateStore(
+            InventoryService inventoryService,
+            ConsumerFactory<String, Long> inventoryConsumerFactory,
+            ProducerFactory<String, Long> inventoryProducerFactory,
+            MeterRegistry meterRegistry,
+            @Value("${app.inventory.changelog.enabled:true}") boolean enabled,
+            @Value("${app.inventory.changelog.flush-interval-ms:100}") long flushIntervalMs,
+            @Value("${app.inventory.snapshot.dir:data/inventory}") String snapshotDir,
+            @Value("${app.inventory.snapshot.interval-ms:60000}") long snapshotIntervalMs) {
+        this.inventoryService = inventoryService;
+        this.consumerFactory = inventoryConsumerFactory;
+        this.producerFactory = inventoryProducerFactory;
+        this.enabled = enabled;
+        this.flushIntervalMs = flushIntervalMs;
+        this.snapshotFile = Path.of(snapshotDir, SNAPSHOT_FILE);
+        this.snapshotIntervalMs = snapshotIntervalMs;
+
+        TimeGauge.builder("inventory.restore.duration", this, TimeUnit.MILLISECONDS, InventoryStateStore::getRestoreMillis)
+            .description("Durée de reconstruction du stock au démarrage (photo + relecture du topic)")
+            .register(meterRegistry);
+        Gauge.builder("inventory.restore.replayed.records", this, InventoryStateStore::getReplayedRecords)
+            .description("Records du topic 'inventory' relus au démarrage")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            logger.info("Topic '{}' désactivé: stock en mémoire uniquement", KafkaTopicConfig.INVENTORY_TOPIC);
+            return;
+        }
+
+        // Réservations refusées (retriables) jusqu'à la fin de la reconstruction
+        inventoryService.setReady(false);
+        thread = new Thread(this::run, "inventory-store");
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Consumer<String, Long> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Avant les containers Kafka: la reconstruction commence avant la première commande.
+     */
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 100;
+    }
+
+    /**
+     * Reconstruction puis boucle de publication. Une reconstruction en échec est
+     * reprise (nouveaux clients) après un délai croissant, réservations toujours refusées.
+     */
+    private void run() {
+        long backoffMs = POLL_TIMEOUT.toMillis();
+        while (running) {
+            try (Consumer<String, Long> kafkaConsumer = consumerFactory.createConsumer();
+                 Producer<String, Long> producer = producerFactory.createProducer()) {
+                consumer = kafkaConsumer;
+                restore(kafkaConsumer);
+                if (!inventoryService.isReady()) {
+                    // stop() pendant la reconstruction: stock partiel, rien à publier ni photographier
+                    logger.info("Arrêt pendant la reconstruction du stock");
+                    return;
+                }
+
+                publishLoop(kafkaConsumer, producer);
+
+                // Arrêt: dernières modifications publiées et photographiées
+                try {
+                    writeSnapshot(kafkaConsumer, producer);
+                } catch (WakeupException e) {
+                    // wakeup() de stop() reçu hors poll: consommé par cette exception
+                    writeSnapshot(kafkaConsumer, producer);
+                }
+                return;
+            } catch (WakeupException e) {
+                logger.info("Arrêt pendant la reconstruction du stock");
+                return;
+            } catch (RuntimeException e) {
+                lastError = e.getMessage();
+                if (inventoryService.isReady()) {
+                    // Photo d'arrêt en échec: le stock n'est pas reconstruit une seconde fois
+                    logger.error("✗ Photo d'arrêt du stock impossible: {}", e.getMessage(), e);
+                    return;
+                }
+                logger.error("✗ Reconstruction du stock en échec, nouvelle tentative dans {} ms: {}",
+                    backoffMs, e.getMessage(), e);
+                sleep(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            } finally {
+                consumer = null;
+            }
+        }
+    }
+
+    /**
+     * Après la reconstruction, jusqu'à stop(). Une erreur (broker, photo) ne
+     * termine pas le thread: le tour est repris après un délai croissant, sans
+     * perdre de modification (republiées au tour suivant). Pendant ce temps,
+     * isFailing() rend la section 'inventory' de /actuator/health DOWN.
+     */
+    private void publishLoop(Consumer<String, Long> kafkaConsumer, Producer<String, Long> producer) {
+        long nextFlush = System.currentTimeMillis() + flushIntervalMs;
+        long nextSnapshot = System.currentTimeMillis() + snapshotIntervalMs;
+        while (running) {
+            try {
+                apply(kafkaConsumer.poll(POLL_TIMEOUT));
+                long now = System.currentTimeMillis();
+                if (now >= nextFlush) {
+                    flush(producer);
+                    nextFlush = now + flushIntervalMs;
+                }
+                if (now >= nextSnapshot) {
+                    writeSnapshot(kafkaConsumer, producer);
+                    nextSnapshot = now + snapshotIntervalMs;
+                }
+                if (consecutiveFailures > 0) {
+                    consecutiveFailures = 0;
+                    logger.info("✓ Publication du stock rétablie");
+                }
+            } catch (WakeupException e) {
+                // stop()
+                return;
+            } catch (RuntimeException e) {
+                lastError = e.getMessage();
+                consecutiveFailures++;
+                long backoffMs = Math.min(POLL_TIMEOUT.toMillis() << Math.min(consecutiveFailures, 10), MAX_BACKOFF_MS);
+                logger.error("✗ Publication du stock en échec ({} fois de suite), nouvelle tentative dans {} ms: {}",
+                    consecutiveFailures, backoffMs, e.getMessage(), e);
+                sleep(backoffMs);
+            }
+        }
+    }
+
+    /**
+     * Photo locale puis relecture de la fin du topic jusqu'aux offsets relevés au départ.
+     */
+    private void restore(Consumer<String, Long> kafkaConsumer) {
+        long start = System.nanoTime();
+        List<TopicPartition> partitions = partitions(kafkaConsumer);
+        kafkaConsumer.assign(partitions);
+
+        InventorySnapshot snapshot = loadSnapshot(partitions);
+        if (snapshot != null) {
+            inventoryService.restore(snapshot.getLevels());
+            partitions.forEach(tp -> kafkaConsumer.seek(tp, snapshot.getOffsets().get(tp.partition())));
+            snapshotLoaded = true;
+        } else {
+            inventoryService.restore(Map.of());
+            kafkaConsumer.seekToBeginning(partitions);
+        }
+
+        Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
+        long replayed = 0;
+        while (running && !caughtUp(kafkaConsumer, endOffsets)) {
+            replayed += apply(kafkaConsumer.poll(POLL_TIMEOUT));
+        }
+        if (!running) {
+            return;
+        }
+
+        replayedRecords = replayed;
+        restoreMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        readyAfterJvmStartMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        inventoryService.setReady(true);
+        logger.info("✓ Stock reconstruit en {} ms ({} SKU, photo {}, {} records relus)",
+            restoreMillis, inventoryService.levels().size(), snapshotLoaded ? "chargée" : "absente", replayed);
+    }
+
+    private List<TopicPartition> partitions(Consumer<String, Long> kafkaConsumer) {
+        while (running) {
+            try {
+                List<PartitionInfo> infos = kafkaConsumer.partitionsFor(KafkaTopicConfig.INVENTORY_TOPIC);
+                if (infos != null && !infos.isEmpty()) {
+                    return infos.stream()
+                        .map(info -> new TopicPartition(info.topic(), info.partition()))
+                        .collect(Collectors.toList());
+                }
+                logger.warn("⚠ Topic '{}' introuvable, nouvelle tentative", KafkaTopicConfig.INVENTORY_TOPIC);
+            } catch (TimeoutException e) {
+                lastError = e.getMessage();
+                logger.warn("⚠ Broker injoignable pour le topic '{}': {}", KafkaTopicConfig.INVENTORY_TOPIC, e.getMessage());
+            }
+            sleep(POLL_TIMEOUT.toMillis());
+        }
+        throw new WakeupException();
+    }
+
+    /**
+     * Photo utilisable seulement si elle couvre exactement les partitions actuelles du topic.
+     */
+    private InventorySnapshot loadSnapshot(List<TopicPartition> partitions) {
+        try {
+            InventorySnapshot snapshot = InventorySnapshot.readFrom(snapshotFile);
+            if (snapshot == null) {
+                return null;
+            }
+            Set<Integer> current = partitions.stream().map(TopicPartition::partition).collect(Collectors.toSet());
+            if (!snapshot.getOffsets().keySet().equals(current)) {
+                logger.warn("⚠ Photo {} ignorée: partitions {} au lieu de {}",
+                    snapshotFile, snapshot.getOffsets().keySet(), current);
+                return null;
+            }
+            return snapshot;
+        } catch (IOException e) {
+            logger.warn("⚠ Photo {} illisible, relecture complète du topic: {}", snapshotFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean caughtUp(Consumer<String, Long> kafkaConsumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (kafkaConsumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int apply(ConsumerRecords<String, Long> records) {
+        for (ConsumerRecord<String, Long> record : records) {
+            Header header = record.headers().lastHeader(ORIGIN_HEADER);
+            if (header == null || !Arrays.equals(header.value(), origin)) {
+                inventoryService.apply(record.key(), record.value());
+            }
+        }
+        return records.count();
+    }
+
+    private void flush(Producer<String, Long> producer) {
+        Map<String, Long> changes = inventoryService.drainChanges();
+        Iterator<Map.Entry<String, Long>> pending = changes.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<String, Long> change = pending.next();
+            String key = change.getKey();
+            ProducerRecord<String, Long> record =
+                new ProducerRecord<>(KafkaTopicConfig.INVENTORY_TOPIC, key, change.getValue());
+            record.headers().add(ORIGIN_HEADER, origin);
+            try {
+                producer.send(record, (metadata, ex) -> {
+                    if (ex != null) {
+                        // Republié au prochain intervalle avec la valeur d'alors
+                        inventoryService.markChanged(key);
+                        lastError = ex.getMessage();
+                        logger.warn("⚠ Publication du stock de {} impossible: {}", key, ex.getMessage());
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Envoi refusé (buffer plein, producer en échec): cette composante et les suivantes restent à publier
+                inventoryService.markChanged(key);
+                pending.forEachRemaining(remaining -> inventoryService.markChanged(remaining.getKey()));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Photo du stock et de la position de lecture. Les modifications en attente sont
+     * d'abord publiées et acquittées, puis relues: la position suit la dernière
+     * publication de cette instance, dont le cumul n'est jamais plus ancien que celui
+     * de la photo. Une valeur plus ancienne relue au redémarrage l'écraserait sinon.
+     */
+    private void writeSnapshot(Consumer<String, Long> kafkaConsumer, Producer<String, Long> producer) {
+        flush(producer);
+        producer.flush();
+        if (!catchUp(kafkaConsumer, kafkaConsumer.endOffsets(kafkaConsumer.assignment()))) {
+            logger.warn("⚠ Photo du stock reportée: publications non relues après {} ms", SNAPSHOT_CATCH_UP_MS);
+            return;
+        }
+
+        Map<Integer, Long> offsets = new HashMap<>();
+        for (TopicPartition partition : kafkaConsumer.assignment()) {
+            offsets.put(partition.partition(), kafkaConsumer.position(partition));
+        }
+        try {
+            new InventorySnapshot(System.currentTimeMillis(), offsets, inventoryService.entries()).writeTo(snapshotFile);
+            lastSnapshotTimestamp = System.currentTimeMillis();
+            logger.debug("Photo du stock écrite: {} (offsets {})", snapshotFile, offsets);
+        } catch (IOException e) {
+            lastError = e.getMessage();
+            logger.warn("⚠ Écriture de la photo {} impossible: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Applique les records jusqu'aux offsets donnés, au plus SNAPSHOT_CATCH_UP_MS.
+     * Un stop() pendant la relecture ne l'interrompt pas: la photo d'arrêt en dépend.
+     */
+    private boolean catchUp(Consumer<String, Long> kafkaConsumer, Map<TopicPartition, Long> endOffsets) {
+        long deadline = System.currentTimeMillis() + SNAPSHOT_CATCH_UP_MS;
+        while (!caughtUp(kafkaConsumer, endOffsets)) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            try {
+                apply(kafkaConsumer.poll(POLL_TIMEOUT));
+            } catch (WakeupException e) {
+                // stop(): la relecture continue
+            }
+        }
+        return true;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return inventoryService.isReady();
+    }
+
+    public long getRestoreMillis() {
+        return restoreMillis;
+    }
+
+    public long getReadyAfterJvmStartMillis() {
+        return readyAfterJvmStartMillis;
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    public boolean isSnapshotLoaded() {
+        return snapshotLoaded;
+    }
+
+    public long getLastSnapshotTimestamp() {
+        return lastSnapshotTimestamp;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Publication ou photo en échec depuis la dernière boucle réussie: les
+     * réservations continuent en mémoire, non persistées tant que l'échec dure.
+     */
+    public boolean isFailing() {
+        return consecutiveFailures > 0;
+    }
+}
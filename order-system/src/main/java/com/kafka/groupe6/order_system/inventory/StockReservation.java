@@ -0,0 +1,36 @@
+package com.kafka.groupe6.order_system.inventory;
+
+/**
+ * Quantités réservées pour une commande (une entrée par SKU distinct).
+ * Rendue par InventoryService.reserve(), à passer à release() si la commande échoue.
+ */
+public final class StockReservation {
+
+    static final StockReservation EMPTY = new StockReservation(null, new String[0], new long[0]);
+
+    private final String orderId;
+    private final String[] skus;
+    private final long[] quantities;
+
+    StockReservation(String orderId, String[] skus, long[] quantities) {
+        this.orderId = orderId;
+        this.skus = skus;
+        this.quantities = quantities;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public int size() {
+        return skus.length;
+    }
+
+    public String skuAt(int index) {
+        return skus[index];
+    }
+
+    public long quantityAt(int index) {
+        return quantities[index];
+    }
+}
@@ -0,0 +1,47 @@
+package com.kafka.groupe6.order_system.loadgen;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Tirage d'un client selon une loi de Zipf: le client de rang k est choisi
+ * avec une probabilité proportionnelle à 1 / k^skew.
+ *
+ * skew = 0 donne une répartition uniforme; au-delà de 1, quelques clients
+ * concentrent l'essentiel des commandes, donc quelques clés (et partitions,
+ * avec app.partitioning.strategy=customer-id) reçoivent l'essentiel du trafic.
+ */
+public class KeySkewSampler {
+
+    // Probabilités cumulées par rang, recherche dichotomique au tirage
+    private final double[] cumulative;
+
+    public KeySkewSampler(int customers, double skew) {
+        if (customers < 1) {
+            throw new IllegalArgumentException("Au moins un client est nécessaire");
+        }
+        if (skew < 0) {
+            throw new IllegalArgumentException("Le skew doit être positif ou nul");
+        }
+        cumulative = new double[customers];
+        double total = 0;
+        for (int rank = 1; rank <= customers; rank++) {
+            total += 1.0 / Math.pow(rank, skew);
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < customers; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    /**
+     * @return l'index du client tiré, entre 0 (le plus actif) et customers - 1
+     */
+    public int next(RandomGenerator random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, cumulative.length - 1);
+    }
+}
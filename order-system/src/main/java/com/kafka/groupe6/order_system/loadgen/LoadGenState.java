@@ -0,0 +1,16 @@
+package com.kafka.groupe6.order_system.loadgen;
+
+/**
+ * États d'un tir de charge.
+ */
+public enum LoadGenState {
+
+    // Envoi en cours au débit demandé
+    RUNNING,
+
+    // Durée demandée écoulée
+    COMPLETED,
+
+    // Arrêté avant la fin (POST /api/loadgen/stop)
+    STOPPED
+}
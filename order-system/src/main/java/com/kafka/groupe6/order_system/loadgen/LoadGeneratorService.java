@@ -0,0 +1,365 @@
+package com.kafka.groupe6.order_system.loadgen;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.model.LoadGenReport;
+import com.kafka.groupe6.order_system.model.LoadGenRequest;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.producer.OrderProducerService;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.random.RandomGenerator;
+
+/**
+ * Générateur de charge intégré (POST /api/loadgen/start).
+ *
+ * - Un thread dédié envoie les commandes via OrderProducerService à des
+ *   instants prévus (start + i / débit): pas de dérive, et les retards du
+ *   thread ne réduisent pas le débit, ils sont rattrapés.
+ * - Les latences sont mesurées depuis l'instant prévu et non depuis l'envoi
+ *   réel: un producer saturé (max-in-flight atteint, buffer plein) apparaît
+ *   dans les percentiles au lieu de ralentir silencieusement le tir
+ *   (coordinated omission).
+ * - Latence d'ack : instant prévu → confirmation du broker.
+ * - Latence de bout en bout : instant prévu → commande lue sur 'orders-processed'.
+ *
+ * Un seul tir à la fois par instance.
+ */
+@Service
+public class LoadGeneratorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGeneratorService.class);
+
+    // Préfixe des IDs de commandes générées
+    public static final String ORDER_ID_PREFIX = "LOADGEN-";
+
+    private static final String LATENCY_LISTENER_ID = "loadgen-latency";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // En dessous de ce délai, attente active (parkNanos n'est pas assez précis)
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    // Histogrammes en microsecondes, de 1 µs à 10 minutes, 3 chiffres significatifs
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final int MAX_ITEMS_PER_ORDER = 100;
+    private static final int ITEM_CATALOG_SIZE = 50;
+
+    private final OrderProducerService producerService;
+    private final int maxRate;
+    private final int maxDurationSeconds;
+    private final int maxCustomers;
+    private final int maxTrackedOrders;
+
+    // Envois non confirmés: au-delà, le thread d'envoi attend
+    private final Semaphore inFlight;
+
+    private volatile Run currentRun;
+
+    public LoadGeneratorService(
+            OrderProducerService producerService,
+            @Value("${app.loadgen.max-rate:20000}") int maxRate,
+            @Value("${app.loadgen.max-duration-seconds:3600}") int maxDurationSeconds,
+            @Value("${app.loadgen.max-in-flight:10000}") int maxInFlight,
+            @Value("${app.loadgen.max-customers:100000}") int maxCustomers,
+            @Value("${app.loadgen.max-tracked-orders:200000}") int maxTrackedOrders) {
+        this.producerService = producerService;
+        this.maxRate = maxRate;
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.maxCustomers = maxCustomers;
+        this.maxTrackedOrders = maxTrackedOrders;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Démarre un tir de charge.
+     *
+     * @throws IllegalArgumentException si les paramètres sont hors limites
+     * @throws IllegalStateException si un tir est déjà en cours
+     */
+    public synchronized LoadGenReport start(LoadGenRequest request) {
+        validate(request);
+        Run previous = currentRun;
+        if (previous != null && previous.state == LoadGenState.RUNNING) {
+            throw new IllegalStateException("Un tir de charge est déjà en cours");
+        }
+
+        Run run = new Run(request, new KeySkewSampler(request.getCustomers(), request.getKeySkew()));
+        currentRun = run;
+
+        Thread pacer = new Thread(() -> pace(run), "loadgen-pacer");
+        pacer.setDaemon(true);
+        pacer.start();
+
+        logger.info("▶ Tir de charge {} démarré: {} commandes/s pendant {} s",
+            run.id, request.getRatePerSecond(), request.getDurationSeconds());
+        return report(run);
+    }
+
+    /**
+     * Arrête le tir en cours; les envois déjà lancés sont encore mesurés.
+     */
+    public LoadGenReport stop() {
+        Run run = currentRun;
+        if (run == null) {
+            return LoadGenReport.idle();
+        }
+        run.stopRequested = true;
+        return report(run);
+    }
+
+    public LoadGenReport status() {
+        Run run = currentRun;
+        return run == null ? LoadGenReport.idle() : report(run);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    /**
+     * Latence de bout en bout des commandes du tir en cours.
+     * Groupe propre à chaque instance (offset 'latest'): chaque instance voit
+     * toutes les commandes traitées, y compris celles qu'elle a générées.
+     */
+    @KafkaListener(
+        id = LATENCY_LISTENER_ID,
+        topics = KafkaTopicConfig.ORDERS_PROCESSED_TOPIC,
+        groupId = "#{'order-loadgen-' + T(java.util.UUID).randomUUID()}",
+        containerFactory = "loadGenKafkaListenerContainerFactory",
+        autoStartup = "${app.loadgen.end-to-end:true}"
+    )
+    public void onProcessedOrders(List<ConsumerRecord<String, Order>> records) {
+        Run run = currentRun;
+        if (run == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (ConsumerRecord<String, Order> record : records) {
+            Order order = record.value();
+            if (order == null || order.getId() == null) {
+                continue;
+            }
+            // remove: une commande republiée (at-least-once) n'est comptée qu'une fois
+            Long intendedNanos = run.awaitingProcessing.remove(order.getId());
+            if (intendedNanos != null) {
+                run.processed.increment();
+                run.endToEndRecorder.recordValue(toMicros(now - intendedNanos));
+            }
+        }
+    }
+
+    private void pace(Run run) {
+        LoadGenRequest request = run.request;
+        long endNanos = run.startNanos + request.getDurationSeconds() * NANOS_PER_SECOND;
+        RandomGenerator random = new SplittableRandom();
+
+        try {
+            for (long i = 0; !run.stopRequested; i++) {
+                long intendedNanos = run.startNanos + i * NANOS_PER_SECOND / request.getRatePerSecond();
+                if (intendedNanos >= endNanos) {
+                    break;
+                }
+                waitUntil(intendedNanos);
+                // Producer saturé: on attend, le retard est compté dans les latences
+                inFlight.acquire();
+                send(run, nextOrder(run, i, random), intendedNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("✗ Tir de charge {} interrompu: {}", run.id, e.getMessage(), e);
+        } finally {
+            run.finish(run.stopRequested ? LoadGenState.STOPPED : LoadGenState.COMPLETED);
+            logger.info("■ Tir de charge {} terminé ({}): {} commandes envoyées",
+                run.id, run.state, run.sent.sum());
+        }
+    }
+
+    private void send(Run run, Order order, long intendedNanos) {
+        if (run.awaitingProcessing.size() < maxTrackedOrders) {
+            run.awaitingProcessing.put(order.getId(), intendedNanos);
+        }
+        run.sent.increment();
+
+        producerService.sendOrderAsync(order).whenComplete((result, ex) -> {
+            inFlight.release();
+            if (ex == null) {
+                run.acked.increment();
+                run.ackRecorder.recordValue(toMicros(System.nanoTime() - intendedNanos));
+            } else {
+                run.failed.increment();
+                run.awaitingProcessing.remove(order.getId());
+            }
+        });
+    }
+
+    private Order nextOrder(Run run, long sequence, RandomGenerator random) {
+        LoadGenRequest request = run.request;
+        int itemCount = itemCount(request, random);
+        List<String> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add("Item" + (1 + random.nextInt(ITEM_CATALOG_SIZE)));
+        }
+        return new Order(
+            ORDER_ID_PREFIX + run.id + "-" + sequence,
+            "CUST-" + run.customers.next(random),
+            items,
+            10 + random.nextDouble() * 490,
+            "PENDING",
+            System.currentTimeMillis()
+        );
+    }
+
+    private static int itemCount(LoadGenRequest request, RandomGenerator random) {
+        if (LoadGenRequest.SIZE_GEOMETRIC.equals(request.getSizeDistribution())) {
+            // Chaque article supplémentaire avec une chance sur deux
+            int count = request.getMinItems();
+            while (count < request.getMaxItems() && random.nextBoolean()) {
+                count++;
+            }
+            return count;
+        }
+        return request.getMinItems() + random.nextInt(request.getMaxItems() - request.getMinItems() + 1);
+    }
+
+    private static void waitUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void validate(LoadGenRequest request) {
+        if (request.getRatePerSecond() < 1 || request.getRatePerSecond() > maxRate) {
+            throw new IllegalArgumentException("Le débit doit être entre 1 et " + maxRate + " commandes/s");
+        }
+        if (request.getDurationSeconds() < 1 || request.getDurationSeconds() > maxDurationSeconds) {
+            throw new IllegalArgumentException("La durée doit être entre 1 et " + maxDurationSeconds + " s");
+        }
+        if (request.getMinItems() < 1 || request.getMaxItems() < request.getMinItems()
+                || request.getMaxItems() > MAX_ITEMS_PER_ORDER) {
+            throw new IllegalArgumentException(
+                "Il faut 1 <= minItems <= maxItems <= " + MAX_ITEMS_PER_ORDER);
+        }
+        if (!LoadGenRequest.SIZE_UNIFORM.equals(request.getSizeDistribution())
+                && !LoadGenRequest.SIZE_GEOMETRIC.equals(request.getSizeDistribution())) {
+            throw new IllegalArgumentException("sizeDistribution doit valoir '"
+                + LoadGenRequest.SIZE_UNIFORM + "' ou '" + LoadGenRequest.SIZE_GEOMETRIC + "'");
+        }
+        if (request.getCustomers() < 1 || request.getCustomers() > maxCustomers) {
+            throw new IllegalArgumentException("Le nombre de clients doit être entre 1 et " + maxCustomers);
+        }
+        if (!(request.getKeySkew() >= 0) || Double.isInfinite(request.getKeySkew())) {
+            throw new IllegalArgumentException("keySkew doit être un nombre positif ou nul");
+        }
+    }
+
+    private static LoadGenReport report(Run run) {
+        LoadGenReport report = new LoadGenReport();
+        report.setState(run.state.name());
+        report.setTargetRatePerSecond(run.request.getRatePerSecond());
+        report.setDurationSeconds(run.request.getDurationSeconds());
+
+        long endNanos = run.endNanos != 0 ? run.endNanos : System.nanoTime();
+        double elapsedSeconds = (endNanos - run.startNanos) / (double) NANOS_PER_SECOND;
+        long sent = run.sent.sum();
+        report.setElapsedSeconds(elapsedSeconds);
+        report.setSent(sent);
+        report.setAcked(run.acked.sum());
+        report.setFailed(run.failed.sum());
+        report.setProcessed(run.processed.sum());
+        report.setActualRatePerSecond(elapsedSeconds > 0 ? sent / elapsedSeconds : 0);
+
+        // Les histogrammes cumulés ne sont lus et complétés que sous ce verrou
+        synchronized (run) {
+            run.ackTotal.add(run.ackRecorder.getIntervalHistogram());
+            run.endToEndTotal.add(run.endToEndRecorder.getIntervalHistogram());
+            report.setAckLatency(percentiles(run.ackTotal));
+            report.setEndToEndLatency(percentiles(run.endToEndTotal));
+        }
+        return report;
+    }
+
+    private static LoadGenReport.LatencyPercentiles percentiles(Histogram histogram) {
+        return new LoadGenReport.LatencyPercentiles(
+            histogram.getTotalCount(),
+            toMillis(histogram.getValueAtPercentile(50)),
+            toMillis(histogram.getValueAtPercentile(90)),
+            toMillis(histogram.getValueAtPercentile(99)),
+            toMillis(histogram.getValueAtPercentile(99.9)),
+            toMillis(histogram.getMaxValue())
+        );
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(0, Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Un tir de charge: paramètres, compteurs et histogrammes.
+     * Les Recorder acceptent des écritures concurrentes (callbacks du producer,
+     * listener de bout en bout) sans verrou.
+     */
+    private static final class Run {
+        final String id = UUID.randomUUID().toString().substring(0, 8);
+        final LoadGenRequest request;
+        final KeySkewSampler customers;
+        final long startNanos = System.nanoTime();
+
+        final Recorder ackRecorder = new Recorder(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        final Recorder endToEndRecorder = new Recorder(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        final Histogram ackTotal = new Histogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        final Histogram endToEndTotal = new Histogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+        // ID de commande → instant d'envoi prévu, jusqu'à sa lecture sur 'orders-processed'
+        final ConcurrentMap<String, Long> awaitingProcessing = new ConcurrentHashMap<>();
+
+        final LongAdder sent = new LongAdder();
+        final LongAdder acked = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder processed = new LongAdder();
+
+        volatile LoadGenState state = LoadGenState.RUNNING;
+        volatile boolean stopRequested;
+        volatile long endNanos;
+
+        Run(LoadGenRequest request, KeySkewSampler customers) {
+            this.request = request;
+            this.customers = customers;
+        }
+
+        void finish(LoadGenState finalState) {
+            endNanos = System.nanoTime();
+            state = finalState;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.kafka.groupe6.order_system.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latences des commandes sur des fenêtres glissantes (GET /api/latency/slo).
+ * Latences en millisecondes, mesurées depuis l'acceptation HTTP (header x-ingest-time).
+ */
+public class LatencySloReport {
+    private long endToEndP99TargetMs;
+    private int sliceSeconds;
+    private List<Window> windows;
+
+    // Constructeurs
+    public LatencySloReport() {}
+
+    // Getters et Setters
+    public long getEndToEndP99TargetMs() { return endToEndP99TargetMs; }
+    public void setEndToEndP99TargetMs(long endToEndP99TargetMs) { this.endToEndP99TargetMs = endToEndP99TargetMs; }
+
+    public int getSliceSeconds() { return sliceSeconds; }
+    public void setSliceSeconds(int sliceSeconds) { this.sliceSeconds = sliceSeconds; }
+
+    public List<Window> getWindows() { return windows; }
+    public void setWindows(List<Window> windows) { this.windows = windows; }
+
+    /**
+     * Mesures d'une fenêtre: toutes partitions confondues, puis par partition de 'orders-input'.
+     */
+    public static class Window {
+        private int windowSeconds;
+        private boolean withinSlo;
+        private LoadGenReport.LatencyPercentiles endToEnd;
+        private LoadGenReport.LatencyPercentiles queueWait;
+        private Map<Integer, PartitionLatency> partitions;
+
+        public Window() {}
+
+        public int getWindowSeconds() { return windowSeconds; }
+        public void setWindowSeconds(int windowSeconds) { this.windowSeconds = windowSeconds; }
+
+        public boolean isWithinSlo() { return withinSlo; }
+        public void setWithinSlo(boolean withinSlo) { this.withinSlo = withinSlo; }
+
+        public LoadGenReport.LatencyPercentiles getEndToEnd() { return endToEnd; }
+        public void setEndToEnd(LoadGenReport.LatencyPercentiles endToEnd) { this.endToEnd = endToEnd; }
+
+        public LoadGenReport.LatencyPercentiles getQueueWait() { return queueWait; }
+        public void setQueueWait(LoadGenReport.LatencyPercentiles queueWait) { this.queueWait = queueWait; }
+
+        public Map<Integer, PartitionLatency> getPartitions() { return partitions; }
+        public void setPartitions(Map<Integer, PartitionLatency> partitions) { this.partitions = partitions; }
+    }
+
+    /**
+     * Mesures d'une partition sur une fenêtre.
+     */
+    public static class PartitionLatency {
+        private LoadGenReport.LatencyPercentiles endToEnd;
+        private LoadGenReport.LatencyPercentiles queueWait;
+
+        public PartitionLatency() {}
+
+        public PartitionLatency(LoadGenReport.LatencyPercentiles endToEnd, LoadGenReport.LatencyPercentiles queueWait) {
+            this.endToEnd = endToEnd;
+            this.queueWait = queueWait;
+        }
+
+        public LoadGenReport.LatencyPercentiles getEndToEnd() { return endToEnd; }
+        public void setEndToEnd(LoadGenReport.LatencyPercentiles endToEnd) { this.endToEnd = endToEnd; }
+
+        public LoadGenReport.LatencyPercentiles getQueueWait() { return queueWait; }
+        public void setQueueWait(LoadGenReport.LatencyPercentiles queueWait) { this.queueWait = queueWait; }
+    }
+}
@@ -0,0 +1,105 @@
+package com.kafka.groupe6.order_system.model;
+
+/**
+ * État et mesures d'un tir de charge (GET /api/loadgen/status).
+ * Latences en millisecondes, mesurées depuis l'instant d'envoi prévu.
+ */
+public class LoadGenReport {
+    private String state;
+    private int targetRatePerSecond;
+    private int durationSeconds;
+    private double elapsedSeconds;
+    private long sent;
+    private long acked;
+    private long failed;
+    private long processed;
+    private double actualRatePerSecond;
+    private LatencyPercentiles ackLatency;
+    private LatencyPercentiles endToEndLatency;
+
+    // Constructeurs
+    public LoadGenReport() {}
+
+    public static LoadGenReport idle() {
+        LoadGenReport report = new LoadGenReport();
+        report.setState("IDLE");
+        report.setAckLatency(new LatencyPercentiles());
+        report.setEndToEndLatency(new LatencyPercentiles());
+        return report;
+    }
+
+    // Getters et Setters
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public int getTargetRatePerSecond() { return targetRatePerSecond; }
+    public void setTargetRatePerSecond(int targetRatePerSecond) { this.targetRatePerSecond = targetRatePerSecond; }
+
+    public int getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(int durationSeconds) { this.durationSeconds = durationSeconds; }
+
+    public double getElapsedSeconds() { return elapsedSeconds; }
+    public void setElapsedSeconds(double elapsedSeconds) { this.elapsedSeconds = elapsedSeconds; }
+
+    public long getSent() { return sent; }
+    public void setSent(long sent) { this.sent = sent; }
+
+    public long getAcked() { return acked; }
+    public void setAcked(long acked) { this.acked = acked; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public long getProcessed() { return processed; }
+    public void setProcessed(long processed) { this.processed = processed; }
+
+    public double getActualRatePerSecond() { return actualRatePerSecond; }
+    public void setActualRatePerSecond(double actualRatePerSecond) { this.actualRatePerSecond = actualRatePerSecond; }
+
+    public LatencyPercentiles getAckLatency() { return ackLatency; }
+    public void setAckLatency(LatencyPercentiles ackLatency) { this.ackLatency = ackLatency; }
+
+    public LatencyPercentiles getEndToEndLatency() { return endToEndLatency; }
+    public void setEndToEndLatency(LatencyPercentiles endToEndLatency) { this.endToEndLatency = endToEndLatency; }
+
+    /**
+     * Percentiles d'une distribution de latences (ms).
+     */
+    public static class LatencyPercentiles {
+        private long count;
+        private double p50;
+        private double p90;
+        private double p99;
+        private double p999;
+        private double max;
+
+        public LatencyPercentiles() {}
+
+        public LatencyPercentiles(long count, double p50, double p90, double p99, double p999, double max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+
+        public double getP50() { return p50; }
+        public void setP50(double p50) { this.p50 = p50; }
+
+        public double getP90() { return p90; }
+        public void setP90(double p90) { this.p90 = p90; }
+
+        public double getP99() { return p99; }
+        public void setP99(double p99) { this.p99 = p99; }
+
+        public double getP999() { return p999; }
+        public void setP999(double p999) { this.p999 = p999; }
+
+        public double getMax() { return max; }
+        public void setMax(double max) { this.max = max; }
+    }
+}
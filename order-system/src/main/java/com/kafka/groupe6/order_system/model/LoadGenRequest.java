@@ -0,0 +1,51 @@
+package com.kafka.groupe6.order_system.model;
+
+/**
+ * Paramètres d'un tir de charge (POST /api/loadgen/start).
+ */
+public class LoadGenRequest {
+
+    // Répartition du nombre d'articles par commande
+    public static final String SIZE_UNIFORM = "uniform";
+    public static final String SIZE_GEOMETRIC = "geometric";
+
+    private int ratePerSecond = 100;
+    private int durationSeconds = 30;
+    private int minItems = 1;
+    private int maxItems = 3;
+    private String sizeDistribution = SIZE_UNIFORM;
+    private int customers = 1000;
+    private double keySkew = 0.0;
+
+    // Constructeurs
+    public LoadGenRequest() {}
+
+    public LoadGenRequest(int ratePerSecond, int durationSeconds) {
+        this.ratePerSecond = ratePerSecond;
+        this.durationSeconds = durationSeconds;
+    }
+
+    // Getters et Setters
+    public int getRatePerSecond() { return ratePerSecond; }
+    public void setRatePerSecond(int ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+
+    public int getDurationSeconds() { return durationSeconds; }
+    public void setDurationSeconds(int durationSeconds) { this.durationSeconds = durationSeconds; }
+
+    public int getMinItems() { return minItems; }
+    public void setMinItems(int minItems) { this.minItems = minItems; }
+
+    public int getMaxItems() { return maxItems; }
+    public void setMaxItems(int maxItems) { this.maxItems = maxItems; }
+
+    // uniform : autant de chances pour chaque taille, geometric : surtout des petites commandes
+    public String getSizeDistribution() { return sizeDistribution; }
+    public void setSizeDistribution(String sizeDistribution) { this.sizeDistribution = sizeDistribution; }
+
+    public int getCustomers() { return customers; }
+    public void setCustomers(int customers) { this.customers = customers; }
+
+    // Exposant de Zipf sur les clients: 0 = uniforme, 1+ = quelques clients très actifs
+    public double getKeySkew() { return keySkew; }
+    public void setKeySkew(double keySkew) { this.keySkew = keySkew; }
+}
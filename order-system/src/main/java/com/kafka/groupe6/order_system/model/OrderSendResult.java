@@ -0,0 +1,54 @@
+package com.kafka.groupe6.order_system.model;
+
+/**
+ * Résultat de l'envoi d'une commande vers Kafka.
+ * Utilisé par l'endpoint batch pour renvoyer un résultat par commande.
+ */
+public class OrderSendResult {
+    private int index;
+    private String orderId;
+    private boolean accepted;
+    private Integer partition;
+    private Long offset;
+    private String error;
+
+    // Constructeurs
+    public OrderSendResult() {}
+
+    public OrderSendResult(int index, String orderId, boolean accepted,
+                           Integer partition, Long offset, String error) {
+        this.index = index;
+        this.orderId = orderId;
+        this.accepted = accepted;
+        this.partition = partition;
+        this.offset = offset;
+        this.error = error;
+    }
+
+    public static OrderSendResult accepted(int index, String orderId, int partition, long offset) {
+        return new OrderSendResult(index, orderId, true, partition, offset, null);
+    }
+
+    public static OrderSendResult failed(int index, String orderId, String error) {
+        return new OrderSendResult(index, orderId, false, null, null, error);
+    }
+
+    // Getters et Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+
+    public boolean isAccepted() { return accepted; }
+    public void setAccepted(boolean accepted) { this.accepted = accepted; }
+
+    public Integer getPartition() { return partition; }
+    public void setPartition(Integer partition) { this.partition = partition; }
+
+    public Long getOffset() { return offset; }
+    public void setOffset(Long offset) { this.offset = offset; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,37 @@
+package com.kafka.groupe6.order_system.monitoring;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Section 'consumerLag' de /actuator/health: lag mesuré, niveau de
+ * dégradation courant et seuils configurés.
+ *
+ * Le statut reste UP même en dégradation: l'instance continue de servir
+ * (ralentie ou en 429), la retirer du load balancer n'aiderait pas les consumers.
+ */
+@Component
+public class ConsumerLagHealthIndicator implements HealthIndicator {
+
+    private final ConsumerLagMonitor lagMonitor;
+
+    public ConsumerLagHealthIndicator(ConsumerLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = Health.up()
+            .withDetail("group", lagMonitor.getGroupId())
+            .withDetail("lag", lagMonitor.getLag())
+            .withDetail("level", lagMonitor.getLevel())
+            .withDetail("thresholds", lagMonitor.getThresholds())
+            .withDetail("slowDownMs", lagMonitor.getSlowDownMs())
+            .withDetail("lastSampleTimestamp", lagMonitor.getLastSampleTimestamp());
+        if (lagMonitor.getLastSampleError() != null) {
+            builder.withDetail("lastSampleError", lagMonitor.getLastSampleError());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,249 @@
+package com.kafka.groupe6.order_system.monitoring;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.consumer.StagedOrderConsumerService;
+import com.kafka.groupe6.order_system.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure périodique du retard (lag) du groupe de consommateurs sur 'orders-input'.
+ *
+ * Lag = somme, pour chaque partition, de (dernier offset - offset commité).
+ * En mode staged (app.consumer.mode=staged), s'y ajoute le lag des groupes des
+ * étapes suivantes sur leur topic d'entrée ('orders-validated', 'orders-reserved'):
+ * le retard de l'étape la plus lente déclenche aussi la dégradation.
+ * Le niveau de dégradation (LoadSheddingLevel) en est déduit selon des seuils
+ * configurables, appliqué par OrderController via admit():
+ * - SLOW : réponses ralenties de app.lag.slow-down-ms
+ * - SHED_LOW_PRIORITY : /generate et X-Order-Priority: low refusés (429)
+ * - SHED_ALL : tout le trafic refusé (429)
+ *
+ * En cas d'échec d'une mesure, le dernier niveau connu est conservé.
+ */
+@Component
+public class ConsumerLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerLagMonitor.class);
+
+    private static final int ADMIN_TIMEOUT_MS = 5000;
+
+    private static final String CONSUMER_MODE_STAGED = "staged";
+
+    private final KafkaAdmin kafkaAdmin;
+    private final String groupId;
+    // Topic lu par chaque groupe mesuré
+    private final Map<String, String> monitoredGroups = new LinkedHashMap<>();
+    private final long slowThreshold;
+    private final long shedLowPriorityThreshold;
+    private final long shedAllThreshold;
+    private final long slowDownMs;
+    private final long retryAfterSeconds;
+
+    private volatile AdminClient adminClient;
+    private volatile long lag;
+    private volatile LoadSheddingLevel level = LoadSheddingLevel.NORMAL;
+    private volatile long lastSampleTimestamp;
+    private volatile String lastSampleError;
+
+    public ConsumerLagMonitor(
+            KafkaAdmin kafkaAdmin,
+            MeterRegistry meterRegistry,
+            @Value("${app.lag.group-id:order-consumer-group}") String groupId,
+            @Value("${app.lag.thresholds.slow:1000}") long slowThreshold,
+            @Value("${app.lag.thresholds.shed-low-priority:10000}") long shedLowPriorityThreshold,
+            @Value("${app.lag.thresholds.shed-all:50000}") long shedAllThreshold,
+            @Value("${app.lag.slow-down-ms:200}") long slowDownMs,
+            @Value("${app.lag.retry-after-seconds:5}") long retryAfterSeconds,
+            @Value("${app.consumer.mode:record}") String consumerMode) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.groupId = groupId;
+        monitoredGroups.put(groupId, KafkaTopicConfig.ORDERS_INPUT_TOPIC);
+        if (CONSUMER_MODE_STAGED.equals(consumerMode)) {
+            monitoredGroups.put(StagedOrderConsumerService.RESERVE_STAGE_GROUP, KafkaTopicConfig.ORDERS_VALIDATED_TOPIC);
+            monitoredGroups.put(StagedOrderConsumerService.PROCESS_STAGE_GROUP, KafkaTopicConfig.ORDERS_RESERVED_TOPIC);
+        }
+        this.slowThreshold = slowThreshold;
+        this.shedLowPriorityThreshold = shedLowPriorityThreshold;
+        this.shedAllThreshold = shedAllThreshold;
+        this.slowDownMs = slowDownMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("orders.consumer.lag", this, ConsumerLagMonitor::getLag)
+            .description("Retard du groupe de consommateurs sur 'orders-input' (et des étapes en mode staged)")
+            .tag("group", groupId)
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.lag.sample-interval-ms:5000}")
+    public void sample() {
+        try {
+            updateLag(fetchLag());
+            lastSampleError = null;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            lastSampleError = e.getMessage();
+            logger.warn("⚠ Mesure du lag impossible (niveau {} conservé): {}", level, e.getMessage());
+        }
+    }
+
+    /**
+     * Enregistre une mesure et recalcule le niveau de dégradation.
+     */
+    public void updateLag(long currentLag) {
+        LoadSheddingLevel previous = level;
+        lag = currentLag;
+        level = levelFor(currentLag);
+        lastSampleTimestamp = System.currentTimeMillis();
+
+        if (level != previous) {
+            logger.warn("⚠ Lag de '{}' = {}: niveau {} → {}", groupId, currentLag, previous, level);
+        } else {
+            logger.debug("Lag de '{}' = {} ({})", groupId, currentLag, level);
+        }
+    }
+
+    /**
+     * Applique le niveau courant à une requête d'ingestion.
+     *
+     * @param lowPriority trafic sacrifiable en premier (/generate, X-Order-Priority: low)
+     * @throws AdmissionRejectedException si la requête doit être refusée
+     */
+    public void admit(boolean lowPriority) {
+        LoadSheddingLevel current = level;
+        if (current == LoadSheddingLevel.SHED_ALL
+                || (current == LoadSheddingLevel.SHED_LOW_PRIORITY && lowPriority)) {
+            throw new AdmissionRejectedException(
+                "Consumers en retard: lag " + lag + " (" + current + ")", retryAfterSeconds);
+        }
+        if (current != LoadSheddingLevel.NORMAL && slowDownMs > 0) {
+            try {
+                Thread.sleep(slowDownMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public LoadSheddingLevel levelFor(long currentLag) {
+        if (currentLag >= shedAllThreshold) {
+            return LoadSheddingLevel.SHED_ALL;
+        }
+        if (currentLag >= shedLowPriorityThreshold) {
+            return LoadSheddingLevel.SHED_LOW_PRIORITY;
+        }
+        if (currentLag >= slowThreshold) {
+            return LoadSheddingLevel.SLOW;
+        }
+        return LoadSheddingLevel.NORMAL;
+    }
+
+    private long fetchLag() throws Exception {
+        AdminClient admin = adminClient();
+        long total = 0;
+        for (Map.Entry<String, String> group : monitoredGroups.entrySet()) {
+            total += fetchLag(admin, group.getKey(), group.getValue());
+        }
+        return total;
+    }
+
+    private long fetchLag(AdminClient admin, String group, String topicName) throws Exception {
+        TopicDescription topic = admin.describeTopics(List.of(topicName))
+            .allTopicNames().get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+            .get(topicName);
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+        topic.partitions().forEach(partition -> {
+            TopicPartition tp = new TopicPartition(topicName, partition.partition());
+            latest.put(tp, OffsetSpec.latest());
+            earliest.put(tp, OffsetSpec.earliest());
+        });
+
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+            .partitionsToOffsetAndMetadata().get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets =
+            admin.listOffsets(latest).all().get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> startOffsets =
+            admin.listOffsets(earliest).all().get(ADMIN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        long total = 0;
+        for (Map.Entry<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> entry : endOffsets.entrySet()) {
+            OffsetAndMetadata offset = committed.get(entry.getKey());
+            // Partition jamais commitée: tout ce qui reste dans le topic est en retard
+            long position = offset != null ? offset.offset() : startOffsets.get(entry.getKey()).offset();
+            total += Math.max(0, entry.getValue().offset() - position);
+        }
+        return total;
+    }
+
+    private AdminClient adminClient() {
+        if (adminClient == null) {
+            Map<String, Object> config = new HashMap<>(kafkaAdmin.getConfigurationProperties());
+            config.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, ADMIN_TIMEOUT_MS);
+            config.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, ADMIN_TIMEOUT_MS);
+            adminClient = AdminClient.create(config);
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public LoadSheddingLevel getLevel() {
+        return level;
+    }
+
+    public long getSlowDownMs() {
+        return slowDownMs;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public long getLastSampleTimestamp() {
+        return lastSampleTimestamp;
+    }
+
+    public String getLastSampleError() {
+        return lastSampleError;
+    }
+
+    public Map<String, Long> getThresholds() {
+        Map<String, Long> thresholds = new HashMap<>();
+        thresholds.put("slow", slowThreshold);
+        thresholds.put("shedLowPriority", shedLowPriorityThreshold);
+        thresholds.put("shedAll", shedAllThreshold);
+        return thresholds;
+    }
+}
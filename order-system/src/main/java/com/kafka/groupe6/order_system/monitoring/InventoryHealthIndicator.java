@@ -0,0 +1,43 @@
+package com.kafka.groupe6.order_system.monitoring;
+
+import com.kafka.groupe6.order_system.inventory.InventoryStateStore;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Section 'inventory' de /actuator/health: reconstruction du stock depuis le
+ * topic 'inventory' (OUT_OF_SERVICE tant qu'elle n'est pas terminée), puis
+ * publication du stock (DOWN tant qu'elle échoue: modifications non persistées).
+ *
+ * - restoreMillis : durée photo + relecture
+ * - readyAfterJvmStartMillis : délai entre le lancement de la JVM et "prêt"
+ * - replayedRecords : records relus (tout le topic si aucune photo)
+ */
+@Component
+public class InventoryHealthIndicator implements HealthIndicator {
+
+    private final InventoryStateStore stateStore;
+
+    public InventoryHealthIndicator(InventoryStateStore stateStore) {
+        this.stateStore = stateStore;
+    }
+
+    @Override
+    public Health health() {
+        if (!stateStore.isEnabled()) {
+            return Health.up().withDetail("changelog", "disabled").build();
+        }
+        Health.Builder builder = !stateStore.isReady() ? Health.outOfService()
+            : stateStore.isFailing() ? Health.down() : Health.up();
+        builder.withDetail("restoreMillis", stateStore.getRestoreMillis())
+            .withDetail("readyAfterJvmStartMillis", stateStore.getReadyAfterJvmStartMillis())
+            .withDetail("snapshotLoaded", stateStore.isSnapshotLoaded())
+            .withDetail("replayedRecords", stateStore.getReplayedRecords())
+            .withDetail("lastSnapshotTimestamp", stateStore.getLastSnapshotTimestamp());
+        if (stateStore.getLastError() != null) {
+            builder.withDetail("lastError", stateStore.getLastError());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.kafka.groupe6.order_system.monitoring;
+
+/**
+ * Niveaux de dégradation de l'ingestion selon le retard des consumers.
+ */
+public enum LoadSheddingLevel {
+
+    // Fonctionnement normal
+    NORMAL,
+
+    // Réponses ralenties (pression sur les clients)
+    SLOW,
+
+    // Trafic basse priorité et /generate refusés (429)
+    SHED_LOW_PRIORITY,
+
+    // Tout le trafic refusé (429)
+    SHED_ALL
+}
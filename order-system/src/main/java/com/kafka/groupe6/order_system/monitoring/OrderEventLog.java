@@ -0,0 +1,171 @@
+package com.kafka.groupe6.order_system.monitoring;
+
+import com.kafka.groupe6.order_system.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal des commandes traitées: un seul événement par commande, au format clé=valeur.
+ *
+ *   order.processed orderId=ORD-1 customerId=C-7 partition=2 offset=1042 items=3 amount=59.9 durationMs=182 suppressed=0
+ *   order.failed orderId=ORD-2 ... reason=STOCK_UNAVAILABLE durationMs=3 error="..."
+ *
+ * - Succès et doublons échantillonnés: au plus app.logging.orders.success-per-second
+ *   événements par seconde; les suivants sont seulement comptés (champ suppressed
+ *   du prochain événement émis)
+ * - Échecs toujours journalisés (WARN si retriable, ERROR sinon)
+ *
+ * Chemin rapide: une commande non journalisée coûte quelques lectures atomiques
+ * et un incrément, sans message formaté ni tableau d'arguments. La mise en forme et l'écriture
+ * des événements émis se font dans l'appender asynchrone (logback-spring.xml).
+ */
+@Component
+public class OrderEventLog {
+
+    public static final String LOGGER_NAME = "com.kafka.groupe6.order_system.orders";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+
+    /**
+     * Cause d'échec d'une commande.
+     */
+    public enum Failure {
+        VALIDATION(false),
+        STOCK_UNAVAILABLE(true),
+        PUBLISH(true),
+        STAGE_TIMEOUT(true),
+        STAGE_SATURATED(true),
+        UNEXPECTED(false);
+
+        private final boolean retriable;
+
+        Failure(boolean retriable) {
+            this.retriable = retriable;
+        }
+
+        public boolean isRetriable() {
+            return retriable;
+        }
+    }
+
+    private final RateLimitedSampler processed;
+    private final RateLimitedSampler duplicates;
+
+    @Autowired
+    public OrderEventLog(@Value("${app.logging.orders.success-per-second:10}") int successPerSecond,
+                         Clock clock) {
+        if (successPerSecond < 0) {
+            throw new IllegalArgumentException("success-per-second doit être >= 0");
+        }
+        this.processed = new RateLimitedSampler(successPerSecond, clock);
+        this.duplicates = new RateLimitedSampler(successPerSecond, clock);
+    }
+
+    /**
+     * Commande traitée et envoyée vers 'orders-processed' (échantillonné).
+     */
+    public void processed(Order order, int partition, long offset, long startNanos) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        long suppressed = processed.tryAcquire();
+        if (suppressed < 0) {
+            return;
+        }
+        log.info("order.processed orderId={} customerId={} partition={} offset={} items={} amount={} durationMs={} suppressed={}",
+            order.getId(), order.getCustomerId(), partition, offset, itemCount(order), order.getTotalAmount(),
+            elapsedMs(startNanos), suppressed);
+    }
+
+    /**
+     * Commande déjà traitée, ignorée (échantillonné).
+     */
+    public void duplicate(Order order) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        long suppressed = duplicates.tryAcquire();
+        if (suppressed < 0) {
+            return;
+        }
+        log.info("order.duplicate orderId={} suppressed={}", order.getId(), suppressed);
+    }
+
+    /**
+     * Échec du traitement d'une commande (toujours journalisé).
+     * La pile d'appels n'est écrite que pour les erreurs inattendues.
+     */
+    public void failed(Order order, int partition, long offset, long startNanos, Failure failure, Throwable error) {
+        String message = "order.failed orderId={} customerId={} partition={} offset={} reason={} durationMs={} error=\"{}\"";
+        Object[] arguments = failure == Failure.UNEXPECTED
+            ? new Object[] {order.getId(), order.getCustomerId(), partition, offset, failure, elapsedMs(startNanos),
+                error.getMessage(), error}
+            : new Object[] {order.getId(), order.getCustomerId(), partition, offset, failure, elapsedMs(startNanos),
+                error.getMessage()};
+        if (failure.isRetriable()) {
+            log.warn(message, arguments);
+        } else {
+            log.error(message, arguments);
+        }
+    }
+
+    /**
+     * Envoi vers 'orders-processed' refusé par le broker (toujours journalisé).
+     */
+    public void publishFailed(Order order, int partition, Throwable error) {
+        log.warn("order.failed orderId={} partition={} reason={} error=\"{}\"",
+            order.getId(), partition, Failure.PUBLISH, error.getMessage());
+    }
+
+    private static int itemCount(Order order) {
+        return order.getItems() == null ? 0 : order.getItems().size();
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Au plus N autorisations par seconde, sans verrou.
+     * Au changement de seconde, le premier thread qui l'observe remet le compteur à zéro.
+     */
+    private static final class RateLimitedSampler {
+        private static final long SECOND_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+        private final int perSecond;
+        private final Clock clock;
+        private final AtomicLong currentSecond;
+        private final AtomicInteger emitted = new AtomicInteger();
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private RateLimitedSampler(int perSecond, Clock clock) {
+            this.perSecond = perSecond;
+            this.clock = clock;
+            this.currentSecond = new AtomicLong(Math.floorDiv(clock.millis(), SECOND_MILLIS));
+        }
+
+        /**
+         * @return le nombre d'événements ignorés depuis le dernier émis, ou -1 si celui-ci est ignoré
+         */
+        private long tryAcquire() {
+            long second = Math.floorDiv(clock.millis(), SECOND_MILLIS);
+            long current = currentSecond.get();
+            if (second != current && currentSecond.compareAndSet(current, second)) {
+                emitted.set(0);
+            }
+            if (emitted.get() >= perSecond || emitted.incrementAndGet() > perSecond) {
+                suppressed.incrementAndGet();
+                return -1;
+            }
+            return suppressed.getAndSet(0);
+        }
+    }
+}
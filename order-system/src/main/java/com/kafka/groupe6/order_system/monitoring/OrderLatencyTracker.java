@@ -0,0 +1,273 @@
+package com.kafka.groupe6.order_system.monitoring;
+
+import com.kafka.groupe6.order_system.model.LatencySloReport;
+import com.kafka.groupe6.order_system.model.LoadGenReport;
+import com.kafka.groupe6.order_system.producer.OrderProducerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.IntCountsHistogram;
+import org.HdrHistogram.Recorder;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latences des commandes depuis leur acceptation HTTP, par partition de 'orders-input'.
+ *
+ * L'instant d'ingestion est posé par OrderProducerService dans le header x-ingest-time,
+ * conservé sur les topics de retry, la DLQ et 'orders-processed'.
+ * - Attente en file (queue-wait): ingestion → lecture du record sur 'orders-input'
+ * - Bout en bout (end-to-end): ingestion → publication confirmée sur 'orders-processed'
+ *   (retries compris)
+ *
+ * Chaque mesure alimente:
+ * - un Timer Micrometer (orders.latency.queue-wait / orders.latency.end-to-end, tag partition)
+ * - un histogramme glissant (HdrHistogram) découpé en tranches de app.latency.slice-seconds,
+ *   d'où GET /api/latency/slo calcule p50/p99/p99.9 sur chaque fenêtre app.latency.windows-seconds
+ *
+ * Horloges murales de l'API et des consumers: un décalage entre machines fausse les
+ * mesures (valeurs négatives ramenées à 0). Un record sans header n'est pas mesuré.
+ */
+@Component
+public class OrderLatencyTracker {
+
+    public static final String QUEUE_WAIT = "orders.latency.queue-wait";
+    public static final String END_TO_END = "orders.latency.end-to-end";
+
+    // Header absent ou illisible
+    public static final long NO_INGEST_TIME = -1L;
+
+    // Histogrammes en millisecondes, jusqu'à 1 heure, 2 chiffres significatifs (~8 Ko par tranche)
+    private static final long HIGHEST_TRACKABLE_MS = TimeUnit.HOURS.toMillis(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final int[] windowsSeconds;
+    private final int sliceSeconds;
+    private final int slices;
+    private final long endToEndP99TargetMs;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final ConcurrentMap<Integer, PartitionLatency> partitions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OrderLatencyTracker(
+            MeterRegistry meterRegistry,
+            @Value("${app.latency.windows-seconds:60,300}") int[] windowsSeconds,
+            @Value("${app.latency.slice-seconds:10}") int sliceSeconds,
+            @Value("${app.latency.slo.end-to-end-p99-ms:2000}") long endToEndP99TargetMs,
+            Clock clock) {
+        if (sliceSeconds <= 0 || windowsSeconds.length == 0) {
+            throw new IllegalArgumentException("slice-seconds doit être > 0 et au moins une fenêtre définie");
+        }
+        int longest = 0;
+        for (int window : windowsSeconds) {
+            if (window < sliceSeconds) {
+                throw new IllegalArgumentException(
+                    "Fenêtre de " + window + " s plus courte qu'une tranche (" + sliceSeconds + " s)");
+            }
+            longest = Math.max(longest, window);
+        }
+        this.windowsSeconds = windowsSeconds.clone();
+        Arrays.sort(this.windowsSeconds);
+        this.sliceSeconds = sliceSeconds;
+        this.slices = (longest + sliceSeconds - 1) / sliceSeconds;
+        this.endToEndP99TargetMs = endToEndP99TargetMs;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Instant d'ingestion porté par le record, NO_INGEST_TIME si absent.
+     */
+    public static long ingestTime(Headers headers) {
+        Header header = headers.lastHeader(OrderProducerService.INGEST_TIME_HEADER);
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return NO_INGEST_TIME;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    /**
+     * Ajoute l'instant d'ingestion aux headers d'un record produit.
+     */
+    public static void addIngestTime(Headers headers, long ingestTime) {
+        headers.add(OrderProducerService.INGEST_TIME_HEADER,
+            ByteBuffer.allocate(Long.BYTES).putLong(ingestTime).array());
+    }
+
+    /**
+     * Record lu sur 'orders-input': temps passé en file depuis l'ingestion.
+     */
+    public void recordQueueWait(int partition, long ingestTime) {
+        if (ingestTime != NO_INGEST_TIME) {
+            partition(partition).queueWait.record(clock.millis() - ingestTime);
+        }
+    }
+
+    /**
+     * Commande publiée et confirmée sur 'orders-processed'.
+     *
+     * @param partition partition de 'orders-input' d'origine
+     */
+    public void recordEndToEnd(int partition, long ingestTime) {
+        if (ingestTime != NO_INGEST_TIME) {
+            partition(partition).endToEnd.record(clock.millis() - ingestTime);
+        }
+    }
+
+    /**
+     * Passe à la tranche suivante: la plus ancienne sort des fenêtres.
+     */
+    @Scheduled(fixedRateString = "${app.latency.slice-seconds:10}", timeUnit = TimeUnit.SECONDS)
+    public void rotate() {
+        partitions.values().forEach(PartitionLatency::rotate);
+    }
+
+    /**
+     * Percentiles par fenêtre glissante, toutes partitions confondues et par partition.
+     */
+    public LatencySloReport report() {
+        LatencySloReport report = new LatencySloReport();
+        report.setEndToEndP99TargetMs(endToEndP99TargetMs);
+        report.setSliceSeconds(sliceSeconds);
+
+        List<LatencySloReport.Window> windows = new ArrayList<>(windowsSeconds.length);
+        for (int windowSeconds : windowsSeconds) {
+            int windowSlices = (windowSeconds + sliceSeconds - 1) / sliceSeconds;
+            Histogram allEndToEnd = newHistogram();
+            Histogram allQueueWait = newHistogram();
+            Map<Integer, LatencySloReport.PartitionLatency> byPartition = new TreeMap<>();
+
+            partitions.forEach((partition, latency) -> {
+                Histogram endToEnd = latency.endToEnd.window(windowSlices);
+                Histogram queueWait = latency.queueWait.window(windowSlices);
+                allEndToEnd.add(endToEnd);
+                allQueueWait.add(queueWait);
+                byPartition.put(partition, new LatencySloReport.PartitionLatency(
+                    percentiles(endToEnd), percentiles(queueWait)));
+            });
+
+            LatencySloReport.Window window = new LatencySloReport.Window();
+            window.setWindowSeconds(windowSeconds);
+            window.setEndToEnd(percentiles(allEndToEnd));
+            window.setQueueWait(percentiles(allQueueWait));
+            window.setWithinSlo(allEndToEnd.getValueAtPercentile(99.0) <= endToEndP99TargetMs);
+            window.setPartitions(byPartition);
+            windows.add(window);
+        }
+        report.setWindows(windows);
+        return report;
+    }
+
+    private PartitionLatency partition(int partition) {
+        PartitionLatency latency = partitions.get(partition);
+        return latency != null ? latency : partitions.computeIfAbsent(partition, PartitionLatency::new);
+    }
+
+    private static LoadGenReport.LatencyPercentiles percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return new LoadGenReport.LatencyPercentiles();
+        }
+        return new LoadGenReport.LatencyPercentiles(
+            histogram.getTotalCount(),
+            histogram.getValueAtPercentile(50.0),
+            histogram.getValueAtPercentile(90.0),
+            histogram.getValueAtPercentile(99.0),
+            histogram.getValueAtPercentile(99.9),
+            histogram.getMaxValue());
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Mesures d'une partition de 'orders-input'.
+     */
+    private final class PartitionLatency {
+        private final SlidingHistogram queueWait;
+        private final SlidingHistogram endToEnd;
+
+        private PartitionLatency(int partition) {
+            this.queueWait = new SlidingHistogram(timer(QUEUE_WAIT, "Ingestion → lecture sur 'orders-input'", partition));
+            this.endToEnd = new SlidingHistogram(timer(END_TO_END, "Ingestion → publication sur 'orders-processed'", partition));
+        }
+
+        private void rotate() {
+            queueWait.rotate();
+            endToEnd.rotate();
+        }
+
+        private Timer timer(String name, String description, int partition) {
+            return Timer.builder(name)
+                .description(description)
+                .tag("partition", String.valueOf(partition))
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Histogramme sur les dernières tranches de temps.
+     * Écritures sans verrou (Recorder); la tranche courante est vidée dans l'anneau
+     * à chaque lecture et à chaque rotation.
+     */
+    private final class SlidingHistogram {
+        private final Timer timer;
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+        private final AbstractHistogram[] ring = new AbstractHistogram[slices];
+        private int head;
+        private Histogram interval;
+
+        private SlidingHistogram(Timer timer) {
+            this.timer = timer;
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = new IntCountsHistogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+            }
+        }
+
+        private void record(long latencyMs) {
+            long value = Math.min(Math.max(latencyMs, 0L), HIGHEST_TRACKABLE_MS);
+            recorder.recordValue(value);
+            timer.record(value, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void rotate() {
+            drain();
+            head = (head + 1) % ring.length;
+            ring[head].reset();
+        }
+
+        /**
+         * Fusion des windowSlices dernières tranches, tranche en cours comprise.
+         */
+        private synchronized Histogram window(int windowSlices) {
+            drain();
+            Histogram merged = newHistogram();
+            for (int i = 0; i < Math.min(windowSlices, ring.length); i++) {
+                merged.add(ring[(head - i + ring.length) % ring.length]);
+            }
+            return merged;
+        }
+
+        private void drain() {
+            interval = recorder.getIntervalHistogram(interval);
+            ring[head].add(interval);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.kafka.groupe6.order_system.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques par étape du pipeline de commandes, exposées sur /actuator/prometheus.
+ *
+ * - orders.stage.duration{stage=deserialize|validate|stock|process}: durée de chaque étape
+ * - orders.publish.ack{result=success|failure}: envoi vers 'orders-processed' → ack du broker
+ * - orders.retry.attempts{source}: nouvelles tentatives (topic de retry, blocking, parallel, async, étape staged)
+ * - orders.dlq.routed{exception}: messages arrivés en DLQ, par classe d'exception
+ * - orders.filtered{rule}: records écartés sur leurs headers (OrderRecordFilter), par règle
+ *
+ * Le retard des consommateurs est couvert par orders.consumer.lag (ConsumerLagMonitor)
+ * et, par partition, par les métriques du client Kafka (kafka.consumer.fetch.manager.records.lag).
+ *
+ * Coût minimal sur le chemin chaud: timers créés une fois, mesures par System.nanoTime()
+ * sans objet intermédiaire. Les histogrammes (p50/p99 côté Prometheus) s'activent
+ * par configuration (management.metrics.distribution.percentiles-histogram).
+ */
+@Component
+public class OrderPipelineMetrics {
+
+    public static final String STAGE_DURATION = "orders.stage.duration";
+    public static final String PUBLISH_ACK = "orders.publish.ack";
+    public static final String RETRY_ATTEMPTS = "orders.retry.attempts";
+    public static final String DLQ_ROUTED = "orders.dlq.routed";
+    public static final String FILTERED = "orders.filtered";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer deserializeTimer;
+    private final Timer validateTimer;
+    private final Timer stockTimer;
+    private final Timer processTimer;
+    private final Timer publishAckSuccessTimer;
+    private final Timer publishAckFailureTimer;
+    // Peu de valeurs possibles (topics de retry, classes d'exception, règles): un compteur par valeur
+    private final ConcurrentMap<String, Counter> retryCounters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> dlqCounters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> filteredCounters = new ConcurrentHashMap<>();
+
+    public OrderPipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.deserializeTimer = stageTimer("deserialize");
+        this.validateTimer = stageTimer("validate");
+        this.stockTimer = stageTimer("stock");
+        this.processTimer = stageTimer("process");
+        this.publishAckSuccessTimer = publishAckTimer("success");
+        this.publishAckFailureTimer = publishAckTimer("failure");
+    }
+
+    public Timer getDeserializeTimer() {
+        return deserializeTimer;
+    }
+
+    public void recordValidate(long startNanos) {
+        record(validateTimer, startNanos);
+    }
+
+    public void recordStock(long startNanos) {
+        record(stockTimer, startNanos);
+    }
+
+    public void recordProcess(long startNanos) {
+        record(processTimer, startNanos);
+    }
+
+    /**
+     * Temps entre l'envoi vers 'orders-processed' et la réponse du broker.
+     */
+    public void recordPublishAck(long startNanos, boolean success) {
+        record(success ? publishAckSuccessTimer : publishAckFailureTimer, startNanos);
+    }
+
+    /**
+     * Nouvelle tentative de traitement d'une commande.
+     *
+     * @param source topic de retry, "blocking" (error handler), "parallel", "async"
+     *               ou étape du mode staged ("validate-stage", "reserve-stage", "process-stage")
+     */
+    public void countRetry(String source) {
+        retryCounters.computeIfAbsent(source, s -> Counter.builder(RETRY_ATTEMPTS)
+            .description("Nouvelles tentatives de traitement des commandes")
+            .tag("source", s)
+            .register(meterRegistry)).increment();
+    }
+
+    /**
+     * Message reçu en DLQ.
+     *
+     * @param exceptionClass nom complet de la classe (header kafka_dlt-exception-fqcn), null si absent
+     */
+    public void countDlq(String exceptionClass) {
+        String exception = simpleName(exceptionClass);
+        dlqCounters.computeIfAbsent(exception, e -> Counter.builder(DLQ_ROUTED)
+            .description("Messages routés en DLQ, par classe d'exception")
+            .tag("exception", e)
+            .register(meterRegistry)).increment();
+    }
+
+    /**
+     * Record écarté avant traitement.
+     *
+     * @param rule règle de OrderRecordFilter (terminal-status, replay, test, tenant)
+     */
+    public void countFiltered(String rule) {
+        filteredCounters.computeIfAbsent(rule, r -> Counter.builder(FILTERED)
+            .description("Records écartés sur leurs headers de routage, par règle")
+            .tag("rule", r)
+            .register(meterRegistry)).increment();
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder(STAGE_DURATION)
+            .description("Durée d'une étape du traitement des commandes")
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+
+    private Timer publishAckTimer(String result) {
+        return Timer.builder(PUBLISH_ACK)
+            .description("Latence d'ack de la publication vers 'orders-processed'")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String simpleName(String exceptionClass) {
+        if (exceptionClass == null || exceptionClass.isBlank()) {
+            return "unknown";
+        }
+        return exceptionClass.substring(exceptionClass.lastIndexOf('.') + 1);
+    }
+}
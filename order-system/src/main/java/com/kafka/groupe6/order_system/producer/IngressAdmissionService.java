@@ -0,0 +1,93 @@
+package com.kafka.groupe6.order_system.producer;
+
+import com.kafka.groupe6.order_system.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contrôle d'admission de l'API REST.
+ *
+ * Borne le nombre de commandes envoyées à Kafka et pas encore confirmées
+ * (app.ingress.max-in-flight, par instance). Au-delà, la requête est refusée
+ * immédiatement (429 + Retry-After) au lieu de bloquer un thread HTTP dans
+ * send() jusqu'à max.block.ms quand le broker ralentit: la latence reste bornée.
+ *
+ * Métriques (actuator /metrics):
+ * - orders.ingress.in-flight : commandes en cours d'envoi
+ * - orders.ingress.max-in-flight : limite configurée
+ * - orders.ingress.rejected : commandes refusées
+ */
+@Service
+public class IngressAdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngressAdmissionService.class);
+
+    private final int maxInFlight;
+    private final long retryAfterSeconds;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public IngressAdmissionService(
+            MeterRegistry meterRegistry,
+            @Value("${app.ingress.max-in-flight:20000}") int maxInFlight,
+            @Value("${app.ingress.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.maxInFlight = maxInFlight;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("orders.ingress.in-flight", inFlight, AtomicInteger::get)
+            .description("Commandes envoyées à Kafka et pas encore confirmées")
+            .register(meterRegistry);
+        Gauge.builder("orders.ingress.max-in-flight", () -> this.maxInFlight)
+            .description("Nombre maximum de commandes en cours d'envoi")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("orders.ingress.rejected")
+            .description("Commandes refusées (429) faute de place")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Réserve des places pour des commandes, tout ou rien.
+     *
+     * @throws AdmissionRejectedException si la limite serait dépassée
+     */
+    public void acquire(int orders) {
+        while (true) {
+            int current = inFlight.get();
+            if (current + orders > maxInFlight) {
+                rejected.increment(orders);
+                logger.warn("⚠ {} commande(s) refusée(s): {} en cours (limite {})", orders, current, maxInFlight);
+                throw new AdmissionRejectedException(
+                    "Too many orders in flight: " + current + "/" + maxInFlight, retryAfterSeconds);
+            }
+            if (inFlight.compareAndSet(current, current + orders)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Libère des places une fois les envois terminés (succès ou échec).
+     */
+    public void release(int orders) {
+        inFlight.addAndGet(-orders);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getRejected() {
+        return (long) rejected.count();
+    }
+}
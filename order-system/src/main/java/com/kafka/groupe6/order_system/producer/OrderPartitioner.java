@@ -0,0 +1,62 @@
+package com.kafka.groupe6.order_system.producer;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Partitioner des producers de commandes.
+ *
+ * - Record avec clé : hash murmur2 de la clé, identique au partitioner par
+ *   défaut de Kafka (même clé → même partition, ordre conservé par client).
+ * - Record sans clé (stratégie sticky, ou champ de clé absent) : envoyé sur
+ *   une même partition disponible pendant 'order.partitioner.sticky.records'
+ *   records, puis sur la suivante. Les lots restent gros et la charge est
+ *   répartie sur toutes les partitions, au lieu de tout concentrer sur
+ *   la partition d'une clé fictive.
+ */
+public class OrderPartitioner implements Partitioner {
+
+    public static final String STICKY_RECORDS_CONFIG = "order.partitioner.sticky.records";
+
+    private static final int DEFAULT_STICKY_RECORDS = 100;
+
+    private final ConcurrentMap<String, AtomicLong> keylessCounters = new ConcurrentHashMap<>();
+    private int stickyRecords = DEFAULT_STICKY_RECORDS;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object value = configs.get(STICKY_RECORDS_CONFIG);
+        if (value != null) {
+            stickyRecords = Math.max(1, Integer.parseInt(value.toString()));
+        }
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes,
+                         Object value, byte[] valueBytes, Cluster cluster) {
+        int numPartitions = cluster.partitionsForTopic(topic).size();
+        if (keyBytes != null) {
+            return Utils.toPositive(Utils.murmur2(keyBytes)) % numPartitions;
+        }
+
+        long slot = keylessCounters.computeIfAbsent(topic, t -> new AtomicLong()).getAndIncrement() / stickyRecords;
+        List<PartitionInfo> available = cluster.availablePartitionsForTopic(topic);
+        if (!available.isEmpty()) {
+            return available.get((int) (slot % available.size())).partition();
+        }
+        return (int) (slot % numPartitions);
+    }
+
+    @Override
+    public void close() {
+        keylessCounters.clear();
+    }
+}
@@ -1,35 +1,161 @@
 package com.kafka.groupe6.order_system.producer;
 
 import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import com.kafka.groupe6.order_system.tracing.OrderSpans;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class OrderProducerService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderProducerService.class);
     private static final String TOPIC = "orders-input";
 
+    // Stratégies de partitionnement (app.partitioning.strategy)
+    public static final String STRATEGY_CUSTOMER_ID = "customer-id";
+    public static final String STRATEGY_ORDER_ID = "order-id";
+    public static final String STRATEGY_STICKY = "sticky";
+
+    // Instant d'acceptation de la commande (epoch ms, 8 octets), conservé jusqu'à 'orders-processed'
+    public static final String INGEST_TIME_HEADER = "x-ingest-time";
+
+    // Headers de routage (UTF-8), lus par OrderRecordFilter sans décoder la commande
+    public static final String STATUS_HEADER = "x-order-status";
+    public static final String PRIORITY_HEADER = "x-order-priority";
+    public static final String TENANT_HEADER = "x-order-tenant";
+    public static final String TYPE_HEADER = "x-order-type";
+
+    // Valeurs par défaut des headers de routage (minuscules)
+    public static final String PRIORITY_NORMAL = "normal";
+    public static final String TYPE_STANDARD = "standard";
+    public static final String TYPE_REPLAY = "replay";
+    public static final String TYPE_TEST = "test";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
+    // customer-id : commandes d'un client ordonnées sur une même partition
+    // order-id : répartition par commande, sans ordre entre commandes d'un client
+    // sticky : pas de clé, répartition par lots (OrderPartitioner)
+    @Value("${app.partitioning.strategy:customer-id}")
+    private String partitioningStrategy = STRATEGY_CUSTOMER_ID;
+
     // Constructeur pour l'injection
     public OrderProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
 
     public void sendOrder(Order order) {
-        String key = (order.getId() != null) ? order.getId() : "no-id";
-        
-        // Méthode moderne avec CompletableFuture
-        kafkaTemplate.send(TOPIC, key, order)
-                .whenComplete((result, ex) -> {
-                    if (ex == null) {
-                        logger.info("Order sent successfully: {}", order);
-                    } else {
-                        logger.error("Failed to send order {}", order, ex);
-                    }
-                });
-    }
-}
\ No newline at end of file
+        sendOrderAsync(order);
+    }
+
+    /**
+     * Envoie une commande sans attendre l'accusé de réception du broker.
+     * Le futur retourné permet de pipeliner plusieurs envois (endpoint batch)
+     * et de récupérer la partition et l'offset une fois l'envoi confirmé.
+     * Le record porte l'instant d'acceptation (header x-ingest-time): le timestamp
+     * de la commande est réécrit à la fin de son traitement.
+     */
+    public CompletableFuture<SendResult<String, Object>> sendOrderAsync(Order order) {
+        return sendOrderAsync(order, Routing.DEFAULT);
+    }
+
+    /**
+     * Envoi avec les informations de routage de la requête (priorité, tenant, type).
+     * Le statut, la priorité, le tenant et le type sont recopiés en headers: le consumer
+     * écarte les commandes terminées, rejouées ou de test sans désérialiser leur valeur.
+     */
+    public CompletableFuture<SendResult<String, Object>> sendOrderAsync(Order order, Routing routing) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(TOPIC, partitionKey(order), order);
+        OrderLatencyTracker.addIngestTime(record.headers(), System.currentTimeMillis());
+        addRoutingHeaders(record, order, routing);
+        OrderSpans.tagOrder(order.getId());
+
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            // Méthode moderne avec CompletableFuture
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            // Erreur synchrone (sérialisation, buffer plein après max.block.ms...)
+            logger.error("Failed to send order {}", order, e);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return future.whenComplete((result, ex) -> {
+            if (ex == null) {
+                // Chemin chaud (lots, générateur de charge): ni INFO ni formatage de la commande
+                logger.debug("Order {} sent successfully", order.getId());
+            } else {
+                logger.error("Failed to send order {}", order, ex);
+            }
+        });
+    }
+
+    private static void addRoutingHeaders(ProducerRecord<String, Object> record, Order order, Routing routing) {
+        if (order.getStatus() != null) {
+            addHeader(record, STATUS_HEADER, order.getStatus().toUpperCase(Locale.ROOT));
+        }
+        addHeader(record, PRIORITY_HEADER, routing.getPriority());
+        if (routing.getTenant() != null) {
+            addHeader(record, TENANT_HEADER, routing.getTenant());
+        }
+        addHeader(record, TYPE_HEADER, routing.getType());
+    }
+
+    private static void addHeader(ProducerRecord<String, Object> record, String name, String value) {
+        record.headers().add(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Clé Kafka de la commande selon la stratégie configurée.
+     * Null si le champ de clé est absent: le record est réparti par
+     * OrderPartitioner au lieu d'être concentré sur une clé fictive.
+     */
+    private String partitionKey(Order order) {
+        switch (partitioningStrategy) {
+            case STRATEGY_ORDER_ID:
+                return order.getId();
+            case STRATEGY_STICKY:
+                return null;
+            default:
+                return order.getCustomerId();
+        }
+    }
+
+    /**
+     * Routage d'une commande fourni par l'appelant (headers X-Order-Priority,
+     * X-Tenant-Id et X-Order-Type de l'API). Priorité et type en minuscules,
+     * valeurs absentes remplacées par "normal" et "standard".
+     */
+    public static final class Routing {
+
+        public static final Routing DEFAULT = new Routing(null, null, null);
+
+        private final String priority;
+        private final String tenant;
+        private final String type;
+
+        public Routing(String priority, String tenant, String type) {
+            this.priority = isBlank(priority) ? PRIORITY_NORMAL : priority.trim().toLowerCase(Locale.ROOT);
+            this.tenant = isBlank(tenant) ? null : tenant.trim();
+            this.type = isBlank(type) ? TYPE_STANDARD : type.trim().toLowerCase(Locale.ROOT);
+        }
+
+        public String getPriority() { return priority; }
+        public String getTenant() { return tenant; }
+        public String getType() { return type; }
+
+        private static boolean isBlank(String value) {
+            return value == null || value.isBlank();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.kafka.groupe6.order_system.serialization;
+
+import com.kafka.groupe6.order_system.model.Order;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodage binaire compact d'une commande.
+ *
+ * Format (version 1):
+ * <pre>
+ * magic (1 octet, 0xC6) | version (1 octet)
+ * id          : chaîne
+ * customerId  : chaîne
+ * items       : varint (nombre + 1, 0 = null) puis une chaîne par article
+ * totalAmount : double, 8 octets
+ * status      : chaîne
+ * timestamp   : long, 8 octets
+ * </pre>
+ * Une chaîne est un varint (longueur UTF-8 + 1, 0 = null) suivi des octets UTF-8.
+ *
+ * Pas de noms de champs ni de réflexion: l'ordre des champs est le schéma,
+ * et l'octet de version permet de le faire évoluer sans casser les anciens messages.
+ * L'octet magic n'est jamais le début d'un JSON, ce qui permet de distinguer
+ * les deux formats même sans header.
+ */
+public final class OrderBinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xC6;
+    public static final byte VERSION_1 = 1;
+
+    // magic + version + 2 champs de taille fixe
+    private static final int FIXED_SIZE = 2 + Double.BYTES + Long.BYTES;
+
+    private OrderBinaryCodec() {
+    }
+
+    public static byte[] encode(Order order) {
+        byte[] id = utf8(order.getId());
+        byte[] customerId = utf8(order.getCustomerId());
+        byte[] status = utf8(order.getStatus());
+        List<String> items = order.getItems();
+
+        int size = FIXED_SIZE + stringSize(id) + stringSize(customerId) + stringSize(status);
+        byte[][] encodedItems = null;
+        if (items == null) {
+            size += 1;
+        } else {
+            encodedItems = new byte[items.size()][];
+            size += varintSize(items.size() + 1);
+            for (int i = 0; i < encodedItems.length; i++) {
+                encodedItems[i] = utf8(items.get(i));
+                size += stringSize(encodedItems[i]);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC).put(VERSION_1);
+        putString(buffer, id);
+        putString(buffer, customerId);
+        if (encodedItems == null) {
+            putVarint(buffer, 0);
+        } else {
+            putVarint(buffer, encodedItems.length + 1);
+            for (byte[] item : encodedItems) {
+                putString(buffer, item);
+            }
+        }
+        buffer.putDouble(order.getTotalAmount());
+        putString(buffer, status);
+        buffer.putLong(order.getTimestamp());
+        return buffer.array();
+    }
+
+    public static Order decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            if (buffer.get() != MAGIC) {
+                throw new SerializationException("Commande binaire invalide: octet magic absent");
+            }
+            byte version = buffer.get();
+            if (version != VERSION_1) {
+                throw new SerializationException("Version de format de commande non supportée: " + version);
+            }
+
+            Order order = new Order();
+            order.setId(getString(buffer));
+            order.setCustomerId(getString(buffer));
+            int itemCount = getVarint(buffer) - 1;
+            if (itemCount > buffer.remaining()) {
+                // Au moins un octet par article: nombre forgé, pas d'allocation à sa taille
+                throw new SerializationException("Nombre d'articles invalide: " + itemCount);
+            }
+            if (itemCount >= 0) {
+                List<String> items = new ArrayList<>(itemCount);
+                for (int i = 0; i < itemCount; i++) {
+                    items.add(getString(buffer));
+                }
+                order.setItems(items);
+            }
+            order.setTotalAmount(buffer.getDouble());
+            order.setStatus(getString(buffer));
+            order.setTimestamp(buffer.getLong());
+            return order;
+        } catch (BufferUnderflowException e) {
+            throw new SerializationException("Commande binaire tronquée (" + data.length + " octets)", e);
+        }
+    }
+
+    /**
+     * Vrai si les octets commencent par l'en-tête du format binaire.
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 1 && data[0] == MAGIC;
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int stringSize(byte[] value) {
+        return value == null ? 1 : varintSize(value.length + 1) + value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            putVarint(buffer, 0);
+            return;
+        }
+        putVarint(buffer, value.length + 1);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarint(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new SerializationException("Longueur de chaîne invalide: " + length);
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // Varint non signé, 7 bits par octet (bit de poids fort = octet suivant)
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Varint écrit par putVarint (taille + 1, jamais négatif).
+     *
+     * @throws SerializationException si la valeur dépasse Integer.MAX_VALUE (négative une fois lue)
+     */
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new SerializationException("Varint négatif: " + value);
+                }
+                return value;
+            }
+        }
+        throw new SerializationException("Varint invalide");
+    }
+}
@@ -0,0 +1,125 @@
+package com.kafka.groupe6.order_system.serialization;
+
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.model.Order;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Deserializer des commandes, binaire ou JSON.
+ *
+ * Le format est lu dans le header 'content-type' posé par OrderSerializer.
+ * Sans header (anciens messages, producers externes), l'octet magic du format
+ * binaire départage; à défaut le message est lu en JSON.
+ *
+ * Avec un Timer (étape 'deserialize' de OrderPipelineMetrics), chaque appel est mesuré.
+ * Avec la pré-validation, les octets passent d'abord par OrderPreValidator: une commande
+ * invalide n'est pas construite, la valeur est null et le record marqué comme rejeté;
+ * une commande JSON valide est construite par ce même passage (pré-validation comprise
+ * dans la mesure). Sans headers, le rejet lève OrderValidationException.
+ *
+ * Avec un filtre sur les headers (OrderRecordFilter en mode record), un record écarté
+ * n'est pas décodé du tout: valeur null, non mesurée; le container l'écarte ensuite.
+ */
+public class OrderDeserializer implements Deserializer<Order> {
+
+    private final JsonDeserializer<Order> jsonDeserializer = new JsonDeserializer<>(Order.class);
+    // Null si instancié par le client Kafka (configuration par nom de classe)
+    private final Timer deserializeTimer;
+    private final boolean preValidate;
+    // Null sans filtrage
+    private final Predicate<Headers> skip;
+
+    public OrderDeserializer() {
+        this(null, false);
+    }
+
+    public OrderDeserializer(Timer deserializeTimer, boolean preValidate) {
+        this(deserializeTimer, preValidate, null);
+    }
+
+    public OrderDeserializer(Timer deserializeTimer, boolean preValidate, Predicate<Headers> skip) {
+        this.deserializeTimer = deserializeTimer;
+        this.preValidate = preValidate;
+        this.skip = skip;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Order deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        boolean binary = OrderBinaryCodec.isBinary(data);
+        OrderPreValidator.Rejection rejection = preValidate ? OrderPreValidator.check(data, binary) : null;
+        if (rejection != null) {
+            throw new OrderValidationException(rejection.getOrderId(), rejection.getError());
+        }
+        return binary ? OrderBinaryCodec.decode(data) : jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public Order deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null || (skip != null && skip.test(headers))) {
+            return null;
+        }
+        if (deserializeTimer == null) {
+            return decode(topic, headers, data);
+        }
+        long start = System.nanoTime();
+        try {
+            return decode(topic, headers, data);
+        } finally {
+            deserializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Order decode(String topic, Headers headers, byte[] data) {
+        boolean binary = isBinary(headers, data);
+        OrderPreValidator.Fields fields = preValidate ? OrderPreValidator.scan(data, binary) : null;
+        if (fields != null) {
+            OrderPreValidator.Rejection rejection = fields.rejection();
+            if (rejection != null) {
+                OrderPreValidator.markRejected(headers, data, rejection);
+                return null;
+            }
+            // JSON: commande valide construite depuis le même passage
+            Order order = fields.toOrder();
+            if (order != null) {
+                return order;
+            }
+        }
+        return binary ? OrderBinaryCodec.decode(data) : jsonDeserializer.deserialize(topic, headers, data);
+    }
+
+    private static boolean isBinary(Headers headers, byte[] data) {
+        Header contentType = headers.lastHeader(OrderSerializer.CONTENT_TYPE_HEADER);
+        if (contentType != null) {
+            String value = new String(contentType.value(), StandardCharsets.UTF_8);
+            if (OrderSerializer.CONTENT_TYPE_BINARY.equals(value)) {
+                return true;
+            }
+            if (OrderSerializer.CONTENT_TYPE_JSON.equals(value)) {
+                return false;
+            }
+        }
+        return OrderBinaryCodec.isBinary(data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,400 @@
+package com.kafka.groupe6.order_system.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.model.Order;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Règles de validation d'une commande, appliquées aux octets du record avant de la construire.
+ *
+ * Seuls id, customerId, les articles (au moins un, aucun null) et totalAmount décident de la validité:
+ * - JSON: lecture en flux des tokens (JsonParser), champs inconnus sautés. Les articles
+ *   ne sont lus que tant qu'aucune règle n'est violée; une commande valide est construite
+ *   depuis ce même passage (bind), sans second parsing par Jackson
+ * - binaire: parcours des longueurs, seul le montant est lu (OrderBinaryCodec décode ensuite
+ *   les commandes valides)
+ * Une commande invalide est rejetée sans objet Order.
+ *
+ * Rejet marqué par des headers sur le record (valeur null), sans exception ni copie:
+ * x-order-rejected porte les octets d'origine, que le recoverer publie tels quels en DLQ;
+ * le consumer en fait une OrderValidationException (rejectionOf).
+ *
+ * Un contenu que ce parcours ne sait pas trancher (JSON malformé, type inattendu) est
+ * laissé au décodage complet, qui reste seul juge du format.
+ */
+public final class OrderPreValidator {
+
+    public static final double MIN_ORDER_AMOUNT = 0.01;
+    public static final double MAX_ORDER_AMOUNT = 10000.00;
+
+    // Headers d'un record rejeté
+    public static final String REJECTED_HEADER = "x-order-rejected";
+    public static final String REJECTED_REASON_HEADER = "x-order-rejected-reason";
+    public static final String REJECTED_ID_HEADER = "x-order-rejected-id";
+
+    // Messages formatés une fois (String.format coûte plus que la vérification)
+    private static final String MIN_AMOUNT_ERROR = String.format("Le montant minimum est de %.2f€", MIN_ORDER_AMOUNT);
+    private static final String MAX_AMOUNT_ERROR = String.format("Le montant maximum est de %.2f€", MAX_ORDER_AMOUNT);
+    private static final String NULL_ITEM_ERROR = "Les articles de la commande ne peuvent pas être null";
+
+    // Thread-safe, partagé par tous les parsers
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private OrderPreValidator() {
+    }
+
+    /**
+     * Règle violée par une commande construite, null si elle est valide (OrderConsumerService).
+     */
+    public static String violation(Order order) {
+        List<String> items = order.getItems();
+        return violation(hasText(order.getId()), hasText(order.getCustomerId()),
+            items != null && !items.isEmpty(), hasNullItem(items), order.getTotalAmount());
+    }
+
+    // Pas de contains(null): refusé par les listes immuables (List.of)
+    private static boolean hasNullItem(List<String> items) {
+        if (items != null) {
+            for (String item : items) {
+                if (item == null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Règle violée par ces champs, null si la commande est valide.
+     * Ordre de vérification: id, client, articles, montant.
+     */
+    public static String violation(boolean hasId, boolean hasCustomerId, boolean hasItems, boolean hasNullItem,
+                                   double totalAmount) {
+        if (!hasId) {
+            return "L'ID de la commande est obligatoire";
+        }
+        if (!hasCustomerId) {
+            return "L'ID du client est obligatoire";
+        }
+        if (!hasItems) {
+            return "La commande doit contenir au moins un article";
+        }
+        // Un SKU null ne sera jamais en stock: rejet définitif plutôt que retries
+        if (hasNullItem) {
+            return NULL_ITEM_ERROR;
+        }
+        if (totalAmount < MIN_ORDER_AMOUNT) {
+            return MIN_AMOUNT_ERROR;
+        }
+        if (totalAmount > MAX_ORDER_AMOUNT) {
+            return MAX_AMOUNT_ERROR;
+        }
+        return null;
+    }
+
+    /**
+     * Vrai si la chaîne contient autre chose que des blancs (même règle que String.trim()).
+     */
+    public static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    /**
+     * Vérifie une commande encodée, sans la construire.
+     *
+     * @param binary format binaire (OrderBinaryCodec), sinon JSON
+     * @return le rejet, null si la commande est valide ou si le contenu n'est pas tranché
+     */
+    public static Rejection check(byte[] data, boolean binary) {
+        Fields fields = scan(data, binary);
+        return fields != null ? fields.rejection() : null;
+    }
+
+    /**
+     * Parcours des octets, null si le contenu n'est pas tranché (décodage complet).
+     */
+    static Fields scan(byte[] data, boolean binary) {
+        return binary ? scanBinary(data) : scanJson(data);
+    }
+
+    /**
+     * Marque un record rejeté: octets d'origine (sans copie), motif et id de la commande.
+     */
+    public static void markRejected(Headers headers, byte[] data, Rejection rejection) {
+        headers.add(REJECTED_HEADER, data);
+        headers.add(REJECTED_REASON_HEADER, rejection.getError().getBytes(StandardCharsets.UTF_8));
+        if (rejection.getOrderId() != null) {
+            headers.add(REJECTED_ID_HEADER, rejection.getOrderId().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Octets d'origine d'un record rejeté, null s'il ne l'a pas été.
+     */
+    public static byte[] rejectedPayload(Headers headers) {
+        Header header = headers.lastHeader(REJECTED_HEADER);
+        return header != null ? header.value() : null;
+    }
+
+    /**
+     * Erreur de validation d'un record rejeté, null s'il ne l'a pas été.
+     */
+    public static OrderValidationException rejectionOf(Headers headers) {
+        Header reason = headers.lastHeader(REJECTED_REASON_HEADER);
+        if (reason == null) {
+            return null;
+        }
+        Header id = headers.lastHeader(REJECTED_ID_HEADER);
+        return new OrderValidationException(
+            id != null ? new String(id.value(), StandardCharsets.UTF_8) : null,
+            new String(reason.value(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Champs d'une commande JSON, null si le contenu n'est pas tranché.
+     * Un type que Jackson convertirait (nombre en chaîne, etc.) rend la commande non liable:
+     * elle reste validée ici mais c'est Jackson qui la construit.
+     */
+    private static Fields scanJson(byte[] data) {
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            Fields fields = new Fields();
+            fields.bindable = true;
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "id" -> {
+                        if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+                            return null;
+                        }
+                        fields.id = parser.getValueAsString();
+                    }
+                    case "customerId" -> {
+                        if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+                            return null;
+                        }
+                        fields.customerId = parser.getValueAsString();
+                    }
+                    case "items" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            if (!readItems(parser, fields)) {
+                                return null;
+                            }
+                        } else if (value == JsonToken.VALUE_NULL) {
+                            fields.hasItems = false;
+                            fields.hasNullItem = false;
+                            fields.items = null;
+                            fields.itemsRead = true;
+                        } else {
+                            return null;
+                        }
+                    }
+                    case "totalAmount" -> {
+                        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+                            fields.totalAmount = parser.getDoubleValue();
+                        } else if (value == JsonToken.VALUE_NULL) {
+                            fields.totalAmount = 0.0;
+                        } else {
+                            return null;
+                        }
+                    }
+                    case "status" -> {
+                        if (value == JsonToken.VALUE_STRING || value == JsonToken.VALUE_NULL) {
+                            fields.status = parser.getValueAsString();
+                        } else {
+                            fields.bindable = false;
+                            parser.skipChildren();
+                        }
+                    }
+                    case "timestamp" -> {
+                        if (value == JsonToken.VALUE_NUMBER_INT) {
+                            fields.timestamp = parser.getLongValue();
+                        } else if (value == JsonToken.VALUE_NULL) {
+                            fields.timestamp = 0L;
+                        } else {
+                            fields.bindable = false;
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            return token == JsonToken.END_OBJECT ? fields : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Articles d'une commande JSON, parser sur START_ARRAY. Chaînes lues seulement si
+     * aucune règle n'est déjà violée (id et client vus jusque-là), sinon sautées.
+     *
+     * @return false si le tableau est tronqué
+     */
+    private static boolean readItems(JsonParser parser, Fields fields) throws IOException {
+        boolean keep = fields.bindable && fields.noViolationYet();
+        List<String> items = keep ? new ArrayList<>() : null;
+        fields.hasItems = false;
+        JsonToken item;
+        while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (item == null) {
+                return false;
+            }
+            fields.hasItems = true;
+            if (item == JsonToken.VALUE_NULL) {
+                fields.hasNullItem = true;
+            }
+            if (keep && (item == JsonToken.VALUE_STRING || item == JsonToken.VALUE_NULL)) {
+                items.add(parser.getValueAsString());
+            } else {
+                keep = false;
+                parser.skipChildren();
+            }
+        }
+        fields.items = keep ? items : null;
+        fields.itemsRead = keep;
+        return true;
+    }
+
+    /**
+     * Champs utiles d'une commande binaire, null si le contenu n'est pas tranché.
+     */
+    private static Fields scanBinary(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            if (buffer.get() != OrderBinaryCodec.MAGIC || buffer.get() != OrderBinaryCodec.VERSION_1) {
+                return null;
+            }
+            Fields fields = new Fields();
+            fields.binary = data;
+            fields.idLength = OrderBinaryCodec.getVarint(buffer) - 1;
+            fields.idOffset = buffer.position();
+            skip(buffer, fields.idLength);
+            int customerIdLength = OrderBinaryCodec.getVarint(buffer) - 1;
+            int customerIdOffset = buffer.position();
+            skip(buffer, customerIdLength);
+            fields.binaryHasCustomerId = customerIdLength >= 0 && hasText(data, customerIdOffset, customerIdLength);
+            int itemCount = OrderBinaryCodec.getVarint(buffer) - 1;
+            if (itemCount > buffer.remaining()) {
+                return null;
+            }
+            fields.hasItems = itemCount > 0;
+            for (int i = 0; i < itemCount; i++) {
+                int itemLength = OrderBinaryCodec.getVarint(buffer) - 1;
+                fields.hasNullItem |= itemLength < 0;
+                skip(buffer, itemLength);
+            }
+            fields.totalAmount = buffer.getDouble();
+            return fields;
+        } catch (BufferUnderflowException | IllegalArgumentException | SerializationException e) {
+            return null;
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    // UTF-8: les caractères <= ' ' retirés par trim() sont des octets isolés <= 0x20
+    private static boolean hasText(byte[] utf8, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if ((utf8[i] & 0xFF) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Commande rejetée: id (null si absent) et règle violée.
+     */
+    public static final class Rejection {
+        private final String orderId;
+        private final String error;
+
+        public Rejection(String orderId, String error) {
+            this.orderId = orderId;
+            this.error = error;
+        }
+
+        public String getOrderId() { return orderId; }
+
+        public String getError() { return error; }
+    }
+
+    /**
+     * Champs lus par le parcours. Valeurs par défaut = champ absent, comme à la désérialisation.
+     */
+    static final class Fields {
+        // JSON: champs lus; la commande n'est construite que si elle est valide
+        private String id;
+        private String customerId;
+        private List<String> items;
+        private String status;
+        private long timestamp;
+        private boolean bindable;
+        private boolean itemsRead = true;
+        // Binaire: l'id n'est décodé qu'en cas de rejet
+        private byte[] binary;
+        private int idOffset;
+        private int idLength = -1;
+        private boolean binaryHasCustomerId;
+        private boolean hasItems;
+        private boolean hasNullItem;
+        private double totalAmount;
+
+        private boolean hasId() {
+            return binary != null ? idLength >= 0 && hasText(binary, idOffset, idLength) : hasText(id);
+        }
+
+        private boolean hasCustomerId() {
+            return binary != null ? binaryHasCustomerId : hasText(customerId);
+        }
+
+        private String id() {
+            if (binary == null) {
+                return id;
+            }
+            return idLength >= 0 ? new String(binary, idOffset, idLength, StandardCharsets.UTF_8) : null;
+        }
+
+        // Champs JSON vus jusque-là: absents ou valides
+        private boolean noViolationYet() {
+            return (id == null || hasText(id)) && (customerId == null || hasText(customerId));
+        }
+
+        Rejection rejection() {
+            String error = violation(hasId(), hasCustomerId(), hasItems, hasNullItem, totalAmount);
+            return error != null ? new Rejection(id(), error) : null;
+        }
+
+        /**
+         * Commande JSON construite depuis le parcours, null si Jackson doit s'en charger
+         * (binaire, type à convertir, articles non lus).
+         */
+        Order toOrder() {
+            if (binary != null || !bindable || !itemsRead) {
+                return null;
+            }
+            return new Order(id, customerId, items, totalAmount, status, timestamp);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.kafka.groupe6.order_system.serialization;
+
+import com.kafka.groupe6.order_system.model.Order;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Serializer des valeurs du producer.
+ *
+ * - Order vers un topic binaire (app.serialization.binary-topics): OrderBinaryCodec
+ * - tout le reste: JSON (JsonSerializer)
+ * - byte[]: envoyé tel quel
+ *
+ * Le format est indiqué dans le header 'content-type' pour que
+ * OrderDeserializer décode un topic qui mélange les deux formats (migration).
+ */
+public class OrderSerializer implements Serializer<Object> {
+
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+    public static final String CONTENT_TYPE_BINARY = "application/x-order-v1";
+    public static final String CONTENT_TYPE_JSON = "application/json";
+
+    private static final byte[] BINARY = CONTENT_TYPE_BINARY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON = CONTENT_TYPE_JSON.getBytes(StandardCharsets.UTF_8);
+
+    private final Set<String> binaryTopics;
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+
+    public OrderSerializer(Collection<String> binaryTopics) {
+        this.binaryTopics = Set.copyOf(binaryTopics);
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data instanceof Order && binaryTopics.contains(topic)) {
+            return OrderBinaryCodec.encode((Order) data);
+        }
+        return data instanceof byte[] ? (byte[]) data : jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null || data instanceof byte[]) {
+            return (byte[]) data;
+        }
+        // Remplace un éventuel header recopié du record d'origine (DLQ, retry)
+        headers.remove(CONTENT_TYPE_HEADER);
+        if (data instanceof Order && binaryTopics.contains(topic)) {
+            headers.add(CONTENT_TYPE_HEADER, BINARY);
+            return OrderBinaryCodec.encode((Order) data);
+        }
+        headers.add(CONTENT_TYPE_HEADER, JSON);
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
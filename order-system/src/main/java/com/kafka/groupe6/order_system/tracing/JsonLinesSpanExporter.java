@@ -0,0 +1,139 @@
+package com.kafka.groupe6.order_system.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export des spans retenus dans un fichier local, un objet JSON par ligne.
+ *
+ * {"traceId":..., "spanId":..., "parentSpanId":..., "name":..., "kind":...,
+ *  "startEpochMicros":..., "durationMicros":..., "status":..., "sampled":...,
+ *  "attributes":{...}, "events":[{"name":..., "attributes":{...}}]}
+ *
+ * Écriture bufferisée, vidée sur disque au plus toutes les secondes (et à
+ * l'arrêt): une trace retenue met jusqu'à une seconde à apparaître dans le fichier.
+ * Le fichier n'est pas tourné: à purger ou archiver par l'exploitation.
+ *
+ * Appelé par le thread d'export de TailSamplingSpanProcessor, jamais par les
+ * threads applicatifs: la sérialisation et l'écriture ne retardent pas les commandes.
+ */
+public class JsonLinesSpanExporter implements SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonLinesSpanExporter.class);
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Writer writer;
+    private long lastFlush = System.nanoTime();
+    private boolean shutdown;
+
+    public JsonLinesSpanExporter(Path file) throws IOException {
+        this.writer = open(file);
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        if (shutdown) {
+            return CompletableResultCode.ofFailure();
+        }
+        try {
+            for (SpanData span : spans) {
+                writer.write(objectMapper.writeValueAsString(toJson(span)));
+                writer.write('\n');
+            }
+            if (System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS) {
+                flushWriter();
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Export de {} span(s) impossible: {}", spans.size(), e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode flush() {
+        try {
+            flushWriter();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Écriture des spans sur disque impossible: {}", e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        if (shutdown) {
+            return CompletableResultCode.ofSuccess();
+        }
+        shutdown = true;
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Fermeture du fichier de spans impossible: {}", e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private void flushWriter() throws IOException {
+        writer.flush();
+        lastFlush = System.nanoTime();
+    }
+
+    private static Writer open(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        return Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static Map<String, Object> toJson(SpanData span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("spanId", span.getSpanId());
+        json.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+        json.put("name", span.getName());
+        json.put("kind", span.getKind().name());
+        json.put("startEpochMicros", TimeUnit.NANOSECONDS.toMicros(span.getStartEpochNanos()));
+        json.put("durationMicros", TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()));
+        json.put("status", span.getStatus().getStatusCode().name());
+        json.put("sampled", span.getSpanContext().isSampled());
+        json.put("attributes", attributes(span.getAttributes().asMap()));
+        List<Map<String, Object>> events = new ArrayList<>(span.getEvents().size());
+        for (EventData event : span.getEvents()) {
+            Map<String, Object> eventJson = new LinkedHashMap<>();
+            eventJson.put("name", event.getName());
+            eventJson.put("attributes", attributes(event.getAttributes().asMap()));
+            events.add(eventJson);
+        }
+        json.put("events", events);
+        return json;
+    }
+
+    private static Map<String, Object> attributes(Map<AttributeKey<?>, Object> attributes) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        attributes.forEach((key, value) -> json.put(key.getKey(), value));
+        return json;
+    }
+}
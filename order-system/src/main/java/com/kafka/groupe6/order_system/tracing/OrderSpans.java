@@ -0,0 +1,26 @@
+package com.kafka.groupe6.order_system.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * Attributs métier ajoutés aux spans en cours (requête HTTP, listener Kafka).
+ * Sans tracing actif, le span courant est inerte et l'appel ne coûte rien.
+ */
+public final class OrderSpans {
+
+    public static final AttributeKey<String> ORDER_ID = AttributeKey.stringKey("order.id");
+
+    private OrderSpans() {
+    }
+
+    /**
+     * Identifiant de la commande: recherche d'une trace à partir d'un id de commande.
+     */
+    public static void tagOrder(String orderId) {
+        Span span = Span.current();
+        if (span.isRecording() && orderId != null) {
+            span.setAttribute(ORDER_ID, orderId);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.kafka.groupe6.order_system.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+
+/**
+ * Échantillonnage en tête (head sampling) des traces de commandes.
+ *
+ * - Trace démarrée ici (POST /api/orders, générateur de charge): une part
+ *   app.tracing.head-sampling-rate des traces, choisie sur le traceId
+ * - Trace reçue d'un record Kafka (header traceparent): décision du parent
+ *
+ * Les traces non retenues ne sont pas abandonnées (RECORD_ONLY): leurs spans
+ * restent enregistrés pour que TailSamplingSpanProcessor puisse garder après
+ * coup les commandes lentes ou en échec. Seul le flag "sampled" propagé aux
+ * services suivants diffère.
+ */
+public class OrderTraceSampler implements Sampler {
+
+    private static final SamplingResult RECORD_AND_SAMPLE = SamplingResult.recordAndSample();
+    private static final SamplingResult RECORD_ONLY = SamplingResult.recordOnly();
+
+    private final double headSamplingRate;
+    private final Sampler ratio;
+
+    public OrderTraceSampler(double headSamplingRate) {
+        if (headSamplingRate < 0.0 || headSamplingRate > 1.0) {
+            throw new IllegalArgumentException("head-sampling-rate doit être compris entre 0 et 1");
+        }
+        this.headSamplingRate = headSamplingRate;
+        this.ratio = Sampler.traceIdRatioBased(headSamplingRate);
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        SpanContext parent = Span.fromContext(parentContext).getSpanContext();
+        if (parent.isValid()) {
+            return parent.isSampled() ? RECORD_AND_SAMPLE : RECORD_ONLY;
+        }
+        SamplingDecision decision = ratio.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks)
+            .getDecision();
+        return decision == SamplingDecision.RECORD_AND_SAMPLE ? RECORD_AND_SAMPLE : RECORD_ONLY;
+    }
+
+    @Override
+    public String getDescription() {
+        return "OrderTraceSampler{headSamplingRate=" + headSamplingRate + ", tail=RECORD_ONLY}";
+    }
+}
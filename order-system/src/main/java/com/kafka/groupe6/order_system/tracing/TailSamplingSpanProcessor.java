@@ -0,0 +1,326 @@
+package com.kafka.groupe6.order_system.tracing;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Échantillonnage en queue (tail sampling): décide à la fin des spans quelles traces exporter.
+ *
+ * Exportés:
+ * - les spans des traces retenues en tête (OrderTraceSampler, flag sampled)
+ * - toute la trace dès qu'un de ses spans est en erreur, dure au moins
+ *   app.tracing.tail.slow-threshold-ms, ou lit/écrit un topic de retry ou la DLQ
+ *
+ * Les autres spans (RECORD_ONLY) attendent en mémoire, par trace, au plus
+ * app.tracing.tail.buffer-seconds: une commande qui part en retry ou en DLQ
+ * dans ce délai est exportée avec ses spans précédents (HTTP, envoi, première
+ * lecture). Au-delà, ou au-delà de app.tracing.tail.max-buffered-spans spans
+ * en attente, les traces les plus anciennes sont abandonnées.
+ *
+ * Décision locale à l'instance: une trace retenue ici n'est pas signalée aux
+ * autres instances, qui gardent leurs spans selon les mêmes règles.
+ *
+ * Tous les spans sont enregistrés (RECORD_ONLY) et passent ici: onEnd, appelé
+ * par les threads applicatifs (listeners, requêtes HTTP), ne fait que mettre le
+ * span terminé dans une file sans verrou (bornée à app.tracing.export.queue-size
+ * spans, les suivants abandonnés et comptés). Un thread dédié ('span-exporter')
+ * copie (toSpanData), décide et écrit les spans retenus par lots, au plus tard
+ * EXPORT_DELAY_MS après leur fin: l'état des traces en attente n'appartient qu'à
+ * lui, aucun verrou n'est partagé avec les threads applicatifs. Ce thread démarre
+ * au premier span terminé, pas à la construction du processor.
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    // Topic lu (listener) ou écrit (template) par les spans spring-kafka
+    static final AttributeKey<String> SOURCE_NAME = AttributeKey.stringKey("messaging.source.name");
+    static final AttributeKey<String> DESTINATION_NAME = AttributeKey.stringKey("messaging.destination.name");
+
+    private static final Set<String> FAILURE_TOPICS = Set.of(
+        KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC,
+        KafkaTopicConfig.ORDERS_RETRY_10S_TOPIC,
+        KafkaTopicConfig.ORDERS_DLQ_TOPIC);
+
+    private static final Logger logger = LoggerFactory.getLogger(TailSamplingSpanProcessor.class);
+
+    private static final long EXPORT_DELAY_MS = 200;
+    private static final int EXPORT_BATCH_SIZE = 512;
+
+    private final SpanExporter exporter;
+    private final long slowThresholdNanos;
+    private final long bufferMs;
+    private final int maxBufferedSpans;
+    private final Clock clock;
+
+    // Spans terminés, pas encore triés: seul état partagé avec les threads applicatifs
+    private final Queue<EndedSpan> ended = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger endedCount = new AtomicInteger();
+    private final int queueSize;
+
+    // Tri et écriture sous ce verrou: thread d'export, ou forceFlush/shutdown sur le thread appelant
+    private final Object exportLock = new Object();
+    // Spans en attente par trace, dans l'ordre d'arrivée de la trace (donc d'expiration)
+    private final Map<String, PendingTrace> pending = new LinkedHashMap<>();
+    // Traces retenues → instant de la décision: leurs spans suivants sont exportés directement
+    private final Map<String, Long> kept = new LinkedHashMap<>();
+    private int bufferedSpans;
+
+    private final LongAdder droppedSpans = new LongAdder();
+    private final Thread exportThread;
+    // Démarré au premier span mis en file; positionné aussi par shutdown (plus de démarrage ensuite)
+    private final AtomicBoolean exportStarted = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    public TailSamplingSpanProcessor(SpanExporter exporter, long slowThresholdMs, long bufferSeconds,
+                                     int maxBufferedSpans, int exportQueueSize, Clock clock) {
+        if (slowThresholdMs <= 0 || bufferSeconds <= 0 || maxBufferedSpans <= 0 || exportQueueSize <= 0) {
+            throw new IllegalArgumentException(
+                "slow-threshold-ms, buffer-seconds, max-buffered-spans et queue-size doivent être > 0");
+        }
+        this.exporter = exporter;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.bufferMs = TimeUnit.SECONDS.toMillis(bufferSeconds);
+        this.maxBufferedSpans = maxBufferedSpans;
+        this.clock = clock;
+        this.queueSize = exportQueueSize;
+        this.exportThread = new Thread(this::exportLoop, "span-exporter");
+        this.exportThread.setDaemon(true);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    /**
+     * Chemin des threads applicatifs: mise en file seulement, décision sur le thread d'export.
+     */
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (!exportStarted.get() && exportStarted.compareAndSet(false, true)) {
+            exportThread.start();
+        }
+        int queued = endedCount.incrementAndGet();
+        if (queued > queueSize) {
+            endedCount.decrementAndGet();
+            droppedSpans.increment();
+            if (droppedSpans.sum() == 1) {
+                logger.warn("⚠ File des spans terminés pleine: spans abandonnés");
+            }
+            return;
+        }
+        ended.add(new EndedSpan(span, clock.millis()));
+        if (queued == EXPORT_BATCH_SIZE) {
+            LockSupport.unpark(exportThread);
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    /**
+     * Trie et écrit tout de suite les spans en file (sur le thread appelant), puis vide l'exporter.
+     */
+    @Override
+    public CompletableResultCode forceFlush() {
+        exportQueued();
+        return exporter.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        running = false;
+        if (exportStarted.getAndSet(true)) {
+            LockSupport.unpark(exportThread);
+            try {
+                exportThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        exportQueued();
+        synchronized (exportLock) {
+            pending.clear();
+            kept.clear();
+            bufferedSpans = 0;
+        }
+        return exporter.shutdown();
+    }
+
+    /**
+     * Spans en attente d'une décision, une fois triés ceux en file (pour les tests et le diagnostic).
+     */
+    public int getBufferedSpans() {
+        synchronized (exportLock) {
+            exportQueued();
+            return bufferedSpans;
+        }
+    }
+
+    /**
+     * Spans abandonnés, file des spans terminés pleine.
+     */
+    public long getDroppedSpans() {
+        return droppedSpans.sum();
+    }
+
+    private void exportLoop() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(EXPORT_DELAY_MS));
+            try {
+                exportQueued();
+            } catch (RuntimeException e) {
+                logger.warn("Export des spans impossible: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Trie les spans en file puis écrit les spans retenus, par lots d'au plus EXPORT_BATCH_SIZE.
+     */
+    private void exportQueued() {
+        synchronized (exportLock) {
+            List<SpanData> batch = new ArrayList<>();
+            EndedSpan next;
+            while ((next = ended.poll()) != null) {
+                endedCount.decrementAndGet();
+                decide(next, batch);
+                if (batch.size() >= EXPORT_BATCH_SIZE) {
+                    exporter.export(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                exporter.export(batch);
+            }
+        }
+    }
+
+    /**
+     * Ajoute au lot les spans à exporter après la fin de ce span (sous exportLock).
+     */
+    private void decide(EndedSpan endedSpan, List<SpanData> batch) {
+        ReadableSpan span = endedSpan.span;
+        SpanData data = span.toSpanData();
+        if (data.getSpanContext().isSampled()) {
+            batch.add(data);
+            return;
+        }
+
+        String traceId = data.getTraceId();
+        long now = endedSpan.endMillis;
+        evictExpired(now);
+        if (kept.containsKey(traceId)) {
+            batch.add(data);
+        } else if (isInteresting(span, data)) {
+            kept.put(traceId, now);
+            PendingTrace trace = pending.remove(traceId);
+            if (trace != null) {
+                bufferedSpans -= trace.spans.size();
+                batch.addAll(trace.spans);
+            }
+            batch.add(data);
+        } else {
+            pending.computeIfAbsent(traceId, id -> new PendingTrace(now)).spans.add(data);
+            bufferedSpans++;
+            evictOverflow();
+        }
+    }
+
+    private boolean isInteresting(ReadableSpan span, SpanData data) {
+        return data.getStatus().getStatusCode() == StatusCode.ERROR
+            || span.getLatencyNanos() >= slowThresholdNanos
+            || isFailureTopic(span.getAttribute(SOURCE_NAME))
+            || isFailureTopic(span.getAttribute(DESTINATION_NAME));
+    }
+
+    private static boolean isFailureTopic(String topic) {
+        return topic != null && FAILURE_TOPICS.contains(topic);
+    }
+
+    private void evictExpired(long now) {
+        long expiredBefore = now - bufferMs;
+        Iterator<PendingTrace> traces = pending.values().iterator();
+        while (traces.hasNext()) {
+            PendingTrace trace = traces.next();
+            if (trace.firstSeen >= expiredBefore) {
+                break;
+            }
+            bufferedSpans -= trace.spans.size();
+            traces.remove();
+        }
+        Iterator<Long> decisions = kept.values().iterator();
+        while (decisions.hasNext() && decisions.next() < expiredBefore) {
+            decisions.remove();
+        }
+        // Ne pas garder plus de décisions que de spans en attente
+        Iterator<Long> oldest = kept.values().iterator();
+        while (kept.size() > maxBufferedSpans && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<PendingTrace> traces = pending.values().iterator();
+        while (bufferedSpans > maxBufferedSpans && traces.hasNext()) {
+            bufferedSpans -= traces.next().spans.size();
+            traces.remove();
+        }
+    }
+
+    /**
+     * Span terminé, avec l'instant de sa fin (horloge du processor), en attente de tri.
+     */
+    private static final class EndedSpan {
+        private final ReadableSpan span;
+        private final long endMillis;
+
+        private EndedSpan(ReadableSpan span, long endMillis) {
+            this.span = span;
+            this.endMillis = endMillis;
+        }
+    }
+
+    /**
+     * Spans terminés d'une trace pas encore retenue.
+     */
+    private static final class PendingTrace {
+        private final long firstSeen;
+        private final List<SpanData> spans = new ArrayList<>(4);
+
+        private PendingTrace(long firstSeen) {
+            this.firstSeen = firstSeen;
+        }
+    }
+}
@@ -5,6 +5,8 @@
 
 // Configuration API
 const API_BASE = '/api/orders';
+const LOADGEN_API = '/api/loadgen';
+const LOADGEN_REFRESH_MS = 1000;
 
 // Stockage local des commandes
 let orders = [];
@@ -14,17 +16,25 @@ const orderForm = document.getElementById('orderForm');
 const generateBtn = document.getElementById('generateBtn');
 const ordersContainer = document.getElementById('ordersContainer');
 const toast = document.getElementById('toast');
+const loadgenForm = document.getElementById('loadgenForm');
+const loadgenStopBtn = document.getElementById('loadgenStopBtn');
+
+// Rafraîchissement du statut du générateur de charge
+let loadgenTimer = null;
 
 // Initialisation
 document.addEventListener('DOMContentLoaded', () => {
     loadOrdersFromStorage();
     renderOrders();
     initNavigation();
+    refreshLoadgenStatus();
 });
 
 // Event Listeners
 orderForm.addEventListener('submit', handleSubmitOrder);
 generateBtn.addEventListener('click', handleGenerateOrder);
+loadgenForm.addEventListener('submit', handleStartLoadgen);
+loadgenStopBtn.addEventListener('click', handleStopLoadgen);
 
 // Navigation smooth scroll et active state
 function initNavigation() {
@@ -163,6 +173,93 @@ async function handleGenerateOrder() {
     }
 }
 
+// Démarrer un tir de charge
+async function handleStartLoadgen(e) {
+    e.preventDefault();
+
+    const request = {
+        ratePerSecond: parseInt(document.getElementById('loadgenRate').value, 10),
+        durationSeconds: parseInt(document.getElementById('loadgenDuration').value, 10),
+        minItems: parseInt(document.getElementById('loadgenMinItems').value, 10),
+        maxItems: parseInt(document.getElementById('loadgenMaxItems').value, 10),
+        sizeDistribution: document.getElementById('loadgenDistribution').value,
+        keySkew: parseFloat(document.getElementById('loadgenSkew').value)
+    };
+
+    try {
+        const response = await fetch(`${LOADGEN_API}/start`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify(request)
+        });
+
+        if (response.ok) {
+            renderLoadgenReport(await response.json());
+            showToast(`⚡ Tir de charge démarré : ${request.ratePerSecond} commandes/s`, 'success');
+            scheduleLoadgenRefresh();
+        } else {
+            showToast(`❌ ${await response.text()}`, 'error');
+        }
+    } catch (error) {
+        console.error('Erreur:', error);
+        showToast('❌ Générateur de charge indisponible', 'error');
+    }
+}
+
+// Arrêter le tir en cours
+async function handleStopLoadgen() {
+    try {
+        const response = await fetch(`${LOADGEN_API}/stop`, { method: 'POST' });
+        if (response.ok) {
+            renderLoadgenReport(await response.json());
+            showToast('⏹️ Arrêt du tir de charge demandé', 'info');
+        }
+    } catch (error) {
+        console.error('Erreur:', error);
+    }
+}
+
+// Lire le statut, puis relancer tant que le tir est en cours
+async function refreshLoadgenStatus() {
+    try {
+        const response = await fetch(`${LOADGEN_API}/status`);
+        if (response.ok) {
+            const report = await response.json();
+            renderLoadgenReport(report);
+            if (report.state === 'RUNNING') {
+                scheduleLoadgenRefresh();
+            }
+        }
+    } catch (error) {
+        console.error('Erreur:', error);
+    }
+}
+
+function scheduleLoadgenRefresh() {
+    clearTimeout(loadgenTimer);
+    loadgenTimer = setTimeout(refreshLoadgenStatus, LOADGEN_REFRESH_MS);
+}
+
+// Afficher les compteurs et percentiles du tir
+function renderLoadgenReport(report) {
+    document.getElementById('loadgenState').textContent = report.state;
+    document.getElementById('loadgenSent').textContent = report.sent;
+    document.getElementById('loadgenProcessed').textContent = report.processed;
+    document.getElementById('loadgenActualRate').textContent = Math.round(report.actualRatePerSecond);
+    renderLatencyRow('loadgenAckLatency', report.ackLatency);
+    renderLatencyRow('loadgenEndToEndLatency', report.endToEndLatency);
+}
+
+function renderLatencyRow(rowId, latency) {
+    const cells = document.getElementById(rowId).querySelectorAll('td');
+    const values = [latency.p50, latency.p90, latency.p99, latency.p999, latency.max];
+    values.forEach((value, i) => {
+        cells[i + 1].textContent = latency.count > 0 ? value.toFixed(1) : '-';
+    });
+}
+
 // Ajouter une commande
 function addOrder(order) {
     orders.unshift(order);
@@ -184,7 +281,7 @@ function simulateProcessing(orderId) {
     
     // Étape 2: COMPLETED ou FAILED (après 3 secondes)
     setTimeout(() => {
-        // 90% de succès, 10% d'échec (comme dans le vrai code avec 10% stock indisponible)
+        // Affichage simulé: 90% de succès, 10% d'échec (le backend échoue en cas de rupture de stock)
         const success = Math.random() > 0.1;
         
         if (success) {
@@ -47,8 +47,7 @@ import static org.junit.jupiter.api.Assertions.*;
 )
 @TestPropertySource(properties = {
     "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
-    "spring.kafka.consumer.auto-offset-reset=earliest",
-    "app.stock.simulate-failures=false"
+    "spring.kafka.consumer.auto-offset-reset=earliest"
 })
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @Disabled("Désactivé car Docker Kafka tourne - utiliser quand Docker est arrêté")
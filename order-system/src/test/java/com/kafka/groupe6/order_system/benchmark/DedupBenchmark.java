@@ -0,0 +1,117 @@
+package com.kafka.groupe6.order_system.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.kafka.groupe6.order_system.dedup.OrderDeduplicator;
+
+/**
+ * Benchmark JMH de la déduplication (OrderDeduplicator) sur un grand nombre d'ids.
+ *
+ * Pas un test JUnit (non exécuté par 'mvn test'). Lancement:
+ *   mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       -Dexec.args="-cp %classpath com.kafka.groupe6.order_system.benchmark.DedupBenchmark"
+ * Les options JMH sont acceptées à la suite (ex: -p ids=1000000 pour un essai rapide).
+ *
+ * Chaque fork marque d'abord 'ids' ids (hors mesure), filtre et table dimensionnés
+ * pour ce nombre, puis mesure:
+ * - checkNew: ids jamais vus (chemin rapide du filtre, hors faux positifs)
+ * - checkDuplicate: ids déjà vus (confirmation dans la table)
+ * - mark: nouveaux ids au-delà de la capacité: la table et la heap ne grossissent
+ *   pas, les ids les plus proches de l'expiration sont remplacés
+ * En fin de fork: faux positifs du filtre, ids oubliés faute de place, taille du fichier.
+ * Le taux de remplissage sans débordement est vérifié par OrderIdStoreTest.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DedupBenchmark {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Param({"10000000"})
+    public long ids;
+
+    private Path directory;
+    private SimpleMeterRegistry registry;
+    private OrderDeduplicator deduplicator;
+    private long index;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(DedupBenchmark.class.getName())
+            .build();
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        directory = Files.createTempDirectory("dedup-bench");
+        registry = new SimpleMeterRegistry();
+        deduplicator = new OrderDeduplicator(
+            true, 1, ids, FALSE_POSITIVE_RATE, directory.toString(), registry, Clock.systemUTC());
+        for (long i = 0; i < ids; i++) {
+            deduplicator.markProcessed("ORDER-" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Path file = directory.resolve("order-ids.table");
+        double checks = registry.get("orders.dedup.checks").tag("result", "new").counter().count();
+        double falsePositives = registry.get("orders.dedup.checks").tag("result", "false_positive").counter().count();
+        System.out.printf("%nfaux positifs du filtre: %.2f%%, ids oubliés: %,d, fichier: %,d Mo%n",
+            100.0 * falsePositives / Math.max(1, checks + falsePositives),
+            (long) registry.get("orders.dedup.evictions").functionCounter().count(),
+            Files.size(file) >> 20);
+        deduplicator.close();
+        Files.delete(file);
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public boolean checkNew() {
+        return deduplicator.isDuplicate("NEW-" + index++);
+    }
+
+    @Benchmark
+    public boolean checkDuplicate() {
+        return deduplicator.isDuplicate("ORDER-" + (index++ % ids));
+    }
+
+    @Benchmark
+    public void mark() {
+        deduplicator.markProcessed("SECOND-" + index++);
+    }
+}
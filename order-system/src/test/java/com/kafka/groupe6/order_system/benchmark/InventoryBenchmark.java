@@ -0,0 +1,117 @@
+package com.kafka.groupe6.order_system.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.inventory.StockReservation;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Benchmark JMH du débit de réservation de stock (InventoryService) selon le nombre de threads.
+ *
+ * Pas un test JUnit (non exécuté par 'mvn test'). Lancement:
+ *   mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       -Dexec.args="-cp %classpath com.kafka.groupe6.order_system.benchmark.InventoryBenchmark"
+ * Les options JMH sont acceptées à la suite (ex: -f 1 -p skus=1000). Sans -t, le benchmark
+ * est lancé pour 1, 2, 4... threads jusqu'à deux fois le nombre de cœurs.
+ *
+ * Chaque commande réserve 3 articles tirés au hasard puis rend la moitié des
+ * réservations (comme des commandes en échec), pour que le stock ne s'épuise pas.
+ * Avec 1 SKU tous les threads se disputent le même compteur (pire cas).
+ * Résultat en réservations par seconde, tous threads confondus.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryBenchmark {
+
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final long STOCK_PER_SKU = Long.MAX_VALUE / 4;
+
+    @Param({"1", "1000"})
+    public int skus;
+
+    private InventoryService inventory;
+    private String[] skuNames;
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.getThreads().hasValue()) {
+            new Runner(options(commandLine).build()).run();
+            return;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores * 2; threads *= 2) {
+            new Runner(options(commandLine).threads(threads).build()).run();
+        }
+    }
+
+    private static ChainedOptionsBuilder options(Options parent) {
+        return new OptionsBuilder().parent(parent).include(InventoryBenchmark.class.getName());
+    }
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        skuNames = new String[skus];
+        Map<String, Long> levels = new HashMap<>();
+        for (int i = 0; i < skus; i++) {
+            skuNames[i] = "SKU-" + i;
+            levels.put(skuNames[i], STOCK_PER_SKU);
+        }
+        inventory = OrderTestFixtures.inventory(0);
+        inventory.setStock(levels);
+    }
+
+    /**
+     * Articles tirés par thread, réutilisés d'une commande à l'autre.
+     */
+    @State(Scope.Thread)
+    public static class Items {
+        private final List<String> list = new ArrayList<>(ITEMS_PER_ORDER);
+        private long count;
+    }
+
+    @Benchmark
+    public StockReservation reserve(Items items) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        items.list.clear();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            items.list.add(skuNames[random.nextInt(skus)]);
+        }
+        StockReservation reservation = inventory.reserve("BENCH", items.list);
+        if ((items.count++ & 1) == 0) {
+            inventory.release(reservation);
+        }
+        return reservation;
+    }
+}
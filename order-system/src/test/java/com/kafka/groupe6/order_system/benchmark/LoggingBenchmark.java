@@ -0,0 +1,203 @@
+package com.kafka.groupe6.order_system.benchmark;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import com.kafka.groupe6.order_system.exception.StockUnavailableException;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderEventLog;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Benchmark JMH du coût des logs par commande traitée, avant et après OrderEventLog.
+ *
+ * Pas un test JUnit (non exécuté par 'mvn test'). Lancement:
+ *   mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       -Dexec.args="-cp %classpath com.kafka.groupe6.order_system.benchmark.LoggingBenchmark"
+ * Les options JMH sont acceptées à la suite (ex: -f 1 -wi 2 -i 3).
+ *
+ * Logs écrits avec le pattern de Spring Boot dans un flux qui jette les octets:
+ * seuls comptent la mise en forme et le passage dans Logback, pas le terminal.
+ * - legacy: les 19 lignes (15 INFO, 4 DEBUG) de l'ancien consumeOrder, appender synchrone,
+ *   niveau DEBUG (ancienne configuration)
+ * - sampled, unsampled, failed: un événement par commande (OrderEventLog), appender
+ *   asynchrone, niveau INFO; succès échantillonnés (10/s), puis tous journalisés,
+ *   puis échecs (toujours journalisés)
+ *
+ * Chaque benchmark tourne dans sa propre JVM (Logback configuré une fois par fork).
+ * Affiche le temps par commande sur le thread appelant (celui du consumer) et, via le
+ * profiler gc, les octets alloués par commande (gc.alloc.rate.norm, tous threads confondus:
+ * le worker de l'appender asynchrone compte aussi, d'où la dispersion des scénarios async).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class LoggingBenchmark {
+
+    private static final String PATTERN =
+        "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %pid --- [%t] %-40.40logger{39} : %m%n";
+
+    private final Order order = order();
+    private final StockUnavailableException stockError = new StockUnavailableException(order.getId(), "SKU-1");
+    private final OrderEventLog sampledLog = OrderTestFixtures.eventLog(10);
+    private final OrderEventLog unsampledLog = OrderTestFixtures.eventLog(Integer.MAX_VALUE);
+    private Logger legacyLogger;
+    private AsyncAppender async;
+    private long offset;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(LoggingBenchmark.class.getName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Ancienne configuration pour legacy, appender asynchrone pour les autres.
+     */
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.WARN);
+        Logger applicationLogger = context.getLogger("com.kafka.groupe6");
+        applicationLogger.setAdditive(false);
+        legacyLogger = context.getLogger("com.kafka.groupe6.order_system.consumer.OrderConsumerService");
+
+        if (params.getBenchmark().endsWith(".legacy")) {
+            attach(applicationLogger, Level.DEBUG, nullAppender(context));
+        } else {
+            async = asyncAppender(context, nullAppender(context));
+            attach(applicationLogger, Level.INFO, async);
+        }
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void tearDown() {
+        if (async != null) {
+            async.stop();
+        }
+    }
+
+    @Benchmark
+    public void legacy() {
+        legacyLog(legacyLogger, order, offset++);
+    }
+
+    @Benchmark
+    public void sampled() {
+        sampledLog.processed(order, 0, offset++, System.nanoTime());
+    }
+
+    @Benchmark
+    public void unsampled() {
+        unsampledLog.processed(order, 0, offset++, System.nanoTime());
+    }
+
+    @Benchmark
+    public void failed() {
+        sampledLog.failed(order, 0, offset++, System.nanoTime(), OrderEventLog.Failure.STOCK_UNAVAILABLE, stockError);
+    }
+
+    /**
+     * Logs de l'ancien consumeOrder pour une commande traitée (chemin nominal).
+     */
+    private static void legacyLog(Logger logger, Order order, long offset) {
+        logger.info("========================================");
+        logger.info("Message reçu du topic 'orders-input'");
+        logger.info("Partition: {}, Offset: {}", 0, offset);
+        logger.info("Order ID: {}, Customer: {}", order.getId(), order.getCustomerId());
+        logger.info("Items: {}, Amount: {}", order.getItems(), order.getTotalAmount());
+        logger.info("Status initial: {}", order.getStatus());
+        logger.info("========================================");
+        logger.debug("Validation de la commande {}", order.getId());
+        logger.info("✓ Validation réussie pour la commande {}", order.getId());
+        logger.info("→ Statut changé en PROCESSING pour la commande {}", order.getId());
+        logger.debug("Réservation du stock pour la commande {}", order.getId());
+        logger.info("✓ Stock réservé pour la commande {}", order.getId());
+        logger.debug("Traitement de la commande {}", order.getId());
+        logger.debug("Traitement terminé pour la commande {}", order.getId());
+        logger.info("✓ Statut changé en COMPLETED pour la commande {}", order.getId());
+        logger.info("Publication vers '{}' pour la commande {}", "orders-processed", order.getId());
+        logger.info("========================================");
+        logger.info("✓✓ Commande {} traitée avec succès!", order.getId());
+        logger.info("========================================");
+    }
+
+    private static void attach(Logger logger, Level level, Appender<ILoggingEvent> appender) {
+        logger.detachAndStopAllAppenders();
+        logger.setLevel(level);
+        logger.addAppender(appender);
+    }
+
+    private static Appender<ILoggingEvent> nullAppender(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    /**
+     * Même réglage que logback-spring.xml.
+     */
+    private static AsyncAppender asyncAppender(LoggerContext context, Appender<ILoggingEvent> delegate) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(8192);
+        appender.setDiscardingThreshold(1638);
+        appender.setIncludeCallerData(false);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setId("ORD-BENCH-000001");
+        order.setCustomerId("CUSTOMER-042");
+        order.setItems(List.of("SKU-1", "SKU-2", "SKU-3"));
+        order.setTotalAmount(59.90);
+        order.setStatus("PENDING");
+        return order;
+    }
+}
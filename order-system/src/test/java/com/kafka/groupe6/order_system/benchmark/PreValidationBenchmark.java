@@ -0,0 +1,177 @@
+package com.kafka.groupe6.order_system.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.serialization.OrderBinaryCodec;
+import com.kafka.groupe6.order_system.serialization.OrderDeserializer;
+import com.kafka.groupe6.order_system.serialization.OrderPreValidator;
+import com.kafka.groupe6.order_system.serialization.OrderSerializer;
+
+/**
+ * Benchmark JMH de la pré-validation des commandes sur leurs octets, 20 % de commandes invalides.
+ *
+ * Pas un test JUnit (non exécuté par 'mvn test'). Lancement:
+ *   mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       -Dexec.args="-cp %classpath com.kafka.groupe6.order_system.benchmark.PreValidationBenchmark"
+ * Les options JMH sont acceptées à la suite (ex: -p format=json).
+ *
+ * Par record, du décodage jusqu'au verdict (stock et publication des commandes valides exclus):
+ * - before: désérialisation complète, règles de OrderConsumerService, puis pour une commande
+ *   invalide ré-encodage pour 'orders-dlq' (OrderSerializer)
+ * - after: pré-validation sur les octets, désérialisation et règles pour les seules commandes
+ *   valides; une commande rejetée part en DLQ avec ses octets d'origine (headers de rejet)
+ * L'OrderValidationException levée dans le listener est comptée des deux côtés.
+ * Commandes de 8 articles; invalides réparties entre client absent, panier vide,
+ * montant négatif et montant trop élevé (articles présents). Formats JSON et binaire.
+ *
+ * Affiche le temps par record sur le thread appelant (celui du consumer) et, via le
+ * profiler gc, les octets alloués par record (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PreValidationBenchmark {
+
+    private static final int DISTINCT_RECORDS = 1_000;
+    private static final int INVALID_PERCENT = 20;
+    private static final int ITEMS_PER_ORDER = 8;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private final OrderDeserializer fullBinding = deserializer(false);
+    private final OrderDeserializer preValidating = deserializer(true);
+    private final OrderSerializer dlqSerializer = new OrderSerializer(List.of(KafkaTopicConfig.ORDERS_DLQ_TOPIC));
+    private final List<byte[]> payloads = new ArrayList<>(DISTINCT_RECORDS);
+    private int index;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(PreValidationBenchmark.class.getName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < DISTINCT_RECORDS; i++) {
+            Order order = order(i);
+            payloads.add("binary".equals(format) ? OrderBinaryCodec.encode(order) : toJson(order));
+        }
+    }
+
+    @Benchmark
+    public int before() {
+        return process(fullBinding);
+    }
+
+    @Benchmark
+    public int after() {
+        return process(preValidating);
+    }
+
+    /**
+     * Verdict d'un record: 0 si valide, taille du payload DLQ sinon.
+     */
+    private int process(OrderDeserializer deserializer) {
+        // Headers propres à chaque record, comme à la lecture
+        Headers headers = new RecordHeaders();
+        byte[] payload = payloads.get(index);
+        index = (index + 1) % DISTINCT_RECORDS;
+        Order order = deserializer.deserialize(KafkaTopicConfig.ORDERS_INPUT_TOPIC, headers, payload);
+        try {
+            if (order == null) {
+                throw OrderPreValidator.rejectionOf(headers);
+            }
+            validate(order);
+            return 0;
+        } catch (OrderValidationException e) {
+            byte[] dlqPayload = order == null
+                ? OrderPreValidator.rejectedPayload(headers)
+                : dlqSerializer.serialize(KafkaTopicConfig.ORDERS_DLQ_TOPIC, headers, order);
+            return dlqPayload.length;
+        }
+    }
+
+    /**
+     * Règles de OrderConsumerService.checkOrder, sur la commande construite.
+     */
+    private static void validate(Order order) {
+        String error = OrderPreValidator.violation(order);
+        if (error != null) {
+            throw new OrderValidationException(order.getId(), error);
+        }
+    }
+
+    private static OrderDeserializer deserializer(boolean preValidate) {
+        OrderDeserializer deserializer = new OrderDeserializer(null, preValidate);
+        deserializer.configure(Collections.singletonMap("spring.json.trusted.packages", "*"), false);
+        return deserializer;
+    }
+
+    /**
+     * Une commande sur cinq invalide, avec ses articles (seuls les champs décisifs sont faux).
+     */
+    private static Order order(int i) {
+        List<String> items = new ArrayList<>(ITEMS_PER_ORDER);
+        for (int item = 0; item < ITEMS_PER_ORDER; item++) {
+            items.add("SKU-" + (i * 7 + item) % 500 + " - Article de démonstration");
+        }
+        Order order = new Order(String.format("ORD-BENCH-%06d", i), "CUSTOMER-" + i % 100, items,
+            59.90, "PENDING", 1_700_000_000_000L + i);
+        if (i % 100 < INVALID_PERCENT) {
+            switch (i % 4) {
+                case 0 -> order.setCustomerId(null);
+                case 1 -> order.setItems(List.of());
+                case 2 -> order.setTotalAmount(-5.0);
+                default -> order.setTotalAmount(25_000.0);
+            }
+        }
+        return order;
+    }
+
+    private static byte[] toJson(Order order) {
+        StringBuilder json = new StringBuilder(256)
+            .append("{\"id\":\"").append(order.getId()).append('"')
+            .append(",\"customerId\":").append(order.getCustomerId() == null ? "null" : '"' + order.getCustomerId() + '"')
+            .append(",\"items\":[");
+        for (int i = 0; i < order.getItems().size(); i++) {
+            json.append(i == 0 ? "\"" : ",\"").append(order.getItems().get(i)).append('"');
+        }
+        return json.append("],\"totalAmount\":").append(order.getTotalAmount())
+            .append(",\"status\":\"").append(order.getStatus()).append('"')
+            .append(",\"timestamp\":").append(order.getTimestamp())
+            .append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,139 @@
+package com.kafka.groupe6.order_system.benchmark;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import com.kafka.groupe6.order_system.tracing.OrderTraceSampler;
+import com.kafka.groupe6.order_system.tracing.TailSamplingSpanProcessor;
+
+/**
+ * Benchmark JMH du coût d'une fin de span sur le thread applicatif, avec et sans
+ * échantillonnage en queue (TailSamplingSpanProcessor).
+ *
+ * Pas un test JUnit (non exécuté par 'mvn test'). Lancement:
+ *   mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       -Dexec.args="-cp %classpath com.kafka.groupe6.order_system.benchmark.TracingBenchmark"
+ * Les options JMH sont acceptées à la suite (ex: -t 8 pour la contention entre threads).
+ *
+ * Une opération = un span enfant démarré puis terminé dans une trace non retenue
+ * en tête (RECORD_ONLY, cas de 99 % des commandes), échantillonneur OrderTraceSampler
+ * aux valeurs de l'application:
+ * - tail=off: aucun processor, coût du span seul
+ * - tail=on: TailSamplingSpanProcessor aux valeurs de l'application, exporter qui
+ *   jette les spans; la différence avec off est le coût de onEnd sur le thread appelant
+ * En fin de fork: spans abandonnés (file pleine), à comparer au nombre d'opérations.
+ * Profiler gc: octets alloués par span (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TracingBenchmark {
+
+    private static final double HEAD_SAMPLING_RATE = 0.01;
+    private static final long SLOW_THRESHOLD_MS = 500;
+    private static final long BUFFER_SECONDS = 60;
+    private static final int MAX_BUFFERED_SPANS = 100_000;
+    private static final int EXPORT_QUEUE_SIZE = 10_000;
+
+    @Param({"off", "on"})
+    public String tail;
+
+    private SdkTracerProvider tracerProvider;
+    private TailSamplingSpanProcessor processor;
+    private Tracer tracer;
+    private Context parent;
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(TracingBenchmark.class.getName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setUp() {
+        SdkTracerProviderBuilder builder = SdkTracerProvider.builder()
+            .setSampler(new OrderTraceSampler(HEAD_SAMPLING_RATE));
+        if ("on".equals(tail)) {
+            processor = new TailSamplingSpanProcessor(new DiscardingExporter(), SLOW_THRESHOLD_MS,
+                BUFFER_SECONDS, MAX_BUFFERED_SPANS, EXPORT_QUEUE_SIZE, Clock.systemUTC());
+            builder.addSpanProcessor(processor);
+        }
+        tracerProvider = builder.build();
+        tracer = tracerProvider.get("benchmark");
+        // Racine non retenue en tête: ses enfants suivent la décision du parent
+        Span root;
+        do {
+            root = tracer.spanBuilder("POST /api/orders").startSpan();
+        } while (root.getSpanContext().isSampled());
+        parent = Context.root().with(root);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (processor != null) {
+            System.out.printf("%nspans abandonnés (file pleine): %,d%n", processor.getDroppedSpans());
+        }
+        tracerProvider.close();
+    }
+
+    @Benchmark
+    public Span endSpan() {
+        Span span = tracer.spanBuilder("orders-input receive").setParent(parent).startSpan();
+        span.end();
+        return span;
+    }
+
+    /**
+     * Exporter sans sortie: seul compte le chemin jusqu'à l'exporter.
+     */
+    private static final class DiscardingExporter implements SpanExporter {
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.kafka.groupe6.order_system.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+/**
+ * Benchmark consume-transform-produce: at-least-once vs exactly-once.
+ *
+ * Pas un test JUnit (non exécuté par 'mvn test'). Lancement:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.kafka.groupe6.order_system.benchmark.TransactionalPublishBenchmark
+ * ou depuis l'IDE. Argument optionnel: nombre de messages (défaut 1000; le mode
+ * transaction par record est de l'ordre de 10 msg/s, d'où un défaut modeste).
+ *
+ * Modes comparés (broker KRaft embarqué, traitement métier exclu pour isoler le coût Kafka):
+ * - at-least-once: envoi sans attente + commit d'offset par record (chemin AckMode.RECORD actuel)
+ * - exactly-once par record: une transaction par record
+ * - exactly-once par lot: une transaction par poll() (mode app.consumer.mode=transactional)
+ */
+public class TransactionalPublishBenchmark {
+
+    private static final int DEFAULT_MESSAGES = 1_000;
+    private static final int MAX_POLL_RECORDS = 500;
+    private static final String PAYLOAD =
+        "{\"id\":\"%s\",\"customerId\":\"CUSTOMER-001\",\"items\":[\"Laptop\"],\"totalAmount\":99.99,\"status\":\"PENDING\"}";
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MESSAGES;
+        // Logs du broker et des clients limités aux avertissements
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        // Un seul broker KRaft, comme les tests d'intégration: le log de transactions doit accepter une seule réplique
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaKraftBroker(1, 1)
+            .brokerProperties(Map.of(
+                "transaction.state.log.replication.factor", "1",
+                "transaction.state.log.min.isr", "1"));
+        broker.afterPropertiesSet();
+        try {
+            String bootstrap = broker.getBrokersAsString();
+            System.out.printf("Benchmark consume-transform-produce: %d messages%n", messages);
+
+            report("at-least-once (commit par record)", messages,
+                run(bootstrap, messages, Mode.AT_LEAST_ONCE));
+            report("exactly-once (transaction par record)", messages,
+                run(bootstrap, messages, Mode.TRANSACTION_PER_RECORD));
+            report("exactly-once (transaction par lot)", messages,
+                run(bootstrap, messages, Mode.TRANSACTION_PER_BATCH));
+        } finally {
+            broker.destroy();
+        }
+    }
+
+    private enum Mode { AT_LEAST_ONCE, TRANSACTION_PER_RECORD, TRANSACTION_PER_BATCH }
+
+    /**
+     * Prépare un topic d'entrée rempli puis mesure le temps de le transformer vers un topic de sortie.
+     *
+     * @return durée en nanosecondes
+     */
+    private static long run(String bootstrap, int messages, Mode mode) throws Exception {
+        String suffix = mode.name().toLowerCase() + "-" + UUID.randomUUID();
+        String input = "bench-input-" + suffix;
+        String output = "bench-output-" + suffix;
+        createTopics(bootstrap, input, output);
+        fill(bootstrap, input, messages);
+
+        boolean transactional = mode != Mode.AT_LEAST_ONCE;
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(consumerProps(bootstrap, "bench-" + suffix));
+             KafkaProducer<String, String> producer = new KafkaProducer<>(producerProps(bootstrap, transactional))) {
+            consumer.subscribe(Collections.singletonList(input));
+            if (transactional) {
+                producer.initTransactions();
+            }
+
+            int transformed = 0;
+            long start = System.nanoTime();
+            while (transformed < messages) {
+                ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(500));
+                if (records.isEmpty()) {
+                    continue;
+                }
+                switch (mode) {
+                    case AT_LEAST_ONCE:
+                        for (ConsumerRecord<String, String> record : records) {
+                            producer.send(new ProducerRecord<>(output, record.key(), record.value()));
+                            consumer.commitSync(nextOffset(record));
+                        }
+                        break;
+                    case TRANSACTION_PER_RECORD:
+                        for (ConsumerRecord<String, String> record : records) {
+                            producer.beginTransaction();
+                            producer.send(new ProducerRecord<>(output, record.key(), record.value()));
+                            producer.sendOffsetsToTransaction(nextOffset(record), consumer.groupMetadata());
+                            producer.commitTransaction();
+                        }
+                        break;
+                    case TRANSACTION_PER_BATCH:
+                        producer.beginTransaction();
+                        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                        for (ConsumerRecord<String, String> record : records) {
+                            producer.send(new ProducerRecord<>(output, record.key(), record.value()));
+                            offsets.putAll(nextOffset(record));
+                        }
+                        producer.sendOffsetsToTransaction(offsets, consumer.groupMetadata());
+                        producer.commitTransaction();
+                        break;
+                }
+                transformed += records.count();
+            }
+            // Les envois at-least-once ne sont pas attendus par le chemin actuel: flush pour comparer à périmètre égal
+            producer.flush();
+            return System.nanoTime() - start;
+        }
+    }
+
+    private static Map<TopicPartition, OffsetAndMetadata> nextOffset(ConsumerRecord<?, ?> record) {
+        return Collections.singletonMap(
+            new TopicPartition(record.topic(), record.partition()),
+            new OffsetAndMetadata(record.offset() + 1));
+    }
+
+    private static void createTopics(String bootstrap, String... topics) throws Exception {
+        Map<String, Object> config = Collections.singletonMap(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        try (AdminClient admin = AdminClient.create(config)) {
+            List<NewTopic> newTopics = new ArrayList<>();
+            for (String topic : topics) {
+                newTopics.add(new NewTopic(topic, 1, (short) 1));
+            }
+            admin.createTopics(newTopics).all().get();
+        }
+    }
+
+    private static void fill(String bootstrap, String topic, int messages) {
+        try (KafkaProducer<String, String> producer = new KafkaProducer<>(producerProps(bootstrap, false))) {
+            for (int i = 0; i < messages; i++) {
+                String id = "ORDER-" + i;
+                producer.send(new ProducerRecord<>(topic, id, String.format(PAYLOAD, id)));
+            }
+            producer.flush();
+        }
+    }
+
+    private static Properties producerProps(String bootstrap, boolean transactional) {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        if (transactional) {
+            props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "bench-tx-" + UUID.randomUUID());
+        }
+        return props;
+    }
+
+    private static Properties consumerProps(String bootstrap, String groupId) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrap);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, MAX_POLL_RECORDS);
+        return props;
+    }
+
+    private static void report(String label, int messages, long nanos) {
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("%-42s %8.0f msg/s  (%.2f s)%n", label, messages / seconds, seconds);
+    }
+}
@@ -0,0 +1,250 @@
+package com.kafka.groupe6.order_system.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import com.kafka.groupe6.order_system.consumer.OrderConsumerService;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Benchmark JMH threads plateforme vs virtual threads sur le traitement bloquant
+ * des commandes (OrderConsumerService.consumeOrder: réservation du stock puis
+ * traitement simulé par Thread.sleep, 100 à 300 ms par commande).
+ *
+ * Pas un test JUnit (non exécuté par 'mvn test'). Lancement:
+ *   mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *       -Dexec.args="-cp %classpath com.kafka.groupe6.order_system.benchmark.VirtualThreadBenchmark"
+ * Les options JMH sont acceptées à la suite (ex: -p mode=virtual -p orders=1000).
+ *
+ * Une opération = 'orders' commandes soumises d'un coup (10k en cours) puis attendues.
+ * Modes comparés (@Param mode):
+ * - pool: pool plateforme borné à 'poolSize' threads (200, comme le pool Tomcat)
+ * - platform: un thread plateforme par commande
+ * - virtual: un virtual thread par commande (Java 21+). Sur un JRE plus ancien, main
+ *   l'exclut avec un message; demandé explicitement (-p mode=virtual), le fork échoue
+ *   dès le setup
+ *
+ * Temps par opération mesuré par JMH; en fin d'itération, pic de threads plateforme
+ * vivants, de heap utilisé et de RSS (mémoire native: piles des threads plateforme).
+ * Broker remplacé par un KafkaTemplate dont l'envoi réussit immédiatement.
+ *
+ * Pinning (Java 21-23: un virtual thread bloqué dans un bloc synchronized garde
+ * son thread porteur): ajouter -p mode=virtual -jvmArgsAppend -Djdk.tracePinnedThreads=short,
+ * les piles concernées sont affichées pendant les itérations. Aucune pile = pas de pinning.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+    private static final long SAMPLE_INTERVAL_MS = 10L;
+    private static final int VIRTUAL_THREADS_VERSION = 21;
+
+    @Param({"pool", "platform", "virtual"})
+    public String mode;
+
+    @Param({"10000"})
+    public int orders;
+
+    @Param({"200"})
+    public int poolSize;
+
+    private OrderConsumerService consumerService;
+    private Executor executor;
+    private MemorySampler sampler;
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .parent(commandLine)
+            .include(VirtualThreadBenchmark.class.getName());
+        if (Runtime.version().feature() < VIRTUAL_THREADS_VERSION && !commandLine.getParameter("mode").hasValue()) {
+            System.out.printf("Mode virtual ignoré: Java %d+ requis (JRE %s)%n",
+                VIRTUAL_THREADS_VERSION, Runtime.version());
+            options.param("mode", "pool", "platform");
+        }
+        new Runner(options.build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        consumerService =
+            OrderTestFixtures.consumerService(kafkaTemplate(), OrderTestFixtures.inventory(Long.MAX_VALUE / 2));
+    }
+
+    /**
+     * Exécuteur neuf à chaque itération: pas de threads plateforme hérités de la précédente.
+     */
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void setUpIteration() {
+        executor = switch (mode) {
+            case "pool" -> Executors.newFixedThreadPool(poolSize);
+            case "platform" -> Executors.newCachedThreadPool();
+            case "virtual" -> virtualExecutor();
+            default -> throw new IllegalArgumentException("mode inconnu: " + mode + " (pool, platform, virtual)");
+        };
+        System.gc();
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        sampler = MemorySampler.start();
+    }
+
+    @TearDown(org.openjdk.jmh.annotations.Level.Iteration)
+    public void tearDownIteration() throws InterruptedException {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        sampler.stop();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.out.printf("%n%s: pic de %d threads plateforme, heap max %.0f Mo, RSS max %s%n",
+            mode, threads.getPeakThreadCount(), sampler.peakHeapBytes.get() / 1_048_576.0,
+            sampler.peakRssKb.get() > 0 ? String.format("%.0f Mo", sampler.peakRssKb.get() / 1024.0) : "n/a");
+    }
+
+    /**
+     * @return commandes en échec (0 attendu)
+     */
+    @Benchmark
+    public int process() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(orders);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order("BENCH-" + i, "CUST-" + (i % 1000), List.of("Laptop"),
+                99.99, "PENDING", System.currentTimeMillis());
+            executor.execute(() -> {
+                try {
+                    consumerService.consumeOrder(order, 0, 0L);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (failures.get() > 0) {
+            System.out.printf("%n(%d commandes en échec)%n", failures.get());
+        }
+        return failures.get();
+    }
+
+    private static Executor virtualExecutor() {
+        try {
+            return new VirtualThreadTaskExecutor("order-vt-");
+        } catch (UnsupportedOperationException e) {
+            throw new IllegalStateException("Mode virtual indisponible: Java " + VIRTUAL_THREADS_VERSION
+                + "+ requis (JRE " + Runtime.version() + ")", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, Object> kafkaTemplate() {
+        // stubOnly: Mockito ne mémorise pas les 10k appels (mesure de heap non faussée)
+        KafkaTemplate<String, Object> template = mock(KafkaTemplate.class, withSettings().stubOnly());
+        RecordMetadata metadata = new RecordMetadata(new TopicPartition("orders-processed", 0), 0L, 0, 0L, 0, 0);
+        SendResult<String, Object> result = new SendResult<>(
+            new ProducerRecord<>("orders-processed", "key", "value"), metadata);
+        when(template.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(result));
+        return template;
+    }
+
+    /**
+     * Échantillonnage du heap utilisé et du RSS du processus (Linux: /proc/self/status).
+     */
+    private static final class MemorySampler implements Runnable {
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+        private final AtomicLong peakRssKb = new AtomicLong();
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private Thread thread;
+
+        static MemorySampler start() {
+            MemorySampler sampler = new MemorySampler();
+            sampler.thread = new Thread(sampler, "memory-sampler");
+            sampler.thread.setDaemon(true);
+            sampler.thread.start();
+            return sampler;
+        }
+
+        @Override
+        public void run() {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            while (running.get()) {
+                peakHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                peakRssKb.accumulateAndGet(readRssKb(), Math::max);
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void stop() throws InterruptedException {
+            running.set(false);
+            thread.join();
+        }
+
+        private static long readRssKb() {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            } catch (Exception e) {
+                // Pas de /proc (macOS, Windows): RSS non mesuré
+            }
+            return 0L;
+        }
+    }
+}
@@ -43,8 +43,7 @@ import com.kafka.groupe6.order_system.producer.OrderProducerService;
 )
 @TestPropertySource(properties = {
     "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
-    "spring.kafka.consumer.auto-offset-reset=earliest",
-    "app.stock.simulate-failures=false"
+    "spring.kafka.consumer.auto-offset-reset=earliest"
 })
 @Disabled("Désactivé car Docker Kafka tourne - utiliser quand Docker est arrêté")
 class CompleteKafkaIntegrationTest {
@@ -28,8 +28,7 @@ import com.kafka.groupe6.order_system.model.Order;
 @SpringBootTest
 @EmbeddedKafka(topics = { "orders-input", "orders-processed", "orders-dlq" }, partitions = 1)
 @org.springframework.test.context.TestPropertySource(properties = {
-    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
-    "app.stock.simulate-failures=false"
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}"
 })
 @org.springframework.test.annotation.DirtiesContext(classMode = org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @Disabled("Désactivé car Docker Kafka tourne - utiliser quand Docker est arrêté")
@@ -0,0 +1,106 @@
+package com.kafka.groupe6.order_system.unit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+
+import org.springframework.kafka.core.KafkaTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.kafka.groupe6.order_system.consumer.OrderConsumerService;
+import com.kafka.groupe6.order_system.consumer.OrderStageExecutors;
+import com.kafka.groupe6.order_system.dedup.OrderDeduplicator;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.monitoring.OrderEventLog;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+
+/**
+ * Collaborateurs construits hors Spring pour les tests et les benchmarks.
+ *
+ * Chaque appel crée une nouvelle instance, avec son propre registre de métriques.
+ */
+public final class OrderTestFixtures {
+
+    private OrderTestFixtures() {
+    }
+
+    public static OrderPipelineMetrics pipelineMetrics() {
+        return new OrderPipelineMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Fenêtre d'une minute, objectif p99 de 2 s.
+     */
+    public static OrderLatencyTracker latencyTracker() {
+        return latencyTracker(new SimpleMeterRegistry());
+    }
+
+    public static OrderLatencyTracker latencyTracker(MeterRegistry meterRegistry) {
+        return new OrderLatencyTracker(meterRegistry, new int[] {60}, 10, 2000L, Clock.systemUTC());
+    }
+
+    /**
+     * 10 succès journalisés par seconde (valeur par défaut de l'application).
+     */
+    public static OrderEventLog eventLog() {
+        return eventLog(10);
+    }
+
+    public static OrderEventLog eventLog(int successPerSecond) {
+        return new OrderEventLog(successPerSecond, Clock.systemUTC());
+    }
+
+    /**
+     * Stock en mémoire, identifiant d'instance aléatoire.
+     *
+     * @param defaultStock stock d'un SKU jamais chargé (0 = rupture)
+     */
+    public static InventoryService inventory(long defaultStock) {
+        return new InventoryService(defaultStock, "");
+    }
+
+    /**
+     * Déduplication désactivée: aucune commande n'est considérée comme un doublon.
+     */
+    public static OrderDeduplicator noDeduplication() {
+        try {
+            return new OrderDeduplicator(false, 24, 0, 0.01, "", new SimpleMeterRegistry(), Clock.systemUTC());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Déduplication active (1 000 ids, TTL d'une heure), table dans le répertoire donné.
+     */
+    public static OrderDeduplicator deduplicator(Path directory) throws IOException {
+        return deduplicator(directory, new SimpleMeterRegistry());
+    }
+
+    public static OrderDeduplicator deduplicator(Path directory, MeterRegistry meterRegistry) throws IOException {
+        return new OrderDeduplicator(true, 1, 1_000, 0.01, directory.toString(), meterRegistry, Clock.systemUTC());
+    }
+
+    /**
+     * Service de traitement sans déduplication, étapes sur le thread appelant.
+     */
+    public static OrderConsumerService consumerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                                       InventoryService inventoryService) {
+        return consumerService(kafkaTemplate, inventoryService, noDeduplication());
+    }
+
+    /**
+     * Service de traitement, étapes sur le thread appelant.
+     */
+    public static OrderConsumerService consumerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                                       InventoryService inventoryService,
+                                                       OrderDeduplicator orderDeduplicator) {
+        return new OrderConsumerService(kafkaTemplate, inventoryService, orderDeduplicator, pipelineMetrics(),
+            latencyTracker(), eventLog(), OrderStageExecutors.inline());
+    }
+}
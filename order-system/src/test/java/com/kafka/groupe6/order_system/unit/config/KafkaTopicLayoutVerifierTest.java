@@ -0,0 +1,93 @@
+package com.kafka.groupe6.order_system.unit.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.config.KafkaTopicLayoutVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class KafkaTopicLayoutVerifierTest {
+
+    private final KafkaAdmin kafkaAdmin = mock(KafkaAdmin.class);
+    private final KafkaTopicLayoutVerifier verifier = new KafkaTopicLayoutVerifier(kafkaAdmin);
+
+    @Test
+    void shouldAcceptDlqWithAsManyPartitionsAsSources() {
+        // Given
+        Map<String, TopicDescription> topics = Map.of(
+            KafkaTopicConfig.ORDERS_INPUT_TOPIC, topic(KafkaTopicConfig.ORDERS_INPUT_TOPIC, 3),
+            KafkaTopicConfig.ORDERS_DLQ_TOPIC, topic(KafkaTopicConfig.ORDERS_DLQ_TOPIC, 3));
+
+        // When & Then
+        assertDoesNotThrow(() -> verifier.verify(topics));
+    }
+
+    @Test
+    void shouldRejectDlqWithFewerPartitionsThanInput() {
+        // Given : orders-input agrandi hors de l'application
+        Map<String, TopicDescription> topics = Map.of(
+            KafkaTopicConfig.ORDERS_INPUT_TOPIC, topic(KafkaTopicConfig.ORDERS_INPUT_TOPIC, 6),
+            KafkaTopicConfig.ORDERS_DLQ_TOPIC, topic(KafkaTopicConfig.ORDERS_DLQ_TOPIC, 3));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> verifier.verify(topics));
+    }
+
+    @Test
+    void shouldRefuseToStartBeforeListenerContainers() {
+        // Given : DLQ trop petite pour orders-input
+        when(kafkaAdmin.describeTopics(any(String[].class))).thenReturn(Map.of(
+            KafkaTopicConfig.ORDERS_INPUT_TOPIC, topic(KafkaTopicConfig.ORDERS_INPUT_TOPIC, 6),
+            KafkaTopicConfig.ORDERS_DLQ_TOPIC, topic(KafkaTopicConfig.ORDERS_DLQ_TOPIC, 3)));
+
+        // When & Then : refus dans une phase antérieure à celle des listeners
+        assertTrue(verifier.getPhase() < AbstractMessageListenerContainer.DEFAULT_PHASE);
+        assertThrows(IllegalStateException.class, verifier::start);
+        assertFalse(verifier.isRunning());
+    }
+
+    @Test
+    void shouldStartWhenBrokerUnavailable() {
+        // Given
+        when(kafkaAdmin.describeTopics(any(String[].class))).thenThrow(new KafkaException("broker injoignable"));
+
+        // When
+        verifier.start();
+
+        // Then : vérification impossible, démarrage non bloqué
+        assertTrue(verifier.isRunning());
+    }
+
+    @Test
+    void shouldSizePartitionsFromTargetThroughput() {
+        assertEquals(1, KafkaTopicConfig.partitionsFor(0, 1000));
+        assertEquals(3, KafkaTopicConfig.partitionsFor(3000, 1000));
+        assertEquals(4, KafkaTopicConfig.partitionsFor(3001, 1000));
+    }
+
+    private static TopicDescription topic(String name, int partitions) {
+        Node node = new Node(0, "localhost", 9092);
+        List<TopicPartitionInfo> infos = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            infos.add(new TopicPartitionInfo(p, node, List.of(node), List.of(node)));
+        }
+        return new TopicDescription(name, false, infos);
+    }
+}
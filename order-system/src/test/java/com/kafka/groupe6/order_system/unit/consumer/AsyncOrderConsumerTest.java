@@ -0,0 +1,196 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.backoff.FixedBackOff;
+
+import com.kafka.groupe6.order_system.consumer.AsyncOrderConsumerService;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Tests unitaires du mode asynchrone.
+ *
+ * Tests couverts:
+ * - Le listener rend la main sans attendre les étapes stock/traitement
+ * - Commit du dernier offset contigu une fois les records terminés
+ * - Pause puis reprise d'une partition saturée
+ * - Erreur de validation envoyée en DLQ, offset libéré
+ */
+class AsyncOrderConsumerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders-input", 0);
+
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private DeadLetterPublishingRecoverer recoverer;
+    private MessageListenerContainer container;
+    private Consumer<?, ?> consumer;
+    private final Set<TopicPartition> paused = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        recoverer = mock(DeadLetterPublishingRecoverer.class);
+        consumer = mock(Consumer.class);
+
+        container = mock(MessageListenerContainer.class);
+        when(container.isPartitionPauseRequested(any())).thenAnswer(inv -> paused.contains(inv.getArgument(0)));
+        doAnswer(inv -> paused.add(inv.getArgument(0))).when(container).pausePartition(any());
+        doAnswer(inv -> paused.remove(inv.getArgument(0))).when(container).resumePartition(any());
+    }
+
+    @Test
+    @DisplayName("Doit rendre la main au poll avant la fin des traitements")
+    void shouldReturnBeforeStagesComplete() {
+        // Given : 20 commandes, chacune 100 à 300 ms de traitement
+        AsyncOrderConsumerService service = service(1000, "order-id");
+        List<ConsumerRecord<String, Order>> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(record(i, createOrder("ORDER-" + i, "CUST-" + i)));
+        }
+
+        // When
+        long start = System.nanoTime();
+        service.consumeOrders(records, consumer);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Then : pas d'attente sur le thread du listener, publication en parallèle
+        // (en synchrone : au moins 20 x 100 ms)
+        assertTrue(elapsedMs < 1000, "Le listener a bloqué " + elapsedMs + " ms");
+        verify(kafkaTemplate, timeout(2000).times(20)).send(processed(null));
+    }
+
+    @Test
+    @DisplayName("Doit commiter le dernier offset contigu terminé")
+    void shouldCommitOffsetsOnceRecordsComplete() {
+        // Given
+        AsyncOrderConsumerService service = service(1000, "order-id");
+        service.consumeOrders(List.of(
+            record(0, createOrder("ORDER-0", "CUST-0")),
+            record(1, createOrder("ORDER-1", "CUST-1"))), consumer);
+        verify(kafkaTemplate, timeout(2000).times(2)).send(processed(null));
+
+        // When & Then : polls suivants (vides)
+        awaitCommit(service, 2);
+    }
+
+    @Test
+    @DisplayName("Doit mettre en pause une partition saturée puis la reprendre")
+    void shouldPauseSaturatedPartitionAndResume() {
+        // Given : au plus 2 records en cours par partition
+        AsyncOrderConsumerService service = service(2, "order-id");
+
+        // When
+        service.consumeOrders(List.of(
+            record(0, createOrder("ORDER-0", "CUST-0")),
+            record(1, createOrder("ORDER-1", "CUST-1")),
+            record(2, createOrder("ORDER-2", "CUST-2"))), consumer);
+
+        // Then
+        verify(container).pausePartition(PARTITION);
+        verify(container, timeout(2000)).resumePartition(PARTITION);
+    }
+
+    @Test
+    @DisplayName("Doit envoyer une commande invalide en DLQ sans bloquer l'offset")
+    void shouldRecoverValidationErrorAndReleaseOffset() {
+        // Given
+        AsyncOrderConsumerService service = service(1000, "customer-id");
+        Order invalid = createOrder("ORDER-0", "CUST-0");
+        invalid.setTotalAmount(-1);
+
+        // When
+        service.consumeOrders(List.of(record(0, invalid)), consumer);
+
+        // Then
+        verify(recoverer, timeout(2000)).accept(any(), any(OrderValidationException.class));
+        awaitCommit(service, 1);
+    }
+
+    private AsyncOrderConsumerService service(int maxInFlightPerPartition, String orderingKey) {
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(AsyncOrderConsumerService.LISTENER_ID)).thenReturn(container);
+        return new AsyncOrderConsumerService(
+            OrderTestFixtures.consumerService(kafkaTemplate, OrderTestFixtures.inventory(1_000_000)),
+            recoverer,
+            new FixedBackOff(10L, 1L),
+            registry,
+            maxInFlightPerPartition,
+            orderingKey);
+    }
+
+    /**
+     * L'offset est libéré juste après l'ack: quelques polls vides peuvent être nécessaires.
+     * Le consumer simulé ne confirme pas le commit: l'offset est proposé à chaque poll.
+     */
+    private void awaitCommit(AsyncOrderConsumerService service, long expectedOffset) {
+        Map<TopicPartition, OffsetAndMetadata> expected = Map.of(PARTITION, new OffsetAndMetadata(expectedOffset));
+        AssertionError lastError = null;
+        for (int i = 0; i < 50; i++) {
+            service.consumeOrders(List.of(), consumer);
+            try {
+                verify(consumer, atLeastOnce()).commitAsync(eq(expected), any());
+                return;
+            } catch (AssertionError notYet) {
+                lastError = notYet;
+                sleep(20);
+            }
+        }
+        throw lastError;
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ConsumerRecord<String, Order> record(long offset, Order order) {
+        return new ConsumerRecord<>("orders-input", 0, offset, order.getCustomerId(), order);
+    }
+
+    private static Order createOrder(String id, String customerId) {
+        return new Order(id, customerId, List.of("Laptop"), 99.99, "PENDING", System.currentTimeMillis());
+    }
+
+    // Record publié sur 'orders-processed' (toute clé si orderId est null)
+    private static ProducerRecord<String, Object> processed(String orderId) {
+        return argThat(record -> record != null && "orders-processed".equals(record.topic())
+            && (orderId == null || orderId.equals(record.key())));
+    }
+}
@@ -1,22 +1,31 @@
 package com.kafka.groupe6.order_system.unit.consumer;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import com.kafka.groupe6.order_system.consumer.DLQConsumerService;
 import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+import com.kafka.groupe6.order_system.serialization.OrderSerializer;
 
-@ExtendWith(MockitoExtension.class)
 class DLQConsumerTest {
 
-    @InjectMocks
+    private SimpleMeterRegistry registry;
     private DLQConsumerService dlqConsumerService;
 
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        dlqConsumerService = new DLQConsumerService(new OrderPipelineMetrics(registry));
+    }
+
     @Test
     void shouldConsumeDLQMessageWithoutError() {
 
@@ -31,13 +40,13 @@ class DLQConsumerTest {
         );
 
         // 2️⃣ Créer un ConsumerRecord Kafka (simulation DLQ)
-        ConsumerRecord<String, Order> record =
+        ConsumerRecord<String, byte[]> record =
                 new ConsumerRecord<>(
                         "orders-dlq", // topic
                         0,            // partition
                         0L,           // offset
                         "99",          // key
-                        order          // value
+                        new OrderSerializer(List.of()).serialize("orders-dlq", order) // value (octets bruts)
                 );
 
         // 3️⃣ Appel de la méthode réelle
@@ -45,4 +54,32 @@ class DLQConsumerTest {
 
         // ✅ Test réussi si aucune exception n’est levée
     }
+
+    @Test
+    void shouldCountDLQMessagesByExceptionClass() {
+        Order order = new Order("98", "C98", List.of("Item"), 100.0, "ERROR", System.currentTimeMillis());
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("orders-dlq", 0, 1L, "98",
+                new OrderSerializer(List.of()).serialize("orders-dlq", order));
+        record.headers().add("kafka_dlt-exception-fqcn",
+                "com.kafka.groupe6.order_system.exception.StockUnavailableException".getBytes(StandardCharsets.UTF_8));
+
+        dlqConsumerService.consumeDLQMessage(record);
+        dlqConsumerService.consumeDLQMessage(new ConsumerRecord<>("orders-dlq", 0, 2L, "97", null));
+
+        assertEquals(1, registry.get("orders.dlq.routed").tag("exception", "StockUnavailableException").counter().count());
+        assertEquals(1, registry.get("orders.dlq.routed").tag("exception", "unknown").counter().count());
+    }
+
+    @Test
+    void shouldConsumeUnreadablePayloadAsRawBytes() {
+        // Poison pill: JSON tronqué, transmis tel quel par l'ErrorHandlingDeserializer
+        byte[] payload = "{\"id\": \"96\", \"customerId\": ".getBytes(StandardCharsets.UTF_8);
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("orders-dlq", 0, 3L, "96", payload);
+        record.headers().add("kafka_dlt-exception-fqcn",
+                "org.springframework.kafka.support.serializer.DeserializationException".getBytes(StandardCharsets.UTF_8));
+
+        dlqConsumerService.consumeDLQMessage(record);
+
+        assertEquals(1, registry.get("orders.dlq.routed").tag("exception", "DeserializationException").counter().count());
+    }
 }
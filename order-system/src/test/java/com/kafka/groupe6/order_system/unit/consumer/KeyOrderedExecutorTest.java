@@ -0,0 +1,58 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.consumer.KeyOrderedExecutor;
+
+/**
+ * Tests unitaires de KeyOrderedExecutor (ordre conservé par clé).
+ */
+class KeyOrderedExecutorTest {
+
+    @Test
+    @DisplayName("Doit exécuter les tâches d'une même clé dans l'ordre de soumission")
+    void shouldPreserveOrderPerKey() {
+        Map<String, List<Integer>> executionOrder = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try (KeyOrderedExecutor executor = new KeyOrderedExecutor("test-lane-", 4)) {
+            for (int i = 0; i < 200; i++) {
+                String key = "CUSTOMER-" + (i % 10);
+                int sequence = i;
+                futures.add(executor.submit(key, () -> {
+                    // Durées variables pour provoquer des entrelacements entre voies
+                    sleepMicros(ThreadLocalRandom.current().nextInt(200));
+                    executionOrder
+                        .computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(sequence);
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+
+        assertEquals(10, executionOrder.size());
+        executionOrder.values().forEach(sequences -> {
+            List<Integer> sorted = new ArrayList<>(sequences);
+            Collections.sort(sorted);
+            assertEquals(sorted, sequences);
+        });
+    }
+
+    private static void sleepMicros(long micros) {
+        try {
+            Thread.sleep(0, (int) Math.min(micros * 1000, 999_999));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.consumer.OffsetTracker;
+
+/**
+ * Tests unitaires de OffsetTracker (commit du dernier offset contigu terminé).
+ */
+class OffsetTrackerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders-input", 0);
+
+    @Test
+    @DisplayName("Ne doit pas avancer l'offset tant qu'un record précédent est en cours")
+    void shouldOnlyCommitContiguousCompletedOffsets() {
+        OffsetTracker tracker = new OffsetTracker();
+        for (long offset = 10; offset <= 14; offset++) {
+            tracker.register(PARTITION, offset);
+        }
+
+        // 11 et 12 terminent avant 10: rien n'est commitable
+        tracker.complete(PARTITION, 11);
+        tracker.complete(PARTITION, 12);
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.committableOffsets();
+        assertEquals(10, offsets.get(PARTITION).offset());
+
+        // 10 termine: on peut commiter jusqu'à 13 (prochain offset à lire)
+        tracker.complete(PARTITION, 10);
+        offsets = tracker.committableOffsets();
+        assertEquals(13, offsets.get(PARTITION).offset());
+        assertEquals(2, tracker.inFlight(PARTITION));
+    }
+
+    @Test
+    @DisplayName("Doit commiter après le dernier offset quand tout est terminé")
+    void shouldCommitPastLastOffsetWhenAllCompleted() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.register(PARTITION, 0);
+        tracker.register(PARTITION, 1);
+        tracker.complete(PARTITION, 1);
+        tracker.complete(PARTITION, 0);
+
+        assertEquals(2, tracker.committableOffsets().get(PARTITION).offset());
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    @DisplayName("Ne doit renvoyer que les partitions ayant progressé depuis le dernier commit confirmé")
+    void shouldNotReturnUnchangedOffsetsTwice() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.register(PARTITION, 5);
+        tracker.complete(PARTITION, 5);
+
+        // Commit non confirmé (échec ou callback pas encore reçu): offset proposé à nouveau
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.committableOffsets();
+        assertEquals(6, offsets.get(PARTITION).offset());
+        assertEquals(offsets, tracker.committableOffsets());
+
+        tracker.committed(offsets);
+        assertTrue(tracker.committableOffsets().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Ne doit compter qu'une fois un offset enregistré ou terminé en double")
+    void shouldCountInFlightOnceForDuplicateRegisterOrComplete() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.register(PARTITION, 7);
+        tracker.register(PARTITION, 7);
+        tracker.register(PARTITION, 8);
+        assertEquals(2, tracker.inFlight(PARTITION));
+
+        // Deuxième complete du même offset (ex: DLQ après un échec déjà compté)
+        tracker.complete(PARTITION, 7);
+        tracker.complete(PARTITION, 7);
+        tracker.complete(new TopicPartition("orders-input", 1), 8);
+
+        assertEquals(1, tracker.inFlight(PARTITION));
+        assertEquals(1, tracker.inFlight());
+        assertEquals(8, tracker.committableOffsets().get(PARTITION).offset());
+    }
+
+    @Test
+    @DisplayName("Doit oublier les partitions révoquées")
+    void shouldForgetRevokedPartitions() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.register(PARTITION, 1);
+
+        tracker.remove(List.of(PARTITION));
+
+        assertEquals(0, tracker.inFlight());
+        assertTrue(tracker.committableOffsets().isEmpty());
+    }
+}
@@ -0,0 +1,273 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import com.kafka.groupe6.order_system.consumer.OrderConsumerService;
+import com.kafka.groupe6.order_system.dedup.OrderDeduplicator;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.serialization.OrderDeserializer;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Tests unitaires du mode batch de OrderConsumerService.
+ *
+ * Tests couverts:
+ * - Publication groupée d'un lot valide
+ * - Échec partiel: seul le record fautif est signalé à l'error handler
+ * - Publication en échec au milieu du lot: stock rendu pour la seule commande non
+ *   publiée, commandes acquittées non republiées à la relivraison
+ * - Message illisible (poison pill), rejeté par la pré-validation ou sans valeur (tombstone)
+ *   signalé comme record invalide
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderBatchConsumerTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private OrderConsumerService consumerService;
+
+    @BeforeEach
+    void setUp() {
+        consumerService = OrderTestFixtures.consumerService(kafkaTemplate, OrderTestFixtures.inventory(1_000_000));
+    }
+
+    @Test
+    @DisplayName("Doit traiter et publier tout un lot valide")
+    void shouldProcessAndPublishWholeBatch() {
+        // Given
+        List<ConsumerRecord<String, Order>> records = records(
+            createOrder("ORDER-1"), createOrder("ORDER-2"), createOrder("ORDER-3"));
+        mockKafkaTemplateSend();
+
+        // When & Then
+        assertDoesNotThrow(() -> consumerService.consumeOrderBatch(records));
+
+        verify(kafkaTemplate, times(3)).send(processed(null));
+        records.forEach(record -> assertEquals("COMPLETED", record.value().getStatus()));
+    }
+
+    @Test
+    @DisplayName("Doit signaler l'index du premier record invalide et publier ceux qui précèdent")
+    void shouldReportFirstInvalidRecordIndex() {
+        // Given : le deuxième record est invalide (montant négatif)
+        Order invalid = createOrder("ORDER-2");
+        invalid.setTotalAmount(-5.0);
+        List<ConsumerRecord<String, Order>> records = records(
+            createOrder("ORDER-1"), invalid, createOrder("ORDER-3"));
+        mockKafkaTemplateSend();
+
+        // When
+        BatchListenerFailedException exception = assertThrows(
+            BatchListenerFailedException.class,
+            () -> consumerService.consumeOrderBatch(records)
+        );
+
+        // Then : seul ORDER-1 est publié, ORDER-3 sera relivré par l'error handler
+        assertEquals(1, exception.getIndex());
+        assertTrue(exception.getCause() instanceof OrderValidationException);
+        verify(kafkaTemplate, times(1)).send(processed("ORDER-1"));
+        verify(kafkaTemplate, never()).send(processed("ORDER-3"));
+    }
+
+    @Test
+    @DisplayName("Ne doit rien publier si le premier record est invalide")
+    void shouldNotPublishWhenFirstRecordIsInvalid() {
+        // Given
+        Order invalid = createOrder("ORDER-1");
+        invalid.setCustomerId(null);
+        List<ConsumerRecord<String, Order>> records = records(invalid, createOrder("ORDER-2"));
+
+        // When
+        BatchListenerFailedException exception = assertThrows(
+            BatchListenerFailedException.class,
+            () -> consumerService.consumeOrderBatch(records)
+        );
+
+        // Then
+        assertEquals(0, exception.getIndex());
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @DisplayName("Doit signaler un message illisible comme record invalide")
+    void shouldReportUnreadableRecordAsInvalid() {
+        // Given : valeur null + header d'échec posé par l'ErrorHandlingDeserializer
+        List<ConsumerRecord<String, Order>> records = records(createOrder("ORDER-1"), createOrder("ORDER-2"));
+        ConsumerRecord<String, Order> poisonPill = new ConsumerRecord<>("orders-input", 0, 1L, "ORDER-2", null);
+        SerializationUtils.deserializationException(poisonPill.headers(), "{oops".getBytes(StandardCharsets.UTF_8),
+            new IllegalStateException("JSON invalide"), false);
+        records.set(1, poisonPill);
+        mockKafkaTemplateSend();
+
+        // When
+        BatchListenerFailedException exception = assertThrows(
+            BatchListenerFailedException.class,
+            () -> consumerService.consumeOrderBatch(records)
+        );
+
+        // Then : non retriable, la cause d'origine est conservée
+        assertEquals(1, exception.getIndex());
+        assertTrue(exception.getCause() instanceof OrderValidationException);
+        assertTrue(exception.getCause().getCause() instanceof DeserializationException);
+        verify(kafkaTemplate, times(1)).send(processed("ORDER-1"));
+    }
+
+    @Test
+    @DisplayName("Doit signaler un record rejeté par la pré-validation")
+    void shouldReportPreValidationRejection() {
+        // Given : commande sans article, jamais construite par le deserializer
+        byte[] payload = "{\"id\":\"ORDER-2\",\"customerId\":\"C1\",\"items\":[],\"totalAmount\":10}"
+            .getBytes(StandardCharsets.UTF_8);
+        ConsumerRecord<String, Order> rejected = new ConsumerRecord<>("orders-input", 0, 1L, "ORDER-2", null);
+        assertNull(new OrderDeserializer(null, true).deserialize("orders-input", rejected.headers(), payload));
+        List<ConsumerRecord<String, Order>> records = records(createOrder("ORDER-1"), createOrder("ORDER-3"));
+        records.add(1, rejected);
+        mockKafkaTemplateSend();
+
+        // When
+        BatchListenerFailedException exception = assertThrows(
+            BatchListenerFailedException.class,
+            () -> consumerService.consumeOrderBatch(records)
+        );
+
+        // Then
+        assertEquals(1, exception.getIndex());
+        OrderValidationException cause = (OrderValidationException) exception.getCause();
+        assertEquals("ORDER-2", cause.getOrderId());
+        verify(kafkaTemplate, times(1)).send(processed("ORDER-1"));
+    }
+
+    @Test
+    @DisplayName("Doit signaler un record sans valeur comme record invalide")
+    void shouldReportTombstoneAsInvalid() {
+        // Given : valeur null sans header d'erreur (tombstone)
+        List<ConsumerRecord<String, Order>> records = records(createOrder("ORDER-1"), createOrder("ORDER-3"));
+        records.add(1, new ConsumerRecord<>("orders-input", 0, 1L, "ORDER-2", null));
+        mockKafkaTemplateSend();
+
+        // When
+        BatchListenerFailedException exception = assertThrows(
+            BatchListenerFailedException.class,
+            () -> consumerService.consumeOrderBatch(records)
+        );
+
+        // Then : non retriable, les records précédents sont publiés
+        assertEquals(1, exception.getIndex());
+        assertTrue(exception.getCause() instanceof OrderValidationException);
+        verify(kafkaTemplate, times(1)).send(processed("ORDER-1"));
+    }
+
+    @Test
+    @DisplayName("Doit rendre le stock des seules commandes non publiées et ne pas republier les autres")
+    void shouldReleaseOnlyUnpublishedOrdersWhenPublishFailsMidBatch(@TempDir Path directory) throws IOException {
+        // Given : publication de ORDER-2 en échec, ORDER-1 et ORDER-3 acquittées
+        InventoryService inventory = OrderTestFixtures.inventory(100);
+        OrderDeduplicator deduplicator = OrderTestFixtures.deduplicator(directory);
+        OrderConsumerService service = OrderTestFixtures.consumerService(kafkaTemplate, inventory, deduplicator);
+        AtomicBoolean brokerDown = new AtomicBoolean(true);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<?, ?> record = invocation.getArgument(0);
+            return brokerDown.get() && "ORDER-2".equals(record.key())
+                ? CompletableFuture.failedFuture(new IllegalStateException("broker indisponible"))
+                : CompletableFuture.completedFuture(null);
+        });
+        List<ConsumerRecord<String, Order>> records = records(
+            createOrder("ORDER-1"), createOrder("ORDER-2"), createOrder("ORDER-3"));
+
+        // When
+        BatchListenerFailedException exception = assertThrows(
+            BatchListenerFailedException.class,
+            () -> service.consumeOrderBatch(records)
+        );
+
+        // Then : seule ORDER-2 est relivrée comme fautive, son stock est rendu
+        assertEquals(1, exception.getIndex());
+        assertEquals(98, inventory.available("Laptop"));
+        assertTrue(deduplicator.isDuplicate("ORDER-3"));
+        assertFalse(deduplicator.isDuplicate("ORDER-2"));
+
+        // When : relivraison de la suite du lot, publication rétablie
+        brokerDown.set(false);
+        service.consumeOrderBatch(new ArrayList<>(records.subList(1, 3)));
+
+        // Then : ORDER-3 n'est ni republiée ni réservée une seconde fois
+        verify(kafkaTemplate, times(1)).send(processed("ORDER-3"));
+        verify(kafkaTemplate, times(2)).send(processed("ORDER-2"));
+        assertEquals(97, inventory.available("Laptop"));
+        deduplicator.close();
+    }
+
+    // ==================== HELPERS ====================
+
+    private Order createOrder(String id) {
+        return new Order(
+            id,
+            "CUSTOMER-001",
+            Arrays.asList("Laptop", "Mouse"),
+            99.99,
+            "PENDING",
+            System.currentTimeMillis()
+        );
+    }
+
+    private List<ConsumerRecord<String, Order>> records(Order... orders) {
+        List<ConsumerRecord<String, Order>> records = new ArrayList<>();
+        for (int i = 0; i < orders.length; i++) {
+            records.add(new ConsumerRecord<>("orders-input", 0, i, orders[i].getId(), orders[i]));
+        }
+        return records;
+    }
+
+    private void mockKafkaTemplateSend() {
+        CompletableFuture<SendResult<String, Object>> future =
+            CompletableFuture.completedFuture(null);
+
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(future);
+    }
+
+    // Record publié sur 'orders-processed' (toute clé si orderId est null)
+    private static ProducerRecord<String, Object> processed(String orderId) {
+        return argThat(record -> record != null && "orders-processed".equals(record.topic())
+            && (orderId == null || orderId.equals(record.key())));
+    }
+}
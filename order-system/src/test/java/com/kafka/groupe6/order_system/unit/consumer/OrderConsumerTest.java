@@ -1,8 +1,13 @@
 package com.kafka.groupe6.order_system.unit.consumer;
 
+import org.apache.kafka.clients.producer.ProducerRecord;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -12,22 +17,32 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 
 import com.kafka.groupe6.order_system.consumer.OrderConsumerService;
+import com.kafka.groupe6.order_system.consumer.OrderStageExecutors;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
 import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.exception.StockUnavailableException;
 import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
 
 /**
  * Tests unitaires pour OrderConsumerService.
@@ -38,6 +53,10 @@ import com.kafka.groupe6.order_system.model.Order;
  * - Traitement réussi d'une commande valide
  * - Validation des commandes (montant, items, IDs)
  * - Publication vers 'orders-processed'
+ * - Réservation du stock (rupture réelle, rendu si la publication échoue)
+ * - Commandes relivrées ignorées, sauf si leur publication avait échoué
+ * - Durée de chaque étape et latence d'ack mesurées
+ * - Instant d'ingestion recopié sur 'orders-processed', latence de bout en bout par partition
  * - Gestion des erreurs
  */
 @ExtendWith(MockitoExtension.class)
@@ -46,12 +65,13 @@ class OrderConsumerTest {
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    private InventoryService inventoryService;
     private OrderConsumerService consumerService;
 
     @BeforeEach
     void setUp() {
-        // Désactiver les échecs de stock aléatoires pour les tests
-        consumerService = new OrderConsumerService(kafkaTemplate, false);
+        inventoryService = OrderTestFixtures.inventory(1_000);
+        consumerService = OrderTestFixtures.consumerService(kafkaTemplate, inventoryService);
     }
 
     // ==================== TESTS DE TRAITEMENT RÉUSSI ====================
@@ -65,12 +85,12 @@ class OrderConsumerTest {
 
         // When & Then - Pas d'exception
         assertDoesNotThrow(() -> 
-            consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis())
+            consumerService.consumeOrder(order, 0, 0L)
         );
 
         // Vérifier que la commande a été publiée vers 'orders-processed'
         verify(kafkaTemplate, times(1))
-            .send(eq("orders-processed"), eq(order.getId()), any(Order.class));
+            .send(processed(order.getId()));
     }
 
     @Test
@@ -82,7 +102,7 @@ class OrderConsumerTest {
         mockKafkaTemplateSend();
 
         // When
-        consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis());
+        consumerService.consumeOrder(order, 0, 0L);
 
         // Then
         assertEquals("COMPLETED", order.getStatus());
@@ -100,7 +120,7 @@ class OrderConsumerTest {
         // When & Then
         OrderValidationException exception = assertThrows(
             OrderValidationException.class,
-            () -> consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis())
+            () -> consumerService.consumeOrder(order, 0, 0L)
         );
 
         assertTrue(exception.getMessage().contains("obligatoire"));
@@ -116,7 +136,7 @@ class OrderConsumerTest {
         // When & Then
         OrderValidationException exception = assertThrows(
             OrderValidationException.class,
-            () -> consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis())
+            () -> consumerService.consumeOrder(order, 0, 0L)
         );
 
         assertTrue(exception.getMessage().contains("client"));
@@ -132,12 +152,29 @@ class OrderConsumerTest {
         // When & Then
         OrderValidationException exception = assertThrows(
             OrderValidationException.class,
-            () -> consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis())
+            () -> consumerService.consumeOrder(order, 0, 0L)
         );
 
         assertTrue(exception.getMessage().contains("article"));
     }
 
+    @Test
+    @DisplayName("Doit rejeter une commande avec un article null (non retriable)")
+    void shouldRejectOrderWithNullItem() {
+        // Given
+        Order order = createValidOrder();
+        order.setItems(Arrays.asList("Laptop", null));
+
+        // When & Then : DLQ directe plutôt qu'une rupture de stock rejouée
+        OrderValidationException exception = assertThrows(
+            OrderValidationException.class,
+            () -> consumerService.consumeOrder(order, 0, 0L)
+        );
+
+        assertTrue(exception.getMessage().contains("null"));
+        assertEquals(1_000, inventoryService.available("Laptop"));
+    }
+
     @Test
     @DisplayName("Doit rejeter une commande avec montant négatif")
     void shouldRejectOrderWithNegativeAmount() {
@@ -148,7 +185,7 @@ class OrderConsumerTest {
         // When & Then
         OrderValidationException exception = assertThrows(
             OrderValidationException.class,
-            () -> consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis())
+            () -> consumerService.consumeOrder(order, 0, 0L)
         );
 
         assertTrue(exception.getMessage().contains("minimum"));
@@ -164,7 +201,7 @@ class OrderConsumerTest {
         // When & Then
         OrderValidationException exception = assertThrows(
             OrderValidationException.class,
-            () -> consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis())
+            () -> consumerService.consumeOrder(order, 0, 0L)
         );
 
         assertTrue(exception.getMessage().contains("maximum"));
@@ -180,7 +217,7 @@ class OrderConsumerTest {
 
         // When & Then
         assertDoesNotThrow(() -> 
-            consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis())
+            consumerService.consumeOrder(order, 0, 0L)
         );
     }
 
@@ -194,7 +231,7 @@ class OrderConsumerTest {
 
         // When & Then
         assertDoesNotThrow(() -> 
-            consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis())
+            consumerService.consumeOrder(order, 0, 0L)
         );
     }
 
@@ -208,14 +245,161 @@ class OrderConsumerTest {
         mockKafkaTemplateSend();
 
         // When
-        consumerService.consumeOrder(order, 0, 0L, System.currentTimeMillis());
+        consumerService.consumeOrder(order, 0, 0L);
+
+        // Then
+        verify(kafkaTemplate).send(argThat((ProducerRecord<String, Object> record) ->
+            "orders-processed".equals(record.topic())
+                && order.getId().equals(record.key())
+                && record.value() instanceof Order
+                && "COMPLETED".equals(((Order) record.value()).getStatus())
+        ));
+    }
+
+    // ==================== TESTS DE STOCK ====================
+
+    @Test
+    @DisplayName("Doit réserver le stock des articles de la commande")
+    void shouldReserveStockForOrderItems() {
+        // Given
+        mockKafkaTemplateSend();
+        inventoryService.setStock(Map.of("Laptop", 5L, "Mouse", 5L, "Keyboard", 5L));
+
+        // When
+        consumerService.consumeOrder(createValidOrder(), 0, 0L);
 
         // Then
-        verify(kafkaTemplate).send(
-            eq("orders-processed"),
-            eq(order.getId()),
-            argThat(o -> o instanceof Order && "COMPLETED".equals(((Order) o).getStatus()))
+        assertEquals(4, inventoryService.available("Laptop"));
+        assertEquals(4, inventoryService.available("Mouse"));
+        assertEquals(4, inventoryService.available("Keyboard"));
+    }
+
+    @Test
+    @DisplayName("Doit lever StockUnavailableException en cas de rupture réelle")
+    void shouldThrowStockUnavailableOnShortage() {
+        // Given : plus de claviers
+        inventoryService.setStock(Map.of("Laptop", 5L, "Mouse", 5L, "Keyboard", 0L));
+        Order order = createValidOrder();
+
+        // When & Then : rien n'est réservé, rien n'est publié
+        StockUnavailableException exception = assertThrows(
+            StockUnavailableException.class,
+            () -> consumerService.consumeOrder(order, 0, 0L)
         );
+        assertEquals("Keyboard", exception.getItem());
+        assertEquals(5, inventoryService.available("Laptop"));
+        assertEquals(5, inventoryService.available("Mouse"));
+        verify(kafkaTemplate, times(0)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @DisplayName("Doit rendre le stock si la publication échoue")
+    void shouldReleaseStockWhenPublishFails() {
+        // Given
+        inventoryService.setStock(Map.of("Laptop", 5L, "Mouse", 5L, "Keyboard", 5L));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker indisponible")));
+
+        // When
+        consumerService.consumeOrder(createValidOrder(), 0, 0L);
+
+        // Then
+        assertEquals(5, inventoryService.available("Laptop"));
+        assertEquals(5, inventoryService.available("Keyboard"));
+    }
+
+    // ==================== TESTS DE DÉDUPLICATION ====================
+
+    @Test
+    @DisplayName("Doit ignorer une commande relivrée après sa publication")
+    void shouldSkipRedeliveredOrder(@TempDir Path directory) throws IOException {
+        // Given
+        mockKafkaTemplateSend();
+        OrderConsumerService service =
+            OrderTestFixtures.consumerService(kafkaTemplate, inventoryService,
+                OrderTestFixtures.deduplicator(directory));
+        inventoryService.setStock(Map.of("Laptop", 5L, "Mouse", 5L, "Keyboard", 5L));
+
+        // When : même commande livrée deux fois
+        service.consumeOrder(createValidOrder(), 0, 0L);
+        service.consumeOrder(createValidOrder(), 0, 0L);
+
+        // Then : une seule publication, une seule réservation
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        assertEquals(4, inventoryService.available("Laptop"));
+    }
+
+    @Test
+    @DisplayName("Doit retraiter une commande dont la publication a échoué")
+    void shouldReprocessOrderWhosePublishFailed(@TempDir Path directory) throws IOException {
+        // Given : premier envoi en échec, second réussi
+        OrderConsumerService service =
+            OrderTestFixtures.consumerService(kafkaTemplate, inventoryService,
+                OrderTestFixtures.deduplicator(directory));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker indisponible")))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        // When
+        service.consumeOrder(createValidOrder(), 0, 0L);
+        service.consumeOrder(createValidOrder(), 0, 0L);
+
+        // Then : la commande non publiée n'est pas un doublon
+        verify(kafkaTemplate, times(2)).send(any(ProducerRecord.class));
+    }
+
+    // ==================== TESTS DES MÉTRIQUES ====================
+
+    @Test
+    @DisplayName("Doit mesurer chaque étape et la latence d'ack")
+    void shouldRecordStageMetrics() {
+        // Given
+        mockKafkaTemplateSend();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderConsumerService service = new OrderConsumerService(kafkaTemplate, inventoryService,
+            OrderTestFixtures.noDeduplication(), new OrderPipelineMetrics(registry), OrderTestFixtures.latencyTracker(),
+            OrderTestFixtures.eventLog(), OrderStageExecutors.inline());
+
+        // When : une commande traitée, une commande invalide
+        service.consumeOrder(createValidOrder(), 0, 0L);
+        Order invalid = createValidOrder();
+        invalid.setTotalAmount(0);
+        assertThrows(OrderValidationException.class,
+            () -> service.consumeOrder(invalid, 0, 1L));
+
+        // Then : la validation en échec est mesurée, les étapes suivantes non
+        assertEquals(2, registry.get("orders.stage.duration").tag("stage", "validate").timer().count());
+        assertEquals(1, registry.get("orders.stage.duration").tag("stage", "stock").timer().count());
+        assertEquals(1, registry.get("orders.stage.duration").tag("stage", "process").timer().count());
+        assertTrue(registry.get("orders.stage.duration").tag("stage", "process").timer()
+            .totalTime(TimeUnit.MILLISECONDS) >= 100);
+        assertEquals(1, registry.get("orders.publish.ack").tag("result", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Doit recopier l'instant d'ingestion et mesurer la latence de bout en bout")
+    void shouldPropagateIngestTimeAndRecordEndToEndLatency() {
+        // Given : commande acceptée il y a 500 ms, lue sur la partition 2
+        mockKafkaTemplateSend();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderConsumerService service = new OrderConsumerService(kafkaTemplate, inventoryService,
+            OrderTestFixtures.noDeduplication(), OrderTestFixtures.pipelineMetrics(),
+            OrderTestFixtures.latencyTracker(registry),
+            OrderTestFixtures.eventLog(), OrderStageExecutors.inline());
+        long ingestTime = System.currentTimeMillis() - 500;
+        ConsumerRecord<String, Order> record = new ConsumerRecord<>("orders-input", 2, 7L, "CUSTOMER-001", createValidOrder());
+        OrderLatencyTracker.addIngestTime(record.headers(), ingestTime);
+
+        // When
+        service.consumeOrder(record);
+
+        // Then : header conservé sur 'orders-processed', attente et bout en bout ≥ 500 ms
+        verify(kafkaTemplate).send(argThat((ProducerRecord<String, Object> published) ->
+            OrderLatencyTracker.ingestTime(published.headers()) == ingestTime));
+        assertTrue(registry.get("orders.latency.queue-wait").tag("partition", "2").timer()
+            .totalTime(TimeUnit.MILLISECONDS) >= 500);
+        assertTrue(registry.get("orders.latency.end-to-end").tag("partition", "2").timer()
+            .totalTime(TimeUnit.MILLISECONDS) >= 600);
     }
 
     // ==================== HELPERS ====================
@@ -236,15 +420,22 @@ class OrderConsumerTest {
         org.apache.kafka.clients.producer.RecordMetadata metadata = mock(
             org.apache.kafka.clients.producer.RecordMetadata.class
         );
-        when(metadata.topic()).thenReturn("orders-processed");
-        when(metadata.partition()).thenReturn(0);
-        when(metadata.offset()).thenReturn(0L);
-        when(sendResult.getRecordMetadata()).thenReturn(metadata);
+        // Lus seulement quand les logs DEBUG sont actifs
+        lenient().when(metadata.topic()).thenReturn("orders-processed");
+        lenient().when(metadata.partition()).thenReturn(0);
+        lenient().when(metadata.offset()).thenReturn(0L);
+        lenient().when(sendResult.getRecordMetadata()).thenReturn(metadata);
         
         CompletableFuture<SendResult<String, Object>> future = 
             CompletableFuture.completedFuture(sendResult);
         
-        when(kafkaTemplate.send(anyString(), anyString(), any()))
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
             .thenReturn(future);
     }
-}
\ No newline at end of file
+
+    // Record publié sur 'orders-processed' (toute clé si orderId est null)
+    private static ProducerRecord<String, Object> processed(String orderId) {
+        return argThat(record -> record != null && "orders-processed".equals(record.topic())
+            && (orderId == null || orderId.equals(record.key())));
+    }
+}
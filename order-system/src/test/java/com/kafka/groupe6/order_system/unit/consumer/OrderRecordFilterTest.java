@@ -0,0 +1,99 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.kafka.groupe6.order_system.consumer.OrderRecordFilter;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderPipelineMetrics;
+import com.kafka.groupe6.order_system.producer.OrderProducerService;
+import com.kafka.groupe6.order_system.serialization.OrderDeserializer;
+import com.kafka.groupe6.order_system.serialization.OrderSerializer;
+
+/**
+ * Tests unitaires du filtrage des records sur leurs headers de routage.
+ *
+ * Tests couverts:
+ * - Statut terminal, type rejoué ou de test, tenant bloqué: record écarté et compté par règle
+ * - Record sans headers de routage ou de type standard: traité
+ * - Valeur d'un record écarté non décodée par OrderDeserializer
+ */
+class OrderRecordFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OrderRecordFilter filter = new OrderRecordFilter(
+        new String[] {"COMPLETED", "FAILED"}, new String[] {"Replay", " test"}, new String[] {"tenant-x"},
+        new OrderPipelineMetrics(registry));
+
+    @Test
+    @DisplayName("Doit écarter les records sur leurs headers et compter par règle")
+    void shouldFilterOnHeadersAndCountPerRule() {
+        assertTrue(filter.filter(record(OrderProducerService.STATUS_HEADER, "COMPLETED")));
+        assertTrue(filter.filter(record(OrderProducerService.STATUS_HEADER, "FAILED")));
+        assertTrue(filter.filter(record(OrderProducerService.TYPE_HEADER, OrderProducerService.TYPE_REPLAY)));
+        assertTrue(filter.filter(record(OrderProducerService.TYPE_HEADER, OrderProducerService.TYPE_TEST)));
+        assertTrue(filter.filter(record(OrderProducerService.TENANT_HEADER, "tenant-x")));
+
+        assertEquals(2, count(OrderRecordFilter.RULE_TERMINAL_STATUS));
+        assertEquals(1, count(OrderProducerService.TYPE_REPLAY));
+        assertEquals(1, count(OrderProducerService.TYPE_TEST));
+        assertEquals(1, count(OrderRecordFilter.RULE_TENANT));
+    }
+
+    @Test
+    @DisplayName("Doit traiter les records sans headers de routage ou à router normalement")
+    void shouldKeepRecordsWithoutMatchingHeaders() {
+        assertFalse(filter.filter(record(OrderProducerService.STATUS_HEADER, "PENDING")));
+        assertFalse(filter.filter(record(OrderProducerService.TYPE_HEADER, OrderProducerService.TYPE_STANDARD)));
+        assertFalse(filter.filter(record(OrderProducerService.TENANT_HEADER, "tenant-a")));
+        assertFalse(filter.filter(new ConsumerRecord<>("orders-input", 0, 0L, "C1", null)));
+
+        assertNull(registry.find(OrderPipelineMetrics.FILTERED).counter());
+    }
+
+    @Test
+    @DisplayName("Ne doit pas décoder la valeur d'un record écarté")
+    void shouldSkipDecodingOfFilteredRecord() {
+        Order order = new Order("O1", "C1", List.of("A"), 10.0, "COMPLETED", 1L);
+        byte[] payload = new OrderSerializer(List.of()).serialize("orders-input", order);
+        OrderDeserializer deserializer = new OrderDeserializer(null, true, filter::matches);
+        deserializer.configure(Collections.singletonMap("spring.json.trusted.packages", "*"), false);
+
+        RecordHeaders completed = headers(OrderProducerService.STATUS_HEADER, "COMPLETED");
+        RecordHeaders pending = headers(OrderProducerService.STATUS_HEADER, "PENDING");
+
+        assertNull(deserializer.deserialize("orders-input", completed, payload));
+        assertNotNull(deserializer.deserialize("orders-input", pending, payload));
+        // Le deserializer ne compte pas: seul le container (filter) le fait
+        assertNull(registry.find(OrderPipelineMetrics.FILTERED).counter());
+    }
+
+    private double count(String rule) {
+        return registry.get(OrderPipelineMetrics.FILTERED).tag("rule", rule).counter().count();
+    }
+
+    private static ConsumerRecord<String, Order> record(String header, String value) {
+        ConsumerRecord<String, Order> record = new ConsumerRecord<>("orders-input", 0, 0L, "C1", null);
+        record.headers().add(header, value.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    private static RecordHeaders headers(String header, String value) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(header, value.getBytes(StandardCharsets.UTF_8));
+        return headers;
+    }
+}
@@ -0,0 +1,94 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import com.kafka.groupe6.order_system.consumer.OrderConsumerService;
+import com.kafka.groupe6.order_system.consumer.OrderRetryConsumerService;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+
+/**
+ * Tests unitaires des consumers de retry non bloquants.
+ *
+ * Tests couverts:
+ * - Message arrivé avant son échéance: nack (pause) sans traitement
+ * - Message échu: traitement (partition et ingestion d'origine) puis acknowledge
+ */
+@ExtendWith(MockitoExtension.class)
+class OrderRetryConsumerTest {
+
+    private static final long INGEST_TIME = 1_700_000_000_000L;
+
+    @Mock
+    private OrderConsumerService orderConsumerService;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private OrderRetryConsumerService retryConsumerService;
+
+    @BeforeEach
+    void setUp() {
+        retryConsumerService = new OrderRetryConsumerService(orderConsumerService);
+    }
+
+    @Test
+    @DisplayName("Doit mettre en pause un message dont l'échéance n'est pas atteinte")
+    void shouldNackMessageBeforeDueTime() {
+        // Given : échéance dans 10 secondes
+        ConsumerRecord<String, Order> record = retryRecord(System.currentTimeMillis() + 10_000L);
+
+        // When
+        retryConsumerService.consumeRetry10s(record, acknowledgment);
+
+        // Then
+        verify(acknowledgment).nack(argThat((Duration delay) -> delay.toMillis() > 9_000L));
+        verify(acknowledgment, never()).acknowledge();
+        verify(orderConsumerService, never()).consumeOrder(any(), anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Doit traiter puis acquitter un message échu, avec sa partition et son ingestion d'origine")
+    void shouldProcessDueMessage() {
+        // Given : échéance dépassée
+        ConsumerRecord<String, Order> record = retryRecord(System.currentTimeMillis() - 1L);
+
+        // When
+        retryConsumerService.consumeRetry1s(record, acknowledgment);
+
+        // Then : partition de 'orders-input' (header du premier routage) et instant d'ingestion conservés
+        verify(orderConsumerService).consumeOrder(eq(record.value()), eq(2), eq(3L), eq(INGEST_TIME));
+        verify(acknowledgment).acknowledge();
+    }
+
+    private ConsumerRecord<String, Order> retryRecord(long dueAt) {
+        Order order = new Order("ORDER-1", "CUSTOMER-1", List.of("Laptop"), 10.0, "PROCESSING", 0L);
+        ConsumerRecord<String, Order> record = new ConsumerRecord<>("orders-retry-1s", 0, 3L, "ORDER-1", order);
+        record.headers().add(OrderRetryConsumerService.RETRY_DUE_AT_HEADER,
+            ByteBuffer.allocate(Long.BYTES).putLong(dueAt).array());
+        OrderLatencyTracker.addIngestTime(record.headers(), INGEST_TIME);
+        // Un header par routage: orders-input (partition 2) puis orders-retry-1s (partition 0)
+        record.headers().add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(2).array());
+        record.headers().add(KafkaHeaders.DLT_ORIGINAL_PARTITION, ByteBuffer.allocate(Integer.BYTES).putInt(0).array());
+        return record;
+    }
+}
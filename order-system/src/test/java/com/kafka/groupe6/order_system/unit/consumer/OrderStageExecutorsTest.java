@@ -0,0 +1,202 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Scope;
+
+import com.kafka.groupe6.order_system.consumer.OrderConsumerService;
+import com.kafka.groupe6.order_system.consumer.OrderStageExecutors;
+import com.kafka.groupe6.order_system.exception.StageSaturatedException;
+import com.kafka.groupe6.order_system.exception.StageTimeoutException;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Tests unitaires des pools bornés par étape.
+ *
+ * Tests couverts:
+ * - Pool et file pleins: StageSaturatedException immédiate, profondeur de file mesurée
+ * - Délai dépassé: StageTimeoutException, stock réservé après coup rendu
+ * - Traitement trop lent dans OrderConsumerService: stock rendu, rien de publié
+ * - Tâche exécutée dans le Context de traçage de l'appelant
+ */
+class OrderStageExecutorsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private OrderStageExecutors executors;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executors != null) {
+            executors.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Doit refuser une tâche quand les threads et la file de l'étape sont pleins")
+    void shouldRejectWhenStageIsSaturated() throws Exception {
+        OrderStageExecutors.Stage stock = stock(1, 1, 5000L);
+
+        // Un thread occupé, une tâche en file
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> stock.run("O1", this::await));
+        waitFor(() -> registry.get(OrderStageExecutors.ACTIVE).tag("stage", "stock").gauge().value() == 1);
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> stock.run("O2", this::await));
+        waitFor(() -> queueDepth("stock") == 1);
+
+        StageSaturatedException e = assertThrows(StageSaturatedException.class, () -> stock.run("O3", () -> { }));
+        assertEquals("stock", e.getStage());
+        assertEquals("O3", e.getOrderId());
+        assertEquals(1, rejected("stock", "saturated"));
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(0, queueDepth("stock"));
+    }
+
+    @Test
+    @DisplayName("Doit abandonner une étape trop lente et rendre le stock réservé après coup")
+    void shouldTimeOutAndReleaseLateReservation() throws Exception {
+        InventoryService inventoryService = OrderTestFixtures.inventory(10);
+        OrderStageExecutors.Stage stock = stock(1, 1, 50L);
+
+        StageTimeoutException e = assertThrows(StageTimeoutException.class, () -> stock.call("O1", () -> {
+            // Appel distant lent, qui ne s'interrompt pas
+            awaitUninterruptibly(200L);
+            return inventoryService.reserve("O1", List.of("SKU-1"));
+        }, inventoryService::release));
+
+        assertEquals("stock", e.getStage());
+        assertEquals(1, rejected("stock", "timeout"));
+        waitFor(() -> registry.get(OrderStageExecutors.ACTIVE).tag("stage", "stock").gauge().value() == 0);
+        assertEquals(10, inventoryService.available("SKU-1"));
+
+        // L'étape reste utilisable
+        assertEquals(9, stock.call("O2", () -> {
+            inventoryService.reserve("O2", List.of("SKU-1"));
+            return inventoryService.available("SKU-1");
+        }));
+    }
+
+    @Test
+    @DisplayName("Doit rendre le stock d'une commande dont le traitement dépasse son délai")
+    @SuppressWarnings("unchecked")
+    void shouldReleaseStockWhenProcessingTimesOut() {
+        KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+        InventoryService inventoryService = OrderTestFixtures.inventory(10);
+        // Traitement simulé de 100 à 300 ms, délai de 20 ms
+        executors = new OrderStageExecutors(bulkhead()
+            .withProperty("app.consumer.bulkhead.validate.threads", "0")
+            .withProperty("app.consumer.bulkhead.stock.threads", "1")
+            .withProperty("app.consumer.bulkhead.stock.queue-capacity", "10")
+            .withProperty("app.consumer.bulkhead.stock.timeout-ms", "1000")
+            .withProperty("app.consumer.bulkhead.process.threads", "1")
+            .withProperty("app.consumer.bulkhead.process.queue-capacity", "10")
+            .withProperty("app.consumer.bulkhead.process.timeout-ms", "20"), registry);
+        OrderConsumerService service = new OrderConsumerService(kafkaTemplate, inventoryService,
+            OrderTestFixtures.noDeduplication(), OrderTestFixtures.pipelineMetrics(),
+            OrderTestFixtures.latencyTracker(), OrderTestFixtures.eventLog(), executors);
+        Order order = new Order("O1", "C1", List.of("SKU-1"), 50.0, "PENDING", System.currentTimeMillis());
+
+        assertThrows(StageTimeoutException.class, () -> service.consumeOrder(order, 0, 0L));
+
+        assertEquals(10, inventoryService.available("SKU-1"));
+        assertEquals(1, rejected("process", "timeout"));
+        assertTrue(executors.isEnabled());
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @DisplayName("Doit exécuter la tâche dans le Context de traçage de l'appelant")
+    void shouldPropagateTracingContext() {
+        OrderStageExecutors.Stage stock = stock(1, 1, 5000L);
+        SpanContext parent = SpanContext.create("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331",
+            TraceFlags.getSampled(), TraceState.getDefault());
+
+        SpanContext seen;
+        try (Scope scope = Span.wrap(parent).makeCurrent()) {
+            seen = stock.call("O1", () -> Span.current().getSpanContext());
+        }
+
+        assertEquals(parent, seen);
+    }
+
+    /**
+     * Étape stock sur un pool, les autres sur le thread appelant (pool arrêté après le test).
+     */
+    private OrderStageExecutors.Stage stock(int threads, int queueCapacity, long timeoutMs) {
+        executors = new OrderStageExecutors(bulkhead()
+            .withProperty("app.consumer.bulkhead.validate.threads", "0")
+            .withProperty("app.consumer.bulkhead.stock.threads", String.valueOf(threads))
+            .withProperty("app.consumer.bulkhead.stock.queue-capacity", String.valueOf(queueCapacity))
+            .withProperty("app.consumer.bulkhead.stock.timeout-ms", String.valueOf(timeoutMs))
+            .withProperty("app.consumer.bulkhead.process.threads", "0"), registry);
+        return executors.stock();
+    }
+
+    private static MockEnvironment bulkhead() {
+        return new MockEnvironment().withProperty("app.consumer.bulkhead.enabled", "true");
+    }
+
+    private double queueDepth(String stage) {
+        return registry.get(OrderStageExecutors.QUEUE_DEPTH).tag("stage", stage).gauge().value();
+    }
+
+    private double rejected(String stage, String reason) {
+        return registry.get(OrderStageExecutors.REJECTED).tag("stage", stage).tag("reason", reason).counter().count();
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitUninterruptibly(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ignored) {
+                // Continue jusqu'à l'échéance
+            }
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition non atteinte en 5 s");
+            Thread.sleep(5);
+        }
+    }
+}
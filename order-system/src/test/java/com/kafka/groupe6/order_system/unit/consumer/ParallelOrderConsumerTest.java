@@ -0,0 +1,158 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.mock.env.MockEnvironment;
+
+import com.kafka.groupe6.order_system.consumer.ParallelOrderConsumerService;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.exception.StockUnavailableException;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Tests unitaires du mode parallèle.
+ *
+ * Tests couverts:
+ * - Container mis en pause au-delà de max-in-flight, repris quand les records se terminent
+ * - Échec retriable confié au recoverer des topics de retry, sans attente sur la voie
+ * - Erreur de validation confiée au même recoverer (routée vers la DLQ)
+ * - Démarrage refusé en mode parallel avec app.retry.mode=blocking
+ */
+class ParallelOrderConsumerTest {
+
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private DeadLetterPublishingRecoverer recoverer;
+    private MessageListenerContainer container;
+    private Consumer<?, ?> consumer;
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private ParallelOrderConsumerService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        recoverer = mock(DeadLetterPublishingRecoverer.class);
+        consumer = mock(Consumer.class);
+
+        container = mock(MessageListenerContainer.class);
+        when(container.isPauseRequested()).thenAnswer(inv -> paused.get());
+        doAnswer(inv -> { paused.set(true); return null; }).when(container).pause();
+        doAnswer(inv -> { paused.set(false); return null; }).when(container).resume();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Doit mettre le consumer en pause au-delà de max-in-flight puis le reprendre")
+    void shouldPauseAtInFlightLimitAndResume() {
+        // Given : au plus 2 records en cours
+        service = service(2, OrderTestFixtures.inventory(1_000_000));
+
+        // When
+        service.consumeOrders(List.of(
+            record(0, createOrder("ORDER-0")),
+            record(1, createOrder("ORDER-1")),
+            record(2, createOrder("ORDER-2"))), consumer);
+
+        // Then : le thread du listener n'attend pas les voies
+        verify(container).pause();
+        verify(container, timeout(2000)).resume();
+    }
+
+    @Test
+    @DisplayName("Doit confier un échec retriable au topic de retry sans retry local")
+    void shouldRouteRetriableFailureToRetryTopic() {
+        // Given : stock vide
+        service = service(1000, OrderTestFixtures.inventory(0));
+
+        // When
+        service.consumeOrders(List.of(record(0, createOrder("ORDER-0"))), consumer);
+
+        // Then
+        verify(recoverer, timeout(2000)).accept(any(), any(StockUnavailableException.class));
+        verify(container, never()).pause();
+    }
+
+    @Test
+    @DisplayName("Doit confier une commande invalide au recoverer (DLQ)")
+    void shouldRouteValidationErrorToRecoverer() {
+        // Given
+        service = service(1000, OrderTestFixtures.inventory(1_000_000));
+        Order invalid = createOrder("ORDER-0");
+        invalid.setTotalAmount(-1);
+
+        // When
+        service.consumeOrders(List.of(record(0, invalid)), consumer);
+
+        // Then
+        verify(recoverer, timeout(2000)).accept(any(), any(OrderValidationException.class));
+    }
+
+    @Test
+    @DisplayName("Doit refuser le mode parallel avec le retry bloquant")
+    void shouldRejectBlockingRetryMode() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("app.consumer.mode", "parallel")
+            .withProperty("app.retry.mode", "blocking");
+
+        assertThrows(IllegalStateException.class, () -> new ParallelOrderConsumerService(
+            OrderTestFixtures.consumerService(kafkaTemplate, OrderTestFixtures.inventory(1_000_000)),
+            recoverer, registry(), 2, 1000, "order-id", environment));
+    }
+
+    private ParallelOrderConsumerService service(int maxInFlight, InventoryService inventoryService) {
+        return new ParallelOrderConsumerService(
+            OrderTestFixtures.consumerService(kafkaTemplate, inventoryService),
+            recoverer,
+            registry(),
+            2,
+            maxInFlight,
+            "order-id",
+            new MockEnvironment().withProperty("app.consumer.mode", "parallel"));
+    }
+
+    private KafkaListenerEndpointRegistry registry() {
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(ParallelOrderConsumerService.LISTENER_ID)).thenReturn(container);
+        return registry;
+    }
+
+    private static ConsumerRecord<String, Order> record(long offset, Order order) {
+        return new ConsumerRecord<>("orders-input", 0, offset, order.getId(), order);
+    }
+
+    private static Order createOrder(String id) {
+        return new Order(id, "CUST-" + id, List.of("Laptop"), 99.99, "PENDING", System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,199 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.consumer.OrderConsumerService;
+import com.kafka.groupe6.order_system.consumer.StagedOrderConsumerService;
+import com.kafka.groupe6.order_system.dedup.OrderDeduplicator;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.exception.StockUnavailableException;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Tests unitaires du mode staged (une étape par topic).
+ *
+ * Tests couverts:
+ * - Validation: commande transmise à 'orders-validated' (même clé, instant d'ingestion),
+ *   commande invalide rejetée sans envoi
+ * - Réservation: stock pris puis commande transmise, stock rendu si l'envoi échoue
+ * - Traitement: publication vers 'orders-processed' après l'ack, stock rendu à l'envoi en DLQ
+ * - Doublon: stock rendu à l'étape de traitement, copie tardive non réservée
+ * - Relivraison de l'étape de traitement après publication: stock déjà consommé non rendu
+ */
+@ExtendWith(MockitoExtension.class)
+class StagedOrderConsumerTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private InventoryService inventoryService;
+    private StagedOrderConsumerService stagedService;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = OrderTestFixtures.inventory(10);
+        OrderConsumerService orderConsumerService = OrderTestFixtures.consumerService(kafkaTemplate, inventoryService);
+        stagedService = new StagedOrderConsumerService(orderConsumerService, kafkaTemplate,
+            OrderTestFixtures.pipelineMetrics(), OrderTestFixtures.eventLog(), 1_000);
+    }
+
+    @Test
+    @DisplayName("Doit transmettre une commande validée à 'orders-validated'")
+    void shouldForwardValidatedOrder() {
+        mockSend();
+        ConsumerRecord<String, Order> record = record(KafkaTopicConfig.ORDERS_INPUT_TOPIC, order("O1", 50.0));
+        OrderLatencyTracker.addIngestTime(record.headers(), 1234L);
+
+        stagedService.validate(record);
+
+        ProducerRecord<String, Object> sent = sent();
+        assertEquals(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, sent.topic());
+        assertEquals("C1", sent.key());
+        assertEquals("PROCESSING", ((Order) sent.value()).getStatus());
+        assertEquals(1234L, OrderLatencyTracker.ingestTime(sent.headers()));
+    }
+
+    @Test
+    @DisplayName("Doit rejeter une commande invalide sans la transmettre")
+    void shouldRejectInvalidOrderWithoutForwarding() {
+        ConsumerRecord<String, Order> record = record(KafkaTopicConfig.ORDERS_INPUT_TOPIC, order("O1", -5.0));
+
+        assertThrows(OrderValidationException.class, () -> stagedService.validate(record));
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @DisplayName("Doit réserver le stock et le rendre si l'envoi vers 'orders-reserved' échoue")
+    void shouldReserveStockAndReleaseItOnForwardFailure() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.failedFuture(new KafkaException("broker down")))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        ConsumerRecord<String, Order> record = record(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, order("O1", 50.0));
+
+        assertThrows(KafkaException.class, () -> stagedService.reserve(record));
+        assertEquals(10, inventoryService.available("SKU-1"));
+
+        stagedService.reserve(record);
+        assertEquals(9, inventoryService.available("SKU-1"));
+        assertEquals(KafkaTopicConfig.ORDERS_RESERVED_TOPIC, sent().topic());
+
+        // Rupture: exception retriable, rien n'est transmis
+        Order tooMany = order("O2", 50.0);
+        tooMany.setItems(List.of("SKU-1", "SKU-1", "SKU-1", "SKU-1", "SKU-1",
+            "SKU-1", "SKU-1", "SKU-1", "SKU-1", "SKU-1"));
+        assertThrows(StockUnavailableException.class,
+            () -> stagedService.reserve(record(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, tooMany)));
+    }
+
+    @Test
+    @DisplayName("Doit publier la commande traitée et rendre le stock d'une commande envoyée en DLQ")
+    void shouldPublishProcessedOrderAndReleaseStockOnDlq() {
+        mockSend();
+        Order order = order("O1", 50.0);
+        stagedService.reserve(record(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, order));
+
+        stagedService.process(record(KafkaTopicConfig.ORDERS_RESERVED_TOPIC, order));
+
+        ProducerRecord<String, Object> sent = sent();
+        assertEquals(KafkaTopicConfig.ORDERS_PROCESSED_TOPIC, sent.topic());
+        assertEquals("COMPLETED", order.getStatus());
+        assertEquals(9, inventoryService.available("SKU-1"));
+
+        // Retries épuisés: le recoverer rend le stock réservé à l'étape 2, une seule fois
+        ConsumerRecord<String, Order> failed = record(KafkaTopicConfig.ORDERS_RESERVED_TOPIC, order("O2", 50.0));
+        stagedService.reserve(record(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, failed.value()));
+        assertEquals(8, inventoryService.available("SKU-1"));
+        stagedService.releaseReserved(failed);
+        stagedService.releaseReserved(failed);
+        assertEquals(9, inventoryService.available("SKU-1"));
+    }
+
+    @Test
+    @DisplayName("Doit rendre le stock d'un doublon arrivé à l'étape de traitement")
+    void shouldReleaseStockOfDuplicateInProcessStage(@TempDir Path directory) throws IOException {
+        // Given : déduplication active, même commande renvoyée avant la fin du premier traitement
+        mockSend();
+        OrderDeduplicator deduplicator = OrderTestFixtures.deduplicator(directory);
+        StagedOrderConsumerService service = new StagedOrderConsumerService(
+            OrderTestFixtures.consumerService(kafkaTemplate, inventoryService, deduplicator), kafkaTemplate,
+            OrderTestFixtures.pipelineMetrics(), OrderTestFixtures.eventLog(), 1_000);
+        Order first = order("O1", 50.0);
+        Order second = order("O1", 50.0);
+        service.reserve(record(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, first));
+        service.reserve(record(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, second));
+        assertEquals(8, inventoryService.available("SKU-1"));
+
+        // When
+        service.process(record(KafkaTopicConfig.ORDERS_RESERVED_TOPIC, first));
+        service.process(record(KafkaTopicConfig.ORDERS_RESERVED_TOPIC, second));
+
+        // Then : une seule unité consommée, une seule publication vers 'orders-processed'
+        assertEquals(9, inventoryService.available("SKU-1"));
+        assertEquals("PENDING", second.getStatus());
+
+        // When : relivraison de la copie publiée (arrêt avant le commit de l'étape 3)
+        service.process(record(KafkaTopicConfig.ORDERS_RESERVED_TOPIC, first));
+
+        // Then : son stock reste consommé
+        assertEquals(9, inventoryService.available("SKU-1"));
+
+        // When : copie tardive à l'étape de réservation
+        service.reserve(record(KafkaTopicConfig.ORDERS_VALIDATED_TOPIC, order("O1", 50.0)));
+
+        // Then : ni réservée ni transmise (2 envois vers 'orders-reserved', 1 vers 'orders-processed')
+        assertEquals(9, inventoryService.available("SKU-1"));
+        verify(kafkaTemplate, times(3)).send(any(ProducerRecord.class));
+        deduplicator.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockSend() {
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+            .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, Object> sent() {
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, atLeastOnce()).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private static ConsumerRecord<String, Order> record(String topic, Order order) {
+        return new ConsumerRecord<>(topic, 0, 0L, order.getCustomerId(), order);
+    }
+
+    private static Order order(String id, double amount) {
+        return new Order(id, "C1", List.of("SKU-1"), amount, "PENDING", System.currentTimeMillis());
+    }
+}
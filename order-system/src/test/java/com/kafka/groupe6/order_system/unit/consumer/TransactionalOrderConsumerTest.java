@@ -0,0 +1,121 @@
+package com.kafka.groupe6.order_system.unit.consumer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import com.kafka.groupe6.order_system.consumer.TransactionalOrderConsumerService;
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Tests unitaires du mode transactionnel.
+ *
+ * Tests couverts:
+ * - Publication de tout un lot valide dans la transaction
+ * - Échec d'un record: routé par le recoverer transactionnel, le reste du lot continue
+ */
+@ExtendWith(MockitoExtension.class)
+class TransactionalOrderConsumerTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private KafkaTemplate<String, Object> transactionalKafkaTemplate;
+
+    @Mock
+    private DeadLetterPublishingRecoverer transactionalRecoverer;
+
+    private TransactionalOrderConsumerService consumerService;
+
+    @BeforeEach
+    void setUp() {
+        consumerService = new TransactionalOrderConsumerService(
+            OrderTestFixtures.consumerService(kafkaTemplate, OrderTestFixtures.inventory(1_000_000)),
+            transactionalKafkaTemplate,
+            transactionalRecoverer);
+    }
+
+    @Test
+    @DisplayName("Doit publier tout un lot valide avec le template transactionnel")
+    void shouldPublishWholeBatchInTransaction() {
+        // Given
+        List<ConsumerRecord<String, Order>> records = records(createOrder("ORDER-1"), createOrder("ORDER-2"));
+
+        // When
+        assertDoesNotThrow(() -> consumerService.consumeOrderBatch(records));
+
+        // Then : rien ne passe par le template non transactionnel
+        verify(transactionalKafkaTemplate, times(2)).send(processed(null));
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+        verify(transactionalRecoverer, never()).accept(any(), any());
+        records.forEach(record -> assertEquals("COMPLETED", record.value().getStatus()));
+    }
+
+    @Test
+    @DisplayName("Doit router un record invalide sans interrompre le lot")
+    void shouldRouteInvalidRecordAndContinue() {
+        // Given : le premier record est invalide (pas d'articles)
+        Order invalid = createOrder("ORDER-1");
+        invalid.setItems(null);
+        List<ConsumerRecord<String, Order>> records = records(invalid, createOrder("ORDER-2"));
+
+        // When
+        assertDoesNotThrow(() -> consumerService.consumeOrderBatch(records));
+
+        // Then
+        verify(transactionalRecoverer).accept(eq(records.get(0)), isA(OrderValidationException.class));
+        verify(transactionalKafkaTemplate, never()).send(processed("ORDER-1"));
+        verify(transactionalKafkaTemplate).send(processed("ORDER-2"));
+    }
+
+    // ==================== HELPERS ====================
+
+    private Order createOrder(String id) {
+        return new Order(
+            id,
+            "CUSTOMER-001",
+            Arrays.asList("Laptop", "Mouse"),
+            99.99,
+            "PENDING",
+            System.currentTimeMillis()
+        );
+    }
+
+    private List<ConsumerRecord<String, Order>> records(Order... orders) {
+        List<ConsumerRecord<String, Order>> records = new ArrayList<>();
+        for (int i = 0; i < orders.length; i++) {
+            records.add(new ConsumerRecord<>("orders-input", 0, i, orders[i].getId(), orders[i]));
+        }
+        return records;
+    }
+
+    // Record publié sur 'orders-processed' (toute clé si orderId est null)
+    private static ProducerRecord<String, Object> processed(String orderId) {
+        return argThat(record -> record != null && "orders-processed".equals(record.topic())
+            && (orderId == null || orderId.equals(record.key())));
+    }
+}
@@ -0,0 +1,147 @@
+package com.kafka.groupe6.order_system.unit.controller;
+
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.controller.IdempotencyKeyCache;
+import com.kafka.groupe6.order_system.exception.AdmissionRejectedException;
+import com.kafka.groupe6.order_system.exception.IdempotencyKeyConflictException;
+import com.kafka.groupe6.order_system.model.OrderSendResult;
+
+/**
+ * Tests unitaires du cache des clés d'idempotence.
+ *
+ * Tests couverts:
+ * - Requêtes simultanées regroupées sur l'envoi en cours
+ * - Clé libérée si l'envoi est refusé
+ * - Clés libérées ou remplacées hors de la limite (pas d'éviction des clés mémorisées)
+ * - Expiration des clés et nombre de clés borné
+ * - Même clé pour une autre commande
+ */
+class IdempotencyKeyCacheTest {
+
+    private static final long TTL_MINUTES = 1L;
+    private static final long TTL_MS = 60_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final AtomicInteger sends = new AtomicInteger();
+    private final Clock clock = mock(Clock.class);
+
+    @BeforeEach
+    void setUp() {
+        when(clock.millis()).thenAnswer(inv -> now.get());
+    }
+
+    @Test
+    @DisplayName("Doit regrouper les requêtes simultanées sur un seul envoi")
+    void shouldCoalesceConcurrentDuplicates() {
+        // Given : un envoi non encore confirmé par le broker
+        IdempotencyKeyCache cache = new IdempotencyKeyCache(100, TTL_MINUTES, clock);
+        CompletableFuture<OrderSendResult> inFlight = new CompletableFuture<>();
+
+        // When
+        IdempotencyKeyCache.Submission first = cache.submit("key", "ORDER-1", counting(() -> inFlight));
+        IdempotencyKeyCache.Submission second = cache.submit("key", "ORDER-1", counting(() -> inFlight));
+        inFlight.complete(OrderSendResult.accepted(0, "ORDER-1", 1, 10L));
+
+        // Then
+        assertEquals(1, sends.get());
+        assertFalse(first.isReplayed());
+        assertTrue(second.isReplayed());
+        assertSame(first.getResult().join(), second.getResult().join());
+    }
+
+    @Test
+    @DisplayName("Doit libérer la clé si l'envoi est refusé")
+    void shouldReleaseKeyWhenSendRejected() {
+        IdempotencyKeyCache cache = new IdempotencyKeyCache(100, TTL_MINUTES, clock);
+
+        IdempotencyKeyCache.Submission rejected = cache.submit("key", "ORDER-1", counting(() -> {
+            throw new AdmissionRejectedException("saturé", 1);
+        }));
+        assertTrue(rejected.getResult().isCompletedExceptionally());
+
+        IdempotencyKeyCache.Submission retried = cache.submit("key", "ORDER-1", counting(this::accepted));
+        assertFalse(retried.isReplayed());
+        assertEquals(2, sends.get());
+    }
+
+    @Test
+    @DisplayName("Doit oublier les clés expirées et borner le nombre de clés")
+    void shouldExpireAndBoundKeys() {
+        IdempotencyKeyCache cache = new IdempotencyKeyCache(3, TTL_MINUTES, clock);
+        cache.submit("key", "ORDER-1", counting(this::accepted));
+
+        // Expiration : la même clé renvoie la commande
+        now.addAndGet(TTL_MS);
+        assertFalse(cache.submit("key", "ORDER-1", counting(this::accepted)).isReplayed());
+
+        // Limite : au plus 3 clés, la plus ancienne part en premier
+        for (int i = 0; i < 5; i++) {
+            cache.submit("key-" + i, "ORDER-" + i, counting(this::accepted));
+        }
+        assertEquals(3, cache.size());
+        assertFalse(cache.submit("key-0", "ORDER-0", counting(this::accepted)).isReplayed());
+        assertTrue(cache.submit("key-4", "ORDER-4", counting(this::accepted)).isReplayed());
+    }
+
+    @Test
+    @DisplayName("Ne doit pas compter les clés libérées ou remplacées dans la limite")
+    void shouldNotCountReleasedOrReplacedKeysTowardsLimit() {
+        IdempotencyKeyCache cache = new IdempotencyKeyCache(3, TTL_MINUTES, clock);
+        cache.submit("kept", "ORDER-KEPT", counting(this::accepted));
+
+        // Panne du broker : envois en échec, clés libérées
+        for (int i = 0; i < 10; i++) {
+            cache.submit("failed-" + i, "ORDER-" + i,
+                counting(() -> CompletableFuture.failedFuture(new IllegalStateException("broker down"))));
+        }
+        // Clé expirée puis remplacée : une seule clé mémorisée
+        cache.submit("renewed", "ORDER-RENEWED", counting(this::accepted));
+        now.addAndGet(TTL_MS / 2);
+        cache.submit("kept-2", "ORDER-KEPT-2", counting(this::accepted));
+        now.addAndGet(TTL_MS / 2);
+        cache.submit("renewed", "ORDER-RENEWED", counting(this::accepted));
+
+        // La clé réussie la plus récente est toujours protégée
+        assertTrue(cache.submit("kept-2", "ORDER-KEPT-2", counting(this::accepted)).isReplayed());
+        assertTrue(cache.submit("renewed", "ORDER-RENEWED", counting(this::accepted)).isReplayed());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("Doit refuser une clé déjà utilisée pour une autre commande")
+    void shouldRejectKeyReusedForAnotherOrder() {
+        IdempotencyKeyCache cache = new IdempotencyKeyCache(100, TTL_MINUTES, clock);
+        cache.submit("key", "ORDER-1", counting(this::accepted));
+
+        assertThrows(IdempotencyKeyConflictException.class,
+            () -> cache.submit("key", "ORDER-2", counting(this::accepted)));
+        assertEquals(1, sends.get());
+    }
+
+    private Supplier<CompletableFuture<OrderSendResult>> counting(Supplier<CompletableFuture<OrderSendResult>> send) {
+        return () -> {
+            sends.incrementAndGet();
+            return send.get();
+        };
+    }
+
+    private CompletableFuture<OrderSendResult> accepted() {
+        return CompletableFuture.completedFuture(OrderSendResult.accepted(0, "ORDER", 0, sends.get()));
+    }
+}
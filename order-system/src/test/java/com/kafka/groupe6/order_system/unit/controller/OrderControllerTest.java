@@ -1,25 +1,46 @@
 package com.kafka.groupe6.order_system.unit.controller;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.http.MediaType;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.test.web.servlet.MockMvc;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kafka.groupe6.order_system.controller.IdempotencyKeyCache;
 import com.kafka.groupe6.order_system.controller.OrderController;
+import com.kafka.groupe6.order_system.exception.AdmissionRejectedException;
 import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.ConsumerLagMonitor;
+import com.kafka.groupe6.order_system.producer.IngressAdmissionService;
 import com.kafka.groupe6.order_system.producer.OrderProducerService;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @WebMvcTest(OrderController.class)
+@Import(IdempotencyKeyCache.class)
 class OrderControllerTest {
 
     @Autowired
@@ -28,9 +49,20 @@ class OrderControllerTest {
     @MockBean
     private OrderProducerService orderProducerService;
 
+    @MockBean
+    private IngressAdmissionService admissionService;
+
+    @MockBean
+    private ConsumerLagMonitor lagMonitor;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @BeforeEach
+    void setUp() {
+        when(admissionService.getMaxInFlight()).thenReturn(20000);
+    }
+
     @Test
     void shouldSendOrderWhenPostRequestIsValid() throws Exception {
         // Given : une commande valide
@@ -43,7 +75,8 @@ class OrderControllerTest {
                 System.currentTimeMillis()
         );
 
-        doNothing().when(orderProducerService).sendOrder(any(Order.class));
+        when(orderProducerService.sendOrderAsync(any(Order.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0, 1L)));
 
         // When & Then : appel POST vers l’API
         mockMvc.perform(post("/api/orders")
@@ -51,4 +84,190 @@ class OrderControllerTest {
                 .content(objectMapper.writeValueAsString(order)))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void shouldSendJsonArrayBatchAndReturnOneResultPerOrder() throws Exception {
+        // Given : un lot de deux commandes, la seconde échoue côté Kafka
+        Order first = new Order("1", "C1", List.of("Item1"), 50.0, "PENDING", 0L);
+        Order second = new Order("2", "C2", List.of("Item2"), 70.0, "PENDING", 0L);
+
+        when(orderProducerService.sendOrderAsync(argThat(o -> o != null && "1".equals(o.getId())), any()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0, 42L)));
+        when(orderProducerService.sendOrderAsync(argThat(o -> o != null && "2".equals(o.getId())), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(first, second))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].orderId").value("1"))
+                .andExpect(jsonPath("$[0].accepted").value(true))
+                .andExpect(jsonPath("$[0].partition").value(0))
+                .andExpect(jsonPath("$[0].offset").value(42))
+                .andExpect(jsonPath("$[1].orderId").value("2"))
+                .andExpect(jsonPath("$[1].accepted").value(false))
+                .andExpect(jsonPath("$[1].error").value("broker down"));
+    }
+
+    @Test
+    void shouldSendNdjsonBatch() throws Exception {
+        // Given : un flux NDJSON de deux commandes
+        String ndjson = objectMapper.writeValueAsString(new Order("1", "C1", List.of("A"), 10.0, "PENDING", 0L))
+                + "\n"
+                + objectMapper.writeValueAsString(new Order("2", "C2", List.of("B"), 20.0, "PENDING", 0L))
+                + "\n";
+
+        when(orderProducerService.sendOrderAsync(any(Order.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0, 7L)));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].accepted").value(true));
+
+        verify(orderProducerService, times(2)).sendOrderAsync(any(Order.class), any());
+    }
+
+    @Test
+    void shouldRejectMalformedBatchWithoutSendingAnything() throws Exception {
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"id\": \"1\"}, {\"id\": "))
+                .andExpect(status().isBadRequest());
+
+        verify(orderProducerService, times(0)).sendOrderAsync(any(Order.class), any());
+    }
+
+    @Test
+    void shouldRejectBatchWithNullElementBeforeAdmission() throws Exception {
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + objectMapper.writeValueAsString(
+                        new Order("1", "C1", List.of("Item1"), 50.0, "PENDING", 0L)) + ", null]"))
+                .andExpect(status().isBadRequest());
+
+        verify(admissionService, times(0)).acquire(anyInt());
+        verify(orderProducerService, times(0)).sendOrderAsync(any(Order.class), any());
+    }
+
+    @Test
+    void shouldReturn429WithRetryAfterWhenSaturated() throws Exception {
+        // Given : plus aucune place d'envoi disponible
+        doThrow(new AdmissionRejectedException("Too many orders in flight: 20000/20000", 1))
+                .when(admissionService).acquire(anyInt());
+        Order order = new Order("1", "C1", List.of("Item1"), 50.0, "PENDING", 0L);
+
+        // When & Then
+        mockMvc.perform(post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+
+        mockMvc.perform(post("/api/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(order))))
+                .andExpect(status().isTooManyRequests());
+
+        verify(orderProducerService, times(0)).sendOrderAsync(any(Order.class), any());
+    }
+
+    @Test
+    void shouldShedLowPriorityTrafficWhenConsumersLag() throws Exception {
+        // Given : consumers en retard, seul le trafic basse priorité est refusé
+        doThrow(new AdmissionRejectedException("Consumers en retard: lag 12000 (SHED_LOW_PRIORITY)", 5))
+                .when(lagMonitor).admit(true);
+        when(orderProducerService.sendOrderAsync(any(Order.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0, 1L)));
+        Order order = new Order("1", "C1", List.of("Item1"), 50.0, "PENDING", 0L);
+
+        // When & Then : /generate et X-Order-Priority: low sont refusés
+        mockMvc.perform(get("/api/orders/generate"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "5"));
+
+        mockMvc.perform(post("/api/orders")
+                .header("X-Order-Priority", "low")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isTooManyRequests());
+
+        // Le trafic normal passe toujours
+        mockMvc.perform(post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isOk());
+
+        verify(lagMonitor).admit(eq(false));
+        verify(orderProducerService, times(1)).sendOrderAsync(any(Order.class), any());
+    }
+
+    @Test
+    void shouldReplayOriginalResultForSameIdempotencyKey() throws Exception {
+        // Given : une commande envoyée avec une clé d'idempotence
+        when(orderProducerService.sendOrderAsync(any(Order.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(2, 42L)));
+        Order order = new Order("1", "C1", List.of("Item1"), 50.0, "PENDING", 0L);
+
+        // When & Then : premier envoi, puis retry du client avec la même clé
+        for (String replayed : List.of("false", "true")) {
+            mockMvc.perform(post("/api/orders")
+                    .header(OrderController.IDEMPOTENCY_KEY_HEADER, "key-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(order)))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(OrderController.IDEMPOTENT_REPLAYED_HEADER, replayed))
+                    .andExpect(jsonPath("$.accepted").value(true))
+                    .andExpect(jsonPath("$.partition").value(2))
+                    .andExpect(jsonPath("$.offset").value(42));
+        }
+
+        // Un seul envoi vers Kafka
+        verify(orderProducerService, times(1)).sendOrderAsync(any(Order.class), any());
+    }
+
+    @Test
+    void shouldResendAfterFailedSendAndRejectKeyReuse() throws Exception {
+        // Given : premier envoi en échec, second réussi
+        when(orderProducerService.sendOrderAsync(any(Order.class), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(sendResult(0, 7L)));
+        Order order = new Order("1", "C1", List.of("Item1"), 50.0, "PENDING", 0L);
+
+        // When & Then : l'échec n'est pas mémorisé, le retry renvoie la commande
+        mockMvc.perform(post("/api/orders")
+                .header(OrderController.IDEMPOTENCY_KEY_HEADER, "key-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("broker down"));
+
+        mockMvc.perform(post("/api/orders")
+                .header(OrderController.IDEMPOTENCY_KEY_HEADER, "key-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(7));
+
+        // Même clé pour une autre commande : 422, rien n'est envoyé
+        Order other = new Order("2", "C1", List.of("Item1"), 50.0, "PENDING", 0L);
+        mockMvc.perform(post("/api/orders")
+                .header(OrderController.IDEMPOTENCY_KEY_HEADER, "key-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(other)))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(orderProducerService, times(2)).sendOrderAsync(any(Order.class), any());
+    }
+
+    private SendResult<String, Object> sendResult(int partition, long offset) {
+        RecordMetadata metadata = new RecordMetadata(
+                new TopicPartition("orders-input", partition), offset, 0, 0L, 0, 0);
+        return new SendResult<>(new ProducerRecord<>("orders-input", null), metadata);
+    }
 }
@@ -0,0 +1,76 @@
+package com.kafka.groupe6.order_system.unit.dedup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.kafka.groupe6.order_system.dedup.OrderDeduplicator;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Tests unitaires de la déduplication des commandes.
+ *
+ * Tests couverts:
+ * - Doublon détecté après marquage, métriques par résultat
+ * - Ids reconnus après redémarrage (filtre reconstruit depuis la table)
+ * - Déduplication désactivée
+ */
+class OrderDeduplicatorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Doit détecter un doublon et compter les vérifications")
+    void shouldDetectDuplicateAndCountChecks() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderDeduplicator deduplicator = create(registry);
+
+        assertFalse(deduplicator.isDuplicate("ORDER-1"));
+        deduplicator.markProcessed("ORDER-1");
+        assertTrue(deduplicator.isDuplicate("ORDER-1"));
+        assertTrue(deduplicator.isDuplicate("ORDER-1"));
+        deduplicator.close();
+
+        assertEquals(1, registry.get("orders.dedup.checks").tag("result", "new").counter().count());
+        assertEquals(2, registry.get("orders.dedup.checks").tag("result", "duplicate").counter().count());
+        assertEquals(0, registry.get("orders.dedup.evictions").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Doit reconnaître les ids traités après un redémarrage")
+    void shouldRememberIdsAfterRestart() throws IOException {
+        OrderDeduplicator before = create(new SimpleMeterRegistry());
+        before.markProcessed("ORDER-1");
+        before.close();
+
+        OrderDeduplicator after = create(new SimpleMeterRegistry());
+
+        assertTrue(after.isDuplicate("ORDER-1"));
+        assertFalse(after.isDuplicate("ORDER-2"));
+        after.close();
+    }
+
+    @Test
+    @DisplayName("Ne doit signaler aucun doublon si désactivé")
+    void shouldNeverReportDuplicateWhenDisabled() {
+        OrderDeduplicator deduplicator = OrderTestFixtures.noDeduplication();
+
+        deduplicator.markProcessed("ORDER-1");
+
+        assertFalse(deduplicator.isEnabled());
+        assertFalse(deduplicator.isDuplicate("ORDER-1"));
+    }
+
+    private OrderDeduplicator create(SimpleMeterRegistry registry) throws IOException {
+        return OrderTestFixtures.deduplicator(directory, registry);
+    }
+}
@@ -0,0 +1,66 @@
+package com.kafka.groupe6.order_system.unit.dedup;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.dedup.OrderIdFilter;
+import com.kafka.groupe6.order_system.dedup.OrderIdFingerprint;
+
+/**
+ * Tests unitaires du filtre de Bloom des ids de commande.
+ *
+ * Tests couverts:
+ * - Aucun faux négatif
+ * - Taux de faux positifs proche de la cible
+ * - Ids conservés une rotation, oubliés à la seconde
+ */
+class OrderIdFilterTest {
+
+    @Test
+    @DisplayName("Doit reconnaître tous les ids ajoutés")
+    void shouldHaveNoFalseNegatives() {
+        OrderIdFilter filter = new OrderIdFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(OrderIdFingerprint.of("ORDER-" + i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(OrderIdFingerprint.of("ORDER-" + i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Doit respecter le taux de faux positifs visé")
+    void shouldKeepFalsePositiveRateNearTarget() {
+        OrderIdFilter filter = new OrderIdFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(OrderIdFingerprint.of("ORDER-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(OrderIdFingerprint.of("OTHER-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        // 1% visé, marge pour la variance
+        assertTrue(falsePositives < 2_000, "faux positifs: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Doit conserver un id une rotation et l'oublier à la suivante")
+    void shouldForgetAfterTwoRotations() {
+        OrderIdFilter filter = new OrderIdFilter(1_000, 0.001);
+        long fingerprint = OrderIdFingerprint.of("ORDER-1");
+        filter.add(fingerprint);
+
+        filter.rotate();
+        assertTrue(filter.mightContain(fingerprint));
+
+        filter.rotate();
+        assertFalse(filter.mightContain(fingerprint));
+    }
+}
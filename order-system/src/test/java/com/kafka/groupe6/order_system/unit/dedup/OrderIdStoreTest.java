@@ -0,0 +1,131 @@
+package com.kafka.groupe6.order_system.unit.dedup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kafka.groupe6.order_system.dedup.OrderIdFingerprint;
+import com.kafka.groupe6.order_system.dedup.OrderIdStore;
+
+/**
+ * Tests unitaires de la table des ids de commande traités.
+ *
+ * Tests couverts:
+ * - Présence jusqu'à l'expiration
+ * - Emplacements expirés réutilisés: taille de fichier constante
+ * - Table conservée à la réouverture, recréée si la capacité change
+ * - Remplacement compté quand la table déborde
+ * - Aucun débordement jusqu'à 2/3 de remplissage, quasiment aucun à 80%
+ */
+class OrderIdStoreTest {
+
+    private static final long NOW = 1_000_000L;
+    private static final long TTL = 60_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Doit reconnaître un id jusqu'à son expiration")
+    void shouldContainIdUntilExpiry() throws IOException {
+        try (OrderIdStore store = new OrderIdStore(directory.resolve("ids.table"), 1_000)) {
+            long fingerprint = OrderIdFingerprint.of("ORDER-1");
+
+            store.put(fingerprint, NOW + TTL, NOW);
+
+            assertTrue(store.contains(fingerprint, NOW));
+            assertTrue(store.contains(fingerprint, NOW + TTL - 1));
+            assertFalse(store.contains(fingerprint, NOW + TTL));
+            assertFalse(store.contains(OrderIdFingerprint.of("ORDER-2"), NOW));
+        }
+    }
+
+    @Test
+    @DisplayName("Doit réutiliser les emplacements expirés sans grossir")
+    void shouldReuseExpiredSlots() throws IOException {
+        Path file = directory.resolve("ids.table");
+        try (OrderIdStore store = new OrderIdStore(file, 1_000)) {
+            long size = Files.size(file);
+
+            // 10 générations de 600 ids dans une table de 1000: chacune expire avant la suivante
+            for (int generation = 0; generation < 10; generation++) {
+                long now = NOW + generation * TTL;
+                for (int i = 0; i < 600; i++) {
+                    store.put(OrderIdFingerprint.of("ORDER-" + generation + "-" + i), now + TTL, now);
+                }
+            }
+
+            long last = NOW + 9 * TTL;
+            assertTrue(store.contains(OrderIdFingerprint.of("ORDER-9-599"), last));
+            assertFalse(store.contains(OrderIdFingerprint.of("ORDER-8-599"), last));
+            assertEquals(0, store.getEvictions());
+            assertEquals(size, Files.size(file));
+        }
+    }
+
+    @Test
+    @DisplayName("Doit conserver les ids à la réouverture et repartir à vide si la capacité change")
+    void shouldPersistAcrossReopen() throws IOException {
+        Path file = directory.resolve("ids.table");
+        long fingerprint = OrderIdFingerprint.of("ORDER-1");
+        try (OrderIdStore store = new OrderIdStore(file, 1_000)) {
+            store.put(fingerprint, NOW + TTL, NOW);
+        }
+
+        try (OrderIdStore reopened = new OrderIdStore(file, 1_000)) {
+            assertTrue(reopened.contains(fingerprint, NOW));
+            LongAdder live = new LongAdder();
+            reopened.forEachLive(NOW, f -> live.increment());
+            assertEquals(1, live.sum());
+        }
+
+        try (OrderIdStore resized = new OrderIdStore(file, 2_000)) {
+            assertFalse(resized.contains(fingerprint, NOW));
+        }
+    }
+
+    @Test
+    @DisplayName("Doit compter les ids remplacés quand la table déborde")
+    void shouldCountEvictionsWhenFull() throws IOException {
+        try (OrderIdStore store = new OrderIdStore(directory.resolve("ids.table"), 64)) {
+            for (int i = 0; i < 200; i++) {
+                store.put(OrderIdFingerprint.of("ORDER-" + i), NOW + TTL + i, NOW);
+            }
+
+            assertEquals(200 - store.getCapacity(), store.getEvictions());
+            // Les plus récents sont conservés
+            assertTrue(store.contains(OrderIdFingerprint.of("ORDER-199"), NOW));
+        }
+    }
+
+    @Test
+    @DisplayName("Ne doit pas déborder jusqu'à 2/3 de remplissage, quasiment pas à 80%")
+    void shouldNotOverflowBelowTwoThirdsFill() throws IOException {
+        try (OrderIdStore store = new OrderIdStore(directory.resolve("ids.table"), 120_000)) {
+            long twoThirds = store.getCapacity() * 2 / 3;
+            long eightyPercent = store.getCapacity() * 8 / 10;
+
+            // When : remplissage jusqu'à 2/3 puis 80%, aucun id n'expire
+            long i = 0;
+            for (; i < twoThirds; i++) {
+                store.put(OrderIdFingerprint.of("ORDER-" + i), NOW + TTL, NOW);
+            }
+            assertEquals(0, store.getEvictions());
+            for (; i < eightyPercent; i++) {
+                store.put(OrderIdFingerprint.of("ORDER-" + i), NOW + TTL, NOW);
+            }
+
+            // Then : moins de 0,05% des ids oubliés (0,02% mesuré)
+            assertTrue(store.getEvictions() < eightyPercent / 2_000,
+                "ids oubliés à 80%: " + store.getEvictions());
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.kafka.groupe6.order_system.unit.inventory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.exception.StockUnavailableException;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.inventory.StockReservation;
+import com.kafka.groupe6.order_system.unit.OrderTestFixtures;
+
+/**
+ * Tests unitaires du stock en mémoire.
+ *
+ * Tests couverts:
+ * - Réservation et regroupement des articles identiques
+ * - Tout-ou-rien: aucune quantité prise si un SKU manque
+ * - Rendu du stock
+ * - Stock par défaut des SKU non chargés
+ * - Pas de survente sous concurrence
+ * - Pas de fausse rupture due à une réservation multi-SKU en échec
+ * - Réservations de deux instances cumulées, aucun décrément perdu
+ */
+class InventoryServiceTest {
+
+    @Test
+    @DisplayName("Doit réserver chaque article et regrouper les SKU identiques")
+    void shouldReserveAndGroupIdenticalSkus() {
+        // Given
+        InventoryService inventory = OrderTestFixtures.inventory(0);
+        inventory.setStock(Map.of("Laptop", 10L, "Mouse", 10L));
+
+        // When
+        StockReservation reservation = inventory.reserve("ORDER-1", List.of("Laptop", "Mouse", "Laptop"));
+
+        // Then
+        assertEquals(2, reservation.size());
+        assertEquals(8, inventory.available("Laptop"));
+        assertEquals(9, inventory.available("Mouse"));
+    }
+
+    @Test
+    @DisplayName("Ne doit rien réserver si un article est en rupture")
+    void shouldReserveNothingOnShortage() {
+        // Given
+        InventoryService inventory = OrderTestFixtures.inventory(0);
+        inventory.setStock(Map.of("Laptop", 10L, "Mouse", 10L, "Keyboard", 1L));
+
+        // When
+        StockUnavailableException exception = assertThrows(StockUnavailableException.class,
+            () -> inventory.reserve("ORDER-1", List.of("Laptop", "Mouse", "Keyboard", "Keyboard")));
+
+        // Then
+        assertEquals("Keyboard", exception.getItem());
+        assertEquals("ORDER-1", exception.getOrderId());
+        assertEquals(10, inventory.available("Laptop"));
+        assertEquals(10, inventory.available("Mouse"));
+        assertEquals(1, inventory.available("Keyboard"));
+    }
+
+    @Test
+    @DisplayName("Doit rendre le stock d'une réservation")
+    void shouldReleaseReservation() {
+        // Given
+        InventoryService inventory = OrderTestFixtures.inventory(0);
+        inventory.setStock(Map.of("Laptop", 3L));
+        StockReservation reservation = inventory.reserve("ORDER-1", List.of("Laptop", "Laptop", "Laptop"));
+        assertEquals(0, inventory.available("Laptop"));
+
+        // When
+        inventory.release(reservation);
+
+        // Then
+        assertEquals(3, inventory.available("Laptop"));
+    }
+
+    @Test
+    @DisplayName("Doit regrouper les articles d'une grosse commande")
+    void shouldGroupLargeOrders() {
+        // Given : au-delà du regroupement linéaire
+        InventoryService inventory = OrderTestFixtures.inventory(100);
+        List<String> items = new ArrayList<>(Collections.nCopies(30, "Cable"));
+        items.addAll(Collections.nCopies(10, "Mouse"));
+
+        // When
+        StockReservation reservation = inventory.reserve("ORDER-1", items);
+
+        // Then
+        assertEquals(2, reservation.size());
+        assertEquals(70, inventory.available("Cable"));
+        assertEquals(90, inventory.available("Mouse"));
+    }
+
+    @Test
+    @DisplayName("Doit appliquer le stock par défaut aux SKU non chargés")
+    void shouldApplyDefaultStockToUnknownSkus() {
+        // Given
+        InventoryService withDefault = OrderTestFixtures.inventory(2);
+        InventoryService withoutDefault = OrderTestFixtures.inventory(0);
+
+        // When & Then
+        withDefault.reserve("ORDER-1", List.of("Webcam", "Webcam"));
+        assertEquals(0, withDefault.available("Webcam"));
+        assertThrows(StockUnavailableException.class,
+            () -> withoutDefault.reserve("ORDER-1", List.of("Webcam")));
+    }
+
+    @Test
+    @DisplayName("Doit refuser une quantité négative")
+    void shouldRejectNegativeLevels() {
+        InventoryService inventory = OrderTestFixtures.inventory(0);
+
+        assertThrows(IllegalArgumentException.class, () -> inventory.setStock(Map.of("Laptop", -1L)));
+    }
+
+    @Test
+    @DisplayName("Ne doit jamais exposer une réservation multi-SKU partielle")
+    void shouldNeverExposePartialMultiSkuReservation() throws InterruptedException {
+        // Given : des commandes Mouse + Laptop toujours en rupture sur Laptop, une commande
+        // Mouse seule qui doit toujours trouver l'unique Mouse
+        InventoryService inventory = OrderTestFixtures.inventory(0);
+        inventory.setStock(Map.of("Mouse", 1L, "Laptop", 0L));
+        AtomicInteger falseShortages = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+
+        // When
+        List<Thread> failing = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Thread thread = new Thread(() -> {
+                while (done.getCount() > 0) {
+                    try {
+                        inventory.reserve("ORDER-A", List.of("Mouse", "Laptop"));
+                    } catch (StockUnavailableException e) {
+                        // rupture attendue sur Laptop
+                    }
+                }
+            });
+            thread.start();
+            failing.add(thread);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            try {
+                inventory.release(inventory.reserve("ORDER-B", List.of("Mouse")));
+            } catch (StockUnavailableException e) {
+                falseShortages.incrementAndGet();
+            }
+        }
+        done.countDown();
+        for (Thread thread : failing) {
+            thread.join();
+        }
+
+        // Then
+        assertEquals(0, falseShortages.get());
+        assertEquals(1, inventory.available("Mouse"));
+    }
+
+    @Test
+    @DisplayName("Doit cumuler les réservations de deux instances sans perdre de décrément")
+    void shouldMergeReservationsOfTwoInstances() {
+        // Given : deux instances au même stock
+        InventoryService first = new InventoryService(0, "instance-a");
+        InventoryService second = new InventoryService(0, "instance-b");
+        first.setStock(Map.of("Laptop", 10L));
+        first.drainChanges().forEach(second::apply);
+
+        // When : réservations simultanées, puis échange des composantes publiées
+        first.reserve("ORDER-1", List.of("Laptop"));
+        second.reserve("ORDER-2", List.of("Laptop", "Laptop"));
+        Map<String, Long> fromFirst = first.drainChanges();
+        Map<String, Long> fromSecond = second.drainChanges();
+        fromFirst.forEach(second::apply);
+        fromSecond.forEach(first::apply);
+
+        // Then
+        assertEquals(Map.of("Laptop@instance-a", -1L), fromFirst);
+        assertEquals(7, first.available("Laptop"));
+        assertEquals(7, second.available("Laptop"));
+
+        // When : rechargement sur une instance
+        first.setStock(Map.of("Laptop", 20L));
+        first.drainChanges().forEach(second::apply);
+
+        // Then : la base compense les cumuls connus
+        assertEquals(20, first.available("Laptop"));
+        assertEquals(20, second.available("Laptop"));
+    }
+
+    @Test
+    @DisplayName("Ne doit jamais survendre sous concurrence")
+    void shouldNeverOversellUnderContention() throws InterruptedException {
+        // Given : 1000 unités, 8 threads qui tentent 10 000 réservations chacun
+        InventoryService inventory = OrderTestFixtures.inventory(0);
+        inventory.setStock(Map.of("Laptop", 1000L, "Mouse", 1_000_000L));
+        int threads = 8;
+        AtomicInteger reserved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        try {
+                            inventory.reserve("ORDER-" + i, List.of("Mouse", "Laptop"));
+                            reserved.incrementAndGet();
+                        } catch (StockUnavailableException e) {
+                            // rupture attendue
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        // Then : chaque Mouse pris sans Laptop a été rendu
+        assertEquals(1000, reserved.get());
+        assertEquals(0, inventory.available("Laptop"));
+        assertEquals(1_000_000 - 1000, inventory.available("Mouse"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.kafka.groupe6.order_system.unit.inventory;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kafka.groupe6.order_system.inventory.InventorySnapshot;
+
+/**
+ * Tests unitaires du format de photo du stock.
+ *
+ * Tests couverts:
+ * - Écriture puis relecture à l'identique (offsets, SKU non ASCII, quantités)
+ * - Fichier absent
+ * - Fichier corrompu détecté par le CRC
+ */
+class InventorySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Doit relire une photo à l'identique")
+    void shouldRoundTrip() throws IOException {
+        // Given
+        Path file = directory.resolve("inventory.snapshot");
+        InventorySnapshot snapshot = new InventorySnapshot(
+            1234L,
+            Map.of(0, 42L, 1, 0L, 2, 7L),
+            Map.of("Laptop", 10L, "Écran 27\"", 0L, "Mouse", Long.MAX_VALUE));
+
+        // When
+        snapshot.writeTo(file);
+        InventorySnapshot read = InventorySnapshot.readFrom(file);
+
+        // Then
+        assertEquals(1234L, read.getCreatedAt());
+        assertEquals(snapshot.getOffsets(), read.getOffsets());
+        assertEquals(snapshot.getLevels(), read.getLevels());
+        assertTrue(Files.notExists(directory.resolve("inventory.snapshot.tmp")));
+    }
+
+    @Test
+    @DisplayName("Doit renvoyer null sans photo")
+    void shouldReturnNullWhenMissing() throws IOException {
+        assertNull(InventorySnapshot.readFrom(directory.resolve("absent.snapshot")));
+    }
+
+    @Test
+    @DisplayName("Doit détecter une photo corrompue")
+    void shouldDetectCorruption() throws IOException {
+        // Given
+        Path file = directory.resolve("inventory.snapshot");
+        new InventorySnapshot(1L, Map.of(0, 5L), Map.of("Laptop", 10L)).writeTo(file);
+
+        // When : un octet modifié au milieu du fichier
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(raf.length() / 2);
+            int value = raf.read();
+            raf.seek(raf.length() / 2);
+            raf.write(value ^ 0xFF);
+        }
+
+        // Then
+        assertThrows(IOException.class, () -> InventorySnapshot.readFrom(file));
+    }
+}
@@ -0,0 +1,242 @@
+package com.kafka.groupe6.order_system.unit.inventory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.exception.InventoryNotReadyException;
+import com.kafka.groupe6.order_system.inventory.InventoryService;
+import com.kafka.groupe6.order_system.inventory.InventorySnapshot;
+import com.kafka.groupe6.order_system.inventory.InventoryStateStore;
+
+/**
+ * Tests unitaires de la reconstruction et de la publication du stock
+ * (consumer et producer Kafka simulés).
+ *
+ * Tests couverts:
+ * - Photo chargée puis seuls les records postérieurs relus
+ * - Relecture complète du topic sans photo
+ * - Publication des composantes modifiées, propres records ignorés, cumuls des
+ *   autres instances ajoutés, photo à l'arrêt
+ * - Publication reprise après une erreur du producer, sans perte de modification
+ * - Chargement du stock et réservations refusés pendant la reconstruction
+ */
+class InventoryStateStoreTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition(KafkaTopicConfig.INVENTORY_TOPIC, 0);
+
+    @TempDir
+    Path directory;
+
+    private InventoryService inventoryService;
+    private MockConsumer<String, Long> consumer;
+    private MockProducer<String, Long> producer;
+    private InventoryStateStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        inventoryService = new InventoryService(0, "instance-a");
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(KafkaTopicConfig.INVENTORY_TOPIC,
+            List.of(new PartitionInfo(KafkaTopicConfig.INVENTORY_TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        producer = new MockProducer<>(true, new StringSerializer(), new LongSerializer());
+        ConsumerFactory<String, Long> consumerFactory = mock(ConsumerFactory.class);
+        when(consumerFactory.createConsumer()).thenReturn(consumer);
+        ProducerFactory<String, Long> producerFactory = mock(ProducerFactory.class);
+        when(producerFactory.createProducer()).thenReturn(producer);
+        store = new InventoryStateStore(inventoryService, consumerFactory, producerFactory, new SimpleMeterRegistry(),
+            true, 10L, directory.toString(), 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.stop();
+    }
+
+    @Test
+    @DisplayName("Doit charger la photo puis relire uniquement la fin du topic")
+    void shouldLoadSnapshotAndReplayTail() throws IOException {
+        // Given : photo à l'offset 3, topic de 5 records
+        new InventorySnapshot(1L, Map.of(0, 3L), Map.of("Laptop", 7L, "Mouse", 1L))
+            .writeTo(directory.resolve("inventory.snapshot"));
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+        consumer.schedulePollTask(() -> {
+            addRecord(0, "Laptop", 100L);
+            addRecord(1, "Laptop", 90L);
+            addRecord(2, "Mouse", 80L);
+            addRecord(3, "Mouse", 50L);
+            addRecord(4, "Keyboard", 9L);
+        });
+
+        // When : démarrage sans attendre la reconstruction
+        store.start();
+        await(store::isReady);
+
+        // Then
+        assertTrue(store.isSnapshotLoaded());
+        assertEquals(2, store.getReplayedRecords());
+        assertEquals(Map.of("Keyboard", 9L, "Laptop", 7L, "Mouse", 50L), inventoryService.levels());
+        assertTrue(store.getRestoreMillis() >= 0);
+    }
+
+    @Test
+    @DisplayName("Doit relire tout le topic sans photo")
+    void shouldReplayWholeTopicWithoutSnapshot() {
+        // Given
+        consumer.updateEndOffsets(Map.of(PARTITION, 3L));
+        consumer.schedulePollTask(() -> {
+            addRecord(0, "Laptop", 100L);
+            addRecord(1, "Mouse", 20L);
+            addRecord(2, "Laptop", 90L);
+        });
+
+        // When
+        store.start();
+        await(store::isReady);
+
+        // Then
+        assertFalse(store.isSnapshotLoaded());
+        assertEquals(3, store.getReplayedRecords());
+        assertEquals(Map.of("Laptop", 90L, "Mouse", 20L), inventoryService.levels());
+    }
+
+    @Test
+    @DisplayName("Doit publier les composantes modifiées et ignorer ses propres records")
+    void shouldPublishChangesAndSkipOwnRecords() throws IOException {
+        // Given : topic vide, stock prêt
+        consumer.updateEndOffsets(Map.of(PARTITION, 0L));
+        store.start();
+        await(store::isReady);
+        inventoryService.setStock(Map.of("Laptop", 10L));
+
+        // When : réservation locale
+        inventoryService.reserve("ORDER-1", List.of("Laptop"));
+        await(() -> producer.history().stream().anyMatch(r -> "Laptop@instance-a".equals(r.key())));
+
+        // Then : base et cumul de l'instance publiés, avec l'origine de l'instance
+        ProducerRecord<String, Long> published = producer.history().stream()
+            .filter(r -> "Laptop@instance-a".equals(r.key())).findFirst().orElseThrow();
+        assertEquals(-1L, published.value());
+        assertTrue(producer.history().stream().anyMatch(r -> "Laptop".equals(r.key()) && r.value() == 10L));
+        byte[] origin = published.headers().lastHeader(InventoryStateStore.ORIGIN_HEADER).value();
+
+        // When : le topic renvoie ce record (ignoré) puis ceux d'une autre instance (appliqués)
+        RecordHeaders own = new RecordHeaders();
+        own.add(InventoryStateStore.ORIGIN_HEADER, origin);
+        RecordHeaders other = new RecordHeaders();
+        other.add(InventoryStateStore.ORIGIN_HEADER, "other-instance".getBytes());
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(record(0, "Laptop@instance-a", 0L, own));
+            consumer.addRecord(record(1, "Mouse", 3L, other));
+            consumer.addRecord(record(2, "Laptop@instance-b", -2L, other));
+        });
+        await(() -> inventoryService.available("Mouse") == 3L);
+
+        // Then : les réservations des deux instances sont décomptées
+        await(() -> inventoryService.available("Laptop") == 7L);
+
+        // When : arrêt
+        store.stop();
+
+        // Then : photo écrite avec la position de lecture
+        InventorySnapshot snapshot = InventorySnapshot.readFrom(directory.resolve("inventory.snapshot"));
+        assertEquals(Map.of(0, 3L), snapshot.getOffsets());
+        assertEquals(Map.of("Laptop", 10L, "Laptop@instance-a", -1L, "Laptop@instance-b", -2L, "Mouse", 3L),
+            snapshot.getLevels());
+    }
+
+    @Test
+    @DisplayName("Doit reprendre la publication après une erreur du producer sans perdre de modification")
+    void shouldRetryPublicationAfterProducerFailure() {
+        // Given : stock prêt, envois refusés par le producer
+        consumer.updateEndOffsets(Map.of(PARTITION, 0L));
+        store.start();
+        await(store::isReady);
+        producer.sendException = new KafkaException("buffer plein");
+        inventoryService.setStock(Map.of("Laptop", 10L));
+        inventoryService.reserve("ORDER-1", List.of("Laptop"));
+
+        // When
+        await(store::isFailing);
+
+        // Then : le store reste actif, les modifications restent à publier
+        assertTrue(store.isReady());
+        assertTrue(store.isRunning());
+        assertEquals("buffer plein", store.getLastError());
+
+        // When : producer rétabli
+        producer.sendException = null;
+
+        // Then : cumul et base publiés au tour suivant
+        await(() -> producer.history().stream().anyMatch(r -> "Laptop@instance-a".equals(r.key())));
+        assertTrue(producer.history().stream().anyMatch(r -> "Laptop".equals(r.key()) && r.value() == 10L));
+        await(() -> !store.isFailing());
+    }
+
+    @Test
+    @DisplayName("Doit refuser le chargement du stock et les réservations pendant la reconstruction")
+    void shouldRejectStockLoadWhileRestoring() {
+        inventoryService.setReady(false);
+
+        assertThrows(IllegalStateException.class, () -> inventoryService.setStock(Map.of("Laptop", 1L)));
+        assertThrows(InventoryNotReadyException.class,
+            () -> inventoryService.reserve("ORDER-1", List.of("Laptop")));
+    }
+
+    private void addRecord(long offset, String sku, Long level) {
+        consumer.addRecord(record(offset, sku, level, new RecordHeaders()));
+    }
+
+    private static ConsumerRecord<String, Long> record(long offset, String sku, Long level, RecordHeaders headers) {
+        return new ConsumerRecord<>(KafkaTopicConfig.INVENTORY_TOPIC, 0, offset, 0L, TimestampType.CREATE_TIME,
+            0, 0, sku, level, headers, Optional.empty());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition non atteinte en 5 s");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.kafka.groupe6.order_system.unit.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.loadgen.KeySkewSampler;
+
+import java.util.SplittableRandom;
+
+class KeySkewSamplerTest {
+
+    private static final int DRAWS = 100_000;
+
+    @Test
+    void shouldSpreadUniformlyWithoutSkew() {
+        // Given
+        KeySkewSampler sampler = new KeySkewSampler(10, 0.0);
+        SplittableRandom random = new SplittableRandom(42);
+        int[] counts = new int[10];
+
+        // When
+        for (int i = 0; i < DRAWS; i++) {
+            counts[sampler.next(random)]++;
+        }
+
+        // Then : environ 10% par client
+        for (int count : counts) {
+            assertTrue(count > DRAWS / 10 * 0.9 && count < DRAWS / 10 * 1.1);
+        }
+    }
+
+    @Test
+    void shouldConcentrateOnFirstCustomersWithSkew() {
+        // Given : Zipf s=1.2 sur 1000 clients
+        KeySkewSampler sampler = new KeySkewSampler(1000, 1.2);
+        SplittableRandom random = new SplittableRandom(42);
+        int top10 = 0;
+
+        // When
+        for (int i = 0; i < DRAWS; i++) {
+            if (sampler.next(random) < 10) {
+                top10++;
+            }
+        }
+
+        // Then : 1% des clients reçoit bien plus de la moitié des commandes
+        assertTrue(top10 > DRAWS / 2);
+    }
+
+    @Test
+    void shouldRejectInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new KeySkewSampler(0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new KeySkewSampler(10, -1.0));
+    }
+}
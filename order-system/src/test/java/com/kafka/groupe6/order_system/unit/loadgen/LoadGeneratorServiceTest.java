@@ -0,0 +1,146 @@
+package com.kafka.groupe6.order_system.unit.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import com.kafka.groupe6.order_system.loadgen.LoadGeneratorService;
+import com.kafka.groupe6.order_system.model.LoadGenReport;
+import com.kafka.groupe6.order_system.model.LoadGenRequest;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.producer.OrderProducerService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class LoadGeneratorServiceTest {
+
+    private OrderProducerService producerService;
+    private LoadGeneratorService loadGenerator;
+    private List<Order> sentOrders;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        producerService = mock(OrderProducerService.class);
+        sentOrders = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            sentOrders.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(mock(SendResult.class));
+        }).when(producerService).sendOrderAsync(any(Order.class));
+
+        loadGenerator = new LoadGeneratorService(producerService, 1000, 60, 100, 1000, 1000);
+    }
+
+    @Test
+    void shouldSendAtTargetRateAndReportAckLatency() throws InterruptedException {
+        // Given : 200 commandes/s pendant 1 s
+        LoadGenRequest request = new LoadGenRequest(200, 1);
+
+        // When
+        loadGenerator.start(request);
+        LoadGenReport report = awaitEnd();
+
+        // Then
+        assertEquals("COMPLETED", report.getState());
+        assertEquals(200, report.getSent());
+        assertEquals(200, report.getAcked());
+        assertEquals(0, report.getFailed());
+        assertEquals(200, report.getAckLatency().getCount());
+        assertTrue(report.getAckLatency().getP99() <= report.getAckLatency().getMax());
+    }
+
+    @Test
+    void shouldGenerateOrdersWithinRequestedShape() throws InterruptedException {
+        // Given
+        LoadGenRequest request = new LoadGenRequest(500, 1);
+        request.setMinItems(2);
+        request.setMaxItems(4);
+        request.setSizeDistribution(LoadGenRequest.SIZE_GEOMETRIC);
+        request.setCustomers(10);
+
+        // When
+        loadGenerator.start(request);
+        awaitEnd();
+
+        // Then
+        for (Order order : sentOrders) {
+            assertTrue(order.getId().startsWith(LoadGeneratorService.ORDER_ID_PREFIX));
+            assertTrue(order.getItems().size() >= 2 && order.getItems().size() <= 4);
+            int customer = Integer.parseInt(order.getCustomerId().substring("CUST-".length()));
+            assertTrue(customer >= 0 && customer < 10);
+        }
+    }
+
+    @Test
+    void shouldMeasureEndToEndLatencyOncePerOrder() throws InterruptedException {
+        // Given
+        loadGenerator.start(new LoadGenRequest(100, 1));
+        awaitEnd();
+        Order processed = sentOrders.get(0);
+        ConsumerRecord<String, Order> record =
+            new ConsumerRecord<>("orders-processed", 0, 0L, processed.getId(), processed);
+
+        // When : la même commande relue deux fois (at-least-once)
+        loadGenerator.onProcessedOrders(List.of(record, record));
+
+        // Then
+        LoadGenReport report = loadGenerator.status();
+        assertEquals(1, report.getProcessed());
+        assertEquals(1, report.getEndToEndLatency().getCount());
+    }
+
+    @Test
+    void shouldCountFailedSends() throws InterruptedException {
+        // Given
+        when(producerService.sendOrderAsync(any(Order.class)))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        // When
+        loadGenerator.start(new LoadGenRequest(100, 1));
+        LoadGenReport report = awaitEnd();
+
+        // Then
+        assertEquals(100, report.getFailed());
+        assertEquals(0, report.getAckLatency().getCount());
+    }
+
+    @Test
+    void shouldRejectInvalidOrConcurrentRuns() {
+        assertThrows(IllegalArgumentException.class, () -> loadGenerator.start(new LoadGenRequest(5000, 1)));
+        assertThrows(IllegalArgumentException.class, () -> loadGenerator.start(new LoadGenRequest(10, 0)));
+
+        loadGenerator.start(new LoadGenRequest(10, 10));
+        assertThrows(IllegalStateException.class, () -> loadGenerator.start(new LoadGenRequest(10, 1)));
+
+        assertEquals("STOPPED", awaitStop().getState());
+    }
+
+    private LoadGenReport awaitEnd() throws InterruptedException {
+        LoadGenReport report = loadGenerator.status();
+        for (int i = 0; i < 100 && "RUNNING".equals(report.getState()); i++) {
+            Thread.sleep(50);
+            report = loadGenerator.status();
+        }
+        return report;
+    }
+
+    private LoadGenReport awaitStop() {
+        loadGenerator.stop();
+        try {
+            return awaitEnd();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return loadGenerator.status();
+        }
+    }
+}
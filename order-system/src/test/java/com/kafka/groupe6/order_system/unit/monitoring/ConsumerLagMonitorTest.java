@@ -0,0 +1,72 @@
+package com.kafka.groupe6.order_system.unit.monitoring;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import com.kafka.groupe6.order_system.exception.AdmissionRejectedException;
+import com.kafka.groupe6.order_system.monitoring.ConsumerLagMonitor;
+import com.kafka.groupe6.order_system.monitoring.LoadSheddingLevel;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConsumerLagMonitorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConsumerLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Seuils : ralentir à 100, refuser la basse priorité à 1000, tout refuser à 5000
+        monitor = new ConsumerLagMonitor(mock(KafkaAdmin.class), meterRegistry,
+                "order-consumer-group", 100, 1000, 5000, 0, 7, "record");
+    }
+
+    @Test
+    void shouldDeriveLevelFromThresholds() {
+        assertEquals(LoadSheddingLevel.NORMAL, monitor.levelFor(99));
+        assertEquals(LoadSheddingLevel.SLOW, monitor.levelFor(100));
+        assertEquals(LoadSheddingLevel.SHED_LOW_PRIORITY, monitor.levelFor(1000));
+        assertEquals(LoadSheddingLevel.SHED_ALL, monitor.levelFor(5000));
+    }
+
+    @Test
+    void shouldRejectOnlyLowPriorityTrafficBetweenThresholds() {
+        // Given
+        monitor.updateLag(2000);
+
+        // When & Then
+        AdmissionRejectedException exception =
+            assertThrows(AdmissionRejectedException.class, () -> monitor.admit(true));
+        assertEquals(7, exception.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> monitor.admit(false));
+    }
+
+    @Test
+    void shouldRejectAllTrafficAboveShedAllThreshold() {
+        // Given
+        monitor.updateLag(6000);
+
+        // When & Then
+        assertThrows(AdmissionRejectedException.class, () -> monitor.admit(false));
+        assertEquals(6000, meterRegistry.get("orders.consumer.lag").gauge().value());
+    }
+
+    @Test
+    void shouldRecoverWhenLagDrops() {
+        // Given
+        monitor.updateLag(6000);
+
+        // When
+        monitor.updateLag(10);
+
+        // Then
+        assertEquals(LoadSheddingLevel.NORMAL, monitor.getLevel());
+        assertDoesNotThrow(() -> monitor.admit(true));
+    }
+}
@@ -0,0 +1,127 @@
+package com.kafka.groupe6.order_system.unit.monitoring;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.exception.StockUnavailableException;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.monitoring.OrderEventLog;
+
+/**
+ * Tests unitaires du journal des commandes.
+ *
+ * Tests couverts:
+ * - Succès limités par seconde, nombre d'ignorés reporté sur l'événement suivant
+ * - Échecs toujours journalisés, niveau selon le caractère retriable
+ * - Journal des succès désactivé (0 par seconde)
+ */
+class OrderEventLogTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toMillis(1000));
+    private final Clock clock = mock(Clock.class);
+    private final Logger logger = (Logger) LoggerFactory.getLogger(OrderEventLog.LOGGER_NAME);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Level previousLevel;
+
+    @BeforeEach
+    void setUp() {
+        when(clock.millis()).thenAnswer(inv -> now.get());
+        previousLevel = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    @DisplayName("Doit limiter les succès par seconde et reporter le nombre d'ignorés")
+    void shouldRateLimitSuccesses() {
+        OrderEventLog eventLog = new OrderEventLog(2, clock);
+
+        for (int i = 0; i < 5; i++) {
+            eventLog.processed(order("ORD-" + i), 0, i, System.nanoTime());
+        }
+        assertEquals(2, appender.list.size());
+
+        // Seconde suivante: nouvel événement, les 3 ignorés y sont comptés
+        now.addAndGet(TimeUnit.SECONDS.toMillis(1));
+        eventLog.processed(order("ORD-5"), 1, 42L, System.nanoTime());
+
+        List<ILoggingEvent> events = appender.list;
+        assertEquals(3, events.size());
+        String last = events.get(2).getFormattedMessage();
+        assertTrue(last.startsWith("order.processed orderId=ORD-5 customerId=CUSTOMER-001 partition=1 offset=42 items=1"));
+        assertTrue(last.endsWith("suppressed=3"));
+        assertEquals(Level.INFO, events.get(2).getLevel());
+    }
+
+    @Test
+    @DisplayName("Doit toujours journaliser les échecs, en WARN si retriables")
+    void shouldAlwaysLogFailures() {
+        OrderEventLog eventLog = new OrderEventLog(0, clock);
+
+        for (int i = 0; i < 3; i++) {
+            eventLog.failed(order("ORD-" + i), 0, i, System.nanoTime(), OrderEventLog.Failure.STOCK_UNAVAILABLE,
+                new StockUnavailableException("ORD-" + i, "SKU-1"));
+        }
+        eventLog.failed(order("ORD-3"), 0, 3, System.nanoTime(), OrderEventLog.Failure.VALIDATION,
+            new OrderValidationException("ORD-3", "montant"));
+        eventLog.failed(order("ORD-4"), 0, 4, System.nanoTime(), OrderEventLog.Failure.UNEXPECTED,
+            new IllegalStateException("panne"));
+
+        List<ILoggingEvent> events = appender.list;
+        assertEquals(5, events.size());
+        assertEquals(Level.WARN, events.get(0).getLevel());
+        assertTrue(events.get(0).getFormattedMessage().contains("reason=STOCK_UNAVAILABLE"));
+        assertEquals(Level.ERROR, events.get(3).getLevel());
+        assertNull(events.get(3).getThrowableProxy());
+        assertEquals(Level.ERROR, events.get(4).getLevel());
+        assertNotNull(events.get(4).getThrowableProxy());
+        assertTrue(events.get(4).getFormattedMessage().endsWith("error=\"panne\""));
+    }
+
+    @Test
+    @DisplayName("Ne doit journaliser aucun succès avec une limite à 0")
+    void shouldSkipSuccessesWhenDisabled() {
+        OrderEventLog eventLog = new OrderEventLog(0, clock);
+
+        eventLog.processed(order("ORD-1"), 0, 0L, System.nanoTime());
+        eventLog.duplicate(order("ORD-1"));
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    private static Order order(String id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId("CUSTOMER-001");
+        order.setItems(List.of("SKU-1"));
+        order.setTotalAmount(10.0);
+        return order;
+    }
+}
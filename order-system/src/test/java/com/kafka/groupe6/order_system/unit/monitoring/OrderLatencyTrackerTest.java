@@ -0,0 +1,95 @@
+package com.kafka.groupe6.order_system.unit.monitoring;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.kafka.groupe6.order_system.model.LatencySloReport;
+import com.kafka.groupe6.order_system.monitoring.OrderLatencyTracker;
+
+/**
+ * Tests unitaires des latences depuis l'ingestion.
+ *
+ * Tests couverts:
+ * - Percentiles par fenêtre, toutes partitions et par partition
+ * - Mesures sorties de la fenêtre courte après rotation, gardées dans la longue
+ * - Objectif p99 dépassé, records sans instant d'ingestion ignorés
+ */
+class OrderLatencyTrackerTest {
+
+    private static final long NOW = 1_000_000_000L;
+
+    private final Clock clock = Clock.fixed(Instant.ofEpochMilli(NOW), ZoneOffset.UTC);
+    private SimpleMeterRegistry registry;
+    private OrderLatencyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        tracker = new OrderLatencyTracker(registry, new int[] {300, 60}, 10, 2000L, clock);
+    }
+
+    @Test
+    @DisplayName("Doit calculer les percentiles par fenêtre et par partition")
+    void shouldReportPercentilesPerWindowAndPartition() {
+        // 1 à 1000 ms sur la partition 0, 5 s d'attente sur la partition 1
+        for (int latency = 1; latency <= 1000; latency++) {
+            tracker.recordEndToEnd(0, NOW - latency);
+        }
+        tracker.recordQueueWait(1, NOW - 5000);
+
+        LatencySloReport report = tracker.report();
+
+        assertEquals(2, report.getWindows().size());
+        LatencySloReport.Window window = report.getWindows().get(0);
+        assertEquals(60, window.getWindowSeconds());
+        assertEquals(1000, window.getEndToEnd().getCount());
+        assertEquals(500, window.getEndToEnd().getP50(), 5);
+        assertEquals(990, window.getEndToEnd().getP99(), 10);
+        assertTrue(window.isWithinSlo());
+        assertEquals(1000, window.getPartitions().get(0).getEndToEnd().getCount());
+        assertEquals(5000, window.getPartitions().get(1).getQueueWait().getP50(), 50);
+        assertEquals(0, window.getPartitions().get(1).getEndToEnd().getCount());
+        assertEquals(1000, registry.get("orders.latency.end-to-end").tag("partition", "0").timer().count());
+    }
+
+    @Test
+    @DisplayName("Doit oublier les mesures sorties de la fenêtre")
+    void shouldSlideOldMeasurementsOut() {
+        tracker.recordEndToEnd(0, NOW - 100);
+
+        // 6 rotations de 10 s: la mesure sort de la fenêtre d'une minute
+        for (int i = 0; i < 6; i++) {
+            tracker.rotate();
+        }
+        tracker.recordEndToEnd(0, NOW - 200);
+
+        LatencySloReport report = tracker.report();
+        assertEquals(1, report.getWindows().get(0).getEndToEnd().getCount());
+        assertEquals(200, report.getWindows().get(0).getEndToEnd().getMax(), 2);
+        assertEquals(2, report.getWindows().get(1).getEndToEnd().getCount());
+    }
+
+    @Test
+    @DisplayName("Doit signaler l'objectif dépassé et ignorer les records sans ingestion")
+    void shouldFlagSloBreachAndIgnoreMissingIngestTime() {
+        tracker.recordEndToEnd(0, NOW - 5000);
+        tracker.recordEndToEnd(0, OrderLatencyTracker.NO_INGEST_TIME);
+        tracker.recordQueueWait(0, OrderLatencyTracker.NO_INGEST_TIME);
+
+        LatencySloReport.Window window = tracker.report().getWindows().get(0);
+
+        assertFalse(window.isWithinSlo());
+        assertEquals(1, window.getEndToEnd().getCount());
+        assertEquals(0, window.getQueueWait().getCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.kafka.groupe6.order_system.unit.producer;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.exception.AdmissionRejectedException;
+import com.kafka.groupe6.order_system.producer.IngressAdmissionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngressAdmissionServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngressAdmissionService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new IngressAdmissionService(meterRegistry, 10, 2);
+    }
+
+    @Test
+    void shouldAdmitUpToLimitThenReject() {
+        // Given : 8 places occupées sur 10
+        service.acquire(8);
+
+        // When & Then : un lot de 3 est refusé en entier, un lot de 2 passe
+        AdmissionRejectedException exception =
+            assertThrows(AdmissionRejectedException.class, () -> service.acquire(3));
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> service.acquire(2));
+
+        assertEquals(10, service.getInFlight());
+        assertEquals(3, service.getRejected());
+    }
+
+    @Test
+    void shouldAdmitAgainAfterRelease() {
+        // Given
+        service.acquire(10);
+
+        // When
+        service.release(4);
+
+        // Then
+        assertDoesNotThrow(() -> service.acquire(4));
+        assertEquals(10, service.getInFlight());
+    }
+
+    @Test
+    void shouldExposeCountsAsMetrics() {
+        // Given
+        service.acquire(6);
+        assertThrows(AdmissionRejectedException.class, () -> service.acquire(5));
+
+        // Then
+        assertEquals(6.0, meterRegistry.get("orders.ingress.in-flight").gauge().value());
+        assertEquals(10.0, meterRegistry.get("orders.ingress.max-in-flight").gauge().value());
+        assertEquals(5.0, meterRegistry.get("orders.ingress.rejected").counter().count());
+    }
+}
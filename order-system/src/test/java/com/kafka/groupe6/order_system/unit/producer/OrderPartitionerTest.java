@@ -0,0 +1,67 @@
+package com.kafka.groupe6.order_system.unit.producer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.producer.OrderPartitioner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class OrderPartitionerTest {
+
+    private static final String TOPIC = "orders-input";
+
+    private OrderPartitioner partitioner;
+    private Cluster cluster;
+
+    @BeforeEach
+    void setUp() {
+        partitioner = new OrderPartitioner();
+        partitioner.configure(Map.of(OrderPartitioner.STICKY_RECORDS_CONFIG, 10));
+
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+            partitions.add(new PartitionInfo(TOPIC, p, node, new Node[]{node}, new Node[]{node}));
+        }
+        cluster = new Cluster("test", List.of(node), partitions, Set.of(), Set.of());
+    }
+
+    @Test
+    void shouldPartitionKeyedRecordsLikeDefaultPartitioner() {
+        // Given
+        byte[] key = "CUST-42".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        int partition = partitioner.partition(TOPIC, "CUST-42", key, null, null, cluster);
+
+        // Then : même partition que le partitioner par défaut de Kafka
+        assertEquals(Utils.toPositive(Utils.murmur2(key)) % 3, partition);
+        assertEquals(partition, partitioner.partition(TOPIC, "CUST-42", key, null, null, cluster));
+    }
+
+    @Test
+    void shouldSpreadKeylessRecordsInStickyChunks() {
+        // When : 30 records sans clé, 10 par partition avant de changer
+        List<Integer> assigned = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            assigned.add(partitioner.partition(TOPIC, null, null, null, null, cluster));
+        }
+
+        // Then : chaque lot de 10 reste sur une partition, les 3 partitions sont utilisées
+        for (int chunk = 0; chunk < 3; chunk++) {
+            assertEquals(1, new HashSet<>(assigned.subList(chunk * 10, chunk * 10 + 10)).size());
+        }
+        assertEquals(3, new HashSet<>(assigned).size());
+    }
+}
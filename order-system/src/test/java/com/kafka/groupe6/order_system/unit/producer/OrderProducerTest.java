@@ -1,11 +1,20 @@
 package com.kafka.groupe6.order_system.unit.producer;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.mock;
@@ -15,6 +24,7 @@ import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.kafka.groupe6.order_system.model.Order;
 import com.kafka.groupe6.order_system.producer.OrderProducerService;
@@ -40,14 +50,101 @@ class OrderProducerTest {
         CompletableFuture<SendResult<String, Object>> future = 
             CompletableFuture.completedFuture(sendResult);
         
-        when(kafkaTemplate.send(eq("orders-input"), eq("1"), eq(order)))
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
                 .thenReturn(future);
 
+        // When
+        long before = System.currentTimeMillis();
+        service.sendOrder(order);
+
+        // Then : clé = ID client (stratégie par défaut), instant d'acceptation en header
+        ProducerRecord<String, Object> record = sentRecord(1);
+        assertEquals("orders-input", record.topic());
+        assertEquals("C1", record.key());
+        assertEquals(order, record.value());
+        Header ingestTime = record.headers().lastHeader(OrderProducerService.INGEST_TIME_HEADER);
+        assertNotNull(ingestTime);
+        assertTrue(ByteBuffer.wrap(ingestTime.value()).getLong() >= before);
+    }
+
+    @Test
+    void testPartitionKeyFollowsStrategy() {
+        // Given
+        Order order = new Order("1", "C1", List.of("Item"), 20.0, "PENDING", System.currentTimeMillis());
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        // When & Then : order-id → ID de commande
+        ReflectionTestUtils.setField(service, "partitioningStrategy", OrderProducerService.STRATEGY_ORDER_ID);
+        service.sendOrder(order);
+        assertEquals("1", sentRecord(1).key());
+
+        // When & Then : sticky → pas de clé, répartition par OrderPartitioner
+        ReflectionTestUtils.setField(service, "partitioningStrategy", OrderProducerService.STRATEGY_STICKY);
+        service.sendOrder(order);
+        assertNull(sentRecord(2).key());
+    }
+
+    @Test
+    void testOrderWithoutCustomerIsSentWithoutKey() {
+        // Given : plus de clé fictive "no-id" qui concentrait ces commandes sur une partition
+        Order order = new Order("3", null, List.of("Item"), 20.0, "PENDING", System.currentTimeMillis());
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(new CompletableFuture<>());
+
         // When
         service.sendOrder(order);
 
         // Then
-        verify(kafkaTemplate, times(1))
-                .send("orders-input", "1", order);
+        assertNull(sentRecord(1).key());
+    }
+
+    @Test
+    void testRoutingHeadersAreWritten() {
+        // Given
+        Order order = new Order("4", "C4", List.of("Item"), 20.0, "completed", System.currentTimeMillis());
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        // When : routage fourni par l'API, puis routage par défaut
+        service.sendOrderAsync(order, new OrderProducerService.Routing("HIGH", " tenant-a ", "Replay"));
+        ProducerRecord<String, Object> routed = sentRecord(1);
+        service.sendOrder(order);
+        ProducerRecord<String, Object> defaults = sentRecord(2);
+
+        // Then : valeurs normalisées, tenant absent par défaut
+        assertEquals("COMPLETED", header(routed, OrderProducerService.STATUS_HEADER));
+        assertEquals("high", header(routed, OrderProducerService.PRIORITY_HEADER));
+        assertEquals("tenant-a", header(routed, OrderProducerService.TENANT_HEADER));
+        assertEquals(OrderProducerService.TYPE_REPLAY, header(routed, OrderProducerService.TYPE_HEADER));
+        assertEquals(OrderProducerService.PRIORITY_NORMAL, header(defaults, OrderProducerService.PRIORITY_HEADER));
+        assertEquals(OrderProducerService.TYPE_STANDARD, header(defaults, OrderProducerService.TYPE_HEADER));
+        assertNull(defaults.headers().lastHeader(OrderProducerService.TENANT_HEADER));
+    }
+
+    @Test
+    void testSendOrderAsyncReturnsFailedFutureOnSynchronousError() {
+        // Given : le producer Kafka échoue avant même l'envoi (buffer plein, etc.)
+        Order order = new Order("2", "C2", List.of("Item"), 20.0, "PENDING", System.currentTimeMillis());
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenThrow(new IllegalStateException("buffer full"));
+
+        // When
+        CompletableFuture<SendResult<String, Object>> future = service.sendOrderAsync(order);
+
+        // Then : l'erreur est remontée dans le futur, pas levée à l'appelant
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    private static String header(ProducerRecord<String, Object> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    // Dernier record envoyé, après 'sends' envois
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, Object> sentRecord(int sends) {
+        ArgumentCaptor<ProducerRecord<String, Object>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(sends)).send(captor.capture());
+        return captor.getValue();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package com.kafka.groupe6.order_system.unit.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.exception.OrderValidationException;
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.serialization.OrderBinaryCodec;
+import com.kafka.groupe6.order_system.serialization.OrderDeserializer;
+import com.kafka.groupe6.order_system.serialization.OrderPreValidator;
+
+/**
+ * Tests unitaires de la pré-validation des commandes sur leurs octets.
+ *
+ * Tests couverts:
+ * - Mêmes rejets que la validation complète, en JSON et en binaire
+ * - Champs inconnus et articles imbriqués sautés
+ * - Commande JSON valide construite par le même passage, identique à Jackson
+ * - Record rejeté marqué par ses headers (valeur null, octets d'origine conservés)
+ * - Contenu non tranché (JSON malformé) laissé au décodage complet
+ */
+class OrderPreValidatorTest {
+
+    @Test
+    @DisplayName("Doit rejeter une commande JSON invalide avec le message de la validation")
+    void shouldRejectInvalidJsonOrders() {
+        assertRejected("L'ID de la commande est obligatoire",
+            "{\"customerId\":\"C1\",\"items\":[\"A\"],\"totalAmount\":10}");
+        assertRejected("L'ID du client est obligatoire",
+            "{\"id\":\"O1\",\"customerId\":\"  \",\"items\":[\"A\"],\"totalAmount\":10}");
+        assertRejected("La commande doit contenir au moins un article",
+            "{\"id\":\"O1\",\"customerId\":\"C1\",\"items\":[],\"totalAmount\":10}");
+        assertRejected("Les articles de la commande ne peuvent pas être null",
+            "{\"id\":\"O1\",\"customerId\":\"C1\",\"items\":[\"A\",null],\"totalAmount\":10}");
+        assertRejected(String.format("Le montant minimum est de %.2f€", OrderPreValidator.MIN_ORDER_AMOUNT),
+            "{\"id\":\"O1\",\"customerId\":\"C1\",\"items\":[\"A\"]}");
+        assertRejected(String.format("Le montant maximum est de %.2f€", OrderPreValidator.MAX_ORDER_AMOUNT),
+            "{\"id\":\"O1\",\"customerId\":\"C1\",\"items\":[\"A\"],\"totalAmount\":1e6}");
+    }
+
+    @Test
+    @DisplayName("Doit rejeter une commande binaire invalide en gardant son id")
+    void shouldRejectInvalidBinaryOrders() {
+        Order noItems = new Order("ORDER-É", "C1", null, 10.0, "PENDING", 1L);
+        Order tooCheap = new Order("ORDER-2", "C1", List.of("A", "B"), 0.0, "PENDING", 1L);
+
+        OrderPreValidator.Rejection rejection = OrderPreValidator.check(OrderBinaryCodec.encode(noItems), true);
+        assertEquals("ORDER-É", rejection.getOrderId());
+        assertEquals("La commande doit contenir au moins un article", rejection.getError());
+        assertNotNull(OrderPreValidator.check(OrderBinaryCodec.encode(tooCheap), true));
+        assertEquals("Les articles de la commande ne peuvent pas être null", OrderPreValidator.check(
+            OrderBinaryCodec.encode(new Order("ORDER-4", "C1", Arrays.asList("A", null), 10.0, "PENDING", 1L)), true)
+            .getError());
+        assertNull(OrderPreValidator.check(
+            OrderBinaryCodec.encode(new Order("ORDER-3", "C1", List.of("A"), 10.0, "PENDING", 1L)), true));
+    }
+
+    @Test
+    @DisplayName("Doit laisser passer une commande valide et ignorer les champs inconnus")
+    void shouldAcceptValidOrderWithUnknownFields() {
+        String json = "{\"meta\":{\"source\":[1,{\"x\":null}]},\"id\":\"O1\",\"customerId\":\"C1\","
+            + "\"items\":[\"A\",{\"sku\":\"B\"}],\"totalAmount\":99.5,\"status\":\"PENDING\",\"timestamp\":1}";
+        OrderDeserializer deserializer = new OrderDeserializer(null, true);
+        deserializer.configure(Collections.singletonMap("spring.json.trusted.packages", "*"), false);
+
+        assertNull(OrderPreValidator.check(json.getBytes(StandardCharsets.UTF_8), false));
+        Order order = deserializer.deserialize("orders-input", new RecordHeaders(),
+            "{\"id\":\"O1\",\"customerId\":\"C1\",\"items\":[\"A\"],\"totalAmount\":99.5}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("A"), order.getItems());
+    }
+
+    @Test
+    @DisplayName("Doit construire la commande JSON valide comme Jackson, en un seul passage")
+    void shouldBindValidJsonOrderLikeJackson() {
+        OrderDeserializer preValidating = new OrderDeserializer(null, true);
+        OrderDeserializer jackson = new OrderDeserializer();
+        preValidating.configure(Collections.singletonMap("spring.json.trusted.packages", "*"), false);
+        jackson.configure(Collections.singletonMap("spring.json.trusted.packages", "*"), false);
+        String[] payloads = {
+            "{\"id\":\"O1\",\"customerId\":\"C1\",\"items\":[\"Écran\",null],\"totalAmount\":12,"
+                + "\"status\":\"PENDING\",\"timestamp\":1702742400000,\"extra\":[1]}",
+            // Conversions laissées à Jackson: id numérique, timestamp décimal
+            "{\"id\":42,\"customerId\":\"C1\",\"items\":[\"A\"],\"totalAmount\":12.5,\"timestamp\":1.0}"
+        };
+
+        for (String payload : payloads) {
+            byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+            Order expected = jackson.deserialize("orders-input", new RecordHeaders(), data);
+            Order order = preValidating.deserialize("orders-input", new RecordHeaders(), data);
+
+            assertEquals(expected.getId(), order.getId());
+            assertEquals(expected.getCustomerId(), order.getCustomerId());
+            assertEquals(expected.getItems(), order.getItems());
+            assertEquals(expected.getTotalAmount(), order.getTotalAmount());
+            assertEquals(expected.getStatus(), order.getStatus());
+            assertEquals(expected.getTimestamp(), order.getTimestamp());
+        }
+    }
+
+    @Test
+    @DisplayName("Doit laisser un contenu malformé au décodage complet")
+    void shouldLeaveMalformedPayloadToFullDecoding() {
+        byte[] truncated = "{\"id\":\"O1\",\"items\":[".getBytes(StandardCharsets.UTF_8);
+        OrderDeserializer deserializer = new OrderDeserializer(null, true);
+
+        assertNull(OrderPreValidator.check(truncated, false));
+        assertNull(OrderPreValidator.check(new byte[] {OrderBinaryCodec.MAGIC, 1, 5}, true));
+        assertThrows(SerializationException.class,
+            () -> deserializer.deserialize("orders-input", new RecordHeaders(), truncated));
+    }
+
+    @Test
+    @DisplayName("Doit marquer le record rejeté au lieu de construire la commande")
+    void shouldMarkRejectedRecord() {
+        byte[] payload = "{\"id\":\"O1\",\"customerId\":\"C1\",\"items\":[],\"totalAmount\":10}"
+            .getBytes(StandardCharsets.UTF_8);
+        RecordHeaders headers = new RecordHeaders();
+
+        Order order = new OrderDeserializer(null, true).deserialize("orders-input", headers, payload);
+
+        assertNull(order);
+        assertSame(payload, OrderPreValidator.rejectedPayload(headers));
+        OrderValidationException e = OrderPreValidator.rejectionOf(headers);
+        assertEquals("O1", e.getOrderId());
+        assertEquals("La commande doit contenir au moins un article", e.getValidationError());
+        assertNull(OrderPreValidator.rejectionOf(new RecordHeaders()));
+    }
+
+    private static void assertRejected(String expectedError, String json) {
+        OrderPreValidator.Rejection rejection = OrderPreValidator.check(json.getBytes(StandardCharsets.UTF_8), false);
+        assertNotNull(rejection);
+        assertEquals(expectedError, rejection.getError());
+    }
+}
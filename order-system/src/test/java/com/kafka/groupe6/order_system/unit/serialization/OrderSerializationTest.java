@@ -0,0 +1,211 @@
+package com.kafka.groupe6.order_system.unit.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.kafka.groupe6.order_system.model.Order;
+import com.kafka.groupe6.order_system.serialization.OrderBinaryCodec;
+import com.kafka.groupe6.order_system.serialization.OrderDeserializer;
+import com.kafka.groupe6.order_system.serialization.OrderSerializer;
+
+/**
+ * Tests unitaires du codec binaire et du choix de format par topic.
+ *
+ * Tests couverts:
+ * - Aller-retour binaire (y compris champs null et caractères non ASCII)
+ * - Choix binaire / JSON selon le topic, header content-type
+ * - Décodage d'un trafic mixte (avec ou sans header)
+ * - Rejet d'une version inconnue ou d'un message tronqué
+ * - Rejet d'un nombre d'articles ou d'une longueur forgés, sans allocation à leur taille
+ */
+class OrderSerializationTest {
+
+    private OrderSerializer serializer;
+    private OrderDeserializer deserializer;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new OrderSerializer(List.of("orders-input"));
+        serializer.configure(Collections.emptyMap(), false);
+        deserializer = new OrderDeserializer();
+        deserializer.configure(Collections.singletonMap("spring.json.trusted.packages", "*"), false);
+    }
+
+    @Test
+    @DisplayName("Doit restituer une commande encodée en binaire")
+    void shouldRoundTripBinaryOrder() {
+        // Given
+        Order order = createOrder();
+        order.setItems(Arrays.asList("Écran 27\"", "Clavier ⌨"));
+
+        // When
+        Order decoded = OrderBinaryCodec.decode(OrderBinaryCodec.encode(order));
+
+        // Then
+        assertOrderEquals(order, decoded);
+    }
+
+    @Test
+    @DisplayName("Doit conserver les champs null")
+    void shouldRoundTripNullFields() {
+        // Given
+        Order order = new Order(null, null, null, 0.0, null, 0L);
+
+        // When
+        Order decoded = OrderBinaryCodec.decode(OrderBinaryCodec.encode(order));
+
+        // Then
+        assertNull(decoded.getId());
+        assertNull(decoded.getCustomerId());
+        assertNull(decoded.getItems());
+        assertNull(decoded.getStatus());
+    }
+
+    @Test
+    @DisplayName("Doit encoder en binaire sur un topic binaire et en JSON ailleurs")
+    void shouldSelectFormatPerTopic() {
+        // Given
+        Order order = createOrder();
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        RecordHeaders jsonHeaders = new RecordHeaders();
+
+        // When
+        byte[] binary = serializer.serialize("orders-input", binaryHeaders, order);
+        byte[] json = serializer.serialize("orders-processed", jsonHeaders, order);
+
+        // Then
+        assertTrue(OrderBinaryCodec.isBinary(binary));
+        assertEquals(OrderSerializer.CONTENT_TYPE_BINARY, contentType(binaryHeaders));
+        assertEquals('{', (char) json[0]);
+        assertEquals(OrderSerializer.CONTENT_TYPE_JSON, contentType(jsonHeaders));
+        assertTrue(binary.length < json.length);
+    }
+
+    @Test
+    @DisplayName("Doit remplacer le content-type recopié du record d'origine")
+    void shouldReplaceCopiedContentType() {
+        // Given : record binaire republié vers un topic JSON
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(OrderSerializer.CONTENT_TYPE_HEADER,
+            OrderSerializer.CONTENT_TYPE_BINARY.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        serializer.serialize("orders-processed", headers, createOrder());
+
+        // Then
+        assertEquals(1, countContentTypeHeaders(headers));
+        assertEquals(OrderSerializer.CONTENT_TYPE_JSON, contentType(headers));
+    }
+
+    @Test
+    @DisplayName("Doit décoder un trafic mixte binaire et JSON")
+    void shouldDecodeMixedTraffic() {
+        // Given
+        Order order = createOrder();
+        RecordHeaders binaryHeaders = new RecordHeaders();
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] binary = serializer.serialize("orders-input", binaryHeaders, order);
+        byte[] json = serializer.serialize("orders-processed", jsonHeaders, order);
+
+        // When & Then : avec header
+        assertOrderEquals(order, deserializer.deserialize("orders-input", binaryHeaders, binary));
+        assertOrderEquals(order, deserializer.deserialize("orders-input", jsonHeaders, json));
+
+        // When & Then : sans header (anciens messages)
+        assertOrderEquals(order, deserializer.deserialize("orders-input", new RecordHeaders(), binary));
+        assertOrderEquals(order, deserializer.deserialize("orders-input", new RecordHeaders(), json));
+    }
+
+    @Test
+    @DisplayName("Doit transmettre un byte[] sans le modifier")
+    void shouldPassRawBytesThrough() {
+        // Given
+        byte[] raw = {1, 2, 3};
+
+        // When & Then
+        assertArrayEquals(raw, serializer.serialize("orders-input", new RecordHeaders(), raw));
+    }
+
+    @Test
+    @DisplayName("Doit rejeter une version inconnue ou un message tronqué")
+    void shouldRejectUnknownVersionAndTruncatedData() {
+        // Given
+        byte[] encoded = OrderBinaryCodec.encode(createOrder());
+        byte[] unknownVersion = encoded.clone();
+        unknownVersion[1] = 99;
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 4);
+
+        // When & Then
+        assertThrows(SerializationException.class, () -> OrderBinaryCodec.decode(unknownVersion));
+        assertThrows(SerializationException.class, () -> OrderBinaryCodec.decode(truncated));
+    }
+
+    @Test
+    @DisplayName("Doit rejeter un nombre d'articles ou une longueur forgés sans les allouer")
+    void shouldRejectForgedSizes() {
+        // Given : id "x", client "y", puis 2^31 - 2 articles annoncés dans 11 octets
+        byte[] hugeItemCount = {(byte) 0xC6, 0x01, 0x02, 0x78, 0x02, 0x79,
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        // Longueur d'id négative une fois lue (varint > Integer.MAX_VALUE)
+        byte[] negativeLength = {(byte) 0xC6, 0x01,
+            (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0x78};
+        OrderDeserializer preValidating = new OrderDeserializer(null, true);
+        preValidating.configure(Collections.singletonMap("spring.json.trusted.packages", "*"), false);
+
+        // When & Then : SerializationException (DLQ), jamais OutOfMemoryError
+        assertThrows(SerializationException.class, () -> OrderBinaryCodec.decode(hugeItemCount));
+        assertThrows(SerializationException.class, () -> OrderBinaryCodec.decode(negativeLength));
+        assertThrows(SerializationException.class,
+            () -> preValidating.deserialize("orders-input", new RecordHeaders(), hugeItemCount));
+        assertThrows(SerializationException.class,
+            () -> deserializer.deserialize("orders-input", new RecordHeaders(), negativeLength));
+    }
+
+    // ==================== HELPERS ====================
+
+    private Order createOrder() {
+        return new Order(
+            "ORDER-123",
+            "CUSTOMER-001",
+            Arrays.asList("Laptop", "Mouse"),
+            99.99,
+            "PENDING",
+            1702742400000L
+        );
+    }
+
+    private void assertOrderEquals(Order expected, Order actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getCustomerId(), actual.getCustomerId());
+        assertEquals(expected.getItems(), actual.getItems());
+        assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+    }
+
+    private String contentType(RecordHeaders headers) {
+        return new String(headers.lastHeader(OrderSerializer.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8);
+    }
+
+    private int countContentTypeHeaders(RecordHeaders headers) {
+        int count = 0;
+        for (Header ignored : headers.headers(OrderSerializer.CONTENT_TYPE_HEADER)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,80 @@
+package com.kafka.groupe6.order_system.unit.tracing;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+
+import com.kafka.groupe6.order_system.tracing.OrderTraceSampler;
+
+/**
+ * Tests unitaires de l'échantillonnage en tête.
+ *
+ * Tests couverts:
+ * - Décision du parent (header traceparent) respectée
+ * - Part des nouvelles traces retenues, les autres enregistrées sans export
+ * - Taux hors de [0, 1] refusé
+ */
+class OrderTraceSamplerTest {
+
+    private static final IdGenerator IDS = IdGenerator.random();
+
+    @Test
+    @DisplayName("Doit suivre la décision du parent")
+    void shouldFollowParentDecision() {
+        OrderTraceSampler sampler = new OrderTraceSampler(0.0);
+
+        assertEquals(SamplingDecision.RECORD_AND_SAMPLE, decide(sampler, parent(TraceFlags.getSampled())));
+        assertEquals(SamplingDecision.RECORD_ONLY,
+            decide(new OrderTraceSampler(1.0), parent(TraceFlags.getDefault())));
+    }
+
+    @Test
+    @DisplayName("Doit retenir la part configurée des nouvelles traces et enregistrer les autres")
+    void shouldSampleRootTracesByRatio() {
+        OrderTraceSampler sampler = new OrderTraceSampler(0.1);
+
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            SamplingDecision decision = decide(sampler, Context.root());
+            assertTrue(decision != SamplingDecision.DROP);
+            if (decision == SamplingDecision.RECORD_AND_SAMPLE) {
+                sampled++;
+            }
+        }
+        assertEquals(1000, sampled, 150);
+    }
+
+    @Test
+    @DisplayName("Doit refuser un taux hors de [0, 1]")
+    void shouldRejectInvalidRate() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderTraceSampler(1.5));
+    }
+
+    private static Context parent(TraceFlags flags) {
+        SpanContext parent = SpanContext.createFromRemoteParent(
+            IDS.generateTraceId(), IDS.generateSpanId(), flags, TraceState.getDefault());
+        return Context.root().with(Span.wrap(parent));
+    }
+
+    private static SamplingDecision decide(OrderTraceSampler sampler, Context parentContext) {
+        String traceId = Span.fromContext(parentContext).getSpanContext().isValid()
+            ? Span.fromContext(parentContext).getSpanContext().getTraceId()
+            : IDS.generateTraceId();
+        return sampler.shouldSample(parentContext, traceId, "span", SpanKind.CONSUMER,
+            Attributes.empty(), List.of()).getDecision();
+    }
+}
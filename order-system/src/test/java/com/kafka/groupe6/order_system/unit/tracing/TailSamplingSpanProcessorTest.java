@@ -0,0 +1,282 @@
+package com.kafka.groupe6.order_system.unit.tracing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import com.kafka.groupe6.order_system.config.KafkaTopicConfig;
+import com.kafka.groupe6.order_system.tracing.JsonLinesSpanExporter;
+import com.kafka.groupe6.order_system.tracing.OrderSpans;
+import com.kafka.groupe6.order_system.tracing.OrderTraceSampler;
+import com.kafka.groupe6.order_system.tracing.TailSamplingSpanProcessor;
+
+/**
+ * Tests unitaires de l'échantillonnage en queue des traces.
+ *
+ * Tests couverts:
+ * - Traces rapides et réussies gardées en mémoire sans export
+ * - Trace entière exportée dès qu'un span est en erreur, lent ou passe par un retry
+ * - Traces retenues en tête exportées directement
+ * - Traces abandonnées après le délai d'attente ou au-delà de la limite de spans
+ * - Format JSON lines de l'export fichier
+ * - Export hors des threads applicatifs, file bornée
+ */
+class TailSamplingSpanProcessorTest {
+
+    private static final long SLOW_MS = 500;
+    private static final long NOW = 1_000_000L;
+
+    private final AtomicLong now = new AtomicLong(NOW);
+    private final Clock clock = mock(Clock.class);
+    private final List<SpanData> exported = new CopyOnWriteArrayList<>();
+    private TailSamplingSpanProcessor processor;
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        when(clock.millis()).thenAnswer(inv -> now.get());
+        setUp(0.0, 100);
+    }
+
+    private void setUp(double headSamplingRate, int maxBufferedSpans) {
+        processor = new TailSamplingSpanProcessor(new CollectingExporter(), SLOW_MS, 60, maxBufferedSpans, 1_000, clock);
+        tracerProvider = SdkTracerProvider.builder()
+            .setSampler(new OrderTraceSampler(headSamplingRate))
+            .addSpanProcessor(processor)
+            .build();
+        tracer = tracerProvider.get("test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    @Test
+    @DisplayName("Doit garder en mémoire sans exporter les traces rapides et réussies")
+    void shouldBufferFastSuccessfulTraces() {
+        Span root = tracer.spanBuilder("POST /api/orders").startSpan();
+        endChild(root, "orders-input send", 0);
+        root.end();
+
+        assertTrue(exported().isEmpty());
+        assertEquals(2, processor.getBufferedSpans());
+        assertFalse(root.getSpanContext().isSampled());
+    }
+
+    @Test
+    @DisplayName("Doit exporter toute la trace dès qu'un span est en erreur")
+    void shouldExportWholeTraceOnError() {
+        Span root = tracer.spanBuilder("POST /api/orders").startSpan();
+        endChild(root, "orders-input send", 0);
+        Span receive = tracer.spanBuilder("orders-input receive")
+            .setParent(Context.current().with(root)).startSpan();
+        receive.setStatus(StatusCode.ERROR, "stock indisponible");
+        receive.end();
+
+        assertEquals(2, exported().size());
+        assertEquals(0, processor.getBufferedSpans());
+
+        // Spans suivants de la même trace exportés directement
+        root.end();
+        assertEquals(3, exported().size());
+        assertTrue(exported().stream().allMatch(span -> span.getTraceId().equals(root.getSpanContext().getTraceId())));
+    }
+
+    @Test
+    @DisplayName("Doit exporter les traces lentes et celles passées par un retry ou la DLQ")
+    void shouldExportSlowAndRetriedTraces() {
+        Span slow = tracer.spanBuilder("orders-input receive").startSpan();
+        endChild(slow, "orders-processed send", SLOW_MS + 1);
+        assertEquals(1, exported().size());
+
+        Span retried = tracer.spanBuilder("orders-input receive").startSpan();
+        tracer.spanBuilder(KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC + " receive")
+            .setParent(Context.current().with(retried))
+            .setAttribute("messaging.source.name", KafkaTopicConfig.ORDERS_RETRY_1S_TOPIC)
+            .startSpan().end();
+        assertEquals(2, exported().size());
+
+        tracer.spanBuilder("orders-dlq send")
+            .setAttribute("messaging.destination.name", KafkaTopicConfig.ORDERS_DLQ_TOPIC)
+            .startSpan().end();
+        assertEquals(3, exported().size());
+    }
+
+    @Test
+    @DisplayName("Doit exporter directement les traces retenues en tête")
+    void shouldExportHeadSampledTraces() {
+        tracerProvider.close();
+        setUp(1.0, 100);
+
+        Span root = tracer.spanBuilder("POST /api/orders").startSpan();
+        root.end();
+
+        assertTrue(root.getSpanContext().isSampled());
+        assertEquals(1, exported().size());
+        assertEquals(0, processor.getBufferedSpans());
+    }
+
+    @Test
+    @DisplayName("Doit abandonner les traces trop anciennes ou au-delà de la limite")
+    void shouldEvictExpiredAndOverflowingTraces() {
+        tracerProvider.close();
+        setUp(0.0, 3);
+
+        Span expired = tracer.spanBuilder("orders-input receive").startSpan();
+        expired.end();
+        now.addAndGet(TimeUnit.SECONDS.toMillis(61));
+
+        // La trace expirée sort au span suivant: son échec tardif n'exporte que ce span
+        tracer.spanBuilder("other").startSpan().end();
+        assertEquals(1, processor.getBufferedSpans());
+        Span lateFailure = tracer.spanBuilder("orders-dlq receive")
+            .setParent(Context.current().with(expired)).startSpan();
+        lateFailure.setStatus(StatusCode.ERROR);
+        lateFailure.end();
+        assertEquals(1, exported().size());
+
+        for (int i = 0; i < 5; i++) {
+            tracer.spanBuilder("fast-" + i).startSpan().end();
+        }
+        assertEquals(3, processor.getBufferedSpans());
+    }
+
+    @Test
+    @DisplayName("Doit écrire un span JSON par ligne avec l'id de commande")
+    void shouldWriteJsonLines() throws IOException {
+        Path file = directory.resolve("traces/spans.jsonl");
+        JsonLinesSpanExporter exporter = new JsonLinesSpanExporter(file);
+        tracerProvider.close();
+        processor = new TailSamplingSpanProcessor(exporter, SLOW_MS, 60, 100, 1_000, clock);
+        tracerProvider = SdkTracerProvider.builder()
+            .setSampler(new OrderTraceSampler(1.0))
+            .addSpanProcessor(processor)
+            .build();
+
+        Span span = tracerProvider.get("test").spanBuilder("orders-input receive").startSpan();
+        try (var scope = span.makeCurrent()) {
+            OrderSpans.tagOrder("ORD-42");
+        }
+        span.end();
+        processor.forceFlush();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"traceId\":\"" + span.getSpanContext().getTraceId() + "\""));
+        assertTrue(lines.get(0).contains("\"order.id\":\"ORD-42\""));
+        assertTrue(lines.get(0).contains("\"sampled\":true"));
+    }
+
+    /**
+     * Spans exportés, après écriture de la file d'export.
+     */
+    private List<SpanData> exported() {
+        processor.forceFlush();
+        return exported;
+    }
+
+    @Test
+    @DisplayName("Doit exporter sur son propre thread et abandonner au-delà de la file")
+    void shouldExportOnDedicatedThreadWithBoundedQueue() throws InterruptedException {
+        List<String> exportThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        tracerProvider.close();
+        processor = new TailSamplingSpanProcessor(new CollectingExporter() {
+            @Override
+            public CompletableResultCode export(Collection<SpanData> spans) {
+                exportThreads.add(Thread.currentThread().getName());
+                awaitQuietly(release);
+                return super.export(spans);
+            }
+        }, SLOW_MS, 60, 100, 2, clock);
+        tracerProvider = SdkTracerProvider.builder()
+            .setSampler(new OrderTraceSampler(1.0))
+            .addSpanProcessor(processor)
+            .build();
+        Tracer sampledTracer = tracerProvider.get("test");
+
+        // Premier span pris par le thread d'export, bloqué dans l'écriture
+        sampledTracer.spanBuilder("first").startSpan().end();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (exportThreads.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // File de 2: le quatrième span est abandonné, sans bloquer le thread appelant
+        for (int i = 0; i < 3; i++) {
+            sampledTracer.spanBuilder("next-" + i).startSpan().end();
+        }
+        assertEquals(1, processor.getDroppedSpans());
+
+        release.countDown();
+        assertEquals(3, exported().size());
+        assertEquals("span-exporter", exportThreads.get(0));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void endChild(Span parent, String name, long durationMs) {
+        long start = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        tracer.spanBuilder(name)
+            .setParent(Context.current().with(parent))
+            .setStartTimestamp(start, TimeUnit.NANOSECONDS)
+            .startSpan()
+            .end(start + TimeUnit.MILLISECONDS.toNanos(durationMs), TimeUnit.NANOSECONDS);
+    }
+
+    private class CollectingExporter implements SpanExporter {
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            exported.addAll(spans);
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}